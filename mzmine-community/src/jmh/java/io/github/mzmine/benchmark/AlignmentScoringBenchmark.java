@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.benchmark;
+
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.main.ConfigService;
+import io.github.mzmine.modules.dataprocessing.align_join.JoinAlignerModule;
+import io.github.mzmine.modules.dataprocessing.align_join.JoinAlignerParameters;
+import io.github.mzmine.modules.dataprocessing.align_join.JoinRowAlignScorer;
+import io.github.mzmine.modules.dataprocessing.align_join.RowVsRowScore;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.parameters.parametertypes.tolerances.RTTolerance;
+import io.github.mzmine.parameters.parametertypes.tolerances.RTTolerance.Unit;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.TimeUnit;
+import javafx.scene.paint.Color;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Row scoring as done by the BaseFeatureListAligner with the join aligner scorer: every row of a
+ * feature list is scored against the m/z sorted base rows, followed by sorting all scores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AlignmentScoringBenchmark {
+
+  @Param({"5000", "20000"})
+  public int numRows;
+
+  private JoinRowAlignScorer scorer;
+  private List<FeatureListRow> baseRows;
+  private List<FeatureListRow> rowsToAlign;
+
+  @Setup
+  public void setup() {
+    final Random random = BenchmarkData.random(numRows);
+    final RawDataFile rawA = new RawDataFileImpl("a", null, null, Color.BLACK);
+    final RawDataFile rawB = new RawDataFileImpl("b", null, null, Color.BLACK);
+    final ModularFeatureList flistA = BenchmarkData.featureList(random, "a", rawA, numRows);
+    final ModularFeatureList flistB = BenchmarkData.shiftedFeatureList(random, "b", rawB, flistA);
+    baseRows = flistA.getRows();
+    rowsToAlign = flistB.getRows();
+
+    final ParameterSet param = ConfigService.getConfiguration()
+        .getModuleParameters(JoinAlignerModule.class).cloneParameterSet();
+    param.setParameter(JoinAlignerParameters.compareIsotopePattern, false);
+    param.setParameter(JoinAlignerParameters.compareSpectraSimilarity, false);
+    param.setParameter(JoinAlignerParameters.mobilityTolerance, false);
+    param.setParameter(JoinAlignerParameters.mobilityWeight, 0d);
+    param.setParameter(JoinAlignerParameters.MZTolerance, new MZTolerance(0.003, 10));
+    param.setParameter(JoinAlignerParameters.MZWeight, 3d);
+    param.setParameter(JoinAlignerParameters.RTTolerance, new RTTolerance(0.2f, Unit.MINUTES));
+    param.setParameter(JoinAlignerParameters.RTWeight, 1d);
+    param.setParameter(JoinAlignerParameters.SameChargeRequired, false);
+    param.setParameter(JoinAlignerParameters.SameIDRequired, false);
+    scorer = new JoinRowAlignScorer(param);
+  }
+
+  @Benchmark
+  public void scoreAndSort(Blackhole bh) {
+    final ConcurrentLinkedDeque<RowVsRowScore> scores = new ConcurrentLinkedDeque<>();
+    for (FeatureListRow row : rowsToAlign) {
+      scorer.scoreRowAgainstBaseRows(baseRows, row, scores);
+    }
+    // natural order is reversed so best highest score is first element
+    bh.consume(scores.stream().sorted().toArray(RowVsRowScore[]::new));
+  }
+}
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.benchmark;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.datamodel.FeatureStatus;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.features.ModularFeature;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.features.types.DetectionType;
+import io.github.mzmine.datamodel.features.types.RawFileType;
+import io.github.mzmine.datamodel.features.types.numbers.HeightType;
+import io.github.mzmine.datamodel.features.types.numbers.MZType;
+import io.github.mzmine.datamodel.features.types.numbers.RTType;
+import io.github.mzmine.datamodel.impl.SimpleDataPoint;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.datamodel.impl.masslist.SimpleMassList;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import javafx.scene.paint.Color;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Synthetic data generators for the benchmarks. All data is derived from a {@link Random} with a
+ * fixed seed so that results of different runs and commits are comparable.
+ */
+public final class BenchmarkData {
+
+  public static final long SEED = 42L;
+
+  private BenchmarkData() {
+  }
+
+  /**
+   * @param salt changes the seed for different data sets of the same benchmark
+   * @return a random with a fixed seed
+   */
+  public static Random random(long salt) {
+    return new Random(SEED * 31 + salt);
+  }
+
+  /**
+   * Centroid spectrum with intensities following an exponential distribution (few high, many low
+   * signals), sorted by m/z.
+   */
+  public static DataPoint[] centroidSpectrum(@NotNull Random random, int numSignals,
+      double minMz, double maxMz) {
+    final DataPoint[] dps = new DataPoint[numSignals];
+    for (int i = 0; i < numSignals; i++) {
+      final double mz = minMz + random.nextDouble() * (maxMz - minMz);
+      final double intensity = 1E3 + -Math.log(1 - random.nextDouble()) * 1E5;
+      dps[i] = new SimpleDataPoint(mz, intensity);
+    }
+    Arrays.sort(dps, Comparator.comparingDouble(DataPoint::getMZ));
+    return dps;
+  }
+
+  /**
+   * Derives a similar spectrum: each signal is kept with probability sharedFraction and shifted by
+   * a small m/z error and intensity noise, the rest is replaced by random signals.
+   */
+  public static DataPoint[] similarSpectrum(@NotNull Random random, DataPoint[] spectrum,
+      double sharedFraction, double maxMzError) {
+    final DataPoint[] dps = new DataPoint[spectrum.length];
+    final double minMz = spectrum[0].getMZ();
+    final double maxMz = spectrum[spectrum.length - 1].getMZ();
+    for (int i = 0; i < spectrum.length; i++) {
+      if (random.nextDouble() < sharedFraction) {
+        final double mz = spectrum[i].getMZ() + (random.nextDouble() * 2 - 1) * maxMzError;
+        final double intensity = spectrum[i].getIntensity() * (0.8 + random.nextDouble() * 0.4);
+        dps[i] = new SimpleDataPoint(mz, intensity);
+      } else {
+        dps[i] = new SimpleDataPoint(minMz + random.nextDouble() * (maxMz - minMz),
+            1E3 + random.nextDouble() * 1E5);
+      }
+    }
+    Arrays.sort(dps, Comparator.comparingDouble(DataPoint::getMZ));
+    return dps;
+  }
+
+  /**
+   * Profile spectrum of gaussian shaped m/z peaks on a regular m/z grid with a low noise floor.
+   *
+   * @return [0] m/z values, [1] intensities
+   */
+  public static double[][] profileSpectrum(@NotNull Random random, int numPeaks, double minMz,
+      double maxMz, double mzStep) {
+    final int numPoints = (int) ((maxMz - minMz) / mzStep);
+    final double[] mzs = new double[numPoints];
+    final double[] intensities = new double[numPoints];
+    for (int i = 0; i < numPoints; i++) {
+      mzs[i] = minMz + i * mzStep;
+      intensities[i] = random.nextDouble() * 50;
+    }
+
+    // peak width in data points
+    final double sigma = 2.5;
+    for (int p = 0; p < numPeaks; p++) {
+      final double center = random.nextDouble() * numPoints;
+      final double height = 1E3 + -Math.log(1 - random.nextDouble()) * 1E5;
+      final int from = Math.max(0, (int) (center - 5 * sigma));
+      final int to = Math.min(numPoints - 1, (int) (center + 5 * sigma));
+      for (int i = from; i <= to; i++) {
+        final double d = (i - center) / sigma;
+        intensities[i] += height * Math.exp(-0.5 * d * d);
+      }
+    }
+    return new double[][]{mzs, intensities};
+  }
+
+  /**
+   * Chromatogram with gaussian peaks, some of them overlapping, on an equidistant RT axis.
+   *
+   * @return [0] retention times (strictly increasing), [1] intensities
+   */
+  public static double[][] chromatogram(@NotNull Random random, int numPoints, int numPeaks) {
+    final double[] rts = new double[numPoints];
+    final double[] intensities = new double[numPoints];
+    for (int i = 0; i < numPoints; i++) {
+      rts[i] = i * 0.01;
+      intensities[i] = random.nextDouble() * 100;
+    }
+    for (int p = 0; p < numPeaks; p++) {
+      final double center = random.nextDouble() * numPoints;
+      final double sigma = 3 + random.nextDouble() * 6;
+      final double height = 1E4 + random.nextDouble() * 1E6;
+      final int from = Math.max(0, (int) (center - 5 * sigma));
+      final int to = Math.min(numPoints - 1, (int) (center + 5 * sigma));
+      for (int i = from; i <= to; i++) {
+        final double d = (i - center) / sigma;
+        intensities[i] += height * Math.exp(-0.5 * d * d);
+      }
+    }
+    return new double[][]{rts, intensities};
+  }
+
+  /**
+   * LC-MS raw data file with centroided MS1 scans. Each scan contains signals of numTraces
+   * compounds eluting as gaussian peaks plus random noise signals. Mass lists are set to the same
+   * values as the scans.
+   */
+  public static RawDataFile lcmsRawDataFile(@NotNull Random random, String name, int numScans,
+      int numTraces, int noiseSignalsPerScan) {
+    final RawDataFile raw = new RawDataFileImpl(name, null, null, Color.BLACK);
+
+    final double[] traceMzs = new double[numTraces];
+    final double[] traceApex = new double[numTraces];
+    final double[] traceSigma = new double[numTraces];
+    final double[] traceHeight = new double[numTraces];
+    for (int t = 0; t < numTraces; t++) {
+      traceMzs[t] = 100 + random.nextDouble() * 900;
+      traceApex[t] = random.nextDouble() * numScans;
+      traceSigma[t] = 2 + random.nextDouble() * 5;
+      traceHeight[t] = 1E4 + random.nextDouble() * 1E6;
+    }
+
+    for (int s = 0; s < numScans; s++) {
+      final DataPoint[] dps = new DataPoint[numTraces + noiseSignalsPerScan];
+      int n = 0;
+      for (int t = 0; t < numTraces; t++) {
+        final double d = (s - traceApex[t]) / traceSigma[t];
+        if (Math.abs(d) < 5) {
+          final double mz = traceMzs[t] + (random.nextDouble() * 2 - 1) * 0.001;
+          dps[n++] = new SimpleDataPoint(mz, traceHeight[t] * Math.exp(-0.5 * d * d));
+        }
+      }
+      for (int i = 0; i < noiseSignalsPerScan; i++) {
+        dps[n++] = new SimpleDataPoint(100 + random.nextDouble() * 900,
+            100 + random.nextDouble() * 900);
+      }
+      final DataPoint[] sorted = Arrays.copyOf(dps, n);
+      Arrays.sort(sorted, Comparator.comparingDouble(DataPoint::getMZ));
+      final double[] mzs = new double[n];
+      final double[] intensities = new double[n];
+      for (int i = 0; i < n; i++) {
+        mzs[i] = sorted[i].getMZ();
+        intensities[i] = sorted[i].getIntensity();
+      }
+
+      final Scan scan = new SimpleScan(raw, s + 1, 1, s * 0.02f, null, mzs, intensities,
+          MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "", Range.closed(100d, 1000d));
+      scan.addMassList(new SimpleMassList(null, mzs, intensities));
+      raw.addScan(scan);
+    }
+    return raw;
+  }
+
+  /**
+   * Feature list with one feature per row. m/z and RT are randomly distributed, rows are sorted
+   * by m/z ascending.
+   */
+  public static ModularFeatureList featureList(@NotNull Random random, String name,
+      RawDataFile raw, int numRows) {
+    final ModularFeatureList flist = new ModularFeatureList(name, null, numRows, numRows, raw);
+    final double[] mzs = new double[numRows];
+    for (int i = 0; i < numRows; i++) {
+      mzs[i] = 100 + random.nextDouble() * 900;
+    }
+    Arrays.sort(mzs);
+    for (int i = 0; i < numRows; i++) {
+      final ModularFeature f = new ModularFeature(flist);
+      f.set(RawFileType.class, raw);
+      f.set(MZType.class, mzs[i]);
+      f.set(RTType.class, random.nextFloat() * 20);
+      f.set(HeightType.class, 1E3f + random.nextFloat() * 1E6f);
+      f.set(DetectionType.class, FeatureStatus.DETECTED);
+      flist.addRow(new ModularFeatureListRow(flist, i + 1, f));
+    }
+    return flist;
+  }
+
+  /**
+   * Copy of a feature list with small m/z and RT shifts as in a second sample of the same batch.
+   */
+  public static ModularFeatureList shiftedFeatureList(@NotNull Random random, String name,
+      RawDataFile raw, ModularFeatureList template) {
+    final int numRows = template.getNumberOfRows();
+    final ModularFeatureList flist = new ModularFeatureList(name, null, numRows, numRows, raw);
+    for (int i = 0; i < numRows; i++) {
+      final var templateRow = template.getRow(i);
+      final ModularFeature f = new ModularFeature(flist);
+      f.set(RawFileType.class, raw);
+      f.set(MZType.class, templateRow.getAverageMZ() * (1 + (random.nextDouble() * 2 - 1) * 3E-6));
+      f.set(RTType.class, templateRow.getAverageRT() + (random.nextFloat() * 2 - 1) * 0.05f);
+      f.set(HeightType.class, templateRow.getMaxHeight());
+      f.set(DetectionType.class, FeatureStatus.DETECTED);
+      flist.addRow(new ModularFeatureListRow(flist, i + 1, f));
+    }
+    return flist;
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.benchmark;
+
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
+import io.github.mzmine.datamodel.featuredata.impl.SimpleIonTimeSeries;
+import io.github.mzmine.datamodel.featuredata.impl.StorageUtils;
+import io.github.mzmine.datamodel.features.columnar_data.ColumnarModularDataModelSchema;
+import io.github.mzmine.datamodel.features.types.DataTypes;
+import io.github.mzmine.datamodel.features.types.numbers.HeightType;
+import io.github.mzmine.datamodel.features.types.numbers.MZType;
+import io.github.mzmine.datamodel.features.types.numbers.RTType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Data model kernels: packing ion series into a single buffer and column access of the
+ * {@link ColumnarModularDataModelSchema} that backs features and rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DataModelBenchmark {
+
+  private static final int POINTS_PER_SERIES = 60;
+
+  @Param({"1000", "10000"})
+  public int size;
+
+  private final MZType mzType = DataTypes.get(MZType.class);
+  private final RTType rtType = DataTypes.get(RTType.class);
+  private final HeightType heightType = DataTypes.get(HeightType.class);
+
+  private List<IonTimeSeries<Scan>> series;
+  private ColumnarModularDataModelSchema schema;
+  private double[] mzs;
+  private float[] rts;
+  private float[] heights;
+
+  @Setup
+  public void setup() {
+    final Random random = BenchmarkData.random(size);
+    final RawDataFile raw = BenchmarkData.lcmsRawDataFile(random, "bench_series", 1000, 10, 0);
+    final List<Scan> scans = raw.getScans();
+
+    series = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      final int start = random.nextInt(scans.size() - POINTS_PER_SERIES);
+      final double[] seriesMzs = new double[POINTS_PER_SERIES];
+      final double[] seriesIntensities = new double[POINTS_PER_SERIES];
+      for (int j = 0; j < POINTS_PER_SERIES; j++) {
+        seriesMzs[j] = 100 + random.nextDouble() * 900;
+        seriesIntensities[j] = random.nextDouble() * 1E6;
+      }
+      series.add(new SimpleIonTimeSeries(null, seriesMzs, seriesIntensities,
+          scans.subList(start, start + POINTS_PER_SERIES)));
+    }
+
+    mzs = new double[size];
+    rts = new float[size];
+    heights = new float[size];
+    for (int i = 0; i < size; i++) {
+      mzs[i] = 100 + random.nextDouble() * 900;
+      rts[i] = random.nextFloat() * 20;
+      heights[i] = random.nextFloat() * 1E6f;
+    }
+    schema = createFilledSchema();
+  }
+
+  private ColumnarModularDataModelSchema createFilledSchema() {
+    final var schema = new ColumnarModularDataModelSchema(null, "bench", size);
+    schema.addDataTypes(mzType, rtType, heightType);
+    for (int i = 0; i < size; i++) {
+      final int row = schema.addRowGetIndex();
+      schema.set(null, row, mzType, mzs[i]);
+      schema.set(null, row, rtType, rts[i]);
+      schema.set(null, row, heightType, heights[i]);
+    }
+    return schema;
+  }
+
+  @Benchmark
+  public void storeIonSeriesToSingleBuffer(Blackhole bh) {
+    final int[] offsets = new int[series.size()];
+    bh.consume(StorageUtils.storeIonSeriesToSingleBuffer(null, series, offsets));
+    bh.consume(offsets);
+  }
+
+  @Benchmark
+  public void columnarSchemaSet(Blackhole bh) {
+    bh.consume(createFilledSchema());
+  }
+
+  @Benchmark
+  public void columnarSchemaGet(Blackhole bh) {
+    for (int i = 0; i < size; i++) {
+      bh.consume(schema.get(i, mzType));
+      bh.consume(schema.get(i, rtType));
+      bh.consume(schema.get(i, heightType));
+    }
+  }
+}
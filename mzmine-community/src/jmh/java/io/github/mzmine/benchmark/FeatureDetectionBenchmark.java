@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.benchmark;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.main.ConfigService;
+import io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder.ADAPChromatogramBuilderParameters;
+import io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder.ModularADAPChromatogramBuilderModule;
+import io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder.ModularADAPChromatogramBuilderTask;
+import io.github.mzmine.modules.dataprocessing.featdet_chromatogramdeconvolution.ResolvingDimension;
+import io.github.mzmine.modules.dataprocessing.featdet_chromatogramdeconvolution.minimumsearch.MinimumSearchFeatureResolver;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.selectors.ScanSelection;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.project.impl.MZmineProjectImpl;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Chromatogram building on a synthetic LC-MS file and local minimum resolving of chromatograms.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FeatureDetectionBenchmark {
+
+  private static final int NUM_CHROMATOGRAMS = 200;
+
+  @Param({"1000", "5000"})
+  public int numTraces;
+
+  private RawDataFile raw;
+  private ParameterSet chromParam;
+  private MinimumSearchFeatureResolver resolver;
+  private double[][][] chromatograms;
+
+  @Setup
+  public void setup() {
+    final Random random = BenchmarkData.random(numTraces);
+    raw = BenchmarkData.lcmsRawDataFile(random, "bench_lcms", 1500, numTraces, 500);
+
+    chromParam = ConfigService.getConfiguration()
+        .getModuleParameters(ModularADAPChromatogramBuilderModule.class).cloneParameterSet();
+    chromParam.setParameter(ADAPChromatogramBuilderParameters.scanSelection, ScanSelection.MS1);
+    chromParam.setParameter(ADAPChromatogramBuilderParameters.minimumConsecutiveScans, 4);
+    chromParam.setParameter(ADAPChromatogramBuilderParameters.minGroupIntensity, 0d);
+    chromParam.setParameter(ADAPChromatogramBuilderParameters.minHighestPoint, 5E3);
+    chromParam.setParameter(ADAPChromatogramBuilderParameters.mzTolerance,
+        new MZTolerance(0.002, 10));
+    chromParam.setParameter(ADAPChromatogramBuilderParameters.suffix, "eics");
+
+    final ModularFeatureList flist = new ModularFeatureList("resolver", null, raw);
+    resolver = new MinimumSearchFeatureResolver(flist, ResolvingDimension.RETENTION_TIME, 0.5,
+        0.04, 0.005, 1E3, 1.7, Range.closed(0d, 10d), 5);
+    chromatograms = new double[NUM_CHROMATOGRAMS][][];
+    for (int i = 0; i < NUM_CHROMATOGRAMS; i++) {
+      chromatograms[i] = BenchmarkData.chromatogram(random, 1500, 1 + random.nextInt(8));
+    }
+  }
+
+  @Benchmark
+  public void adapChromatogramBuilder(Blackhole bh) {
+    final MZmineProjectImpl project = new MZmineProjectImpl();
+    final var task = ModularADAPChromatogramBuilderTask.forChromatography(project, raw,
+        chromParam, null, Instant.now(), ModularADAPChromatogramBuilderModule.class);
+    task.run();
+    if (task.getStatus() != TaskStatus.FINISHED) {
+      throw new IllegalStateException("Chromatogram builder failed: " + task.getErrorMessage());
+    }
+    bh.consume(project.getCurrentFeatureLists());
+  }
+
+  @Benchmark
+  public void minimumSearchResolver(Blackhole bh) {
+    for (double[][] chrom : chromatograms) {
+      // resolve modifies y values below the chromatographic threshold
+      bh.consume(resolver.resolve(chrom[0], chrom[1].clone()));
+    }
+  }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.benchmark;
+
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.datamodel.MassSpectrum;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.impl.SimpleMassSpectrum;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.MassDetector;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.MassDetectors;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.auto.AutoMassDetectorParameters;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.centroid.CentroidMassDetectorParameters;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.exactmass.ExactMassDetectorParameters;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.factor_of_lowest.FactorOfLowestMassDetectorParameters;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.localmaxima.LocalMaxMassDetectorParameters;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.recursive.RecursiveMassDetectorParameters;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.wavelet.WaveletMassDetectorParameters;
+import io.github.mzmine.parameters.ParameterSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Each {@link MassDetectors} option on a batch of scans. Detectors that only handle centroid data
+ * get centroid spectra, all others get profile spectra.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MassDetectionBenchmark {
+
+  private static final int NUM_SCANS = 50;
+
+  @Param({"FACTOR_OF_LOWEST", "AUTO", "CENTROID", "EXACT", "LOCAL_MAX", "RECURSIVE", "WAVELET"})
+  public MassDetectors detectorType;
+
+  private MassDetector detector;
+  private MassSpectrum[] spectra;
+
+  @Setup
+  public void setup() {
+    final Random random = BenchmarkData.random(detectorType.ordinal());
+    detector = detectorType.createMassDetector(createParameters(detectorType));
+
+    final boolean profile = detectorType != MassDetectors.CENTROID;
+    spectra = new MassSpectrum[NUM_SCANS];
+    for (int i = 0; i < NUM_SCANS; i++) {
+      if (profile) {
+        final double[][] data = BenchmarkData.profileSpectrum(random, 300, 100, 1000, 0.002);
+        spectra[i] = new SimpleMassSpectrum(data[0], data[1], MassSpectrumType.PROFILE);
+      } else {
+        final DataPoint[] dps = BenchmarkData.centroidSpectrum(random, 2000, 100, 1000);
+        final double[] mzs = new double[dps.length];
+        final double[] intensities = new double[dps.length];
+        for (int d = 0; d < dps.length; d++) {
+          mzs[d] = dps[d].getMZ();
+          intensities[d] = dps[d].getIntensity();
+        }
+        spectra[i] = new SimpleMassSpectrum(mzs, intensities, MassSpectrumType.CENTROIDED);
+      }
+    }
+  }
+
+  private static ParameterSet createParameters(MassDetectors type) {
+    final ParameterSet param = type.getModuleParameters().cloneParameterSet();
+    switch (type) {
+      case FACTOR_OF_LOWEST ->
+          param.setParameter(FactorOfLowestMassDetectorParameters.noiseFactor, 2.5);
+      case AUTO -> param.setParameter(AutoMassDetectorParameters.noiseLevel, 1E3);
+      case CENTROID -> param.setParameter(CentroidMassDetectorParameters.noiseLevel, 1E3);
+      case EXACT -> param.setParameter(ExactMassDetectorParameters.noiseLevel, 1E3);
+      case LOCAL_MAX -> param.setParameter(LocalMaxMassDetectorParameters.noiseLevel, 1E3);
+      case RECURSIVE -> {
+        param.setParameter(RecursiveMassDetectorParameters.noiseLevel, 1E3);
+        param.setParameter(RecursiveMassDetectorParameters.minimumMZPeakWidth, 0.001);
+        param.setParameter(RecursiveMassDetectorParameters.maximumMZPeakWidth, 0.1);
+      }
+      case WAVELET -> {
+        param.setParameter(WaveletMassDetectorParameters.noiseLevel, 1E3);
+        param.setParameter(WaveletMassDetectorParameters.scaleLevel, 7);
+        param.setParameter(WaveletMassDetectorParameters.waveletWindow, 0.3);
+      }
+    }
+    return param;
+  }
+
+  @Benchmark
+  public void detectMasses(Blackhole bh) {
+    for (MassSpectrum spectrum : spectra) {
+      bh.consume(detector.getMassValues(spectrum));
+    }
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.benchmark;
+
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.scans.ScanAlignment;
+import io.github.mzmine.util.scans.similarity.impl.cosine.VectorizedWeightedCosineSpectralSimilarity;
+import io.github.mzmine.util.scans.similarity.impl.cosine.WeightedCosineSpectralSimilarity;
+import io.github.mzmine.util.scans.similarity.impl.cosine.WeightedSpectrum;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Spectral alignment and weighted cosine similarity of a query against a set of library spectra,
+ * the inner loop of library matching and molecular networking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SpectralSimilarityBenchmark {
+
+  private static final int NUM_LIBRARY_SPECTRA = 100;
+
+  @Param({"20", "100", "500"})
+  public int signalsPerSpectrum;
+
+  private final MZTolerance mzTol = new MZTolerance(0.005, 10);
+  private WeightedCosineSpectralSimilarity cosine;
+  private VectorizedWeightedCosineSpectralSimilarity vectorizedCosine;
+  private DataPoint[][] library;
+  private DataPoint[] query;
+  private WeightedSpectrum[] preparedLibrary;
+  private WeightedSpectrum preparedQuery;
+
+  @Setup
+  public void setup() {
+    final Random random = BenchmarkData.random(signalsPerSpectrum);
+    cosine = new WeightedCosineSpectralSimilarity();
+    library = new DataPoint[NUM_LIBRARY_SPECTRA][];
+    for (int i = 0; i < NUM_LIBRARY_SPECTRA; i++) {
+      library[i] = BenchmarkData.centroidSpectrum(random, signalsPerSpectrum, 50, 1000);
+    }
+    // half of the library is similar to the query
+    query = BenchmarkData.similarSpectrum(random, library[0], 0.8, 0.002);
+    for (int i = 1; i < NUM_LIBRARY_SPECTRA; i += 2) {
+      library[i] = BenchmarkData.similarSpectrum(random, library[0], 0.6, 0.002);
+    }
+
+    vectorizedCosine = new VectorizedWeightedCosineSpectralSimilarity();
+    preparedLibrary = new WeightedSpectrum[NUM_LIBRARY_SPECTRA];
+    for (int i = 0; i < NUM_LIBRARY_SPECTRA; i++) {
+      preparedLibrary[i] = vectorizedCosine.prepare(library[i]);
+    }
+    preparedQuery = vectorizedCosine.prepare(query);
+  }
+
+  @Benchmark
+  public void weightedCosine(Blackhole bh) {
+    for (DataPoint[] lib : library) {
+      bh.consume(cosine.getSimilarity(mzTol, 3, lib, query));
+    }
+  }
+
+  @Benchmark
+  public void vectorizedWeightedCosine(Blackhole bh) {
+    for (DataPoint[] lib : library) {
+      bh.consume(vectorizedCosine.getSimilarity(mzTol, 3, lib, query));
+    }
+  }
+
+  @Benchmark
+  public void vectorizedWeightedCosinePrepared(Blackhole bh) {
+    for (WeightedSpectrum lib : preparedLibrary) {
+      bh.consume(vectorizedCosine.getSimilarity(mzTol, 3, lib, preparedQuery));
+    }
+  }
+
+  @Benchmark
+  public void scanAlignment(Blackhole bh) {
+    for (DataPoint[] lib : library) {
+      bh.consume(ScanAlignment.align(mzTol, lib, query));
+    }
+  }
+}
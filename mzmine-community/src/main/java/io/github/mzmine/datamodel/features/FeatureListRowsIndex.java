@@ -0,0 +1,470 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.util.collections.BinarySearch;
+import io.github.mzmine.util.collections.EmptyIndexRange;
+import io.github.mzmine.util.collections.IndexRange;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntToDoubleFunction;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Index over the rows of a {@link ModularFeatureList} for range and id queries. Rows are sorted by
+ * average m/z and by average RT into primitive arrays that are searched by binary search, an id map
+ * resolves row IDs, and features are sorted by m/z per raw data file on first request.
+ * <p>
+ * The index is built lazily once the rows are queried multiple times without changes in between.
+ * This way, alternating modifications and single queries keep the cost of a linear search instead
+ * of rebuilding the index every time. Structural changes and changes to the m/z, RT, mobility, ID
+ * or features of indexed rows invalidate the index. Rows appended after the index was built are
+ * searched linearly until the index is rebuilt.
+ * <p>
+ * All results are in the order of the rows list.
+ */
+final class FeatureListRowsIndex {
+
+  private static final Logger logger = Logger.getLogger(FeatureListRowsIndex.class.getName());
+
+  // appended rows are searched linearly until they exceed this size or fraction of the index
+  private static final int MIN_TAIL_ROWS = 64;
+  private static final int MAX_TAIL_FRACTION = 8;
+
+  /**
+   * The internal rows of the feature list
+   */
+  private final List<FeatureListRow> rows;
+  /**
+   * Incremented on every invalidation to detect changes during the build of the index
+   */
+  private final AtomicLong modCount = new AtomicLong();
+  private final AtomicInteger queriesSinceChange = new AtomicInteger();
+  private volatile @Nullable RowsSnapshot snapshot;
+
+  FeatureListRowsIndex(@NotNull List<FeatureListRow> rows) {
+    this.rows = rows;
+  }
+
+  /**
+   * Invalidates the index after structural changes to the rows list other than appending rows.
+   */
+  void invalidate() {
+    modCount.incrementAndGet();
+    snapshot = null;
+    queriesSinceChange.set(0);
+  }
+
+  /**
+   * Invalidates the index if the row is indexed. Changes to appended rows that are not indexed yet
+   * do not invalidate the index.
+   *
+   * @param row the row with changed m/z, RT, mobility, ID or features
+   */
+  void onRowChanged(@Nullable FeatureListRow row) {
+    final RowsSnapshot current = snapshot;
+    if (current == null || (row != null && current.positions().containsKey(row))) {
+      invalidate();
+    }
+  }
+
+  /**
+   * @return the index or null if the rows should be searched linearly
+   */
+  private @Nullable RowsSnapshot getSnapshot() {
+    final RowsSnapshot current = snapshot;
+    final int numRows = rows.size();
+    if (current != null && isTailSmall(current, numRows)) {
+      return current;
+    }
+    // only build the index if the rows are queried repeatedly without changes
+    final int minQueries = 32 - Integer.numberOfLeadingZeros(numRows);
+    if (queriesSinceChange.incrementAndGet() < minQueries) {
+      return null;
+    }
+    return build();
+  }
+
+  private static boolean isTailSmall(@NotNull RowsSnapshot snapshot, int numRows) {
+    final int tail = numRows - snapshot.numRows();
+    return tail >= 0 && tail <= Math.max(MIN_TAIL_ROWS, snapshot.numRows() / MAX_TAIL_FRACTION);
+  }
+
+  private synchronized @NotNull RowsSnapshot build() {
+    final RowsSnapshot current = snapshot;
+    if (current != null && isTailSmall(current, rows.size())) {
+      // was built by another thread
+      return current;
+    }
+
+    final long startModCount = modCount.get();
+    final RowsSnapshot built = RowsSnapshot.create(rows.toArray(FeatureListRow[]::new));
+    if (modCount.get() == startModCount) {
+      snapshot = built;
+      // changed while publishing, invalidate again
+      if (modCount.get() != startModCount) {
+        snapshot = null;
+      }
+    }
+    return built;
+  }
+
+  /**
+   * Rows without an average RT are always part of the results.
+   *
+   * @param mobilityRange the mobility range or null to not filter by mobility
+   * @return all rows inside the ranges in the order of the rows list
+   */
+  @NotNull List<FeatureListRow> getRowsInside(@NotNull Range<Float> rtRange,
+      @NotNull Range<Double> mzRange, @Nullable Range<Float> mobilityRange) {
+    final RowsSnapshot index = getSnapshot();
+    final List<FeatureListRow> result = new ArrayList<>();
+    if (index == null) {
+      for (FeatureListRow row : rows) {
+        if (matches(row, rtRange, mzRange, mobilityRange)) {
+          result.add(row);
+        }
+      }
+      return result;
+    }
+
+    // use the dimension with fewer candidates. Rows without m/z are only in the RT dimension and
+    // only match unbounded m/z ranges
+    final IndexRange mzCandidates = searchRange(mzRange, index.sortedMzs().length,
+        i -> index.sortedMzs()[i]);
+    final IndexRange rtCandidates = searchRange(rtRange, index.sortedRts().length,
+        i -> index.sortedRts()[i]);
+    final boolean useMz = (mzRange.hasLowerBound() || mzRange.hasUpperBound())
+        && mzCandidates.size() <= rtCandidates.size();
+    final IndexRange candidates = useMz ? mzCandidates : rtCandidates;
+    final int[] order = useMz ? index.mzOrder() : index.rtOrder();
+
+    final IntArrayList positions = new IntArrayList();
+    for (int i = candidates.min(); i < candidates.maxExclusive(); i++) {
+      final int position = order[i];
+      if (matches(index.rows()[position], rtRange, mzRange, mobilityRange)) {
+        positions.add(position);
+      }
+    }
+    // rows without RT always match
+    positions.addElements(positions.size(), index.noRtPositions());
+
+    final int[] sorted = positions.toIntArray();
+    IntArrays.quickSort(sorted);
+    for (int position : sorted) {
+      result.add(index.rows()[position]);
+    }
+
+    // appended rows
+    for (int i = index.numRows(); i < rows.size(); i++) {
+      final FeatureListRow row = rows.get(i);
+      if (matches(row, rtRange, mzRange, mobilityRange)) {
+        result.add(row);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return all features of a raw data file inside the ranges in the order of the rows list
+   */
+  @NotNull List<ModularFeature> getFeaturesInside(@NotNull RawDataFile raw,
+      @NotNull Range<Float> rtRange, @NotNull Range<Double> mzRange) {
+    final RowsSnapshot index = getSnapshot();
+    final List<ModularFeature> result = new ArrayList<>();
+    if (index == null) {
+      for (FeatureListRow row : rows) {
+        final ModularFeature feature = ((ModularFeatureListRow) row).getFeature(raw);
+        if (matches(feature, rtRange, mzRange)) {
+          result.add(feature);
+        }
+      }
+      return result;
+    }
+
+    final FeaturesSnapshot features = index.features()
+        .computeIfAbsent(raw, r -> FeaturesSnapshot.create(index, r));
+    final IndexRange candidates = searchRange(mzRange, features.sortedMzs().length,
+        i -> features.sortedMzs()[i]);
+    final IntArrayList matching = new IntArrayList();
+    for (int i = candidates.min(); i < candidates.maxExclusive(); i++) {
+      if (matches(features.features()[i], rtRange, mzRange)) {
+        matching.add(i);
+      }
+    }
+    // sort by row position
+    final int[] sorted = matching.toIntArray();
+    final int[] positions = features.positions();
+    IntArrays.quickSort(sorted, (a, b) -> Integer.compare(positions[a], positions[b]));
+    for (int i : sorted) {
+      result.add(features.features()[i]);
+    }
+
+    // appended rows
+    for (int i = index.numRows(); i < rows.size(); i++) {
+      final ModularFeature feature = ((ModularFeatureListRow) rows.get(i)).getFeature(raw);
+      if (matches(feature, rtRange, mzRange)) {
+        result.add(feature);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the first row with this ID or null
+   */
+  @Nullable FeatureListRow findRowByID(int id) {
+    final RowsSnapshot index = getSnapshot();
+    if (index != null) {
+      final FeatureListRow row = index.idMap().get(id);
+      if (row != null) {
+        // duplicates within the indexed rows were reported when the index was built
+        for (int i = index.numRows(); i < rows.size(); i++) {
+          if (rows.get(i).getID() == id) {
+            logger.warning("more than one row with id " + id);
+            break;
+          }
+        }
+        return row;
+      }
+    }
+
+    final int start = index == null ? 0 : index.numRows();
+    FeatureListRow first = null;
+    for (int i = start; i < rows.size(); i++) {
+      final FeatureListRow row = rows.get(i);
+      if (row.getID() == id) {
+        if (first != null) {
+          logger.warning("more than one row with id " + id);
+          break;
+        }
+        first = row;
+      }
+    }
+    return first;
+  }
+
+  /**
+   * @return the row that contains this feature or null
+   */
+  @Nullable FeatureListRow getFeatureRow(@NotNull Feature feature) {
+    final RowsSnapshot index = getSnapshot();
+    if (index != null && feature.getRow() instanceof FeatureListRow row && row.hasFeature(
+        feature)) {
+      // the feature points to its row, only check that the row is part of this list
+      if (index.positions().containsKey(row)) {
+        return row;
+      }
+      for (int i = index.numRows(); i < rows.size(); i++) {
+        if (rows.get(i) == row) {
+          return row;
+        }
+      }
+    }
+
+    for (FeatureListRow row : rows) {
+      if (row.hasFeature(feature)) {
+        return row;
+      }
+    }
+    return null;
+  }
+
+  private static boolean matches(@NotNull FeatureListRow row, @NotNull Range<Float> rtRange,
+      @NotNull Range<Double> mzRange, @Nullable Range<Float> mobilityRange) {
+    final Float rt = row.getAverageRT();
+    if (rt == null) {
+      return true;
+    }
+    return rtRange.contains(rt) && contains(mzRange, row.getAverageMZ()) && (mobilityRange == null
+        || contains(mobilityRange, row.getAverageMobility()));
+  }
+
+  private static boolean matches(@Nullable ModularFeature feature, @NotNull Range<Float> rtRange,
+      @NotNull Range<Double> mzRange) {
+    return feature != null && contains(rtRange, feature.getRT()) && contains(mzRange,
+        feature.getMZ());
+  }
+
+  /**
+   * Missing values are only contained in unbounded ranges
+   */
+  private static <T extends Comparable<? super T>> boolean contains(@NotNull Range<T> range,
+      @Nullable T value) {
+    if (value == null) {
+      return !range.hasLowerBound() && !range.hasUpperBound();
+    }
+    return range.contains(value);
+  }
+
+  private static @NotNull IndexRange searchRange(@NotNull Range<? extends Number> range,
+      int numValues, @NotNull IntToDoubleFunction valueAtIndex) {
+    if (numValues == 0) {
+      return EmptyIndexRange.INSTANCE;
+    }
+    final double lower =
+        range.hasLowerBound() ? range.lowerEndpoint().doubleValue() : Double.NEGATIVE_INFINITY;
+    final double upper =
+        range.hasUpperBound() ? range.upperEndpoint().doubleValue() : Double.POSITIVE_INFINITY;
+    return BinarySearch.indexRange(lower, upper, numValues, valueAtIndex);
+  }
+
+  /**
+   * Immutable state of the index for the first numRows rows of the list
+   *
+   * @param rows          the indexed rows by position in the list
+   * @param positions     row to position in the list
+   * @param idMap         row ID to the first row with this ID
+   * @param sortedMzs     sorted average m/z of all rows with RT and m/z
+   * @param mzOrder       positions of the rows in order of sortedMzs
+   * @param sortedRts     sorted average RT of all rows with RT
+   * @param rtOrder       positions of the rows in order of sortedRts
+   * @param noRtPositions positions of rows without RT
+   * @param features      features by raw data file - created on demand
+   */
+  private record RowsSnapshot(FeatureListRow[] rows,
+                              Reference2IntOpenHashMap<FeatureListRow> positions,
+                              Int2ObjectOpenHashMap<FeatureListRow> idMap, double[] sortedMzs,
+                              int[] mzOrder, float[] sortedRts, int[] rtOrder, int[] noRtPositions,
+                              Map<RawDataFile, FeaturesSnapshot> features) {
+
+    private static @NotNull RowsSnapshot create(@NotNull FeatureListRow[] rows) {
+      final Reference2IntOpenHashMap<FeatureListRow> positions = new Reference2IntOpenHashMap<>(
+          rows.length);
+      final Int2ObjectOpenHashMap<FeatureListRow> idMap = new Int2ObjectOpenHashMap<>(rows.length);
+      final IntArrayList withMz = new IntArrayList(rows.length);
+      final IntArrayList withRt = new IntArrayList(rows.length);
+      final IntArrayList noRt = new IntArrayList();
+      final double[] mzs = new double[rows.length];
+      final float[] rts = new float[rows.length];
+      final IntArrayList duplicateIds = new IntArrayList();
+
+      for (int i = 0; i < rows.length; i++) {
+        final FeatureListRow row = rows[i];
+        positions.put(row, i);
+        if (idMap.putIfAbsent(row.getID().intValue(), row) != null) {
+          duplicateIds.add(row.getID().intValue());
+        }
+
+        final Float rt = row.getAverageRT();
+        if (rt == null) {
+          noRt.add(i);
+          continue;
+        }
+        rts[i] = rt;
+        withRt.add(i);
+        final Double mz = row.getAverageMZ();
+        if (mz != null) {
+          mzs[i] = mz;
+          withMz.add(i);
+        }
+      }
+
+      if (!duplicateIds.isEmpty()) {
+        // ID lookups are answered by the map from now on, so report duplicates once here
+        logger.warning("Feature list contains %d rows with duplicate IDs: %s".formatted(
+            duplicateIds.size(), duplicateIds.subList(0, Math.min(20, duplicateIds.size()))));
+      }
+
+      final int[] mzOrder = withMz.toIntArray();
+      IntArrays.quickSort(mzOrder, (a, b) -> Double.compare(mzs[a], mzs[b]));
+      final double[] sortedMzs = new double[mzOrder.length];
+      for (int i = 0; i < mzOrder.length; i++) {
+        sortedMzs[i] = mzs[mzOrder[i]];
+      }
+
+      final int[] rtOrder = withRt.toIntArray();
+      IntArrays.quickSort(rtOrder, (a, b) -> Float.compare(rts[a], rts[b]));
+      final float[] sortedRts = new float[rtOrder.length];
+      for (int i = 0; i < rtOrder.length; i++) {
+        sortedRts[i] = rts[rtOrder[i]];
+      }
+
+      return new RowsSnapshot(rows, positions, idMap, sortedMzs, mzOrder, sortedRts, rtOrder,
+          noRt.toIntArray(), new ConcurrentHashMap<>());
+    }
+
+    int numRows() {
+      return rows.length;
+    }
+  }
+
+  /**
+   * Features of one raw data file sorted by m/z
+   *
+   * @param features  the features sorted by m/z
+   * @param sortedMzs the m/z of the features
+   * @param positions the positions of the rows of the features in the list
+   */
+  private record FeaturesSnapshot(ModularFeature[] features, double[] sortedMzs,
+                                  int[] positions) {
+
+    private static @NotNull FeaturesSnapshot create(@NotNull RowsSnapshot index,
+        @NotNull RawDataFile raw) {
+      final List<ModularFeature> features = new ArrayList<>();
+      final DoubleArrayList mzs = new DoubleArrayList();
+      final IntArrayList positions = new IntArrayList();
+      for (int i = 0; i < index.numRows(); i++) {
+        final ModularFeature feature = ((ModularFeatureListRow) index.rows()[i]).getFeature(raw);
+        final Double mz = feature != null ? feature.getMZ() : null;
+        if (mz != null) {
+          features.add(feature);
+          mzs.add(mz.doubleValue());
+          positions.add(i);
+        }
+      }
+
+      final int[] order = new int[features.size()];
+      for (int i = 0; i < order.length; i++) {
+        order[i] = i;
+      }
+      IntArrays.quickSort(order, (a, b) -> Double.compare(mzs.getDouble(a), mzs.getDouble(b)));
+
+      final ModularFeature[] sortedFeatures = new ModularFeature[order.length];
+      final double[] sortedMzs = new double[order.length];
+      final int[] sortedPositions = new int[order.length];
+      for (int i = 0; i < order.length; i++) {
+        sortedFeatures[i] = features.get(order[i]);
+        sortedMzs[i] = mzs.getDouble(order[i]);
+        sortedPositions[i] = positions.getInt(order[i]);
+      }
+      return new FeaturesSnapshot(sortedFeatures, sortedMzs, sortedPositions);
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Loads the rows of a {@link ModularFeatureList} on first access of the rows. Used to open feature
+ * lists, e.g., from a project, without creating all rows upfront. See
+ * {@link ModularFeatureList#setRowsLoader(FeatureListRowsLoader, int)}.
+ */
+@FunctionalInterface
+public interface FeatureListRowsLoader {
+
+  /**
+   * Creates and adds all rows to the feature list. Called at most once until the rows are unloaded
+   * again by {@link ModularFeatureList#unloadRows()}. Row access of the loading thread within this
+   * method does not trigger loading. Other threads that help loading need to run within
+   * {@link ModularFeatureList#runAsRowsLoader(Runnable)}.
+   *
+   * @param flist the feature list without rows
+   * @throws Exception if any row cannot be loaded completely. The feature list is then marked as
+   *                   failed and never uses the partially loaded rows.
+   */
+  void loadRows(@NotNull ModularFeatureList flist) throws Exception;
+}
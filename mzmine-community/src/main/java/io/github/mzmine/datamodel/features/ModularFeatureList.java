@@ -26,19 +26,28 @@
 package io.github.mzmine.datamodel.features;
 
 import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.AbundanceMeasure;
 import io.github.mzmine.datamodel.Frame;
 import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.features.columnar_data.ColumnarModularDataModelRow;
 import io.github.mzmine.datamodel.features.columnar_data.ColumnarModularDataModelSchema;
 import io.github.mzmine.datamodel.features.columnar_data.ColumnarModularFeatureListRowsSchema;
+import io.github.mzmine.datamodel.features.columnar_data.columns.DataColumn;
 import io.github.mzmine.datamodel.features.correlation.R2RNetworkingMaps;
 import io.github.mzmine.datamodel.features.correlation.RowGroup;
 import io.github.mzmine.datamodel.features.types.DataType;
+import io.github.mzmine.datamodel.features.types.DataTypes;
+import io.github.mzmine.datamodel.features.types.DetectionType;
 import io.github.mzmine.datamodel.features.types.FeatureDataType;
 import io.github.mzmine.datamodel.features.types.modifiers.GraphicalColumType;
 import io.github.mzmine.datamodel.features.types.numbers.IDType;
+import io.github.mzmine.datamodel.features.types.numbers.MZType;
+import io.github.mzmine.datamodel.features.types.numbers.MobilityType;
+import io.github.mzmine.datamodel.features.types.numbers.RTType;
 import io.github.mzmine.datamodel.features.types.tasks.NodeGenerationThread;
+import io.github.mzmine.datamodel.statistics.FeaturesDataTableCache;
 import io.github.mzmine.main.MZmineCore;
 import io.github.mzmine.modules.io.projectload.CachedIMSFrame;
 import io.github.mzmine.modules.io.projectload.CachedIMSRawDataFile;
@@ -66,12 +75,15 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
+import javafx.collections.MapChangeListener;
 import javafx.collections.ObservableList;
 import javafx.collections.ObservableMap;
 import javafx.scene.Node;
@@ -87,6 +99,11 @@ public class ModularFeatureList implements FeatureList {
   public static final int DEFAULT_ESTIMATED_ROWS = 5000;
   public static final DateFormat DATA_FORMAT = new SimpleDateFormat("yyyy/MM/dd HH:mm:ss");
   private static final Logger logger = Logger.getLogger(ModularFeatureList.class.getName());
+  /**
+   * The feature list whose rows are loaded by the current thread. Row access of this thread does
+   * not trigger or wait for loading.
+   */
+  private static final ThreadLocal<ModularFeatureList> rowsLoadingContext = new ThreadLocal<>();
   /**
    * The storage of this feature list. May be null if data points of features shall be stored in
    * ram.
@@ -94,8 +111,12 @@ public class ModularFeatureList implements FeatureList {
   @Nullable
   private final MemoryMapStorage memoryMapStorage;
 
-  private final @NotNull ColumnarModularFeatureListRowsSchema rowsSchema;
-  private final @NotNull ColumnarModularDataModelSchema featuresSchema;
+  /**
+   * Replaced by empty copies when the rows are unloaded, rows that are still referenced keep the
+   * detached schemas
+   */
+  private volatile @NotNull ColumnarModularFeatureListRowsSchema rowsSchema;
+  private volatile @NotNull ColumnarModularDataModelSchema featuresSchema;
 
   // unmodifiable list
   private final List<RawDataFile> dataFiles;
@@ -115,11 +136,51 @@ public class ModularFeatureList implements FeatureList {
    */
   private final ObservableList<FeatureListRow> featureListRowsUnmodifiableView = FXCollections.unmodifiableObservableList(
       featureListRows);
+  /**
+   * Index for range and id queries on the rows. Invalidated on changes of the rows
+   */
+  private final FeatureListRowsIndex rowsIndex = new FeatureListRowsIndex(featureListRows);
+  /**
+   * Prepared abundance tables for statistics. Invalidated on changes of the rows and abundances
+   */
+  private final FeaturesDataTableCache dataTableCache = new FeaturesDataTableCache();
 
   private final ObservableList<FeatureListAppliedMethod> descriptionOfAppliedTasks;
 
+  /**
+   * Counts changes of rows, applied methods, selected scans and the name. Values of rows and
+   * features are counted by the schemas.
+   */
+  private final LongAdder modificationStamp = new LongAdder();
+
   private final R2RNetworkingMaps r2rNetworkingMaps = new R2RNetworkingMaps();
 
+  /**
+   * Loads the rows on first access for feature lists that were opened without rows. null if the
+   * rows are always present.
+   */
+  private @Nullable FeatureListRowsLoader rowsLoader;
+  private final ReentrantLock rowsLoadingLock = new ReentrantLock();
+  private volatile boolean rowsLoaded = true;
+  /**
+   * Number of rows while the rows are not loaded. Negative if unknown.
+   */
+  private int numberOfUnloadedRows = -1;
+  /**
+   * The error of a failed rows loading. The rows are never loaded again, all row access throws.
+   */
+  private volatile @Nullable Exception rowsLoadingError;
+  /**
+   * The modification stamp after the rows were loaded. The rows are only unloaded if nothing
+   * changed, so that loading again results in the same rows.
+   */
+  private long modificationStampAfterLoading;
+  /**
+   * Set on row access and reset by {@link #unloadRows()}. Rows are only unloaded if they were not
+   * accessed since the last attempt.
+   */
+  private volatile boolean rowsAccessed;
+
   @NotNull
   private String nameProperty = "";
   private String dateCreated;
@@ -182,11 +243,38 @@ public class ModularFeatureList implements FeatureList {
   }
 
   private void addDefaultListeners() {
+    featureListRows.addListener((ListChangeListener<FeatureListRow>) _ -> {
+      modificationStamp.increment();
+      dataTableCache.invalidate();
+    });
+    descriptionOfAppliedTasks.addListener(
+        (ListChangeListener<FeatureListAppliedMethod>) _ -> modificationStamp.increment());
+    selectedScans.addListener(
+        (MapChangeListener<RawDataFile, List<? extends Scan>>) _ -> modificationStamp.increment());
+
     addFeatureTypeValueListener(new FeatureDataType(), (dataModel, type, oldValue, newValue) -> {
       // check feature data for graphical columns
       DataTypeUtils.applyFeatureSpecificGraphicalTypes((ModularFeature) dataModel);
     });
 
+    // invalidate the rows index on changes of indexed values
+    final DataTypeValueChangeListener rowIndexListener = (dataModel, type, oldValue, newValue) ->
+        rowsIndex.onRowChanged((FeatureListRow) dataModel);
+    for (DataType type : List.of(new IDType(), new MZType(), new RTType(), new MobilityType())) {
+      addRowTypeValueListener(type, rowIndexListener);
+    }
+    final DataTypeValueChangeListener featureIndexListener = (dataModel, type, oldValue, newValue) ->
+        rowsIndex.onRowChanged(((ModularFeature) dataModel).getRow());
+    for (DataType type : List.of(new MZType(), new RTType(), new DetectionType())) {
+      addFeatureTypeValueListener(type, featureIndexListener);
+    }
+    // invalidate prepared statistics tables on changes of abundances
+    final DataTypeValueChangeListener abundanceListener = (_, _, _, _) ->
+        dataTableCache.invalidate();
+    for (AbundanceMeasure measure : AbundanceMeasure.values()) {
+      addFeatureTypeValueListener(DataTypes.get(measure.type()), abundanceListener);
+    }
+
     // add row bindings automatically
     featuresSchema.addDataTypesChangeListener((added, removed) -> {
       for (DataType dataType : added) {
@@ -227,6 +315,7 @@ public class ModularFeatureList implements FeatureList {
   @Override
   public String setNameNoChecks(@NotNull String name) {
     this.nameProperty = name;
+    modificationStamp.increment();
 
     final MZmineProject project = ProjectService.getProjectManager().getCurrentProject();
     if (project != null) {
@@ -330,7 +419,7 @@ public class ModularFeatureList implements FeatureList {
 
   @Override
   public void applyRowBindings() {
-    for (var row : featureListRows) {
+    for (var row : rows()) {
       applyRowBindings(row);
     }
   }
@@ -419,7 +508,10 @@ public class ModularFeatureList implements FeatureList {
    */
   @Override
   public int getNumberOfRows() {
-    return featureListRows.size();
+    if (!rowsLoaded && numberOfUnloadedRows >= 0 && rowsLoadingContext.get() != this) {
+      return numberOfUnloadedRows;
+    }
+    return rows().size();
   }
 
   /**
@@ -430,7 +522,7 @@ public class ModularFeatureList implements FeatureList {
    */
   @Override
   public ModularFeature getFeature(int row, RawDataFile raw) {
-    return ((ModularFeatureListRow) featureListRows.get(row)).getFilesFeatures().get(raw);
+    return ((ModularFeatureListRow) rows().get(row)).getFilesFeatures().get(raw);
   }
 
   /**
@@ -453,11 +545,12 @@ public class ModularFeatureList implements FeatureList {
    */
   @Override
   public FeatureListRow getRow(int row) {
-    return featureListRows.get(row);
+    return rows().get(row);
   }
 
   @Override
   public ObservableList<FeatureListRow> getRows() {
+    ensureRowsLoaded();
     return featureListRowsUnmodifiableView;
   }
 
@@ -480,7 +573,8 @@ public class ModularFeatureList implements FeatureList {
       }
     }
 //    logger.log(Level.FINEST, "SET ALL ROWS");
-    featureListRows.setAll(rows);
+    rows().setAll(rows);
+    rowsIndex.invalidate();
     applyRowBindings();
 
     // sorting
@@ -499,19 +593,26 @@ public class ModularFeatureList implements FeatureList {
     return getRowsInsideScanAndMZRange(rtRange, all);
   }
 
+  /**
+   * Rows without RT are always part of the result
+   */
   @Override
   public List<FeatureListRow> getRowsInsideScanAndMZRange(Range<Float> rtRange,
       Range<Double> mzRange) {
-    List<FeatureListRow> rows = new ArrayList<>();
-    for (var row : getRows()) {
-      Float rt = row.getAverageRT();
-      if (rt == null || (rtRange.contains(rt) && mzRange.contains(row.getAverageMZ()))) {
-        rows.add(row);
-      } else if (rt > rtRange.upperEndpoint()) {
-        break;
-      }
-    }
-    return rows;
+    ensureRowsLoaded();
+    return rowsIndex.getRowsInside(rtRange, mzRange, null);
+  }
+
+  /**
+   * Rows without RT are always part of the result. Rows without mobility are only part of the
+   * result for an unbounded mobility range.
+   *
+   * @return all rows inside the ranges in the order of the rows
+   */
+  public List<FeatureListRow> getRowsInsideScanMZAndMobilityRange(Range<Float> rtRange,
+      Range<Double> mzRange, Range<Float> mobilityRange) {
+    ensureRowsLoaded();
+    return rowsIndex.getRowsInside(rtRange, mzRange, mobilityRange);
   }
 
   @Override
@@ -529,7 +630,7 @@ public class ModularFeatureList implements FeatureList {
       }
     }
     //    logger.finest("ADD ROW");
-    featureListRows.add(modularRow);
+    rows().add(modularRow);
     applyRowBindings(modularRow);
   }
 
@@ -560,11 +661,8 @@ public class ModularFeatureList implements FeatureList {
   @Override
   public List<Feature> getFeaturesInsideScanAndMZRange(RawDataFile raw, Range<Float> rtRange,
       Range<Double> mzRange) {
-    // TODO solve with bindings and check for rt or mz presence in row
-    return modularStream().map(ModularFeatureListRow::getFilesFeatures).map(map -> map.get(raw))
-        .filter(Objects::nonNull)
-        .filter(f -> rtRange.contains(f.getRT()) && mzRange.contains(f.getMZ()))
-        .collect(Collectors.toCollection(FXCollections::observableArrayList));
+    ensureRowsLoaded();
+    return FXCollections.observableArrayList(rowsIndex.getFeaturesInside(raw, rtRange, mzRange));
   }
 
   /**
@@ -580,7 +678,8 @@ public class ModularFeatureList implements FeatureList {
    */
   @Override
   public void removeRow(FeatureListRow row) {
-    featureListRows.remove(row);
+    rows().remove(row);
+    rowsIndex.invalidate();
   }
 
   /**
@@ -596,7 +695,8 @@ public class ModularFeatureList implements FeatureList {
    */
   @Override
   public void removeRow(int rowNum) {
-    featureListRows.remove(rowNum);
+    rows().remove(rowNum);
+    rowsIndex.invalidate();
   }
 
   /**
@@ -612,13 +712,15 @@ public class ModularFeatureList implements FeatureList {
    */
   @Override
   public void removeRows(final Collection<FeatureListRow> rowsToRemove) {
-    featureListRows.removeAll(rowsToRemove);
+    rows().removeAll(rowsToRemove);
+    rowsIndex.invalidate();
   }
 
   @Override
   public void applyDefaultRowsSorting() {
     final Comparator<FeatureListRow> comparator = FeatureListUtils.getDefaultRowSorter(this);
-    featureListRows.sort(comparator);
+    rows().sort(comparator);
+    rowsIndex.invalidate();
   }
 
   /**
@@ -634,25 +736,26 @@ public class ModularFeatureList implements FeatureList {
    */
   @Override
   public void clearRows() {
-    featureListRows.clear();
+    rows().clear();
+    rowsIndex.invalidate();
   }
 
   @Override
   public Stream<FeatureListRow> stream() {
-    return featureListRows.stream();
+    return rows().stream();
   }
 
   public Stream<ModularFeatureListRow> modularStream() {
-    return featureListRows.stream().map(row -> (ModularFeatureListRow) row);
+    return rows().stream().map(row -> (ModularFeatureListRow) row);
   }
 
   @Override
   public Stream<FeatureListRow> parallelStream() {
-    return featureListRows.parallelStream();
+    return rows().parallelStream();
   }
 
   public Stream<ModularFeatureListRow> modularParallelStream() {
-    return featureListRows.parallelStream().map(row -> (ModularFeatureListRow) row);
+    return rows().parallelStream().map(row -> (ModularFeatureListRow) row);
   }
 
   @Override
@@ -671,8 +774,9 @@ public class ModularFeatureList implements FeatureList {
    */
   @Override
   public int getFeatureListRowNum(Feature feature) {
-    for (int i = 0; i < featureListRows.size(); i++) {
-      if (featureListRows.get(i).hasFeature(feature)) {
+    final List<FeatureListRow> rows = rows();
+    for (int i = 0; i < rows.size(); i++) {
+      if (rows.get(i).hasFeature(feature)) {
         return i;
       }
     }
@@ -695,21 +799,22 @@ public class ModularFeatureList implements FeatureList {
 
   @Override
   public FeatureListRow getFeatureRow(Feature feature) {
-    return stream().filter(row -> row.hasFeature(feature)).findFirst().orElse(null);
+    ensureRowsLoaded();
+    return rowsIndex.getFeatureRow(feature);
   }
 
   @Override
   public FeatureListRow findRowByID(int id) {
-    List<FeatureListRow> featureListRows = stream().filter(r -> r.getID() == id).toList();
-    if (featureListRows.isEmpty()) {
-      return null;
-    }
-
-    if (featureListRows.size() > 1) {
-      logger.info("more than one row with id " + id);
-    }
+    ensureRowsLoaded();
+    return rowsIndex.findRowByID(id);
+  }
 
-    return featureListRows.get(0);
+  @Override
+  public void fireFeatureChangedEvent(FeatureListRow row, Feature newFeature, RawDataFile raw,
+      boolean updateByRowBindings) {
+    rowsIndex.onRowChanged(row);
+    dataTableCache.invalidate();
+    FeatureList.super.fireFeatureChangedEvent(row, newFeature, raw, updateByRowBindings);
   }
 
   @Override
@@ -956,6 +1061,180 @@ public class ModularFeatureList implements FeatureList {
     featuresSchema.removeDataTypesChangeListener(listener);
   }
 
+  /**
+   * Opens this feature list without rows. The rows are loaded by the loader on first access.
+   *
+   * @param loader       creates all rows on first access
+   * @param numberOfRows the number of rows known before loading, negative if unknown. Returned by
+   *                     {@link #getNumberOfRows()} without loading the rows.
+   */
+  public void setRowsLoader(@NotNull FeatureListRowsLoader loader, int numberOfRows) {
+    rowsLoadingLock.lock();
+    try {
+      if (!featureListRows.isEmpty()) {
+        throw new IllegalStateException("Feature list %s already has rows".formatted(getName()));
+      }
+      rowsLoader = loader;
+      numberOfUnloadedRows = numberOfRows;
+      rowsLoaded = false;
+    } finally {
+      rowsLoadingLock.unlock();
+    }
+  }
+
+  /**
+   * @return false if the rows were not loaded yet by the {@link FeatureListRowsLoader}
+   */
+  public boolean isRowsLoaded() {
+    return rowsLoaded;
+  }
+
+  /**
+   * Runs part of the rows loading on the current thread, e.g., in parallel workers started by the
+   * {@link FeatureListRowsLoader}. Row access within does not trigger or wait for loading.
+   */
+  public void runAsRowsLoader(@NotNull Runnable loaderPart) {
+    final ModularFeatureList previous = rowsLoadingContext.get();
+    rowsLoadingContext.set(this);
+    try {
+      loaderPart.run();
+    } finally {
+      rowsLoadingContext.set(previous);
+    }
+  }
+
+  /**
+   * Unloads the rows of a feature list with a {@link FeatureListRowsLoader} to free memory. The rows
+   * are loaded again on the next access. Only feature lists that did not change since loading, so
+   * that are unchanged since they were saved to the loaded file, and whose rows were not accessed
+   * since the last call are unloaded. Feature lists with row relationships or shown in a feature
+   * table (listen to data type changes) are kept.
+   * <p>
+   * The schemas of the rows are replaced and detached, so rows that are still referenced elsewhere
+   * keep their values but throw on changes.
+   *
+   * @return true if the rows were unloaded
+   */
+  public boolean unloadRows() {
+    if (rowsLoader == null || !rowsLoaded || !rowsLoadingLock.tryLock()) {
+      return false;
+    }
+    try {
+      final boolean accessed = rowsAccessed;
+      rowsAccessed = false;
+      if (!rowsLoaded || accessed || getModificationStamp() != modificationStampAfterLoading
+          || !r2rNetworkingMaps.isEmpty() || groups != null
+          || !rowsSchema.getDataTypesChangeListeners().isEmpty()) {
+        return false;
+      }
+      // block row access until replaced, next access will load again
+      rowsLoaded = false;
+      numberOfUnloadedRows = featureListRows.size();
+      final ColumnarModularFeatureListRowsSchema unloadedRows = rowsSchema;
+      final ColumnarModularDataModelSchema unloadedFeatures = featuresSchema;
+      rowsSchema = unloadedRows.createEmptyCopy();
+      featuresSchema = unloadedFeatures.createEmptyCopy();
+      unloadedRows.detach();
+      unloadedFeatures.detach();
+      featureListRows.clear();
+      rowsIndex.invalidate();
+      bufferedCharts.clear();
+      logger.fine(() -> "Unloaded %d rows of feature list %s".formatted(numberOfUnloadedRows,
+          getName()));
+      return true;
+    } finally {
+      rowsLoadingLock.unlock();
+    }
+  }
+
+  /**
+   * @return the rows, loaded first if needed
+   */
+  private ObservableList<FeatureListRow> rows() {
+    ensureRowsLoaded();
+    if (!rowsAccessed) {
+      rowsAccessed = true;
+    }
+    return featureListRows;
+  }
+
+  /**
+   * @throws IllegalStateException if the rows cannot be loaded. The rows stay unloaded, so that a
+   *                               partial feature list is never processed or saved.
+   */
+  private void ensureRowsLoaded() {
+    if (rowsLoaded || rowsLoadingContext.get() == this) {
+      return;
+    }
+    rowsLoadingLock.lock();
+    try {
+      if (rowsLoaded) {
+        return;
+      }
+      if (rowsLoadingError != null) {
+        throw new IllegalStateException(
+            "Loading the rows of feature list %s failed before".formatted(getName()),
+            rowsLoadingError);
+      }
+      final long start = System.nanoTime();
+      final ModularFeatureList previous = rowsLoadingContext.get();
+      rowsLoadingContext.set(this);
+      try {
+        Objects.requireNonNull(rowsLoader).loadRows(this);
+      } catch (Exception e) {
+        // never use the partially loaded rows
+        rowsLoadingError = e;
+        featureListRows.clear();
+        rowsIndex.invalidate();
+        logger.log(Level.SEVERE, "Cannot load rows of feature list " + getName(), e);
+        throw new IllegalStateException("Cannot load rows of feature list " + getName(), e);
+      } finally {
+        rowsLoadingContext.set(previous);
+      }
+      rowsIndex.invalidate();
+      modificationStampAfterLoading = getModificationStamp();
+      rowsLoaded = true;
+      logger.fine(() -> "Loaded %d rows of feature list %s in %d ms".formatted(
+          featureListRows.size(), getName(), (System.nanoTime() - start) / 1_000_000));
+    } finally {
+      rowsLoadingLock.unlock();
+    }
+  }
+
+  /**
+   * A stamp that changes with every modification of this feature list, its rows and features. Used
+   * to detect unchanged feature lists, e.g., for incremental project saving. Reading mutable values
+   * like lists and annotations also changes the stamp, as they may be changed in place.
+   *
+   * @return the modification stamp
+   */
+  public long getModificationStamp() {
+    return modificationStamp.sum() + rowsSchema.getModificationStamp()
+        + featuresSchema.getModificationStamp();
+  }
+
+  /**
+   * Direct access to the column of a row type for bulk reads by
+   * {@link ColumnarModularDataModelRow#getModelRowIndex()}. Changes should always go through the
+   * rows to trigger listeners.
+   *
+   * @return the column or null if no row has this type
+   */
+  public @Nullable DataColumn<?> getRowTypeColumn(@NotNull DataType<?> rowType) {
+    return rowsSchema.getUnsynchronizedColumn(rowType);
+  }
+
+  /**
+   * Direct access to the column of a feature type for bulk reads by
+   * {@link ColumnarModularDataModelRow#getModelRowIndex()}. Changes should always go through the
+   * features to trigger listeners.
+   *
+   * @return the column or null if no feature has this type
+   */
+  public @Nullable DataColumn<?> getFeatureTypeColumn(@NotNull DataType<?> featureType) {
+    return featuresSchema.getUnsynchronizedColumn(featureType);
+  }
+
   @NotNull ColumnarModularDataModelSchema getFeaturesSchema() {
     return featuresSchema;
   }
@@ -122,6 +122,14 @@ public class ModularFeatureListRow extends ColumnarModularDataModelRow implement
     this.set(IDType.class, id);
   }
 
+  /**
+   * The schema of this row, which is not the schema of the feature list anymore after the rows
+   * were unloaded
+   */
+  private ColumnarModularFeatureListRowsSchema rowsSchema() {
+    return (ColumnarModularFeatureListRowsSchema) schema;
+  }
+
   /**
    * Constructor for row with only one feature.
    *
@@ -183,7 +191,7 @@ public class ModularFeatureListRow extends ColumnarModularDataModelRow implement
 
   @Override
   public Stream<ModularFeature> streamFeatures() {
-    return flist.getRowsSchema().streamFeatures(modelRowIndex)
+    return rowsSchema().streamFeatures(modelRowIndex)
         .filter(f -> f.get(DetectionType.class) != FeatureStatus.UNKNOWN);
   }
 
@@ -208,7 +216,7 @@ public class ModularFeatureListRow extends ColumnarModularDataModelRow implement
       boolean updateByRowBindings) {
     final ModularFeature oldFeature;
     if (feature == null) {
-      oldFeature = flist.getRowsSchema().setFeature(modelRowIndex, raw, null);
+      oldFeature = rowsSchema().setFeature(modelRowIndex, raw, null);
     } else {
       if (!(feature instanceof ModularFeature modularFeature)) {
         throw new IllegalArgumentException(
@@ -222,7 +230,7 @@ public class ModularFeatureListRow extends ColumnarModularDataModelRow implement
         throw new IllegalArgumentException("Raw file cannot be null");
       }
 
-      oldFeature = flist.getRowsSchema().setFeature(modelRowIndex, raw, modularFeature);
+      oldFeature = rowsSchema().setFeature(modelRowIndex, raw, modularFeature);
       modularFeature.setRow(this);
     }
 
@@ -255,7 +263,7 @@ public class ModularFeatureListRow extends ColumnarModularDataModelRow implement
 
   @Override
   public void clearFeatures(final boolean updateByRowBindings) {
-    final boolean changed = flist.getRowsSchema().clearFeatures(modelRowIndex);
+    final boolean changed = rowsSchema().clearFeatures(modelRowIndex);
     if (changed) {
       // reflect changes by updating all row bindings
       getFeatureList().fireFeatureChangedEvent(this, null, null, updateByRowBindings);
@@ -347,7 +355,7 @@ public class ModularFeatureListRow extends ColumnarModularDataModelRow implement
   @Nullable
   @Override
   public ModularFeature getFeature(RawDataFile raw) {
-    ModularFeature f = flist.getRowsSchema().getFeature(modelRowIndex, raw);
+    ModularFeature f = rowsSchema().getFeature(modelRowIndex, raw);
     return f != null && f.getFeatureStatus().equals(FeatureStatus.UNKNOWN) ? null : f;
   }
 
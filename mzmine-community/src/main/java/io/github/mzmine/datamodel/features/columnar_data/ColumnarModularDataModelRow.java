@@ -51,6 +51,13 @@ public class ColumnarModularDataModelRow implements ModularDataModel {
     modelRowIndex = schema.addRowGetIndex();
   }
 
+  /**
+   * @return the index of this row in all columns of the schema
+   */
+  public int getModelRowIndex() {
+    return modelRowIndex;
+  }
+
   @Override
   public boolean isEmpty() {
     return schema.isEmpty();
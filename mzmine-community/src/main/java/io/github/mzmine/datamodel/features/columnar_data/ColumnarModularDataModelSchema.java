@@ -25,11 +25,16 @@
 
 package io.github.mzmine.datamodel.features.columnar_data;
 
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
 import io.github.mzmine.datamodel.features.DataTypeValueChangeListener;
 import io.github.mzmine.datamodel.features.DataTypesChangedListener;
 import io.github.mzmine.datamodel.features.ModularDataModel;
 import io.github.mzmine.datamodel.features.columnar_data.columns.DataColumn;
 import io.github.mzmine.datamodel.features.columnar_data.columns.DataColumns;
+import io.github.mzmine.datamodel.features.columnar_data.columns.OptimisticallySynchronizedDataColumn;
 import io.github.mzmine.datamodel.features.types.DataType;
 import io.github.mzmine.datamodel.features.types.annotations.MissingValueType;
 import io.github.mzmine.util.MathUtils;
@@ -47,7 +52,9 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.StampedLock;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
 import org.jetbrains.annotations.NotNull;
@@ -87,11 +94,26 @@ public class ColumnarModularDataModelSchema {
   private final AtomicInteger nextRow = new AtomicInteger(0);
   private final @NotNull Map<DataType<?>, List<DataTypeValueChangeListener<?>>> dataTypeValueChangedListeners = new ConcurrentHashMap<>();
   private final @NotNull List<DataTypesChangedListener> dataTypesChangeListeners = new CopyOnWriteArrayList<>();
+  /**
+   * Set while values are only read, e.g., to save them. These reads do not change the
+   * {@link #getModificationStamp()}.
+   */
+  private static final ThreadLocal<Boolean> untrackedReads = ThreadLocal.withInitial(() -> false);
+  /**
+   * Counts all writes to this schema and all reads of values that may be changed in place, a low
+   * contention counter as values are set concurrently
+   */
+  private final LongAdder modificationStamp = new LongAdder();
   /**
    * The current length of the columns. This value should only change withing a
    * resizeLock.writeLock
    */
   protected volatile int columnLength;
+  /**
+   * Set when the rows of this schema were unloaded from their feature list. Rows that are still
+   * referenced keep their values but cannot be changed anymore.
+   */
+  private volatile boolean detached = false;
 
   public ColumnarModularDataModelSchema(final @Nullable MemoryMapStorage storage, String modelName,
       int initialSize) {
@@ -133,6 +155,7 @@ public class ColumnarModularDataModelSchema {
       }
     }
 
+    markModified();
     final List<DataType> addedCopy = List.copyOf(toAdd);
     for (var listener : dataTypesChangeListeners) {
       listener.onChange(addedCopy, List.of());
@@ -143,6 +166,21 @@ public class ColumnarModularDataModelSchema {
     return columns.get(type);
   }
 
+  /**
+   * The column without the synchronization wrapper. This is meant for bulk reads, for example of
+   * the primitive {@link io.github.mzmine.datamodel.features.columnar_data.columns.NullableDoubleDataColumn}
+   * by the model row indices of {@link ColumnarModularDataModelRow#getModelRowIndex()}.
+   *
+   * @return the column of type or null if the type is not in this schema
+   */
+  public @Nullable DataColumn<?> getUnsynchronizedColumn(@NotNull final DataType<?> type) {
+    final DataColumn<?> column = columns.get(type);
+    if (column instanceof OptimisticallySynchronizedDataColumn<?> sync) {
+      return sync.getDelegate();
+    }
+    return column;
+  }
+
   /**
    * @return read lock
    */
@@ -197,6 +235,51 @@ public class ColumnarModularDataModelSchema {
     }
   }
 
+  /**
+   * Creates an empty schema with the same data types and listeners, e.g., to load the rows again
+   * after this schema was {@link #detach() detached}.
+   */
+  public @NotNull ColumnarModularDataModelSchema createEmptyCopy() {
+    final ColumnarModularDataModelSchema copy = new ColumnarModularDataModelSchema(storage,
+        modelName, getInitialSizeOfCopy());
+    copyTypesAndListenersTo(copy);
+    return copy;
+  }
+
+  /**
+   * @return the number of rows of this schema as the initial size of an empty copy
+   */
+  protected int getInitialSizeOfCopy() {
+    return Math.max(nextRow.get(), 16);
+  }
+
+  protected void copyTypesAndListenersTo(@NotNull ColumnarModularDataModelSchema target) {
+    // types first, listeners of the copy are not notified about the types that already exist
+    target.addDataTypes(getTypesSnapshot().toArray(DataType[]::new));
+    dataTypeValueChangedListeners.forEach((type, listeners) -> List.copyOf(listeners)
+        .forEach(listener -> target.addDataTypeValueChangeListener(type, listener)));
+    dataTypesChangeListeners.forEach(target::addDataTypesChangeListener);
+  }
+
+  /**
+   * Detaches this schema from its feature list when the rows are unloaded. Rows that are still
+   * referenced elsewhere keep their values, all changes throw an exception.
+   */
+  public void detach() {
+    detached = true;
+  }
+
+  /**
+   * @throws IllegalStateException if the rows of this schema were unloaded
+   */
+  protected void checkAttached() {
+    if (detached) {
+      throw new IllegalStateException(
+          "The rows of model %s were unloaded from their feature list and cannot be changed".formatted(
+              modelName));
+    }
+  }
+
   /**
    * @return A map of listeners for values of specific data types.
    */
@@ -273,6 +356,7 @@ public class ColumnarModularDataModelSchema {
    */
   public <T> boolean set(final ModularDataModel model, final int rowIndex, DataType<T> type,
       T value) {
+    checkAttached();
     if (type instanceof MissingValueType) {
       throw new UnsupportedOperationException(
           "Type %s is not meant to be added to a feature.".formatted(type.getClass()));
@@ -297,6 +381,8 @@ public class ColumnarModularDataModelSchema {
      */
     final Object old = column.get(rowIndex);
     column.set(rowIndex, value);
+    // mutable values may be set again after changes, so every write counts
+    markModified();
 
     if (!Objects.equals(old, value)) {
       List<DataTypeValueChangeListener<?>> listeners = getValueChangeListeners().get(type);
@@ -323,7 +409,39 @@ public class ColumnarModularDataModelSchema {
     if (column == null) {
       return null;
     }
-    return (T) column.get(rowIndex);
+    final Object value = column.get(rowIndex);
+    // the caller may change lists or annotations without setting them again
+    if (!isImmutableValue(value) && !untrackedReads.get()) {
+      markModified();
+    }
+    return (T) value;
+  }
+
+  /**
+   * Values that cannot be changed without setting them again. Features and rows are tracked by
+   * their own schema.
+   */
+  private static boolean isImmutableValue(@Nullable Object value) {
+    return value == null || value instanceof Number || value instanceof String
+        || value instanceof Boolean || value instanceof Enum<?> || value instanceof Range<?>
+        || value instanceof ModularDataModel || value instanceof IonTimeSeries<?>
+        || value instanceof Scan || value instanceof RawDataFile;
+  }
+
+  /**
+   * Runs reads that do not change the values on this thread without changing the
+   * {@link #getModificationStamp()}, e.g., to save the values.
+   */
+  public static <T> T withUntrackedReads(@NotNull Supplier<T> reads) {
+    if (untrackedReads.get()) {
+      return reads.get();
+    }
+    untrackedReads.set(true);
+    try {
+      return reads.get();
+    } finally {
+      untrackedReads.set(false);
+    }
   }
 
   public <T> @Nullable T getOrDefault(final int rowIndex, DataType<T> type,
@@ -341,6 +459,7 @@ public class ColumnarModularDataModelSchema {
    * Remove the column
    */
   public <T> void remove(DataType<T> type) {
+    checkAttached();
     var column = getColumn(type);
     if (column == null) {
       return;
@@ -349,6 +468,21 @@ public class ColumnarModularDataModelSchema {
     try (var _ = resizeLock.lockWrite()) {
       columns.remove(type);
     }
+    markModified();
+  }
+
+  /**
+   * A stamp that changes with every write to this schema. Reads of mutable values like lists and
+   * annotations also change the stamp, as they may be changed in place without setting them again.
+   *
+   * @return the number of modifications
+   */
+  public long getModificationStamp() {
+    return modificationStamp.sum();
+  }
+
+  protected void markModified() {
+    modificationStamp.increment();
   }
 
   public Set<DataType> getTypes() {
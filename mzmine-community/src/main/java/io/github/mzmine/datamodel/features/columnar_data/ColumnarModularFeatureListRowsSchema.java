@@ -69,6 +69,14 @@ public class ColumnarModularFeatureListRowsSchema extends ColumnarModularDataMod
     }
   }
 
+  @Override
+  public @NotNull ColumnarModularFeatureListRowsSchema createEmptyCopy() {
+    final ColumnarModularFeatureListRowsSchema copy = new ColumnarModularFeatureListRowsSchema(
+        storage, modelName, getInitialSizeOfCopy(), List.copyOf(filesToFeaturesColumn.keySet()));
+    copyTypesAndListenersTo(copy);
+    return copy;
+  }
+
   @Override
   void resizeColumnsTo(final int finalSize) {
     try (var _ = resizeLock.lockWrite()) {
@@ -101,6 +109,8 @@ public class ColumnarModularFeatureListRowsSchema extends ColumnarModularDataMod
           "This feature list does not contain raw data file '" + raw.getFileName()
               + "'. This points to an issue in the implementation.");
     }
+    checkAttached();
+    markModified();
     return featuresCol.set(rowIndex, feature);
   }
 
@@ -128,6 +138,8 @@ public class ColumnarModularFeatureListRowsSchema extends ColumnarModularDataMod
    * @return true if at least one feature was removed
    */
   public boolean clearFeatures(final int modelRowIndex) {
+    checkAttached();
+    markModified();
     boolean changed = false;
     for (final DataColumn<ModularFeature> col : filesToFeaturesColumn.values()) {
       final ModularFeature old = col.set(modelRowIndex, null);
@@ -42,6 +42,18 @@ public non-sealed interface NullableDoubleDataColumn extends DataColumn<Double>,
    */
   double setDouble(final int index, final double value);
 
+  /**
+   * Bulk read of many rows into a primitive array.
+   *
+   * @param indices row indices, negative indices are set to {@link #nullValue()}
+   * @param dst     the target array with at least the length of indices
+   */
+  default void getDoubles(final int[] indices, final double[] dst) {
+    for (int i = 0; i < indices.length; i++) {
+      dst[i] = indices[i] < 0 ? nullValue() : getDouble(indices[i]);
+    }
+  }
+
   default void clear(final int index) {
     setDouble(index, nullValue());
   }
@@ -42,6 +42,18 @@ public non-sealed interface NullableFloatDataColumn extends DataColumn<Float>, N
    */
   float setFloat(final int index, final float value);
 
+  /**
+   * Bulk read of many rows into a primitive array.
+   *
+   * @param indices row indices, negative indices are set to {@link #nullValue()}
+   * @param dst     the target array with at least the length of indices
+   */
+  default void getFloats(final int[] indices, final float[] dst) {
+    for (int i = 0; i < indices.length; i++) {
+      dst[i] = indices[i] < 0 ? nullValue() : getFloat(indices[i]);
+    }
+  }
+
   default void clear(final int index) {
     setFloat(index, nullValue());
   }
@@ -42,6 +42,18 @@ public non-sealed interface NullableIntDataColumn extends DataColumn<Integer>, N
    */
   int setInt(final int index, final int value);
 
+  /**
+   * Bulk read of many rows into a primitive array.
+   *
+   * @param indices row indices, negative indices are set to {@link #nullValue()}
+   * @param dst     the target array with at least the length of indices
+   */
+  default void getInts(final int[] indices, final int[] dst) {
+    for (int i = 0; i < indices.length; i++) {
+      dst[i] = indices[i] < 0 ? nullValue() : getInt(indices[i]);
+    }
+  }
+
   default void clear(final int index) {
     setInt(index, nullValue());
   }
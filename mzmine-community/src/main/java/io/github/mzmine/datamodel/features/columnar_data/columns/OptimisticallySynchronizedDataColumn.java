@@ -49,6 +49,16 @@ public final class OptimisticallySynchronizedDataColumn<T> extends AbstractDataC
     this.delegate = delegate;
   }
 
+  /**
+   * Reads from the delegate are not synchronized anyway. Use this for bulk reads of primitive
+   * columns.
+   *
+   * @return the wrapped column
+   */
+  public @NotNull AbstractDataColumn<T> getDelegate() {
+    return delegate;
+  }
+
   @Override
   public @Nullable T get(final int index) {
     return delegate.get(index);
@@ -30,6 +30,7 @@ import io.github.mzmine.util.MathUtils;
 import io.github.mzmine.util.MemoryMapStorage;
 import java.lang.foreign.MemoryLayout;
 import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -87,6 +88,33 @@ public abstract class AbstractMemorySegmentColumn<T> extends AbstractDataColumn<
     set(data, index, null);
   }
 
+  /**
+   * Copies the values of many rows into a primitive array. Consecutive row indices are copied as
+   * one block straight from the memory segment. Negative indices are skipped and need to be set by
+   * the caller.
+   *
+   * @param indices row indices
+   * @param layout  the value layout of this column
+   * @param dst     a primitive array matching the layout
+   */
+  protected void copyRows(final int[] indices, final ValueLayout layout, final Object dst) {
+    final MemorySegment data = this.data;
+    int i = 0;
+    while (i < indices.length) {
+      final int start = indices[i];
+      if (start < 0) {
+        i++;
+        continue;
+      }
+      int end = i + 1;
+      while (end < indices.length && indices[end] == start + end - i) {
+        end++;
+      }
+      MemorySegment.copy(data, layout, start * layout.byteSize(), dst, i, end - i);
+      i = end;
+    }
+  }
+
   @Override
   public boolean ensureCapacity(final int requiredCapacity) {
     if (requiredCapacity > capacity()) {
@@ -60,4 +60,14 @@ public class NullableDoubleMemorySegmentColumn extends
     return old;
   }
 
+  @Override
+  public void getDoubles(final int[] indices, final double[] dst) {
+    copyRows(indices, ValueLayout.JAVA_DOUBLE, dst);
+    for (int i = 0; i < indices.length; i++) {
+      if (indices[i] < 0) {
+        dst[i] = nullValue();
+      }
+    }
+  }
+
 }
@@ -60,4 +60,14 @@ public class NullableFloatMemorySegmentColumn extends AbstractMemorySegmentColum
     return old;
   }
 
+  @Override
+  public void getFloats(final int[] indices, final float[] dst) {
+    copyRows(indices, ValueLayout.JAVA_FLOAT, dst);
+    for (int i = 0; i < indices.length; i++) {
+      if (indices[i] < 0) {
+        dst[i] = nullValue();
+      }
+    }
+  }
+
 }
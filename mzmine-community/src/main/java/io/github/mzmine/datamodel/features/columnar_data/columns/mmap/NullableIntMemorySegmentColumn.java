@@ -59,4 +59,14 @@ public class NullableIntMemorySegmentColumn extends AbstractMemorySegmentColumn<
     return index;
   }
 
+  @Override
+  public void getInts(final int[] indices, final int[] dst) {
+    copyRows(indices, ValueLayout.JAVA_INT, dst);
+    for (int i = 0; i < indices.length; i++) {
+      if (indices[i] < 0) {
+        dst[i] = nullValue();
+      }
+    }
+  }
+
 }
@@ -26,30 +26,68 @@
 package io.github.mzmine.datamodel.features.correlation;
 
 import io.github.mzmine.datamodel.features.FeatureListRow;
-import io.github.mzmine.util.MathUtils;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.AbstractLong2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.stream.Stream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 /**
- * Map an object to two rows
+ * Map an object to two rows. The undirected key of the two row IDs is a primitive long, so there is
+ * no boxing and no overflow for large row IDs. The entries are distributed over striped open
+ * addressing hash tables. Writes lock their stripe, which allows concurrent writes, e.g., from
+ * parallel streams. Reads never lock: a table is only replaced as a whole on resize and the slots of
+ * a table are atomic, so readers always see a consistent table.
  *
  * @author Robin Schmid
  */
-public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
+public class R2RMap<T> {
 
+  // power of 2
+  private static final int STRIPES = 64;
+  private static final int STRIPE_SHIFT = Long.SIZE - Integer.numberOfTrailingZeros(STRIPES);
+
+  private final Stripe<T>[] stripes;
+
+  @SuppressWarnings("unchecked")
   public R2RMap() {
+    stripes = new Stripe[STRIPES];
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe<>();
+    }
   }
 
   /**
    * A unique undirected key is computed from the two row.getIDs
    *
-   * @param a Feature list row with getID >=0
-   * @param b Feature list row with getID >=0
+   * @param a Feature list row
+   * @param b Feature list row
    * @return unique undirected ID
    */
-  public static int toKey(FeatureListRow a, FeatureListRow b) {
-    return MathUtils.undirectedPairing(a.getID(), b.getID());
+  public static long toKey(FeatureListRow a, FeatureListRow b) {
+    return toKey(a.getID(), b.getID());
+  }
+
+  /**
+   * A unique undirected key of two IDs. The lower ID is stored in the upper 32 bits.
+   *
+   * @return unique undirected ID
+   */
+  public static long toKey(int idA, int idB) {
+    final int lower = Math.min(idA, idB);
+    final int upper = Math.max(idA, idB);
+    return ((long) lower << 32) | (upper & 0xffffffffL);
+  }
+
+  private Stripe<T> stripe(long key) {
+    return stripes[(int) (HashCommon.mix(key) >>> STRIPE_SHIFT)];
   }
 
   /**
@@ -59,7 +97,7 @@ public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
    * @param value values is mapped to the pair of FeatureListRows a and b
    */
   public void add(FeatureListRow a, FeatureListRow b, T value) {
-    this.put(toKey(a, b), value);
+    put(toKey(a, b), value);
   }
 
   /**
@@ -69,7 +107,16 @@ public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
    * @param value values is mapped to the pair of FeatureListRows a and b
    */
   public void put(FeatureListRow a, FeatureListRow b, T value) {
-    super.put(toKey(a, b), value);
+    put(toKey(a, b), value);
+  }
+
+  /**
+   * @param key see {@link #toKey(FeatureListRow, FeatureListRow)}
+   * @return the previous value or null
+   */
+  @Nullable
+  public T put(long key, @NotNull T value) {
+    return stripe(key).put(key, value);
   }
 
   /**
@@ -77,10 +124,81 @@ public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
    *
    * @return the value mapped to the pair of a-b (== b-a) or null if no mapping exists
    */
+  @Nullable
   public T get(FeatureListRow a, FeatureListRow b) {
     return get(toKey(a, b));
   }
 
+  /**
+   * Lock free, may run concurrently to writes.
+   *
+   * @param key see {@link #toKey(FeatureListRow, FeatureListRow)}
+   * @return the mapped value or null
+   */
+  @Nullable
+  public T get(long key) {
+    return stripe(key).get(key);
+  }
+
+  /**
+   * Arguments a and b are interchangeable
+   *
+   * @return the removed value or null
+   */
+  @Nullable
+  public T remove(FeatureListRow a, FeatureListRow b) {
+    final long key = toKey(a, b);
+    return stripe(key).remove(key);
+  }
+
+  /**
+   * Adds all mappings of another map. Values of existing keys are replaced.
+   */
+  public void putAll(R2RMap<? extends T> other) {
+    for (Stripe<? extends T> stripe : other.stripes) {
+      stripe.forEach(this::put);
+    }
+  }
+
+  public int size() {
+    int size = 0;
+    for (Stripe<T> stripe : stripes) {
+      size += stripe.size;
+    }
+    return size;
+  }
+
+  public boolean isEmpty() {
+    for (Stripe<T> stripe : stripes) {
+      if (stripe.size != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public void clear() {
+    for (Stripe<T> stripe : stripes) {
+      stripe.clear();
+    }
+  }
+
+  /**
+   * A snapshot of all values. Sorted by key, so the order only depends on the row IDs and not on
+   * the order of insertion.
+   *
+   * @return an unmodifiable list of all values
+   */
+  public List<T> values() {
+    final List<Long2ObjectMap.Entry<T>> entries = new ArrayList<>();
+    for (Stripe<T> stripe : stripes) {
+      stripe.forEach(
+          (key, value) -> entries.add(new AbstractLong2ObjectMap.BasicEntry<>(key, value)));
+    }
+    entries.sort(Comparator.comparingLong(Long2ObjectMap.Entry::getLongKey));
+    return entries.stream().map(Long2ObjectMap.Entry::getValue).toList();
+  }
+
   /**
    * Performance optimised version to get a stream of all correlated rows in this {@link R2RMap}.
    * Mapping is based on the ID of the two rows. Make sure the row and allRows originate from the
@@ -107,4 +225,156 @@ public class R2RMap<T> extends ConcurrentHashMap<Integer, T> {
   public boolean contains(final FeatureListRow a, final FeatureListRow b) {
     return get(a, b) != null;
   }
+
+  /**
+   * Linear probing hash table of one stripe. Writers synchronize on the stripe and readers only
+   * read the volatile table and its atomic slots. A slot never changes its key within a table and
+   * the key is published before the value, so a reader either finds the value of its key or null.
+   * Removed entries keep their key with a null value and are only dropped on the next rehash. Key 0
+   * cannot mark a free slot and is stored in the extra last slot.
+   */
+  private static final class Stripe<T> {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private volatile Table<T> table = new Table<>(INITIAL_CAPACITY);
+    private volatile int size;
+    // occupied slots including removed entries, guarded by this
+    private int filled;
+
+    @Nullable T get(long key) {
+      final Table<T> t = table;
+      if (key == 0) {
+        return t.values.get(t.capacity);
+      }
+      for (int i = t.start(key); ; i = (i + 1) & t.mask) {
+        final long current = t.keys.get(i);
+        if (current == key) {
+          return t.values.get(i);
+        }
+        if (current == 0) {
+          return null;
+        }
+      }
+    }
+
+    synchronized @Nullable T put(long key, @NotNull T value) {
+      final Table<T> t = table;
+      final int slot = t.slot(key);
+      final T old = t.values.get(slot);
+      if (key != 0 && t.keys.get(slot) != key) {
+        t.keys.set(slot, key);
+        filled++;
+      }
+      t.values.set(slot, value);
+      if (old == null) {
+        size++;
+      }
+      if (filled >= t.maxFill) {
+        rehash();
+      }
+      return old;
+    }
+
+    synchronized @Nullable T remove(long key) {
+      final Table<T> t = table;
+      final int slot = t.slot(key);
+      if (t.keys.get(slot) != key) {
+        return null;
+      }
+      final T old = t.values.get(slot);
+      if (old != null) {
+        t.values.set(slot, null);
+        size--;
+      }
+      return old;
+    }
+
+    synchronized void clear() {
+      table = new Table<>(INITIAL_CAPACITY);
+      size = 0;
+      filled = 0;
+    }
+
+    /**
+     * Lock free, entries that are put or removed concurrently may or may not be visited
+     */
+    void forEach(EntryConsumer<? super T> consumer) {
+      final Table<T> t = table;
+      for (int i = 0; i <= t.capacity; i++) {
+        final T value = t.values.get(i);
+        if (value != null) {
+          consumer.accept(t.keys.get(i), value);
+        }
+      }
+    }
+
+    /**
+     * Copies all entries into a new table that fits the current size and drops removed entries.
+     */
+    private void rehash() {
+      final Table<T> old = table;
+      final int capacity = Math.max(INITIAL_CAPACITY,
+          HashCommon.arraySize(Math.max(size, 1), LOAD_FACTOR / 2));
+      final Table<T> t = new Table<>(capacity);
+      int newFilled = 0;
+      for (int i = 0; i < old.capacity; i++) {
+        final T value = old.values.get(i);
+        if (value != null) {
+          final long key = old.keys.get(i);
+          final int slot = t.slot(key);
+          t.keys.set(slot, key);
+          t.values.set(slot, value);
+          newFilled++;
+        }
+      }
+      t.values.set(t.capacity, old.values.get(old.capacity));
+      filled = newFilled;
+      table = t;
+    }
+  }
+
+  @FunctionalInterface
+  private interface EntryConsumer<T> {
+
+    void accept(long key, T value);
+  }
+
+  private static final class Table<T> {
+
+    private final int capacity;
+    private final int mask;
+    private final int maxFill;
+    // one extra slot at index capacity for key 0
+    private final AtomicLongArray keys;
+    private final AtomicReferenceArray<T> values;
+
+    private Table(int capacity) {
+      this.capacity = capacity;
+      mask = capacity - 1;
+      maxFill = HashCommon.maxFill(capacity, Stripe.LOAD_FACTOR);
+      keys = new AtomicLongArray(capacity + 1);
+      values = new AtomicReferenceArray<>(capacity + 1);
+    }
+
+    private int start(long key) {
+      return (int) HashCommon.mix(key) & mask;
+    }
+
+    /**
+     * @return the slot that holds the key or the free slot where it would be inserted
+     */
+    private int slot(long key) {
+      if (key == 0) {
+        return capacity;
+      }
+      for (int i = start(key); ; i = (i + 1) & mask) {
+        final long current = keys.get(i);
+        if (current == key || current == 0) {
+          return i;
+        }
+      }
+    }
+  }
 }
@@ -25,25 +25,42 @@
 
 package io.github.mzmine.datamodel.features.correlation;
 
+import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.util.maths.similarity.SimilarityMeasure;
 
+/**
+ * Compact summary of a {@link R2RFullCorrelationData}. Millions of these are kept in the
+ * {@link R2RMap} of large feature lists, so all values are stored as float, like the score of
+ * {@link R2RSimpleSimilarity}. The float keeps 24 significant bits: correlation coefficients in
+ * [-1, 1] differ by at most 2^-25 (~3e-8) from the computed double and the average number of data
+ * points by a relative error of at most 2^-24 (~6e-8). This is far below the precision of the score
+ * format and of the correlation thresholds, which are used on the full data before this summary is
+ * created. NaN marks missing correlations and is kept.
+ */
 public class R2RSimpleCorrelationData extends R2RCorrelationData {
 
-  private final double totalSim;
-  private final double heightSim;
-  private final double avgShapeSim;
-  private final double minShapeSim;
-  private final double maxShapeSim;
-  private final double avgDPcount;
+  private final float totalSim;
+  private final float heightSim;
+  private final float avgShapeSim;
+  private final float minShapeSim;
+  private final float maxShapeSim;
+  private final float avgDPcount;
 
   public R2RSimpleCorrelationData(R2RFullCorrelationData full) {
-    super(full.getRowA(), full.getRowB());
-    totalSim = full.getTotalPearsonR();
-    heightSim = full.getHeightPearsonR();
-    avgShapeSim = full.getAvgShapeR();
-    minShapeSim = full.getMinShapeR();
-    maxShapeSim = full.getMaxShapeR();
-    avgDPcount = full.getAvgDPcount();
+    this(full.getRowA(), full.getRowB(), full.getTotalPearsonR(), full.getHeightPearsonR(),
+        full.getAvgShapeR(), full.getMinShapeR(), full.getMaxShapeR(), full.getAvgDPcount());
+  }
+
+  public R2RSimpleCorrelationData(FeatureListRow a, FeatureListRow b, double totalSim,
+      double heightSim, double avgShapeSim, double minShapeSim, double maxShapeSim,
+      double avgDPcount) {
+    super(a, b);
+    this.totalSim = (float) totalSim;
+    this.heightSim = (float) heightSim;
+    this.avgShapeSim = (float) avgShapeSim;
+    this.minShapeSim = (float) minShapeSim;
+    this.maxShapeSim = (float) maxShapeSim;
+    this.avgDPcount = (float) avgDPcount;
   }
 
 
@@ -26,13 +26,14 @@
 package io.github.mzmine.datamodel.features.types.annotations.compounddb;
 
 import io.github.mzmine.datamodel.features.types.numbers.abstr.FloatType;
+import io.github.mzmine.gui.preferences.ThreadSafeNumberFormat;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import org.jetbrains.annotations.NotNull;
 
 public class ALogPType extends FloatType {
 
-  public static final NumberFormat format = new DecimalFormat("0.00");
+  public static final NumberFormat format = ThreadSafeNumberFormat.of(new DecimalFormat("0.00"));
 
   public ALogPType() {
     super(format);
@@ -26,6 +26,7 @@
 package io.github.mzmine.datamodel.features.types.numbers;
 
 import io.github.mzmine.datamodel.features.types.numbers.abstr.FloatType;
+import io.github.mzmine.gui.preferences.ThreadSafeNumberFormat;
 import io.github.mzmine.gui.preferences.UnitFormat;
 import io.github.mzmine.main.MZmineCore;
 import java.text.DecimalFormat;
@@ -34,7 +35,8 @@ import org.jetbrains.annotations.NotNull;
 
 public class CCSRelativeErrorType extends FloatType {
 
-  private static final NumberFormat defaultFormat = new DecimalFormat("0.00 %");
+  private static final NumberFormat defaultFormat = ThreadSafeNumberFormat.of(
+      new DecimalFormat("0.00 %"));
   private static final String headerString = UnitFormat.DIVIDE.format("\u0394 CCS", "%");
 
   public CCSRelativeErrorType() {
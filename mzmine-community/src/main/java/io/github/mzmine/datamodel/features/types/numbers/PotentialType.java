@@ -31,6 +31,7 @@ import io.github.mzmine.datamodel.features.ModularFeature;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.features.ModularFeatureListRow;
 import io.github.mzmine.datamodel.features.types.numbers.abstr.IntegerType;
+import io.github.mzmine.gui.preferences.ThreadSafeNumberFormat;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import javax.xml.stream.XMLStreamException;
@@ -40,7 +41,7 @@ import org.jetbrains.annotations.Nullable;
 
 public class PotentialType extends IntegerType {
 
-  private static final DecimalFormat format = new DecimalFormat("0");
+  private static final NumberFormat format = ThreadSafeNumberFormat.of(new DecimalFormat("0"));
 
   public PotentialType() {
     super();
@@ -26,6 +26,7 @@
 package io.github.mzmine.datamodel.features.types.numbers.abstr;
 
 import io.github.mzmine.datamodel.features.types.DataType;
+import io.github.mzmine.gui.preferences.ThreadSafeNumberFormat;
 import java.text.NumberFormat;
 import org.jetbrains.annotations.NotNull;
 
@@ -40,7 +41,8 @@ public abstract class NumberFormatType<T> extends DataType<T> {
   protected final NumberFormat DEFAULT_FORMAT;
 
   protected NumberFormatType(NumberFormat defaultFormat) {
-    DEFAULT_FORMAT = defaultFormat;
+    // types are singletons and may format values from multiple threads
+    DEFAULT_FORMAT = ThreadSafeNumberFormat.of(defaultFormat);
   }
 
   public abstract NumberFormat getFormat();
@@ -1,13 +1,14 @@
 package io.github.mzmine.datamodel.features.types.numbers.scores;
 
 import io.github.mzmine.datamodel.features.types.numbers.abstr.ScoreType;
+import io.github.mzmine.gui.preferences.ThreadSafeNumberFormat;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import org.jetbrains.annotations.NotNull;
 
 public class SiriusCsiScoreType extends ScoreType {
 
-  private static final NumberFormat FORMAT = new DecimalFormat("#.##");
+  private static final NumberFormat FORMAT = ThreadSafeNumberFormat.of(new DecimalFormat("#.##"));
 
   @Override
   public NumberFormat getFormat() {
@@ -26,13 +26,14 @@
 package io.github.mzmine.datamodel.features.types.numbers.stats;
 
 import io.github.mzmine.datamodel.features.types.numbers.abstr.DoubleType;
+import io.github.mzmine.gui.preferences.ThreadSafeNumberFormat;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
 import org.jetbrains.annotations.NotNull;
 
 public class AnovaPValueType extends DoubleType {
 
-  private static final DecimalFormat format = new DecimalFormat("0.###");
+  private static final NumberFormat format = ThreadSafeNumberFormat.of(new DecimalFormat("0.###"));
 
   public AnovaPValueType() {
     super(format);
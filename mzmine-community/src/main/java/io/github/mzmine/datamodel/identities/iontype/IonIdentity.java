@@ -30,6 +30,7 @@ import io.github.mzmine.datamodel.identities.ms2.MSMSIonRelationIdentity;
 import io.github.mzmine.datamodel.identities.ms2.MSMSIonRelationIdentity.Relation;
 import io.github.mzmine.datamodel.identities.ms2.MSMSMultimerIdentity;
 import io.github.mzmine.datamodel.identities.ms2.interf.MsMsIdentity;
+import io.github.mzmine.gui.preferences.ThreadSafeNumberFormat;
 import io.github.mzmine.modules.dataprocessing.group_metacorrelate.corrgrouping.CorrelateGroupingTask;
 import io.github.mzmine.modules.dataprocessing.id_formulaprediction.ResultFormula;
 import io.github.mzmine.modules.dataprocessing.id_ion_identity_networking.formula.prediction.FormulaPredictionIonNetworkModule;
@@ -57,7 +58,8 @@ import org.jetbrains.annotations.NotNull;
  */
 public class IonIdentity implements Comparable<IonIdentity> {
 
-  private static final NumberFormat netIDForm = new DecimalFormat("#000");
+  private static final NumberFormat netIDForm = ThreadSafeNumberFormat.of(
+      new DecimalFormat("#000"));
   // partner rowIDs
   private final ConcurrentHashMap<FeatureListRow, IonIdentity> partner = new ConcurrentHashMap<>();
   // possible formulas for this neutral mass
@@ -177,15 +177,25 @@ public class MobilityScanStorage {
    */
   public void generateAndAddMobilityScanMassLists(@Nullable MemoryMapStorage storage,
       @NotNull MassDetector massDetector, boolean denormalizeMSnScans) {
+    addMobilityScanMassLists(storage,
+        detectMobilityScanMassLists(massDetector, denormalizeMSnScans));
+  }
 
+  /**
+   * Runs mass detection on all mobility scans without storing the results. Does not modify this
+   * storage and can run concurrently for multiple frames. Use
+   * {@link #addMobilityScanMassLists(MemoryMapStorage, List)} to set the results.
+   *
+   * @param massDetector The mass detector
+   * @return the mass lists as [mzs, intensities] for each mobility scan or null if the detector
+   * does not filter and the raw data is used as mass lists.
+   */
+  @Nullable
+  public List<double[][]> detectMobilityScanMassLists(@NotNull MassDetector massDetector,
+      boolean denormalizeMSnScans) {
     if (!massDetector.filtersActive()) {
       // no need to run mass detection in this case.
-      massListBasePeakIndices = rawBasePeakIndices;
-      massListMaxNumPoints = rawMaxNumPoints;
-      massListMzValues = rawMzValues;
-      massListIntensityValues = rawIntensityValues;
-      massListStorageOffsets = rawStorageOffsets;
-      return;
+      return null;
     }
 
     // mobility scan -> [0][] = mzs, [1][] = intensities
@@ -199,7 +209,24 @@ public class MobilityScanStorage {
       }
       data.add(mzIntensity);
     }
+    return data;
+  }
 
+  /**
+   * @param storage memory storage for masslists
+   * @param data    result of {@link #detectMobilityScanMassLists(MassDetector, boolean)}. null to
+   *                use the raw data as mass lists.
+   */
+  public void addMobilityScanMassLists(@Nullable MemoryMapStorage storage,
+      @Nullable List<double[][]> data) {
+    if (data == null) {
+      massListBasePeakIndices = rawBasePeakIndices;
+      massListMaxNumPoints = rawMaxNumPoints;
+      massListMzValues = rawMzValues;
+      massListIntensityValues = rawIntensityValues;
+      massListStorageOffsets = rawStorageOffsets;
+      return;
+    }
     setMassLists(storage, data);
   }
 
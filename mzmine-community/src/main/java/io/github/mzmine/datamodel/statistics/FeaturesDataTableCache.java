@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.statistics;
+
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.parameters.parametertypes.statistics.AbundanceDataTablePreparationConfig;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Caches the {@link FeaturesDataTable}s prepared from the rows of a {@link ModularFeatureList} for
+ * statistics. Each preparation stage of an {@link AbundanceDataTablePreparationConfig} is cached on
+ * its own, e.g., the extracted abundances and the imputed table, so that changing only the scaling
+ * reuses the imputed table. Changes to the rows or abundances of the feature list invalidate the
+ * cache.
+ * <p>
+ * Cached tables must not be changed. Processing steps should work on copies or use
+ * {@link DataTableProcessingStep#process(DataTable, boolean)} with inPlace=false.
+ */
+public final class FeaturesDataTableCache {
+
+  /**
+   * Limits memory consumption. Recently used tables are kept.
+   */
+  private static final int MAX_CACHED_TABLES = 8;
+
+  /**
+   * Incremented on every invalidation without locking, as invalidations are triggered by listeners
+   * during processing
+   */
+  private final AtomicLong modCount = new AtomicLong();
+  private final Map<StageKey, FeaturesDataTable> tables = new LinkedHashMap<>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<StageKey, FeaturesDataTable> eldest) {
+      return size() > MAX_CACHED_TABLES;
+    }
+  };
+  private final ReentrantLock lock = new ReentrantLock();
+  private long tablesModCount;
+
+  /**
+   * Invalidates all cached tables after changes to the rows or their abundances. The tables are
+   * released directly if no computation is running, otherwise on the next request.
+   */
+  public void invalidate() {
+    modCount.incrementAndGet();
+    if (lock.tryLock()) {
+      try {
+        clearIfInvalid();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private void clearIfInvalid() {
+    final long current = modCount.get();
+    if (tablesModCount != current) {
+      tables.clear();
+      tablesModCount = current;
+    }
+  }
+
+  /**
+   * Computations are locked so that concurrent requests of the same table compute it only once. The computation may request the previous stage from this cache.
+   *
+   * @param rows        the rows of the table
+   * @param files       the samples of the table
+   * @param stage       the preparation stage
+   * @param computation computes the table if not cached. The result is cached and must not be
+   *                    changed afterwards.
+   * @return the cached or computed table. Do not change this table.
+   */
+  public @NotNull FeaturesDataTable computeIfAbsent(@NotNull List<FeatureListRow> rows,
+      @NotNull List<RawDataFile> files, @NotNull AbundanceDataTablePreparationConfig stage,
+      @NotNull Supplier<FeaturesDataTable> computation) {
+    lock.lock();
+    try {
+      clearIfInvalid();
+      final long startModCount = tablesModCount;
+
+      final StageKey key = new StageKey(List.copyOf(rows), List.copyOf(files), stage);
+      final FeaturesDataTable cached = tables.get(key);
+      if (cached != null) {
+        return cached;
+      }
+
+      final FeaturesDataTable table = computation.get();
+      // only cache if there was no change during the computation
+      if (modCount.get() == startModCount) {
+        tables.put(key, table);
+      }
+      return table;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * @return number of cached tables
+   */
+  public int size() {
+    lock.lock();
+    try {
+      clearIfInvalid();
+      return tables.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private record StageKey(List<FeatureListRow> rows, List<RawDataFile> files,
+                          AbundanceDataTablePreparationConfig stage) {
+
+  }
+}
@@ -32,6 +32,7 @@ import static io.github.mzmine.util.javafx.FxMenuUtil.addSeparator;
 import io.github.mzmine.modules.dataanalysis.feat_ms2_similarity_intra.IntraFeatureRowMs2SimilarityModule;
 import io.github.mzmine.modules.dataanalysis.pca_new.PCAModule;
 import io.github.mzmine.modules.dataanalysis.significance.anova.AnovaModule;
+import io.github.mzmine.modules.dataanalysis.significance.univariate.UnivariateSignificanceTestModule;
 import io.github.mzmine.modules.dataanalysis.spec_chimeric_precursor.PrecursorPurityCheckerModule;
 import io.github.mzmine.modules.dataanalysis.statsdashboard.StatsDasboardModule;
 import io.github.mzmine.modules.dataanalysis.volcanoplot.VolcanoPlotModule;
@@ -205,7 +206,7 @@ public final class AcademicWorkspace extends AbstractWorkspace {
     menu.getItems().add(buildDefaultAnnotationSubMenu());
 
     addModuleMenuItems(menu, "Statistics", StatsDasboardModule.class, VolcanoPlotModule.class,
-        PCAModule.class, AnovaModule.class);
+        PCAModule.class, AnovaModule.class, UnivariateSignificanceTestModule.class);
     return menu;
   }
 
@@ -35,6 +35,7 @@ import io.github.mzmine.javafx.dialogs.DialogLoggerUtil;
 import io.github.mzmine.main.ConfigService;
 import io.github.mzmine.main.KeepInMemory;
 import io.github.mzmine.main.MZmineCore;
+import io.github.mzmine.modules.batchmode.checkpoint.BatchCheckpointParameters;
 import io.github.mzmine.modules.io.download.AssetGroup;
 import io.github.mzmine.parameters.Parameter;
 import io.github.mzmine.parameters.ParameterSet;
@@ -126,12 +127,35 @@ public class MZminePreferences extends SimpleParameterSet {
       Typically the Java Virtual Machine will hold on to RAM and manage it to achieve the highest throughput.
       The recommendation is to keep this setting turned off.""", false);
 
+  public static final BooleanParameter pipelineBatchPerFile = new BooleanParameter(
+      "Pipeline per-file batch steps (experimental)", """
+      Streams each data file through the leading per-file steps of a batch as soon as its import finished \
+      (import, mass detection, chromatogram building, smoothing, resolving, isotope filter). \
+      All files are joined at the first step that works across files, like alignment.
+      This avoids waiting for the slowest file in each step. The first batch step needs to be the MS data import \
+      and all pipelined steps need to use the batch last files and feature lists.""", false);
+
+  public static final OptionalModuleParameter<BatchCheckpointParameters> batchCheckpoints = new OptionalModuleParameter<>(
+      "Batch checkpoints (experimental)", """
+      Saves the project as a checkpoint after batch steps, once the steps since the last checkpoint ran \
+      for a minimum time. Checkpoints are identified by the input data and the parameters of all \
+      preceding steps. Running the same batch again resumes after the last checkpoint that did not \
+      change. This requires additional time and disk space for each checkpoint.""",
+      new BatchCheckpointParameters(), false);
+
   public static final BooleanParameter deleteTempFiles = new BooleanParameter(
       "Fast temp files cleanup", """
       Cleanup temp files as soon as possible. This is the new default behavior. \
       This options is only added temporarily to allow using the old temp file cleanup, which should not be necessary.
       Default is true (checked).""", true);
 
+  public static final BooleanParameter loadFeatureListsOnDemand = new BooleanParameter(
+      "Load feature lists on demand", """
+      Opens the feature lists of a project without their rows and loads the rows of a feature list \
+      when it is first used by a module or the user interface. This speeds up opening large projects \
+      and reduces memory usage if only some feature lists are used. Feature lists that are unchanged \
+      since loading may be unloaded again when memory runs low.""", false);
+
   public static final OptionalModuleParameter<ProxyParameters> proxySettings = new OptionalModuleParameter<>(
       "Use proxy", "Use proxy for internet connection?", new ProxyParameters(), false);
 
@@ -251,18 +275,20 @@ public class MZminePreferences extends SimpleParameterSet {
       new ParameterSetParameter<>("Apply lockmass on import (Waters)",
           "Apply lockmass correction for native Waters raw data during raw data import via MSConvert.",
           new WatersLockmassParameters()), true);
-  private static final NumberFormats exportFormat = new NumberFormats(new DecimalFormat("0.#####"),
-      new DecimalFormat("0.####"), new DecimalFormat("0.####"), new DecimalFormat("0.##"),
-      new DecimalFormat("0.###E0"), new DecimalFormat("0.##"), new DecimalFormat("0.####"),
-      new DecimalFormat("0.###"), UnitFormat.DIVIDE);
+  private static final NumberFormats exportFormat = NumberFormats.threadSafe(
+      new NumberFormats(new DecimalFormat("0.#####"), new DecimalFormat("0.####"),
+          new DecimalFormat("0.####"), new DecimalFormat("0.##"), new DecimalFormat("0.###E0"),
+          new DecimalFormat("0.##"), new DecimalFormat("0.####"), new DecimalFormat("0.###"),
+          UnitFormat.DIVIDE));
   /**
    * Set of formats that will never be changed. For example to generate stable row IDs with a fixed
    * precision for mz etc. See {@link FeatureUtils#rowToFullId(FeatureListRow)}
    */
-  private static final NumberFormats stableFormat = new NumberFormats(new DecimalFormat("0.000000"),
-      new DecimalFormat("0.0000"), new DecimalFormat("0.0000"), new DecimalFormat("0.000"),
-      new DecimalFormat("0.0000E0"), new DecimalFormat("0.00"), new DecimalFormat("0.0000"),
-      new DecimalFormat("0.0000"), UnitFormat.DIVIDE);
+  private static final NumberFormats stableFormat = NumberFormats.threadSafe(
+      new NumberFormats(new DecimalFormat("0.000000"), new DecimalFormat("0.0000"),
+          new DecimalFormat("0.0000"), new DecimalFormat("0.000"), new DecimalFormat("0.0000E0"),
+          new DecimalFormat("0.00"), new DecimalFormat("0.0000"), new DecimalFormat("0.0000"),
+          UnitFormat.DIVIDE));
   private final BooleanProperty darkModeProperty = new SimpleBooleanProperty(false);
   private NumberFormats guiFormat = exportFormat; // default value
 
@@ -288,7 +314,9 @@ public class MZminePreferences extends SimpleParameterSet {
   public MZminePreferences() {
     super(// start with performance
         new Parameter[]{numOfThreads, memoryOption, imsOptimization, tempDirectory,
-            runGCafterBatchStep, deleteTempFiles, proxySettings,
+            runGCafterBatchStep, pipelineBatchPerFile, batchCheckpoints, deleteTempFiles,
+            loadFeatureListsOnDemand,
+            proxySettings,
             /*applyTimsPressureCompensation,*/
             // visuals
             // number formats
@@ -331,7 +359,9 @@ public class MZminePreferences extends SimpleParameterSet {
 
     final List<ParameterGroup> groups = List.of( //
         new ParameterGroup("General", numOfThreads, memoryOption, imsOptimization, tempDirectory,
-            runGCafterBatchStep, deleteTempFiles, proxySettings
+            runGCafterBatchStep, pipelineBatchPerFile, batchCheckpoints, deleteTempFiles,
+            loadFeatureListsOnDemand,
+            proxySettings
             /*, applyTimsPressureCompensation*/), //
         new ParameterGroup("Formats", mzFormat, rtFormat, mobilityFormat, ccsFormat,
             intensityFormat, ppmFormat, scoreFormat, percentFormat, unitFormat), //
@@ -523,11 +553,11 @@ public class MZminePreferences extends SimpleParameterSet {
   }
 
   private void updateGuiFormat() {
-    guiFormat = new NumberFormats(getValue(MZminePreferences.mzFormat),
+    guiFormat = NumberFormats.threadSafe(new NumberFormats(getValue(MZminePreferences.mzFormat),
         getValue(MZminePreferences.rtFormat), getValue(MZminePreferences.mobilityFormat),
         getValue(MZminePreferences.ccsFormat), getValue(MZminePreferences.intensityFormat),
         getValue(MZminePreferences.ppmFormat), getValue(MZminePreferences.percentFormat),
-        getValue(MZminePreferences.scoreFormat), getValue(MZminePreferences.unitFormat));
+        getValue(MZminePreferences.scoreFormat), getValue(MZminePreferences.unitFormat)));
   }
 
   @Override
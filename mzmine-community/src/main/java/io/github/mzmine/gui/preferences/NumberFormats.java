@@ -40,6 +40,18 @@ public record NumberFormats(NumberFormat mzFormat, NumberFormat rtFormat,
   private static final Logger logger = Logger.getLogger(NumberFormats.class.getName());
   private static final String empty = "";
 
+  /**
+   * @return formats that can be used by multiple threads, e.g., during parallel export
+   */
+  public static NumberFormats threadSafe(NumberFormats formats) {
+    return new NumberFormats(ThreadSafeNumberFormat.of(formats.mzFormat),
+        ThreadSafeNumberFormat.of(formats.rtFormat), ThreadSafeNumberFormat.of(formats.mobilityFormat),
+        ThreadSafeNumberFormat.of(formats.ccsFormat),
+        ThreadSafeNumberFormat.of(formats.intensityFormat),
+        ThreadSafeNumberFormat.of(formats.ppmFormat), ThreadSafeNumberFormat.of(formats.percentFormat),
+        ThreadSafeNumberFormat.of(formats.scoreFormat), formats.unitFormat);
+  }
+
   private static String range(Range<? extends Number> range, NumberFormat format) {
     return range != null ? format.format(range.lowerEndpoint()) + " - " + format.format(
         range.upperEndpoint()) : null;
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.gui.preferences;
+
+import java.io.Serial;
+import java.math.RoundingMode;
+import java.text.FieldPosition;
+import java.text.NumberFormat;
+import java.text.ParsePosition;
+import java.util.Currency;
+import java.util.Objects;
+import java.util.function.Consumer;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * {@link NumberFormat} and {@link java.text.DecimalFormat} are not thread safe. This format
+ * delegates to a copy of the original format for each thread, so shared formats like the export
+ * formats can be used while formatting rows in parallel. The original format is copied on wrapping
+ * and never used directly. Setters replace the copy, threads pick up the change on their next call.
+ */
+public final class ThreadSafeNumberFormat extends NumberFormat {
+
+  @Serial
+  private static final long serialVersionUID = 1L;
+
+  private volatile NumberFormat prototype;
+  private final transient ThreadLocal<ThreadFormat> formats = new ThreadLocal<>();
+
+  private ThreadSafeNumberFormat(@NotNull NumberFormat prototype) {
+    this.prototype = (NumberFormat) prototype.clone();
+  }
+
+  /**
+   * @return a thread safe version of the format
+   */
+  public static NumberFormat of(@NotNull NumberFormat format) {
+    return format instanceof ThreadSafeNumberFormat ? format : new ThreadSafeNumberFormat(format);
+  }
+
+  private NumberFormat get() {
+    final NumberFormat current = prototype;
+    ThreadFormat format = formats.get();
+    if (format == null || format.source != current) {
+      format = new ThreadFormat(current, (NumberFormat) current.clone());
+      formats.set(format);
+    }
+    return format.format;
+  }
+
+  /**
+   * Applies a change to a new copy of the prototype
+   */
+  private synchronized void update(@NotNull Consumer<NumberFormat> change) {
+    final NumberFormat changed = (NumberFormat) prototype.clone();
+    change.accept(changed);
+    prototype = changed;
+  }
+
+  @Serial
+  private Object readResolve() {
+    // the thread local is transient
+    return new ThreadSafeNumberFormat(prototype);
+  }
+
+  @Override
+  public StringBuffer format(Object number, StringBuffer toAppendTo, FieldPosition pos) {
+    return get().format(number, toAppendTo, pos);
+  }
+
+  @Override
+  public StringBuffer format(double number, StringBuffer toAppendTo, FieldPosition pos) {
+    return get().format(number, toAppendTo, pos);
+  }
+
+  @Override
+  public StringBuffer format(long number, StringBuffer toAppendTo, FieldPosition pos) {
+    return get().format(number, toAppendTo, pos);
+  }
+
+  @Override
+  public Number parse(String source, ParsePosition parsePosition) {
+    return get().parse(source, parsePosition);
+  }
+
+  @Override
+  public boolean isParseIntegerOnly() {
+    return prototype.isParseIntegerOnly();
+  }
+
+  @Override
+  public boolean isGroupingUsed() {
+    return prototype.isGroupingUsed();
+  }
+
+  @Override
+  public int getMaximumIntegerDigits() {
+    return prototype.getMaximumIntegerDigits();
+  }
+
+  @Override
+  public int getMinimumIntegerDigits() {
+    return prototype.getMinimumIntegerDigits();
+  }
+
+  @Override
+  public int getMaximumFractionDigits() {
+    return prototype.getMaximumFractionDigits();
+  }
+
+  @Override
+  public int getMinimumFractionDigits() {
+    return prototype.getMinimumFractionDigits();
+  }
+
+  @Override
+  public Currency getCurrency() {
+    return prototype.getCurrency();
+  }
+
+  @Override
+  public RoundingMode getRoundingMode() {
+    return prototype.getRoundingMode();
+  }
+
+  @Override
+  public void setParseIntegerOnly(boolean value) {
+    update(format -> format.setParseIntegerOnly(value));
+  }
+
+  @Override
+  public void setGroupingUsed(boolean newValue) {
+    update(format -> format.setGroupingUsed(newValue));
+  }
+
+  @Override
+  public void setMaximumIntegerDigits(int newValue) {
+    update(format -> format.setMaximumIntegerDigits(newValue));
+  }
+
+  @Override
+  public void setMinimumIntegerDigits(int newValue) {
+    update(format -> format.setMinimumIntegerDigits(newValue));
+  }
+
+  @Override
+  public void setMaximumFractionDigits(int newValue) {
+    update(format -> format.setMaximumFractionDigits(newValue));
+  }
+
+  @Override
+  public void setMinimumFractionDigits(int newValue) {
+    update(format -> format.setMinimumFractionDigits(newValue));
+  }
+
+  @Override
+  public void setCurrency(Currency currency) {
+    update(format -> format.setCurrency(currency));
+  }
+
+  @Override
+  public void setRoundingMode(RoundingMode roundingMode) {
+    update(format -> format.setRoundingMode(roundingMode));
+  }
+
+  @Override
+  public String toString() {
+    return prototype.toString();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    return o instanceof ThreadSafeNumberFormat that && prototype.equals(that.prototype);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(prototype);
+  }
+
+  @Override
+  public Object clone() {
+    return new ThreadSafeNumberFormat(prototype);
+  }
+
+  /**
+   * The copy of a thread and the prototype it was copied from
+   */
+  private record ThreadFormat(NumberFormat source, NumberFormat format) {
+
+  }
+}
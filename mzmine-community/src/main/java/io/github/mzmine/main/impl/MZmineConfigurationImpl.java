@@ -33,6 +33,7 @@ import io.github.mzmine.gui.preferences.ImsOptimization;
 import io.github.mzmine.gui.preferences.MZminePreferences;
 import io.github.mzmine.gui.preferences.NumberFormats;
 import io.github.mzmine.gui.preferences.Themes;
+import io.github.mzmine.gui.preferences.ThreadSafeNumberFormat;
 import io.github.mzmine.gui.preferences.UnitFormat;
 import io.github.mzmine.javafx.util.color.ColorsFX;
 import io.github.mzmine.javafx.util.color.Vision;
@@ -54,9 +55,11 @@ import java.nio.file.Files;
 import java.nio.file.LinkOption;
 import java.text.NumberFormat;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
+import java.util.WeakHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.xml.parsers.DocumentBuilder;
@@ -97,6 +100,13 @@ public class MZmineConfigurationImpl implements MZmineConfiguration {
 
   private final EStandardChartTheme standardChartTheme;
 
+  /**
+   * Thread safe versions of the format preferences, which are shared by all threads, e.g., during
+   * parallel export. Equal formats share one version.
+   */
+  private final Map<NumberFormat, NumberFormat> threadSafeFormats = Collections.synchronizedMap(
+      new WeakHashMap<>());
+
   @NotNull
   private ImsOptimization cachedImsOptimization = ImsOptimization.MEMORY_EFFICIENCY;
 
@@ -193,42 +203,46 @@ public class MZmineConfigurationImpl implements MZmineConfiguration {
   // Number formatting functions
   @Override
   public NumberFormat getIntensityFormat() {
-    return preferences.getParameter(MZminePreferences.intensityFormat).getValue();
+    return threadSafe(preferences.getParameter(MZminePreferences.intensityFormat).getValue());
   }
 
   @Override
   public NumberFormat getScoreFormat() {
-    return preferences.getParameter(MZminePreferences.scoreFormat).getValue();
+    return threadSafe(preferences.getParameter(MZminePreferences.scoreFormat).getValue());
   }
 
   @Override
   public NumberFormat getMZFormat() {
-    return preferences.getParameter(MZminePreferences.mzFormat).getValue();
+    return threadSafe(preferences.getParameter(MZminePreferences.mzFormat).getValue());
   }
 
   @Override
   public NumberFormat getRTFormat() {
-    return preferences.getParameter(MZminePreferences.rtFormat).getValue();
+    return threadSafe(preferences.getParameter(MZminePreferences.rtFormat).getValue());
   }
 
   @Override
   public NumberFormat getMobilityFormat() {
-    return preferences.getParameter(MZminePreferences.mobilityFormat).getValue();
+    return threadSafe(preferences.getParameter(MZminePreferences.mobilityFormat).getValue());
   }
 
   @Override
   public NumberFormat getCCSFormat() {
-    return preferences.getParameter(MZminePreferences.ccsFormat).getValue();
+    return threadSafe(preferences.getParameter(MZminePreferences.ccsFormat).getValue());
   }
 
   @Override
   public NumberFormat getPPMFormat() {
-    return preferences.getParameter(MZminePreferences.ppmFormat).getValue();
+    return threadSafe(preferences.getParameter(MZminePreferences.ppmFormat).getValue());
   }
 
   @Override
   public NumberFormat getPercentFormat() {
-    return preferences.getParameter(MZminePreferences.percentFormat).getValue();
+    return threadSafe(preferences.getParameter(MZminePreferences.percentFormat).getValue());
+  }
+
+  private NumberFormat threadSafe(NumberFormat format) {
+    return threadSafeFormats.computeIfAbsent(format, ThreadSafeNumberFormat::of);
   }
 
   @Override
@@ -31,6 +31,7 @@ import io.github.mzmine.modules.batchmode.autosave.AutoSaveBatchModule;
 import io.github.mzmine.modules.dataanalysis.feat_ms2_similarity_intra.IntraFeatureRowMs2SimilarityModule;
 import io.github.mzmine.modules.dataanalysis.pca_new.PCALoadingsExtractionModule;
 import io.github.mzmine.modules.dataanalysis.pca_new.PCAModule;
+import io.github.mzmine.modules.dataanalysis.significance.univariate.UnivariateSignificanceTestModule;
 import io.github.mzmine.modules.dataanalysis.spec_chimeric_precursor.PrecursorPurityCheckerModule;
 import io.github.mzmine.modules.dataanalysis.statsdashboard.StatsDasboardModule;
 import io.github.mzmine.modules.dataanalysis.volcanoplot.VolcanoPlotModule;
@@ -127,6 +128,7 @@ import io.github.mzmine.modules.dataprocessing.norm_standardcompound.StandardCom
 import io.github.mzmine.modules.io.export_ccsbase.CcsBaseExportModule;
 import io.github.mzmine.modules.io.export_compoundAnnotations_csv.CompoundAnnotationsCSVExportModule;
 import io.github.mzmine.modules.io.export_features_all_speclib_matches.ExportAllIdsGraphicalModule;
+import io.github.mzmine.modules.io.export_features_columnar.ColumnarExportModule;
 import io.github.mzmine.modules.io.export_features_csv.CSVExportModularModule;
 import io.github.mzmine.modules.io.export_features_csv_legacy.LegacyCSVExportModule;
 import io.github.mzmine.modules.io.export_features_featureML.FeatureMLExportModularModule;
@@ -148,6 +150,7 @@ import io.github.mzmine.modules.io.export_rawdata_netcdf.NetCDFExportModule;
 import io.github.mzmine.modules.io.export_scans.ExportScansFromRawFilesModule;
 import io.github.mzmine.modules.io.export_scans_modular.ExportScansFeatureModule;
 import io.github.mzmine.modules.io.import_feature_networks.ImportFeatureNetworksSimpleModule;
+import io.github.mzmine.modules.io.import_features_columnar.ColumnarImportModule;
 import io.github.mzmine.modules.io.import_features_mztabm.MZTabmImportModule;
 import io.github.mzmine.modules.io.import_rawdata_all.AllSpectralDataImportModule;
 import io.github.mzmine.modules.io.import_spectral_library.SpectralLibraryImportModule;
@@ -412,6 +415,8 @@ public class BatchModeModulesList {
           SiriusApiExportRowsModule.class, //
           MZTabmImportModule.class, //
           CSVExportModularModule.class, //
+          ColumnarExportModule.class, //
+          ColumnarImportModule.class, //
           LegacyCSVExportModule.class, //
           CompoundAnnotationsCSVExportModule.class, //
           LibraryAnalysisCSVExportModule.class, //
@@ -482,7 +487,8 @@ public class BatchModeModulesList {
           StatsDasboardModule.class, //
           ExternalRowHtmlVisualizerModule.class, //
           PCAModule.class, //
-          VolcanoPlotModule.class //
+          VolcanoPlotModule.class, //
+          UnivariateSignificanceTestModule.class //
 
 //      , CodingDemoModule.class // only test purpose
       ));
@@ -39,8 +39,13 @@ import io.github.mzmine.main.MZmineCore;
 import io.github.mzmine.modules.MZmineProcessingModule;
 import io.github.mzmine.modules.MZmineProcessingStep;
 import io.github.mzmine.modules.batchmode.change_outfiles.ChangeOutputFilesUtils;
+import io.github.mzmine.modules.batchmode.checkpoint.BatchCheckpointCache;
+import io.github.mzmine.modules.batchmode.checkpoint.BatchCheckpointCache.Checkpoint;
+import io.github.mzmine.modules.batchmode.checkpoint.BatchCheckpointCache.RestoredState;
 import io.github.mzmine.modules.batchmode.timing.StepTimeMeasurement;
 import io.github.mzmine.modules.io.import_rawdata_all.AllSpectralDataImportParameters;
+import io.github.mzmine.modules.io.import_rawdata_all.ImportFile;
+import io.github.mzmine.modules.io.import_spectral_library.SpectralLibraryImportParameters;
 import io.github.mzmine.parameters.Parameter;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.parameters.parametertypes.EmbeddedParameterSet;
@@ -72,8 +77,14 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.Collectors;
 import javafx.scene.control.Alert.AlertType;
 import org.jetbrains.annotations.NotNull;
 
@@ -87,11 +98,17 @@ public class BatchTask extends AbstractTask {
   // advanced parameters
   private final int stepsPerDataset;
   private final int totalSteps;
-  private final MZmineProject project;
+  // replaced when resuming from a checkpoint
+  private MZmineProject project;
   private final boolean useAdvanced;
   private final int datasets;
   private final List<StepTimeMeasurement> stepTimes = new ArrayList<>();
   private final boolean runGCafterBatchStep;
+  private final boolean pipelineBatchPerFile;
+  private final BatchCheckpointCache checkpoints;
+  private String[] checkpointKeys;
+  // processing time of the steps after the last checkpoint
+  private Duration timeSinceCheckpoint = Duration.ZERO;
   private int processedSteps;
   private List<File> subDirectories;
   private List<RawDataFile> createdDataFiles;
@@ -103,6 +120,8 @@ public class BatchTask extends AbstractTask {
   private Boolean createResultsDir;
   private File parentDir;
   private int currentDataset;
+  // only set while the per-file pipelines are running
+  private volatile List<PerFileBatchPipeline> pipelines;
 
   BatchTask(MZmineProject project, ParameterSet parameters, @NotNull Instant moduleCallDate) {
     this(project, parameters, moduleCallDate,
@@ -114,6 +133,9 @@ public class BatchTask extends AbstractTask {
     super(null, moduleCallDate);
     this.runGCafterBatchStep = requireNonNullElse(
         getPreference(MZminePreferences.runGCafterBatchStep), false);
+    this.pipelineBatchPerFile = requireNonNullElse(
+        getPreference(MZminePreferences.pipelineBatchPerFile), false);
+    this.checkpoints = BatchCheckpointCache.fromPreferences();
 
     setName("Batch task");
     this.project = project;
@@ -227,8 +249,30 @@ public class BatchTask extends AbstractTask {
     int errorDataset = 0;
     currentDataset = -1;
     String datasetName = "";
+    int firstStep = 0;
+    if (checkpoints != null && !useAdvanced) {
+      // keys need to be computed before any step changes the parameters
+      checkpointKeys = BatchCheckpointCache.computeStepKeys(queue);
+      firstStep = resumeFromCheckpoint();
+    }
+    if (firstStep == 0 && pipelineBatchPerFile && !useAdvanced) {
+      final Instant start = Instant.now();
+      firstStep = runPerFilePipelines();
+      if (firstStep > 0 && getStatus() != TaskStatus.ERROR && !isCanceled()) {
+        saveCheckpoint(firstStep - 1, Duration.between(start, Instant.now()));
+      }
+      if (getStatus() == TaskStatus.ERROR) {
+        DialogLoggerUtil.showDialog(AlertType.ERROR, "Batch processing error",
+            "An error occurred while processing the per-file batch steps.\n%s".formatted(
+                getErrorMessage()), false);
+        return;
+      }
+      if (isCanceled()) {
+        return;
+      }
+    }
     // Process individual batch steps
-    for (int i = 0; i < totalSteps; i++) {
+    for (int i = firstStep; i < totalSteps; i++) {
       // at the end of one dataset, clear the project and start over again
       if (useAdvanced && currentStep() == 0) {
         // clear the old project
@@ -298,6 +342,9 @@ public class BatchTask extends AbstractTask {
       stepTimes.add(
           new StepTimeMeasurement(stepNumber + 1, queue.get(stepNumber).getModule().getName(),
               duration, runGCafterBatchStep));
+      if (getStatus() != TaskStatus.ERROR && !isCanceled()) {
+        saveCheckpoint(stepNumber, duration);
+      }
 
       // If we are canceled or ran into error, stop here
       if (getStatus() == TaskStatus.ERROR) {
@@ -318,6 +365,202 @@ public class BatchTask extends AbstractTask {
     }
   }
 
+  /**
+   * Opens the checkpoint of the last step that did not change since a previous run. Only used if
+   * the project is still empty, as opening the checkpoint replaces the project.
+   *
+   * @return the first step to process, 0 if there was no checkpoint
+   */
+  private int resumeFromCheckpoint() {
+    if (!project.getCurrentRawDataFiles().isEmpty() || !project.getCurrentFeatureLists()
+        .isEmpty()) {
+      logger.info("Batch checkpoints are only used to resume a batch in an empty project");
+      return 0;
+    }
+    final Checkpoint checkpoint = checkpoints.findLatest(checkpointKeys);
+    if (checkpoint == null) {
+      return 0;
+    }
+    final Instant start = Instant.now();
+    final RestoredState state = checkpoints.restore(checkpoint);
+    if (state == null) {
+      // start from scratch in a clean project
+      ProjectService.getProjectManager().clearProject();
+      project = ProjectService.getProject();
+      return 0;
+    }
+    project = state.project();
+    createdDataFiles = new ArrayList<>(state.lastDataFiles());
+    createdFeatureLists = new ArrayList<>(state.lastFeatureLists());
+    previousCreatedDataFiles = createdDataFiles;
+    previousCreatedFeatureLists = createdFeatureLists;
+
+    final int firstStep = checkpoint.step() + 1;
+    processedSteps += firstStep;
+    stepTimes.add(new StepTimeMeasurement(firstStep,
+        "RESUMED FROM CHECKPOINT (steps 1-%d)".formatted(firstStep),
+        Duration.between(start, Instant.now()), runGCafterBatchStep));
+    return firstStep;
+  }
+
+  /**
+   * Saves a checkpoint if the steps since the last checkpoint ran long enough
+   *
+   * @param stepDuration processing time of this step
+   */
+  private void saveCheckpoint(int stepNumber, @NotNull Duration stepDuration) {
+    if (checkpoints == null || checkpointKeys == null) {
+      return;
+    }
+    timeSinceCheckpoint = timeSinceCheckpoint.plus(stepDuration);
+    if (!checkpoints.isCheckpointDue(timeSinceCheckpoint)) {
+      return;
+    }
+    // same fallback as the next step would use
+    final List<RawDataFile> lastFiles =
+        createdDataFiles.isEmpty() ? previousCreatedDataFiles : createdDataFiles;
+    final List<FeatureList> lastFlists =
+        createdFeatureLists.isEmpty() ? previousCreatedFeatureLists : createdFeatureLists;
+    // checkpoints are optional, errors are only logged
+    if (checkpoints.save(project, stepNumber, checkpointKeys[stepNumber], lastFiles,
+        lastFlists)) {
+      timeSinceCheckpoint = Duration.ZERO;
+    }
+  }
+
+  /**
+   * Pipelined batch mode: Each data file is streamed through the leading per-file steps of the
+   * batch as soon as its import finished, instead of running each step for all files at once. The
+   * pipelines are joined before the first cross-file step, see
+   * {@link BatchUtils#getPerFilePipelineLength(BatchQueue)}. Each pipeline uses its own project.
+   * The results are merged into the batch project on this thread in import order, then the
+   * remaining parts of the import are applied, see {@link #finishPipelinedImport(ParameterSet)}.
+   *
+   * @return the first step to process for all files. 0 if the batch cannot be pipelined
+   */
+  private int runPerFilePipelines() {
+    final int pipelineSteps = BatchUtils.getPerFilePipelineLength(queue);
+    if (pipelineSteps == 0) {
+      logger.info("Batch cannot be pipelined per file, running all steps for all files at once");
+      return 0;
+    }
+    final ParameterSet importParameters = queue.getFirst().getParameterSet();
+    final ImportFile[] files = AllSpectralDataImportParameters.skipAlreadyLoadedFiles(project,
+        importParameters);
+    if (files.length < 2 || files.length != importParameters.getValue(
+        AllSpectralDataImportParameters.fileNames).length) {
+      logger.info("Batch is not pipelined as less than two files or already loaded files are used");
+      return 0;
+    }
+    // the pipelines do not see each other, duplicates are reported by the regular import
+    if (Arrays.stream(files).map(file -> file.importedFile().getName()).distinct().count()
+        != files.length) {
+      logger.info("Batch is not pipelined as the import contains duplicate file names");
+      return 0;
+    }
+
+    logger.info("Running the first %d batch steps pipelined for %d files".formatted(pipelineSteps,
+        files.length));
+    final Instant start = Instant.now();
+    final List<PerFileBatchPipeline> pipelines = Arrays.stream(files)
+        .map(file -> new PerFileBatchPipeline(queue, pipelineSteps, file.originalFile(), start))
+        .toList();
+    this.pipelines = pipelines;
+
+    final int threads = Math.max(1, MZmineCore.getConfiguration().getNumOfThreads());
+    try (var executor = Executors.newFixedThreadPool(Math.min(threads, pipelines.size()))) {
+      final CompletableFuture<Void> all = CompletableFuture.allOf(
+          pipelines.stream().map(pipeline -> CompletableFuture.runAsync(pipeline, executor))
+              .toArray(CompletableFuture[]::new));
+      while (!all.isDone()) {
+        if (isCanceled() || pipelines.stream()
+            .anyMatch(pipeline -> pipeline.getStatus() == TaskStatus.ERROR)) {
+          pipelines.forEach(PerFileBatchPipeline::cancel);
+          break;
+        }
+        try {
+          all.get(250, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+          // check for cancel and errors again
+        } catch (InterruptedException | ExecutionException e) {
+          pipelines.forEach(PerFileBatchPipeline::cancel);
+          error("Per-file batch pipelines were interrupted", e);
+          break;
+        }
+      }
+    } finally {
+      this.pipelines = null;
+    }
+
+    for (PerFileBatchPipeline pipeline : pipelines) {
+      stepTimes.addAll(pipeline.getStepTimes());
+    }
+    final Optional<PerFileBatchPipeline> failed = pipelines.stream()
+        .filter(pipeline -> pipeline.getStatus() == TaskStatus.ERROR).findFirst();
+    if (failed.isPresent()) {
+      error("Error in per-file batch steps of file %s: %s".formatted(failed.get().getFile(),
+          failed.get().getErrorMessage()));
+      return 0;
+    }
+    if (isCanceled() || pipelines.stream().anyMatch(Task::isCanceled)) {
+      cancel();
+      return 0;
+    }
+
+    // join the results of all files in import order
+    for (PerFileBatchPipeline pipeline : pipelines) {
+      pipeline.mergeInto(project);
+    }
+    createdDataFiles = pipelines.stream()
+        .flatMap(pipeline -> pipeline.getCreatedDataFiles().stream())
+        .collect(Collectors.toCollection(ArrayList::new));
+    previousCreatedDataFiles = createdDataFiles;
+    createdFeatureLists = new ArrayList<>();
+    previousCreatedFeatureLists = pipelines.stream()
+        .flatMap(pipeline -> pipeline.getCreatedFeatureLists().stream())
+        .collect(Collectors.toCollection(ArrayList::new));
+
+    if (!finishPipelinedImport(importParameters)) {
+      return 0;
+    }
+    processedSteps += pipelineSteps;
+
+    if (runGCafterBatchStep) {
+      System.gc();
+    }
+    stepTimes.add(new StepTimeMeasurement(pipelineSteps,
+        "PER-FILE PIPELINE (steps 1-%d)".formatted(pipelineSteps),
+        Duration.between(start, Instant.now()), runGCafterBatchStep));
+    return isCanceled() ? 0 : pipelineSteps;
+  }
+
+  /**
+   * The pipelines only import their data file. Spectral libraries, metadata, and the sorting and
+   * coloring of files are imported once for all files. The import module skips all data files, as
+   * they are already loaded. The batch last files and feature lists are kept.
+   *
+   * @return true on success
+   */
+  private boolean finishPipelinedImport(@NotNull ParameterSet importParameters) {
+    final File[] libraries = importParameters.getValue(
+        SpectralLibraryImportParameters.dataBaseFiles);
+    if ((libraries == null || libraries.length == 0) && !importParameters.getValue(
+        AllSpectralDataImportParameters.metadataFile) && !importParameters.getValue(
+        AllSpectralDataImportParameters.sortAndRecolor)) {
+      return true;
+    }
+
+    final MZmineProcessingModule method = queue.getFirst().getModule();
+    final List<Task> tasks = new ArrayList<>();
+    final ExitCode exitCode = method.runModule(project, importParameters.cloneParameterSet(), tasks,
+        Instant.now());
+    if (exitCode != ExitCode.OK) {
+      error("Could not import spectral libraries and metadata after the per-file batch steps");
+      return false;
+    }
+    return tasks.isEmpty() || runTasksIndividually(tasks) == TaskStatus.FINISHED;
+  }
+
   private void printBatchTimes() {
     String csv = CsvWriter.writeToString(stepTimes, StepTimeMeasurement.class, '\t', true);
     logger.info("""
@@ -574,11 +817,24 @@ public class BatchTask extends AbstractTask {
     if (totalSteps == 0) {
       return 0;
     }
+    final List<PerFileBatchPipeline> pipelines = this.pipelines;
+    if (pipelines != null && !pipelines.isEmpty()) {
+      final int pipelineSteps = BatchUtils.getPerFilePipelineLength(queue);
+      final double pipelineProgress = pipelines.stream()
+          .mapToDouble(PerFileBatchPipeline::getFinishedPercentage).average().orElse(0);
+      return pipelineProgress * pipelineSteps / totalSteps;
+    }
     return (double) processedSteps / totalSteps;
   }
 
   @Override
   public String getTaskDescription() {
+    final List<PerFileBatchPipeline> pipelines = this.pipelines;
+    if (pipelines != null) {
+      final long finished = pipelines.stream().filter(Task::isFinished).count();
+      return "Batch per-file pipelines: %d/%d files finished".formatted(finished,
+          pipelines.size());
+    }
     if (datasets > 1) {
       if (stepsPerDataset == 0) {
         return "Batch mode";
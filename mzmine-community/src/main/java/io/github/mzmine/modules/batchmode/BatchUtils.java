@@ -29,10 +29,16 @@ import io.github.mzmine.modules.MZmineModule;
 import io.github.mzmine.modules.MZmineModuleCategory;
 import io.github.mzmine.modules.MZmineProcessingModule;
 import io.github.mzmine.modules.MZmineProcessingStep;
+import io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder.ModularADAPChromatogramBuilderModule;
+import io.github.mzmine.modules.dataprocessing.featdet_chromatogramdeconvolution.FeatureResolverModule;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.MassDetectionModule;
+import io.github.mzmine.modules.dataprocessing.featdet_smoothing.SmoothingModule;
 import io.github.mzmine.modules.dataprocessing.filter_blanksubtraction.FeatureListBlankSubtractionModule;
+import io.github.mzmine.modules.dataprocessing.filter_isotopegrouper.IsotopeGrouperModule;
 import io.github.mzmine.modules.dataprocessing.filter_rowsfilter.RowsFilterModule;
 import io.github.mzmine.modules.dataprocessing.filter_rowsfilter.RowsFilterParameters;
 import io.github.mzmine.modules.impl.MZmineProcessingStepImpl;
+import io.github.mzmine.modules.io.import_rawdata_all.AllSpectralDataImportModule;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.parameters.ParameterUtils;
 import io.github.mzmine.parameters.parametertypes.absoluterelative.AbsoluteAndRelativeInt;
@@ -60,6 +66,15 @@ public class BatchUtils {
 
   private static final Set<String> modulesToExculdeInFlistChecks = Set.of();
 
+  /**
+   * Modules that process every data file or feature list independently of all other files. Feature
+   * resolvers are also included, see {@link #isPerFileStep(MZmineProcessingStep)}.
+   */
+  private static final Set<String> perFileModules = Set.of(
+      AllSpectralDataImportModule.class.getName(), MassDetectionModule.class.getName(),
+      ModularADAPChromatogramBuilderModule.class.getName(), SmoothingModule.class.getName(),
+      IsotopeGrouperModule.class.getName());
+
   /**
    * While all parameters may be valid, some choices might not make sense.
    */
@@ -213,6 +228,56 @@ public class BatchUtils {
     return new MZmineProcessingStepImpl<>(step.getModule(), clonedParams);
   }
 
+  /**
+   * A per-file step processes each data file or feature list on its own. The results of a file do
+   * not depend on any other file, so these steps can run for one file while other files are still
+   * imported. All cross-file steps like alignment, gap filling, or annotation are not per-file.
+   *
+   * @return true if the step is applied to each file independently and if it is applied to the
+   * batch last files and feature lists
+   */
+  public static boolean isPerFileStep(@NotNull MZmineProcessingStep<?> step) {
+    final MZmineModule module = step.getModule();
+    if (!(perFileModules.contains(module.getClass().getName())
+        || module instanceof FeatureResolverModule)) {
+      return false;
+    }
+    final ParameterSet parameters = step.getParameterSet();
+    if (parameters == null) {
+      return true;
+    }
+    // the pipeline only sets the results of the previous step of the same file
+    final boolean allLastFiles = ParameterUtils.streamParametersDeep(parameters,
+            RawDataFilesParameter.class).map(RawDataFilesParameter::getValue)
+        .allMatch(selection -> selection != null
+            && selection.getSelectionType() == RawDataFilesSelectionType.BATCH_LAST_FILES);
+    final boolean allLastFlists = ParameterUtils.streamParametersDeep(parameters,
+            FeatureListsParameter.class).map(FeatureListsParameter::getValue)
+        .allMatch(selection -> selection != null && selection.getSelectionType()
+            == FeatureListsSelectionType.BATCH_LAST_FEATURELISTS);
+    return allLastFiles && allLastFlists;
+  }
+
+  /**
+   * The leading per-file steps of a batch that can be pipelined for each data file, see
+   * {@link #isPerFileStep(MZmineProcessingStep)}. The first step needs to be the
+   * {@link AllSpectralDataImportModule}.
+   *
+   * @return the number of leading per-file steps including the import or 0 if there is no step to
+   * pipeline after the import
+   */
+  public static int getPerFilePipelineLength(@NotNull BatchQueue batch) {
+    if (batch.isEmpty() || !(batch.getFirst()
+        .getModule() instanceof AllSpectralDataImportModule)) {
+      return 0;
+    }
+    int steps = 1;
+    while (steps < batch.size() && isPerFileStep(batch.get(steps))) {
+      steps++;
+    }
+    return steps > 1 ? steps : 0;
+  }
+
   private static boolean isModuleExcludedFromFlistCheck(MZmineProcessingStep<?> stepA,
       MZmineProcessingStep<?> stepB) {
     return modulesToExculdeInFlistChecks.contains(stepA.getModule().getClass().getName())
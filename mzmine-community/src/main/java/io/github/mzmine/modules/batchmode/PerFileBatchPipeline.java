@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.batchmode;
+
+import io.github.mzmine.datamodel.MZmineProject;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.modules.MZmineProcessingModule;
+import io.github.mzmine.modules.MZmineProcessingStep;
+import io.github.mzmine.modules.batchmode.timing.StepTimeMeasurement;
+import io.github.mzmine.modules.io.import_rawdata_all.AllSpectralDataImportParameters;
+import io.github.mzmine.modules.io.import_spectral_library.SpectralLibraryImportParameters;
+import io.github.mzmine.parameters.Parameter;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.EmbeddedParameterSet;
+import io.github.mzmine.parameters.parametertypes.selectors.FeatureListsParameter;
+import io.github.mzmine.parameters.parametertypes.selectors.RawDataFilesParameter;
+import io.github.mzmine.project.impl.MZmineProjectImpl;
+import io.github.mzmine.taskcontrol.AbstractTask;
+import io.github.mzmine.taskcontrol.Task;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import io.github.mzmine.util.ExitCode;
+import java.io.File;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Runs the leading per-file steps of a batch for a single data file. The {@link BatchTask} starts
+ * one pipeline per file in the pipelined batch mode, so that each file is processed as soon as its
+ * import finished. The pipelines are joined at the first cross-file step, see
+ * {@link BatchUtils#getPerFilePipelineLength(BatchQueue)}.
+ * <p>
+ * Each pipeline works on its own {@link MZmineProjectImpl}, so pipelines never change the shared
+ * project concurrently. The {@link BatchTask} adds the files and feature lists of all pipelines to
+ * its project on one thread, see {@link #mergeInto(MZmineProject)}.
+ * <p>
+ * Spectral libraries, metadata, and the sorting and coloring of files are not part of the per-file
+ * import. Those are applied by the {@link BatchTask} once all pipelines were merged.
+ */
+class PerFileBatchPipeline extends AbstractTask {
+
+  private static final Logger logger = Logger.getLogger(PerFileBatchPipeline.class.getName());
+
+  // isolated from the batch project and from all other pipelines
+  private final MZmineProject project = new MZmineProjectImpl();
+  private final BatchQueue queue;
+  private final int numSteps;
+  private final File file;
+  private final List<StepTimeMeasurement> stepTimes = new ArrayList<>();
+  private List<RawDataFile> createdDataFiles = List.of();
+  private List<FeatureList> createdFeatureLists = List.of();
+  private volatile Task currentTask;
+  private volatile int processedSteps;
+
+  /**
+   * @param numSteps the number of leading steps in queue to run for this file
+   * @param file     the data file to import
+   */
+  PerFileBatchPipeline(@NotNull BatchQueue queue, int numSteps, @NotNull File file,
+      @NotNull Instant moduleCallDate) {
+    super(null, moduleCallDate);
+    this.queue = queue;
+    this.numSteps = numSteps;
+    this.file = file;
+    setName("Batch pipeline " + file.getName());
+  }
+
+  @Override
+  public void run() {
+    setStatus(TaskStatus.PROCESSING);
+    for (int i = 0; i < numSteps; i++) {
+      if (isCanceled()) {
+        return;
+      }
+      final Instant start = Instant.now();
+      if (!processStep(i)) {
+        return;
+      }
+      processedSteps++;
+      final String name = "%s (%s)".formatted(queue.get(i).getModule().getName(), file.getName());
+      stepTimes.add(
+          new StepTimeMeasurement(i + 1, name, Duration.between(start, Instant.now()), false));
+    }
+    setStatus(TaskStatus.FINISHED);
+  }
+
+  /**
+   * @return true on success
+   */
+  private boolean processStep(int stepNumber) {
+    final MZmineProcessingStep<MZmineProcessingModule> step = queue.get(stepNumber);
+    final MZmineProcessingModule method = step.getModule();
+    // parameters are shared by all pipelines and are changed for this file
+    final ParameterSet parameters = step.getParameterSet().cloneParameterSet();
+
+    final boolean isImport = AllSpectralDataImportParameters.isParameterSetClass(parameters);
+    if (isImport) {
+      parameters.setParameter(AllSpectralDataImportParameters.fileNames, new File[]{file});
+      parameters.setParameter(AllSpectralDataImportParameters.metadataFile, false, null);
+      parameters.setParameter(AllSpectralDataImportParameters.sortAndRecolor, false);
+      parameters.setParameter(SpectralLibraryImportParameters.dataBaseFiles, new File[0]);
+    }
+    setBatchLastFilesAndFeatureLists(parameters);
+
+    final List<String> messages = new ArrayList<>();
+    if (!parameters.checkParameterValues(messages)) {
+      error("Invalid parameter settings for module %s: %s".formatted(method.getName(),
+          Arrays.toString(messages.toArray())));
+      return false;
+    }
+
+    final List<FeatureList> beforeFeatureLists = project.getCurrentFeatureLists();
+    final List<Task> tasks = new ArrayList<>();
+    final ExitCode exitCode = method.runModule(project, parameters, tasks, Instant.now());
+    if (exitCode != ExitCode.OK) {
+      error("Could not start batch step %s for file %s".formatted(method.getName(),
+          file.getName()));
+      return false;
+    }
+
+    // the pipelines already run in parallel, so the tasks of a single file run on this thread
+    for (final Task task : tasks) {
+      currentTask = task;
+      try {
+        task.run();
+      } catch (Throwable e) {
+        logger.log(Level.WARNING, e.getMessage(), e);
+        error("Error in batch step %s for file %s: %s".formatted(method.getName(), file.getName(),
+            e.getMessage()));
+        return false;
+      } finally {
+        currentTask = null;
+      }
+      if (task.getStatus() == TaskStatus.ERROR) {
+        error("Error in batch step %s for file %s: %s".formatted(method.getName(), file.getName(),
+            task.getErrorMessage()));
+        return false;
+      }
+      if (task.isCanceled() || isCanceled()) {
+        cancel();
+        return false;
+      }
+    }
+
+    if (isImport) {
+      createdDataFiles = AllSpectralDataImportParameters.getLoadedRawDataFiles(project,
+          parameters);
+    }
+    final List<FeatureList> featureLists = new ArrayList<>(project.getCurrentFeatureLists());
+    featureLists.removeAll(beforeFeatureLists);
+    // keep the last results if the step did not create any, like mass detection
+    if (!featureLists.isEmpty()) {
+      createdFeatureLists = featureLists;
+    }
+    return true;
+  }
+
+  private void setBatchLastFilesAndFeatureLists(ParameterSet parameters) {
+    for (Parameter<?> p : parameters.getParameters()) {
+      if (p instanceof RawDataFilesParameter rdp && rdp.getValue() != null) {
+        rdp.getValue().setBatchLastFiles(createdDataFiles.toArray(new RawDataFile[0]));
+      } else if (p instanceof FeatureListsParameter flp && flp.getValue() != null) {
+        flp.getValue().setBatchLastFeatureLists(createdFeatureLists.toArray(new FeatureList[0]));
+      } else if (p instanceof EmbeddedParameterSet embedded) {
+        setBatchLastFilesAndFeatureLists(embedded.getEmbeddedParameters());
+      }
+    }
+  }
+
+  /**
+   * Adds all data files and all remaining feature lists of this pipeline to the batch project. Only
+   * call after the pipeline finished and from a single thread.
+   */
+  void mergeInto(@NotNull MZmineProject batchProject) {
+    for (final RawDataFile raw : project.getCurrentRawDataFiles()) {
+      batchProject.addFile(raw);
+    }
+    for (final FeatureList flist : project.getCurrentFeatureLists()) {
+      batchProject.addFeatureList(flist);
+    }
+  }
+
+  /**
+   * @return the data files of this pipeline. Usually only one file.
+   */
+  public List<RawDataFile> getCreatedDataFiles() {
+    return createdDataFiles;
+  }
+
+  /**
+   * @return the feature lists of the last step that created feature lists
+   */
+  public List<FeatureList> getCreatedFeatureLists() {
+    return createdFeatureLists;
+  }
+
+  public List<StepTimeMeasurement> getStepTimes() {
+    return stepTimes;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  @Override
+  public void cancel() {
+    super.cancel();
+    final Task task = currentTask;
+    if (task != null) {
+      task.cancel();
+    }
+  }
+
+  @Override
+  public String getTaskDescription() {
+    return "Batch step %d/%d of file %s".formatted(Math.min(processedSteps + 1, numSteps), numSteps,
+        file.getName());
+  }
+
+  @Override
+  public double getFinishedPercentage() {
+    return numSteps == 0 ? 0 : (double) processedSteps / numSteps;
+  }
+}
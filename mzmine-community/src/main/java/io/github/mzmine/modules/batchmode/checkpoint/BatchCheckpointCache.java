@@ -0,0 +1,407 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.batchmode.checkpoint;
+
+import io.github.mzmine.datamodel.MZmineProject;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.gui.preferences.MZminePreferences;
+import io.github.mzmine.main.ConfigService;
+import io.github.mzmine.modules.MZmineProcessingModule;
+import io.github.mzmine.modules.MZmineProcessingStep;
+import io.github.mzmine.modules.batchmode.BatchQueue;
+import io.github.mzmine.modules.io.import_rawdata_all.AllSpectralDataImportParameters;
+import io.github.mzmine.modules.io.projectload.ProjectOpeningTask;
+import io.github.mzmine.modules.io.projectsave.ProjectSaveAsParameters;
+import io.github.mzmine.modules.io.projectsave.ProjectSaveOption;
+import io.github.mzmine.modules.io.projectsave.ProjectSavingTask;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.ParameterUtils;
+import io.github.mzmine.parameters.parametertypes.filenames.FileNamesParameter;
+import io.github.mzmine.project.ProjectService;
+import io.github.mzmine.project.impl.MZmineProjectImpl;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import io.github.mzmine.util.XMLUtils;
+import io.github.mzmine.util.files.FileAndPathUtil;
+import io.github.mzmine.util.io.SemverVersionReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.xml.parsers.DocumentBuilderFactory;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+/**
+ * Content addressed cache of batch checkpoints. After batch steps, the project is saved as a
+ * referencing project together with the batch last data files and feature lists. Checkpoints are
+ * only saved once the steps since the last checkpoint ran for a minimum time, see
+ * {@link #isCheckpointDue(Duration)}. The key of a step is a hash of the input data and the
+ * parameters of this and all preceding steps. A rerun of the same or a changed batch resumes after
+ * the last step with an unchanged checkpoint.
+ * <p>
+ * Input data is fingerprinted by path, size, and modification time instead of hashing the whole
+ * content of large raw data files.
+ */
+public class BatchCheckpointCache {
+
+  private static final Logger logger = Logger.getLogger(BatchCheckpointCache.class.getName());
+
+  private static final String PROJECT_SUFFIX = ".mzmine";
+  private static final String STATE_SUFFIX = ".checkpoint";
+  private static final String STEP = "step";
+  private static final String DATA_FILE = "dataFile.";
+  private static final String FEATURE_LIST = "featureList.";
+
+  private final File directory;
+  private final long maxCacheBytes;
+  private final Duration minTimeBetweenCheckpoints;
+
+  /**
+   * @param minTimeBetweenCheckpoints checkpoints are only saved once the steps since the last
+   *                                  checkpoint took at least this long
+   */
+  public BatchCheckpointCache(@NotNull File directory, long maxCacheBytes,
+      @NotNull Duration minTimeBetweenCheckpoints) {
+    this.directory = directory;
+    this.maxCacheBytes = maxCacheBytes;
+    this.minTimeBetweenCheckpoints = minTimeBetweenCheckpoints;
+  }
+
+  /**
+   * @return the cache defined in the {@link MZminePreferences} or null if checkpoints are turned
+   * off
+   */
+  @Nullable
+  public static BatchCheckpointCache fromPreferences() {
+    final BatchCheckpointParameters params = ConfigService.getPreferences()
+        .getEmbeddedParametersIfSelectedOrElse(MZminePreferences.batchCheckpoints, null);
+    if (params == null) {
+      return null;
+    }
+    final File directory = params.getValue(BatchCheckpointParameters.directory);
+    final Integer maxGB = params.getValue(BatchCheckpointParameters.maxCacheSizeGB);
+    if (directory == null || maxGB == null) {
+      return null;
+    }
+    final Integer minSeconds = params.getValue(
+        BatchCheckpointParameters.minSecondsBetweenCheckpoints);
+    return new BatchCheckpointCache(directory, maxGB * 1_000_000_000L,
+        Duration.ofSeconds(minSeconds == null ? 0 : minSeconds));
+  }
+
+  /**
+   * Saving a checkpoint writes the whole project, which is only worth it after long running steps.
+   *
+   * @param sinceLastCheckpoint processing time of the steps since the last checkpoint
+   * @return true if a checkpoint should be saved
+   */
+  public boolean isCheckpointDue(@NotNull Duration sinceLastCheckpoint) {
+    return sinceLastCheckpoint.compareTo(minTimeBetweenCheckpoints) >= 0;
+  }
+
+  /**
+   * Computes the chained keys of all steps. Needs to be called before the batch runs because the
+   * batch changes the selected files and feature lists in the parameters.
+   *
+   * @return the key of each step. A key changes if any preceding step or its input changes
+   */
+  @NotNull
+  public static String[] computeStepKeys(@NotNull BatchQueue queue) {
+    final MessageDigest digest = createDigest();
+    final String[] keys = new String[queue.size()];
+    byte[] previous = String.valueOf(SemverVersionReader.getMZmineVersion())
+        .getBytes(StandardCharsets.UTF_8);
+    for (int i = 0; i < queue.size(); i++) {
+      final MZmineProcessingStep<MZmineProcessingModule> step = queue.get(i);
+      digest.reset();
+      digest.update(previous);
+      digest.update(step.getModule().getClass().getName().getBytes(StandardCharsets.UTF_8));
+      final ParameterSet parameters = step.getParameterSet();
+      if (parameters != null) {
+        digest.update(parametersToXml(parameters).getBytes(StandardCharsets.UTF_8));
+        digest.update(fingerprintInputFiles(parameters).getBytes(StandardCharsets.UTF_8));
+      }
+      previous = digest.digest();
+      keys[i] = HexFormat.of().formatHex(previous);
+    }
+    return keys;
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static String parametersToXml(@NotNull ParameterSet parameters) {
+    try {
+      final Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder()
+          .newDocument();
+      final Element element = document.createElement("parameters");
+      document.appendChild(element);
+      parameters.saveValuesToXML(element);
+      return XMLUtils.saveToString(document);
+    } catch (Exception e) {
+      // a step that cannot be serialized is never reused
+      logger.log(Level.WARNING, "Cannot create checkpoint key of parameters", e);
+      return Instant.now().toString();
+    }
+  }
+
+  /**
+   * Input files are all file lists, e.g., data files and libraries, and the metadata file of the
+   * data import.
+   */
+  private static String fingerprintInputFiles(@NotNull ParameterSet parameters) {
+    final Stream<File> fileLists = ParameterUtils.streamParametersDeep(parameters,
+            FileNamesParameter.class).map(FileNamesParameter::getValue).filter(Objects::nonNull)
+        .flatMap(Arrays::stream);
+    final Stream<File> metadata = AllSpectralDataImportParameters.isParameterSetClass(parameters)
+        ? Stream.ofNullable(parameters.getEmbeddedParameterValueIfSelectedOrElse(
+        AllSpectralDataImportParameters.metadataFile, null)) : Stream.empty();
+    return Stream.concat(fileLists, metadata).filter(Objects::nonNull)
+        .map(BatchCheckpointCache::fingerprintFile).collect(Collectors.joining("\n"));
+  }
+
+  private static String fingerprintFile(@NotNull File file) {
+    final Path path = file.toPath().toAbsolutePath();
+    // folders like Bruker .d are summarized by their content
+    try (Stream<Path> files = Files.walk(path)) {
+      final long[] sizeAndTime = files.filter(Files::isRegularFile).map(Path::toFile)
+          .map(f -> new long[]{f.length(), f.lastModified()})
+          .reduce(new long[]{0, 0}, (a, b) -> new long[]{a[0] + b[0], Math.max(a[1], b[1])});
+      return "%s;%d;%d".formatted(path, sizeAndTime[0], sizeAndTime[1]);
+    } catch (IOException e) {
+      return path + ";missing";
+    }
+  }
+
+  /**
+   * @param keys the step keys, see {@link #computeStepKeys(BatchQueue)}
+   * @return the checkpoint of the last step with an existing checkpoint or null
+   */
+  @Nullable
+  public Checkpoint findLatest(@NotNull String[] keys) {
+    for (int step = keys.length - 1; step >= 0; step--) {
+      final File projectFile = new File(directory, keys[step] + PROJECT_SUFFIX);
+      final File stateFile = new File(directory, keys[step] + STATE_SUFFIX);
+      if (projectFile.isFile() && stateFile.isFile()) {
+        return new Checkpoint(step, keys[step], projectFile, stateFile);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Saves the project as a referencing project and the batch last data files and feature lists.
+   * The project file of the current project is not changed.
+   *
+   * @return true on success
+   */
+  public boolean save(@NotNull MZmineProject project, int step, @NotNull String key,
+      @NotNull List<RawDataFile> lastDataFiles, @NotNull List<FeatureList> lastFeatureLists) {
+    if (!(project instanceof MZmineProjectImpl impl)) {
+      return false;
+    }
+    if (!FileAndPathUtil.createDirectory(directory)) {
+      logger.warning("Cannot create batch checkpoint directory " + directory);
+      return false;
+    }
+    final File projectFile = new File(directory, key + PROJECT_SUFFIX);
+    final File stateFile = new File(directory, key + STATE_SUFFIX);
+
+    final File originalProjectFile = impl.getProjectFile();
+    final Boolean originalStandalone = impl.isStandalone();
+    try {
+      final ParameterSet saveParameters = new ProjectSaveAsParameters().cloneParameterSet();
+      saveParameters.setParameter(ProjectSaveAsParameters.projectFile, projectFile);
+      saveParameters.setParameter(ProjectSaveAsParameters.option, ProjectSaveOption.REFERENCING);
+      final ProjectSavingTask saveTask = new ProjectSavingTask(impl, saveParameters,
+          Instant.now());
+      saveTask.run();
+      if (saveTask.getStatus() != TaskStatus.FINISHED) {
+        logger.warning("Could not save batch checkpoint of step %d: %s".formatted(step + 1,
+            saveTask.getErrorMessage()));
+        return false;
+      }
+    } finally {
+      impl.setProjectFile(originalProjectFile);
+      impl.setStandalone(originalStandalone);
+    }
+
+    // the state file is written last and marks a complete checkpoint
+    final Properties state = new Properties();
+    state.setProperty(STEP, String.valueOf(step));
+    for (int i = 0; i < lastDataFiles.size(); i++) {
+      state.setProperty(DATA_FILE + i, lastDataFiles.get(i).getName());
+    }
+    for (int i = 0; i < lastFeatureLists.size(); i++) {
+      state.setProperty(FEATURE_LIST + i, lastFeatureLists.get(i).getName());
+    }
+    try (OutputStream out = Files.newOutputStream(stateFile.toPath())) {
+      state.store(out, "mzmine batch checkpoint");
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Could not save batch checkpoint state " + stateFile, e);
+      return false;
+    }
+    logger.info("Saved batch checkpoint of step %d to %s".formatted(step + 1, projectFile));
+
+    evict(key);
+    return true;
+  }
+
+  /**
+   * Opens the checkpoint project, which replaces the current project.
+   *
+   * @return the batch state or null if the checkpoint could not be opened
+   */
+  @Nullable
+  public RestoredState restore(@NotNull Checkpoint checkpoint) {
+    final Properties state = new Properties();
+    try (InputStream in = Files.newInputStream(checkpoint.stateFile().toPath())) {
+      state.load(in);
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Cannot read batch checkpoint " + checkpoint.stateFile(), e);
+      return null;
+    }
+
+    logger.info("Resuming batch after step %d from checkpoint %s".formatted(checkpoint.step() + 1,
+        checkpoint.projectFile()));
+    final ProjectOpeningTask openTask = new ProjectOpeningTask(checkpoint.projectFile(),
+        Instant.now());
+    openTask.run();
+    if (openTask.getStatus() != TaskStatus.FINISHED) {
+      logger.warning("Cannot open batch checkpoint %s: %s".formatted(checkpoint.projectFile(),
+          openTask.getErrorMessage()));
+      return null;
+    }
+    // mark as recently used for eviction
+    final long now = System.currentTimeMillis();
+    checkpoint.projectFile().setLastModified(now);
+    checkpoint.stateFile().setLastModified(now);
+
+    final MZmineProject project = ProjectService.getProject();
+    final List<RawDataFile> dataFiles = findByName(state, DATA_FILE,
+        project.getCurrentRawDataFiles(), RawDataFile::getName);
+    final List<FeatureList> featureLists = findByName(state, FEATURE_LIST,
+        project.getCurrentFeatureLists(), FeatureList::getName);
+    if (dataFiles == null || featureLists == null) {
+      logger.warning("Batch checkpoint %s does not match the opened project".formatted(
+          checkpoint.projectFile()));
+      return null;
+    }
+    return new RestoredState(project, dataFiles, featureLists);
+  }
+
+  @Nullable
+  private static <T> List<T> findByName(Properties state, String prefix, List<T> values,
+      Function<T, String> nameFunction) {
+    final Map<String, T> byName = values.stream()
+        .collect(Collectors.toMap(nameFunction, v -> v, (a, b) -> a));
+    final List<T> result = new ArrayList<>();
+    for (int i = 0; state.containsKey(prefix + i); i++) {
+      final T value = byName.get(state.getProperty(prefix + i));
+      if (value == null) {
+        return null;
+      }
+      result.add(value);
+    }
+    return result;
+  }
+
+  /**
+   * Deletes the least recently used checkpoints until the cache is smaller than the maximum size.
+   *
+   * @param keepKey the newest checkpoint is never deleted
+   */
+  private void evict(@NotNull String keepKey) {
+    final File[] stateFiles = directory.listFiles(
+        (dir, name) -> name.endsWith(STATE_SUFFIX) && !name.startsWith(keepKey));
+    final File[] allFiles = directory.listFiles();
+    if (stateFiles == null || allFiles == null) {
+      return;
+    }
+    long total = Arrays.stream(allFiles).filter(File::isFile).mapToLong(File::length).sum();
+    Arrays.sort(stateFiles, Comparator.comparingLong(File::lastModified));
+    for (File stateFile : stateFiles) {
+      if (total <= maxCacheBytes) {
+        return;
+      }
+      final String key = stateFile.getName()
+          .substring(0, stateFile.getName().length() - STATE_SUFFIX.length());
+      final File projectFile = new File(directory, key + PROJECT_SUFFIX);
+      total -= stateFile.length() + projectFile.length();
+      logger.fine("Evicting batch checkpoint " + projectFile);
+      // delete state first so that a partial checkpoint is never used
+      stateFile.delete();
+      projectFile.delete();
+    }
+  }
+
+  /**
+   * @param step index of the batch step
+   */
+  public record Checkpoint(int step, @NotNull String key, @NotNull File projectFile,
+                           @NotNull File stateFile) {
+
+  }
+
+  /**
+   * @param project          the opened project that replaced the previous project
+   * @param lastDataFiles    the batch last data files after the checkpoint step
+   * @param lastFeatureLists the batch last feature lists after the checkpoint step
+   */
+  public record RestoredState(@NotNull MZmineProject project,
+                              @NotNull List<RawDataFile> lastDataFiles,
+                              @NotNull List<FeatureList> lastFeatureLists) {
+
+  }
+}
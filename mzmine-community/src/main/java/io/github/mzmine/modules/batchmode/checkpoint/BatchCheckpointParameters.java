@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.batchmode.checkpoint;
+
+import io.github.mzmine.parameters.Parameter;
+import io.github.mzmine.parameters.impl.SimpleParameterSet;
+import io.github.mzmine.parameters.parametertypes.IntegerParameter;
+import io.github.mzmine.parameters.parametertypes.filenames.DirectoryParameter;
+
+public class BatchCheckpointParameters extends SimpleParameterSet {
+
+  public static final DirectoryParameter directory = new DirectoryParameter("Checkpoint directory",
+      "Directory to store the batch checkpoints. Use a fast local disk with enough space.");
+
+  public static final IntegerParameter maxCacheSizeGB = new IntegerParameter(
+      "Maximum cache size (GB)", """
+      The least recently used checkpoints are deleted once all checkpoints in the directory exceed this size.""",
+      50, 1, null);
+
+  public static final IntegerParameter minSecondsBetweenCheckpoints = new IntegerParameter(
+      "Minimum time between checkpoints (s)", """
+      A checkpoint is only saved once the steps since the last checkpoint ran at least this long. \
+      Short steps are faster to run again than to save the project after each of them.""", 60, 0,
+      null);
+
+  public BatchCheckpointParameters() {
+    super(new Parameter[]{directory, maxCacheSizeGB, minSecondsBetweenCheckpoints});
+  }
+}
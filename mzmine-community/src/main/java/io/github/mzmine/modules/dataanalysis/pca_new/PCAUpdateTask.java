@@ -129,7 +129,8 @@ public class PCAUpdateTask extends FxUpdateTask<PCAModel> {
     featureDataTable = DataTableUtils.createSortedCopy(featureDataTable, finalRowSorter);
 
     // perform PCA - scaling and missing value imputation is already done
-    pcaRowsResult = PCAUtils.performPCAOnDataTable(featureDataTable);
+    pcaRowsResult = PCAUtils.performPCAOnDataTable(featureDataTable,
+        Math.max(domainPcIndex, rangePcIndex) + 1);
     if (pcaRowsResult == null) {
       return;
     }
@@ -33,6 +33,7 @@ import io.github.mzmine.modules.dataanalysis.utils.imputation.ImputationFunction
 import io.github.mzmine.modules.dataanalysis.utils.scaling.ScalingFunction;
 import java.util.List;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.SingularValueDecomposition;
 import org.jetbrains.annotations.Nullable;
@@ -41,6 +42,16 @@ public class PCAUtils {
 
   private static final Logger logger = Logger.getLogger(PCAUtils.class.getName());
 
+  /**
+   * Data tables with at least this number of values (samples x features) are decomposed by a
+   * randomized truncated svd that only computes the first components.
+   */
+  public static final long TRUNCATED_SVD_MIN_VALUES = 2_000_000;
+  /**
+   * Minimum number of components computed by the truncated svd
+   */
+  public static final int TRUNCATED_SVD_MIN_COMPONENTS = 10;
+
   /**
    * Calculates the PCA of a matrix by singular value decomposition (svd).
    * https://stats.stackexchange.com/questions/134282/relationship-between-svd-and-pca-how-to-use-svd-to-perform-pca
@@ -79,21 +90,65 @@ public class PCAUtils {
     return new PCAResult(svd);
   }
 
+  /**
+   * Calculates the first components of the PCA by a randomized truncated svd on the primitive
+   * feature data. Faster and more memory efficient than {@link #quickPCA(RealMatrix)} for large data
+   * tables.
+   *
+   * @param scaledCenteredFeatureData the imputed, scaled, and centered data of each feature, all of
+   *                                  length numSamples
+   * @param numComponents             the number of components to compute
+   * @return A pca result with at most numComponents components
+   */
+  public static PCAResult truncatedPCA(double[][] scaledCenteredFeatureData, int numSamples,
+      int numComponents) {
+    logger.finest(() -> "Performing truncated singular value decomposition of %d components"
+        .formatted(numComponents));
+    // fixed seed so that the same data results in the same plot
+    return RandomizedTruncatedSVD.compute(scaledCenteredFeatureData, numSamples, numComponents,
+        42L);
+  }
+
   /**
    * @param dataTable already sorted rows, filtered for sample type, and prepared by scaling and
    *                  centering
    * @return the results or null if conditions are not met
+   * @see #performPCAOnDataTable(FeaturesDataTable, int)
    */
   public static PCARowsResult performPCAOnDataTable(FeaturesDataTable dataTable) {
+    return performPCAOnDataTable(dataTable, TRUNCATED_SVD_MIN_COMPONENTS);
+  }
+
+  /**
+   * Uses the exact svd for small data tables and the truncated svd for data tables with at least
+   * {@link #TRUNCATED_SVD_MIN_VALUES} values.
+   *
+   * @param dataTable     already sorted rows, filtered for sample type, and prepared by scaling and
+   *                      centering
+   * @param numComponents the minimum number of components required by the caller
+   * @return the results or null if conditions are not met
+   */
+  public static PCARowsResult performPCAOnDataTable(FeaturesDataTable dataTable,
+      int numComponents) {
     final List<RawDataFile> files = dataTable.getRawDataFiles();
     if (files.isEmpty()) {
       return null;
     }
 
-    // missing values are already imputed and scaling and centering are also already applied
-    final RealMatrix data = DataTableUtils.createRealMatrix(dataTable);
-
-    final PCAResult pcaResult = quickPCA(data);
+    final int numSamples = dataTable.getNumberOfSamples();
+    final int numFeatures = dataTable.getNumberOfFeatures();
+    final PCAResult pcaResult;
+    if ((long) numSamples * numFeatures < TRUNCATED_SVD_MIN_VALUES) {
+      // missing values are already imputed and scaling and centering are also already applied
+      final RealMatrix data = DataTableUtils.createRealMatrix(dataTable);
+      pcaResult = quickPCA(data);
+    } else {
+      // the data table is not changed, use the feature data without copy
+      final double[][] featureData = IntStream.range(0, numFeatures)
+          .mapToObj(i -> dataTable.getFeatureData(i, false)).toArray(double[][]::new);
+      pcaResult = truncatedPCA(featureData, numSamples,
+          Math.max(numComponents, TRUNCATED_SVD_MIN_COMPONENTS));
+    }
     return new PCARowsResult(pcaResult, dataTable.getFeatureListRows(), files);
   }
 }
@@ -0,0 +1,219 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataanalysis.pca_new;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.SingularValueDecomposition;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Randomized truncated singular value decomposition (Halko, Martinsson, Tropp 2011) that computes
+ * only the first components of a PCA. The data matrix X (samples x features) is multiplied with a
+ * random matrix to sample its range, refined by power iterations, and the small projected matrix
+ * is decomposed exactly. Operates on the primitive feature arrays of a data table in parallel
+ * feature blocks without creating the dense matrix.
+ */
+final class RandomizedTruncatedSVD {
+
+  /**
+   * Additional random samples of the range for accuracy of the last requested component
+   */
+  private static final int OVERSAMPLING = 10;
+  private static final int POWER_ITERATIONS = 3;
+  private static final int FEATURES_PER_BLOCK = 512;
+
+  private RandomizedTruncatedSVD() {
+  }
+
+  /**
+   * @param featureData   the centered and scaled data of each feature, all of length numSamples
+   * @param numSamples    number of samples (rows of X)
+   * @param numComponents number of components to compute, limited by the matrix dimensions
+   * @param seed          seed of the random matrix for reproducible results
+   * @return the truncated pca result
+   */
+  static PCAResult compute(double[][] featureData, int numSamples, int numComponents, long seed) {
+    final int numFeatures = featureData.length;
+    final int rank = Math.min(numSamples, numFeatures);
+    final int components = Math.min(numComponents, rank);
+    final int sampled = Math.min(components + OVERSAMPLING, rank);
+
+    final Random random = new Random(seed);
+    final double[][] omega = new double[numFeatures][sampled];
+    for (double[] row : omega) {
+      for (int c = 0; c < sampled; c++) {
+        row[c] = random.nextGaussian();
+      }
+    }
+
+    // Q spans the range of X
+    double[][] q = orthonormalize(multiply(featureData, numSamples, omega, sampled));
+    for (int i = 0; i < POWER_ITERATIONS; i++) {
+      final double[][] z = orthonormalize(multiplyTransposed(featureData, q, sampled));
+      q = orthonormalize(multiply(featureData, numSamples, z, sampled));
+    }
+
+    // X^T Q = B^T with B = Q^T X, svd of B^T = Uz S Vz^T, so that X = (Q Vz) S Uz^T
+    final double[][] bTransposed = multiplyTransposed(featureData, q, sampled);
+    final SingularValueDecomposition svd = new SingularValueDecomposition(
+        new Array2DRowRealMatrix(bTransposed, false));
+    final double[][] vz = svd.getV().getData();
+    final double[][] u = new double[numSamples][components];
+    for (int i = 0; i < numSamples; i++) {
+      for (int c = 0; c < components; c++) {
+        double sum = 0;
+        for (int j = 0; j < sampled; j++) {
+          sum += q[i][j] * vz[j][c];
+        }
+        u[i][c] = sum;
+      }
+    }
+    final double[][] v = svd.getU().getSubMatrix(0, numFeatures - 1, 0, components - 1)
+        .getData();
+    final double[] singularValues = Arrays.copyOf(svd.getSingularValues(), components);
+
+    final double totalVariance = Arrays.stream(featureData).parallel()
+        .mapToDouble(RandomizedTruncatedSVD::sumOfSquares).sum();
+    return new PCAResult(new Array2DRowRealMatrix(u, false), singularValues,
+        new Array2DRowRealMatrix(v, false), totalVariance);
+  }
+
+  /**
+   * @return X B with B (features x cols), as samples x cols
+   */
+  private static double[][] multiply(double[][] featureData, int numSamples, double[][] b,
+      int cols) {
+    final int numBlocks = (featureData.length + FEATURES_PER_BLOCK - 1) / FEATURES_PER_BLOCK;
+    final double[] flat = IntStream.range(0, numBlocks).parallel().mapToObj(block -> {
+      final double[] partial = new double[numSamples * cols];
+      final int end = Math.min(featureData.length, (block + 1) * FEATURES_PER_BLOCK);
+      for (int j = block * FEATURES_PER_BLOCK; j < end; j++) {
+        final double[] feature = featureData[j];
+        final double[] bRow = b[j];
+        for (int i = 0; i < numSamples; i++) {
+          final double x = feature[i];
+          if (x == 0) {
+            continue;
+          }
+          final int offset = i * cols;
+          for (int c = 0; c < cols; c++) {
+            partial[offset + c] += x * bRow[c];
+          }
+        }
+      }
+      return partial;
+    }).reduce(RandomizedTruncatedSVD::addInPlace).orElseGet(() -> new double[numSamples * cols]);
+
+    final double[][] result = new double[numSamples][];
+    for (int i = 0; i < numSamples; i++) {
+      result[i] = Arrays.copyOfRange(flat, i * cols, (i + 1) * cols);
+    }
+    return result;
+  }
+
+  /**
+   * @return X^T Q with Q (samples x cols), as features x cols
+   */
+  private static double[][] multiplyTransposed(double[][] featureData, double[][] q, int cols) {
+    final int numSamples = q.length;
+    final double[] flatQ = new double[numSamples * cols];
+    for (int i = 0; i < numSamples; i++) {
+      System.arraycopy(q[i], 0, flatQ, i * cols, cols);
+    }
+
+    final double[][] result = new double[featureData.length][cols];
+    IntStream.range(0, featureData.length).parallel().forEach(j -> {
+      final double[] feature = featureData[j];
+      final double[] resultRow = result[j];
+      for (int i = 0; i < numSamples; i++) {
+        final double x = feature[i];
+        if (x == 0) {
+          continue;
+        }
+        final int offset = i * cols;
+        for (int c = 0; c < cols; c++) {
+          resultRow[c] += x * flatQ[offset + c];
+        }
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Orthonormalizes the columns by modified Gram-Schmidt. Linearly dependent columns are set to
+   * zero.
+   *
+   * @param m rows x cols, changed in place
+   * @return m
+   */
+  private static double[][] orthonormalize(@NotNull double[][] m) {
+    final int cols = m.length == 0 ? 0 : m[0].length;
+    for (int c = 0; c < cols; c++) {
+      final double originalNorm = columnNorm(m, c);
+      for (int prev = 0; prev < c; prev++) {
+        double dot = 0;
+        for (double[] row : m) {
+          dot += row[c] * row[prev];
+        }
+        for (double[] row : m) {
+          row[c] -= dot * row[prev];
+        }
+      }
+      final double norm = columnNorm(m, c);
+      final double scale = norm > originalNorm * 1e-10 ? 1d / norm : 0d;
+      for (double[] row : m) {
+        row[c] *= scale;
+      }
+    }
+    return m;
+  }
+
+  private static double columnNorm(double[][] m, int col) {
+    double sum = 0;
+    for (double[] row : m) {
+      sum += row[col] * row[col];
+    }
+    return Math.sqrt(sum);
+  }
+
+  private static double sumOfSquares(double[] values) {
+    double sum = 0;
+    for (double value : values) {
+      sum += value * value;
+    }
+    return sum;
+  }
+
+  private static double[] addInPlace(double[] a, double[] b) {
+    for (int i = 0; i < a.length; i++) {
+      a[i] += b[i];
+    }
+    return a;
+  }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataanalysis.significance;
+
+import io.github.mzmine.datamodel.statistics.DataTable;
+import io.github.mzmine.modules.dataanalysis.significance.ttest.TTestSamplingConfig;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.apache.commons.math3.special.Beta;
+import org.apache.commons.math3.stat.inference.MannWhitneyUTest;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Tests all rows of grouped data tables at once instead of testing one row at a time. Group
+ * means and variances are computed directly on the primitive row arrays and the t or F statistics
+ * and p values are derived in parallel blocks of rows. The p values match the respective
+ * {@link SignificanceTests} of commons math. The Mann-Whitney U test is rank based and still
+ * tests each row on its own but also in parallel blocks.
+ */
+public final class BatchSignificanceTest {
+
+  private static final int ROWS_PER_BLOCK = 1024;
+
+  private BatchSignificanceTest() {
+  }
+
+  /**
+   * @param groups one table per group, all tables with the same rows in the same order, e.g., by
+   *               {@link io.github.mzmine.datamodel.statistics.FeaturesDataTable#subsetBySamples(List)}
+   * @param test   the test to apply. Univariate tests require exactly 2 groups.
+   * @return the test statistics, p values, and Benjamini-Hochberg adjusted p values in the order of
+   * the rows
+   */
+  public static @NotNull BatchSignificanceTestResult testAllRows(
+      @NotNull List<? extends DataTable> groups, @NotNull SignificanceTests test) {
+    checkGroups(groups, test);
+
+    final int numRows = groups.getFirst().getNumberOfFeatures();
+    final double[] statistics = new double[numRows];
+    final double[] pValues = new double[numRows];
+
+    final int numBlocks = (numRows + ROWS_PER_BLOCK - 1) / ROWS_PER_BLOCK;
+    IntStream.range(0, numBlocks).parallel().forEach(block -> {
+      final int from = block * ROWS_PER_BLOCK;
+      final int to = Math.min(numRows, from + ROWS_PER_BLOCK);
+      switch (test) {
+        case WELCHS_T_TEST, STUDENTS_T_TEST ->
+            unpairedTTest(groups.getFirst(), groups.get(1), test == SignificanceTests.WELCHS_T_TEST,
+                from, to, statistics, pValues);
+        case PAIRED_T_TEST ->
+            pairedTTest(groups.getFirst(), groups.get(1), from, to, statistics, pValues);
+        case MANN_WHITNEY_U_TEST ->
+            mannWhitneyUTest(groups.getFirst(), groups.get(1), from, to, statistics, pValues);
+        case ONE_WAY_ANOVA -> oneWayAnova(groups, from, to, statistics, pValues);
+      }
+    });
+
+    return new BatchSignificanceTestResult(test, statistics, pValues,
+        benjaminiHochberg(pValues));
+  }
+
+  private static void checkGroups(@NotNull List<? extends DataTable> groups,
+      @NotNull SignificanceTests test) {
+    final boolean validGroups = test == SignificanceTests.ONE_WAY_ANOVA ? groups.size() >= 2
+        : groups.size() == 2;
+    if (!validGroups) {
+      throw new IllegalArgumentException(
+          "Wrong number of groups (%d) for %s".formatted(groups.size(), test));
+    }
+    final int numRows = groups.getFirst().getNumberOfFeatures();
+    for (DataTable group : groups) {
+      if (group.getNumberOfFeatures() != numRows) {
+        throw new IllegalArgumentException("All groups need the same rows");
+      }
+      if (group.getNumberOfSamples() < 2) {
+        throw new IllegalArgumentException(
+            "At least two samples per group are required for %s".formatted(test));
+      }
+    }
+    if (test.getSamplingConfig() == TTestSamplingConfig.PAIRED
+        && groups.getFirst().getNumberOfSamples() != groups.get(1).getNumberOfSamples()) {
+      throw new IllegalArgumentException(
+          "Paired test requires the same number of samples in group 1 and group 2. Found %d in group 1 and %d in group 2".formatted(
+              groups.getFirst().getNumberOfSamples(), groups.get(1).getNumberOfSamples()));
+    }
+  }
+
+  private static void unpairedTTest(DataTable a, DataTable b, boolean welch, int from, int to,
+      double[] statistics, double[] pValues) {
+    final int n1 = a.getNumberOfSamples();
+    final int n2 = b.getNumberOfSamples();
+    for (int row = from; row < to; row++) {
+      final double[] valuesA = a.getFeatureData(row, false);
+      final double[] valuesB = b.getFeatureData(row, false);
+      final double m1 = mean(valuesA);
+      final double m2 = mean(valuesB);
+      final double v1 = variance(valuesA, m1);
+      final double v2 = variance(valuesB, m2);
+
+      final double t;
+      final double df;
+      if (welch) {
+        final double se1 = v1 / n1;
+        final double se2 = v2 / n2;
+        t = (m1 - m2) / Math.sqrt(se1 + se2);
+        // Welch-Satterthwaite degrees of freedom
+        df = (se1 + se2) * (se1 + se2) / (se1 * se1 / (n1 - 1) + se2 * se2 / (n2 - 1));
+      } else {
+        df = n1 + n2 - 2;
+        final double pooledVariance = ((n1 - 1) * v1 + (n2 - 1) * v2) / df;
+        t = (m1 - m2) / Math.sqrt(pooledVariance * (1d / n1 + 1d / n2));
+      }
+      statistics[row] = t;
+      pValues[row] = tTestPValue(t, df);
+    }
+  }
+
+  private static void pairedTTest(DataTable a, DataTable b, int from, int to,
+      double[] statistics, double[] pValues) {
+    final int n = a.getNumberOfSamples();
+    final double[] differences = new double[n];
+    for (int row = from; row < to; row++) {
+      final double[] valuesA = a.getFeatureData(row, false);
+      final double[] valuesB = b.getFeatureData(row, false);
+      for (int i = 0; i < n; i++) {
+        differences[i] = valuesA[i] - valuesB[i];
+      }
+      final double mean = mean(differences);
+      final double t = mean / Math.sqrt(variance(differences, mean) / n);
+      statistics[row] = t;
+      pValues[row] = tTestPValue(t, n - 1);
+    }
+  }
+
+  private static void mannWhitneyUTest(DataTable a, DataTable b, int from, int to,
+      double[] statistics, double[] pValues) {
+    final MannWhitneyUTest mannWhitney = new MannWhitneyUTest();
+    for (int row = from; row < to; row++) {
+      final double[] valuesA = a.getFeatureData(row, false);
+      final double[] valuesB = b.getFeatureData(row, false);
+      statistics[row] = mannWhitney.mannWhitneyU(valuesA, valuesB);
+      pValues[row] = mannWhitney.mannWhitneyUTest(valuesA, valuesB);
+    }
+  }
+
+  private static void oneWayAnova(List<? extends DataTable> groups, int from, int to,
+      double[] statistics, double[] pValues) {
+    final int numGroups = groups.size();
+    int totalSamples = 0;
+    for (DataTable group : groups) {
+      totalSamples += group.getNumberOfSamples();
+    }
+    final double dfBetween = numGroups - 1;
+    final double dfWithin = totalSamples - numGroups;
+
+    final double[] means = new double[numGroups];
+    for (int row = from; row < to; row++) {
+      double sum = 0;
+      double sumSquaresWithin = 0;
+      for (int g = 0; g < numGroups; g++) {
+        final double[] values = groups.get(g).getFeatureData(row, false);
+        final double mean = mean(values);
+        means[g] = mean;
+        sum += mean * values.length;
+        sumSquaresWithin += sumOfSquaredDeviations(values, mean);
+      }
+      final double grandMean = sum / totalSamples;
+      double sumSquaresBetween = 0;
+      for (int g = 0; g < numGroups; g++) {
+        final double diff = means[g] - grandMean;
+        sumSquaresBetween += groups.get(g).getNumberOfSamples() * diff * diff;
+      }
+
+      final double f = (sumSquaresBetween / dfBetween) / (sumSquaresWithin / dfWithin);
+      statistics[row] = f;
+      pValues[row] = fTestPValue(f, dfBetween, dfWithin);
+    }
+  }
+
+  /**
+   * @return the two-sided p value of the t statistic
+   */
+  static double tTestPValue(double t, double df) {
+    // 2 * P(T < -|t|) of the t distribution
+    return Beta.regularizedBeta(df / (df + t * t), 0.5 * df, 0.5);
+  }
+
+  /**
+   * @return the p value P(F > f) of the F statistic
+   */
+  static double fTestPValue(double f, double dfNumerator, double dfDenominator) {
+    if (f <= 0) {
+      return Double.isNaN(f) ? Double.NaN : 1d;
+    }
+    return Beta.regularizedBeta(dfDenominator / (dfDenominator + dfNumerator * f),
+        0.5 * dfDenominator, 0.5 * dfNumerator);
+  }
+
+  private static double mean(double[] values) {
+    double sum = 0;
+    for (double value : values) {
+      sum += value;
+    }
+    return sum / values.length;
+  }
+
+  private static double variance(double[] values, double mean) {
+    return sumOfSquaredDeviations(values, mean) / (values.length - 1);
+  }
+
+  private static double sumOfSquaredDeviations(double[] values, double mean) {
+    double sum = 0;
+    for (double value : values) {
+      final double diff = value - mean;
+      sum += diff * diff;
+    }
+    return sum;
+  }
+
+  /**
+   * Benjamini-Hochberg procedure to control the false discovery rate of multiple tests. NaN p
+   * values are not counted as tests and stay NaN.
+   *
+   * @param pValues the raw p values
+   * @return the adjusted p values (q values) in the same order
+   */
+  public static double @NotNull [] benjaminiHochberg(double @NotNull [] pValues) {
+    final double[] adjusted = new double[pValues.length];
+    Arrays.fill(adjusted, Double.NaN);
+
+    final int[] order = IntStream.range(0, pValues.length)
+        .filter(i -> !Double.isNaN(pValues[i])).toArray();
+    IntArrays.parallelQuickSort(order, (i, j) -> Double.compare(pValues[i], pValues[j]));
+
+    // step down from the largest p value to keep the adjusted values monotonic
+    final int numTests = order.length;
+    double min = 1d;
+    for (int rank = numTests; rank >= 1; rank--) {
+      final int index = order[rank - 1];
+      min = Math.min(min, pValues[index] * numTests / rank);
+      adjusted[index] = min;
+    }
+    return adjusted;
+  }
+}
@@ -33,8 +33,10 @@ import io.github.mzmine.modules.visualization.projectmetadata.table.MetadataTabl
 import io.github.mzmine.modules.visualization.projectmetadata.table.columns.MetadataColumn;
 import io.github.mzmine.parameters.parametertypes.statistics.UnivariateRowSignificanceTestConfig;
 import io.github.mzmine.project.ProjectService;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
 
 /**
@@ -42,6 +44,8 @@ import org.jetbrains.annotations.NotNull;
  */
 public final class UnivariateRowSignificanceTest<T> implements RowSignificanceTest {
 
+  private static final Logger logger = Logger.getLogger(
+      UnivariateRowSignificanceTest.class.getName());
   private final SignificanceTests test;
   private final MetadataColumn<T> column;
   private final T groupA;
@@ -115,6 +119,33 @@ public final class UnivariateRowSignificanceTest<T> implements RowSignificanceTe
     }
   }
 
+  /**
+   * Tests all rows of the data tables at once, which is much faster than testing each row by
+   * {@link #test(FeatureListRow)}. Rows without a p value, e.g., constant abundances, are skipped
+   * and logged. {@link #test(FeatureListRow)} fails for those rows.
+   *
+   * @return the results in the order of the rows in the data tables
+   */
+  public @NotNull List<RowSignificanceTestResult> testAllRows() {
+    final BatchSignificanceTestResult result = BatchSignificanceTest.testAllRows(
+        List.of(groupAData, groupBData), test);
+
+    final String columnTitle = column.getTitle();
+    final List<RowSignificanceTestResult> results = new ArrayList<>(result.numberOfRows());
+    for (int i = 0; i < result.numberOfRows(); i++) {
+      if (Double.isNaN(result.pValues()[i])) {
+        continue;
+      }
+      results.add(new UnivariateRowSignificanceTestResult(groupAData.getFeatureRow(i).row(),
+          columnTitle, result.pValues()[i]));
+    }
+    if (results.size() < result.numberOfRows()) {
+      logger.warning("%s test: %d of %d rows have no p value and are skipped".formatted(
+          test, result.numberOfRows() - results.size(), result.numberOfRows()));
+    }
+    return results;
+  }
+
   public SignificanceTest getTest() {
     return test;
   }
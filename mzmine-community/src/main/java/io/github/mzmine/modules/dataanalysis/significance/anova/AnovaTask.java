@@ -40,7 +40,6 @@ import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.TaskStatus;
 import java.time.Instant;
 import java.util.List;
-import java.util.Objects;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
@@ -97,13 +96,12 @@ public class AnovaTask extends AbstractTask {
       return;
     }
 
-    final List<AnovaResult> anovaResults = flist.getRows().stream().map(row -> {
-      if (isCanceled()) {
-        return null;
-      }
-      processed++;
-      return calc.test(row);
-    }).filter(Objects::nonNull).toList();
+    // test all rows at once
+    final List<AnovaResult> anovaResults = calc.testAllRows();
+    processed = flist.getNumberOfRows();
+    if (isCanceled()) {
+      return;
+    }
 
     anovaResults.forEach(r -> r.row().set(AnovaPValueType.class, r.pValue()));
     flist.getAppliedMethods()
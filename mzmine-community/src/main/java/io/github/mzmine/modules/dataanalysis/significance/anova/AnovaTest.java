@@ -29,17 +29,24 @@ import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.statistics.DataTableUtils;
 import io.github.mzmine.datamodel.statistics.FeaturesDataTable;
+import io.github.mzmine.modules.dataanalysis.significance.BatchSignificanceTest;
+import io.github.mzmine.modules.dataanalysis.significance.BatchSignificanceTestResult;
 import io.github.mzmine.modules.dataanalysis.significance.RowSignificanceTest;
+import io.github.mzmine.modules.dataanalysis.significance.SignificanceTests;
 import io.github.mzmine.modules.visualization.projectmetadata.MetadataColumnDoesNotExistException;
 import io.github.mzmine.modules.visualization.projectmetadata.table.MetadataTable;
 import io.github.mzmine.modules.visualization.projectmetadata.table.columns.MetadataColumn;
 import io.github.mzmine.project.ProjectService;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.logging.Logger;
 import org.apache.commons.math3.stat.inference.TestUtils;
 
 public class AnovaTest implements RowSignificanceTest {
 
+  private static final Logger logger = Logger.getLogger(AnovaTest.class.getName());
+
   private final List<List<RawDataFile>> groupedFiles;
   private final MetadataColumn<?> groupingColumn;
   // the data table
@@ -73,4 +80,33 @@ public class AnovaTest implements RowSignificanceTest {
     final double fValue = TestUtils.oneWayAnovaFValue(intensityGroups);
     return new AnovaResult(row, groupingColumn.getTitle(), pValue, fValue);
   }
+
+  /**
+   * Tests all rows of the data table at once, which is much faster than testing each row by
+   * {@link #test(FeatureListRow)}. Rows without a p value, e.g., constant abundances, are skipped
+   * and logged.
+   *
+   * @return the results in the order of the rows in the data table
+   */
+  public List<AnovaResult> testAllRows() {
+    final List<FeaturesDataTable> groups = groupedFiles.stream()
+        .map(dataTable::subsetBySamples).toList();
+    final BatchSignificanceTestResult result = BatchSignificanceTest.testAllRows(groups,
+        SignificanceTests.ONE_WAY_ANOVA);
+
+    final String columnTitle = groupingColumn.getTitle();
+    final List<AnovaResult> results = new ArrayList<>(result.numberOfRows());
+    for (int i = 0; i < result.numberOfRows(); i++) {
+      if (Double.isNaN(result.pValues()[i])) {
+        continue;
+      }
+      results.add(new AnovaResult(dataTable.getFeatureRow(i).row(), columnTitle,
+          result.pValues()[i], result.statistics()[i]));
+    }
+    if (results.size() < result.numberOfRows()) {
+      logger.warning("ANOVA: %d of %d rows have no p value and are skipped".formatted(
+          result.numberOfRows() - results.size(), result.numberOfRows()));
+    }
+    return results;
+  }
 }
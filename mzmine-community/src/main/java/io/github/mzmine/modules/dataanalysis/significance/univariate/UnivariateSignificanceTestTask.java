@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataanalysis.significance.univariate;
+
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.types.DataTypes;
+import io.github.mzmine.datamodel.features.types.numbers.stats.SignificancePValueType;
+import io.github.mzmine.datamodel.features.types.numbers.stats.SignificanceQValueType;
+import io.github.mzmine.datamodel.features.types.numbers.stats.SignificanceTestStatisticType;
+import io.github.mzmine.datamodel.statistics.FeaturesDataTable;
+import io.github.mzmine.modules.MZmineModule;
+import io.github.mzmine.modules.dataanalysis.significance.BatchSignificanceTest;
+import io.github.mzmine.modules.dataanalysis.significance.BatchSignificanceTestResult;
+import io.github.mzmine.modules.dataanalysis.significance.UnivariateRowSignificanceTest;
+import io.github.mzmine.modules.dataanalysis.utils.StatisticUtils;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.statistics.AbundanceDataTablePreparationConfig;
+import io.github.mzmine.parameters.parametertypes.statistics.UnivariateRowSignificanceTestConfig;
+import io.github.mzmine.taskcontrol.AbstractFeatureListTask;
+import io.github.mzmine.util.MemoryMapStorage;
+import java.time.Instant;
+import java.util.List;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Tests all rows at once by {@link BatchSignificanceTest} and writes the results as row types.
+ */
+class UnivariateSignificanceTestTask extends AbstractFeatureListTask {
+
+  private static final Logger logger = Logger.getLogger(
+      UnivariateSignificanceTestTask.class.getName());
+  private final FeatureList flist;
+  private final AbundanceDataTablePreparationConfig preparationConfig;
+  private final UnivariateRowSignificanceTestConfig testConfig;
+
+  UnivariateSignificanceTestTask(@Nullable MemoryMapStorage storage,
+      @NotNull Instant moduleCallDate, @NotNull ParameterSet parameters,
+      @NotNull Class<? extends MZmineModule> moduleClass, @NotNull FeatureList flist) {
+    super(storage, moduleCallDate, parameters, moduleClass);
+    this.flist = flist;
+    preparationConfig = parameters.getParameter(
+        UnivariateSignificanceTestParameters.dataPreparationConfig).createConfig();
+    testConfig = parameters.getValue(UnivariateSignificanceTestParameters.testConfig);
+    totalItems = flist.getNumberOfRows();
+  }
+
+  @Override
+  protected void process() {
+    final FeaturesDataTable dataTable = StatisticUtils.extractAbundancesPrepareData(flist,
+        preparationConfig);
+
+    final UnivariateRowSignificanceTest<?> test = testConfig.toValidConfig(dataTable);
+    if (test == null) {
+      error("Invalid test configuration %s. Check the metadata column and groups.".formatted(
+          testConfig));
+      return;
+    }
+
+    final BatchSignificanceTestResult result = BatchSignificanceTest.testAllRows(
+        List.of(test.getGroupAData(), test.getGroupBData()), testConfig.samplingConfig());
+    if (isCanceled()) {
+      return;
+    }
+
+    flist.addRowType(DataTypes.get(SignificanceTestStatisticType.class));
+    flist.addRowType(DataTypes.get(SignificancePValueType.class));
+    flist.addRowType(DataTypes.get(SignificanceQValueType.class));
+    int skipped = 0;
+    for (int i = 0; i < result.numberOfRows(); i++) {
+      incrementFinishedItems();
+      // no p value, e.g., for constant abundances. Keep these rows empty instead of writing NaN
+      if (Double.isNaN(result.pValues()[i])) {
+        skipped++;
+        continue;
+      }
+      final FeatureListRow row = dataTable.getFeatureRow(i).row();
+      row.set(SignificanceTestStatisticType.class, result.statistics()[i]);
+      row.set(SignificancePValueType.class, result.pValues()[i]);
+      row.set(SignificanceQValueType.class, result.qValues()[i]);
+    }
+    if (skipped > 0) {
+      logger.warning("%d of %d rows in %s have no p value and were skipped".formatted(skipped,
+          result.numberOfRows(), flist.getName()));
+    }
+  }
+
+  @Override
+  public String getTaskDescription() {
+    return "Testing significance of rows in " + flist.getName();
+  }
+
+  @Override
+  protected @NotNull List<FeatureList> getProcessedFeatureLists() {
+    return List.of(flist);
+  }
+}
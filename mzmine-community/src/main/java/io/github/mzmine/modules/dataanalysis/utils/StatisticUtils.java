@@ -32,10 +32,14 @@ import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.features.ModularDataModel;
 import io.github.mzmine.datamodel.features.ModularFeature;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.statistics.DataTableProcessingHistory;
 import io.github.mzmine.datamodel.statistics.FeatureListRowAbundances;
 import io.github.mzmine.datamodel.statistics.FeaturesDataTable;
+import io.github.mzmine.datamodel.statistics.FeaturesDataTableCache;
+import io.github.mzmine.modules.dataanalysis.utils.imputation.ImputationFunctions;
 import io.github.mzmine.modules.dataanalysis.utils.scaling.ScalingFunction;
+import io.github.mzmine.modules.dataanalysis.utils.scaling.ScalingFunctions;
 import io.github.mzmine.parameters.parametertypes.statistics.AbundanceDataTablePreparationConfig;
 import java.util.Arrays;
 import java.util.List;
@@ -47,6 +51,7 @@ import org.apache.commons.math3.linear.Array2DRowRealMatrix;
 import org.apache.commons.math3.linear.RealMatrix;
 import org.apache.commons.math3.linear.RealVector;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class StatisticUtils {
 
@@ -62,7 +67,9 @@ public class StatisticUtils {
   }
 
   /**
-   * Extract abundances and apply missing value imputation and other transformations
+   * Extract abundances and apply missing value imputation and other transformations. Rows of a
+   * {@link ModularFeatureList} are prepared through its {@link FeaturesDataTableCache} so that
+   * repeated requests and requests that only differ in later stages reuse the prepared tables.
    *
    * @param rows   define data
    * @param files  define data
@@ -71,30 +78,80 @@ public class StatisticUtils {
    */
   public static FeaturesDataTable extractAbundancesPrepareData(List<FeatureListRow> rows,
       List<RawDataFile> files, AbundanceDataTablePreparationConfig config) {
+    final FeaturesDataTableCache cache = findDataTableCache(rows);
+    if (cache == null) {
+      return prepareStage(null, rows, files, config);
+    }
+    // cached tables are shared - callers may change the result
+    return prepareStage(cache, rows, files, config).copy();
+  }
 
-    // extract values for each row
-    FeatureListRowAbundances[] abundances = rows.stream().map(row -> {
-      // keep track of the original missing values
-      return FeatureListRowAbundances.of(row, extractAbundance(row, files, config.measure()), true);
-    }).toArray(FeatureListRowAbundances[]::new);
-
-    // create data table already setting history as this will be applied
-    FeaturesDataTable data = new FeaturesDataTable(files, abundances);
-
-    if (config.missingValueImputation().isActive()) {
-      data = config.missingValueImputation().getImputer().process(data, true);
+  /**
+   * @return the cache of the feature list if all rows are from the same modular feature list
+   */
+  private static @Nullable FeaturesDataTableCache findDataTableCache(List<FeatureListRow> rows) {
+    if (rows.isEmpty() || !(rows.getFirst()
+        .getFeatureList() instanceof ModularFeatureList flist)) {
+      return null;
+    }
+    for (FeatureListRow row : rows) {
+      if (row.getFeatureList() != flist) {
+        return null;
+      }
     }
+    return flist.getDataTableCache();
+  }
 
-    if (config.scalingFunction().isActive()) {
-      // apply scaling
-      data = config.scalingFunction().getScalingFunction().process(data, true);
+  /**
+   * Prepares the last stage of the config from the previous stage. The stages are extraction,
+   * imputation, scaling, and centering.
+   *
+   * @param cache caches each stage or null to compute without caching
+   */
+  private static FeaturesDataTable prepareStage(@Nullable FeaturesDataTableCache cache,
+      List<FeatureListRow> rows, List<RawDataFile> files,
+      AbundanceDataTablePreparationConfig stage) {
+    if (cache == null) {
+      return computeStage(null, rows, files, stage);
     }
-    if (config.centeringFunction().isActive()) {
+    return cache.computeIfAbsent(rows, files, stage, () -> computeStage(cache, rows, files, stage));
+  }
+
+  private static FeaturesDataTable computeStage(@Nullable FeaturesDataTableCache cache,
+      List<FeatureListRow> rows, List<RawDataFile> files,
+      AbundanceDataTablePreparationConfig stage) {
+    // without cache all steps are applied in place
+    final boolean inPlace = cache == null;
+    final ScalingFunctions none = ScalingFunctions.None;
+
+    final FeaturesDataTable data;
+    if (stage.centeringFunction().isActive()) {
       // apply centering after scaling!
-      data = config.centeringFunction().getScalingFunction().process(data, true);
+      final var previous = new AbundanceDataTablePreparationConfig(stage.measure(),
+          stage.missingValueImputation(), stage.scalingFunction(), none);
+      data = stage.centeringFunction().getScalingFunction()
+          .process(prepareStage(cache, rows, files, previous), inPlace);
+    } else if (stage.scalingFunction().isActive()) {
+      final var previous = new AbundanceDataTablePreparationConfig(stage.measure(),
+          stage.missingValueImputation(), none, none);
+      data = stage.scalingFunction().getScalingFunction()
+          .process(prepareStage(cache, rows, files, previous), inPlace);
+    } else if (stage.missingValueImputation().isActive()) {
+      final var previous = new AbundanceDataTablePreparationConfig(stage.measure(),
+          ImputationFunctions.None, none, none);
+      data = stage.missingValueImputation().getImputer()
+          .process(prepareStage(cache, rows, files, previous), inPlace);
+    } else {
+      // extract values for each row
+      FeatureListRowAbundances[] abundances = rows.stream().map(row -> {
+        // keep track of the original missing values
+        return FeatureListRowAbundances.of(row, extractAbundance(row, files, stage.measure()),
+            true);
+      }).toArray(FeatureListRowAbundances[]::new);
+      data = new FeaturesDataTable(files, abundances);
     }
 
-    final DataTableProcessingHistory history = new DataTableProcessingHistory(config);
+    final DataTableProcessingHistory history = new DataTableProcessingHistory(stage);
     data.setProcessingHistory(history);
     return data;
   }
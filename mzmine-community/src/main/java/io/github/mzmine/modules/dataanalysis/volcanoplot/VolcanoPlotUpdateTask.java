@@ -98,16 +98,26 @@ class VolcanoPlotUpdateTask extends FxUpdateTask<VolcanoPlotModel> {
     if (!checkPreConditions()) {
       return;
     }
-    List<RowSignificanceTestResult> rowSignificanceTestResults = new ArrayList<>();
-    for (final FeatureListRow row : flist.getRows()) {
-      if (isCanceled()) {
-        return;
-      }
-      RowSignificanceTestResult result = test.test(row);
-      if (result != null) {
-        rowSignificanceTestResults.add(result);
+    final List<RowSignificanceTestResult> rowSignificanceTestResults;
+    if (test instanceof UnivariateRowSignificanceTest<?> univariateTest) {
+      // test all rows at once, rows without p value are skipped and not plotted
+      rowSignificanceTestResults = univariateTest.testAllRows();
+      progress.addFinished(flist.getNumberOfRows());
+    } else {
+      rowSignificanceTestResults = new ArrayList<>();
+      for (final FeatureListRow row : flist.getRows()) {
+        if (isCanceled()) {
+          return;
+        }
+        RowSignificanceTestResult result = test.test(row);
+        if (result != null) {
+          rowSignificanceTestResults.add(result);
+        }
+        progress.getAndIncrement();
       }
-      progress.getAndIncrement();
+    }
+    if (isCanceled()) {
+      return;
     }
 
     final Map<DataType<?>, List<RowSignificanceTestResult>> dataTypeMap = DataTypeUtils.groupByBestDataType(
@@ -26,25 +26,33 @@
 
 package io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder;
 
-import io.github.mzmine.datamodel.DataPoint;
 import io.github.mzmine.datamodel.Scan;
-import io.github.mzmine.datamodel.impl.SimpleDataPoint;
 import io.github.mzmine.main.MZmineCore;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.TreeMap;
+import it.unimi.dsi.fastutil.Arrays;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import java.util.ArrayList;
+import java.util.List;
 import org.jetbrains.annotations.NotNull;
 
 
 /**
- * Chromatogram.
+ * Chromatogram. Data points are stored as primitive m/z, intensity and scan index arrays without a
+ * data point object per signal. The scan index refers to the array of all scans used to build the
+ * chromatograms.
  */
 public class ADAPChromatogram {
 
-  // Data points of the chromatogram (map of scan number -> m/z feature)
-  // private Hashtable<Integer, DataPoint> dataPointsMap;
-  private final TreeMap<Scan, DataPoint> dataPointsMap = new TreeMap<>();
+  // all scans used to build chromatograms
+  private final Scan[] allScans;
+  // scan indices that already contain a data point
+  private final IntOpenHashSet usedScanIndices = new IntOpenHashSet();
+  // data points in order of addition - sorted by scan index on demand
+  private final IntArrayList scanIndices = new IntArrayList();
+  private final DoubleArrayList mzValues = new DoubleArrayList();
+  private final DoubleArrayList intensityValues = new DoubleArrayList();
+  private boolean sortedByScan = true;
   public int tmp_see_same_scan_count = 0;
   // Chromatogram m/z weighted
   private double mz;
@@ -53,38 +61,46 @@ public class ADAPChromatogram {
 
   /**
    * Initializes this Chromatogram
+   *
+   * @param allScans all scans used to build chromatograms, sorted by scan number. Data points
+   *                 reference the scans by their index in this array.
    */
-  public ADAPChromatogram() {
-  }
-
-  public Collection<DataPoint> getDataPoints() {
-    return dataPointsMap.values();
+  public ADAPChromatogram(@NotNull Scan[] allScans) {
+    this.allScans = allScans;
   }
 
-
   /**
    * Check for a minimum number of continuous scans
    *
-   * @param allScans        all scans used to build chromatograms
    * @param intensityThresh minimum intensity to consider data point connected
    * @param minimumScanSpan minimum number of connected dp
    * @return true if a minimum number of scans are connected (without holes)
    */
-  public boolean matchesMinContinuousDataPoints(Scan[] allScans, double intensityThresh,
-      int minimumScanSpan, double minHeight) {
+  public boolean matchesMinContinuousDataPoints(double intensityThresh, int minimumScanSpan,
+      double minHeight) {
     if (minimumScanSpan <= 1 && getNumberOfDataPoints() > 0) {
       return true;
     }
 
+    ensureSortedByScan();
+
     int connectedScans = 0;
     double maxCurrentHeight = 0d;
-    for (Scan scan : allScans) {
-      final DataPoint dataPoint = getDataPoint(scan);
-      if (dataPoint != null && dataPoint.getIntensity() >= intensityThresh) {
+    int lastScanIndex = -2;
+    for (int i = 0; i < scanIndices.size(); i++) {
+      final int scanIndex = scanIndices.getInt(i);
+      // a scan without data point interrupts the connected scans
+      if (scanIndex != lastScanIndex + 1) {
+        connectedScans = 0;
+      }
+      lastScanIndex = scanIndex;
+
+      final double intensity = intensityValues.getDouble(i);
+      if (intensity >= intensityThresh) {
         connectedScans++;
         // track height of current segment
-        if (maxCurrentHeight < dataPoint.getIntensity()) {
-          maxCurrentHeight = dataPoint.getIntensity();
+        if (maxCurrentHeight < intensity) {
+          maxCurrentHeight = intensity;
         }
         // check conditions
         if (connectedScans >= minimumScanSpan && maxCurrentHeight >= minHeight) {
@@ -101,36 +117,66 @@ public class ADAPChromatogram {
    * Number of detected data points
    */
   public int getNumberOfDataPoints() {
-    return dataPointsMap.size();
+    return scanIndices.size();
   }
 
   /**
    * This method adds a MzFeature to this Chromatogram. All values of this Chromatogram (rt, m/z,
    * intensity and ranges) are updated on request
+   *
+   * @param scanIndex index of the scan in all scans
    */
-  public void addMzFeature(Scan scanNumber, DataPoint mzValue) {
+  public void addMzFeature(int scanIndex, double mzValue, double intensity) {
     // If we already have a mz value for the scan number then we need to add the intensities
-    // together before putting it into the dataPointsMap, otherwise the chromatogram is only
+    // together before putting it into the data points, otherwise the chromatogram is only
     // representing the intensities of the last added point for that scan.
     //
     // For now just don't add the point if we have it already. The highest point will be the
     // first one added
-    if (dataPointsMap.containsKey(scanNumber)) {
+    if (!usedScanIndices.add(scanIndex)) {
       tmp_see_same_scan_count += 1;
       return;
     }
-    if (mzValue == null) {
-      return;
-    }
 
-    dataPointsMap.put(scanNumber, mzValue);
-    mzSum += mzValue.getMZ();
+    addDataPoint(scanIndex, mzValue, intensity);
+    mzSum += mzValue;
     mzN++;
     mz = mzSum / mzN;
   }
 
-  public DataPoint getDataPoint(Scan scanNumber) {
-    return dataPointsMap.get(scanNumber);
+  private void addDataPoint(int scanIndex, double mzValue, double intensity) {
+    if (sortedByScan && !scanIndices.isEmpty()
+        && scanIndices.getInt(scanIndices.size() - 1) > scanIndex) {
+      sortedByScan = false;
+    }
+    scanIndices.add(scanIndex);
+    mzValues.add(mzValue);
+    intensityValues.add(intensity);
+  }
+
+  /**
+   * Sorts the data points by scan index in place
+   */
+  private void ensureSortedByScan() {
+    if (sortedByScan) {
+      return;
+    }
+    final int[] scans = scanIndices.elements();
+    final double[] mzs = mzValues.elements();
+    final double[] intensities = intensityValues.elements();
+    Arrays.quickSort(0, scanIndices.size(), (a, b) -> Integer.compare(scans[a], scans[b]),
+        (a, b) -> {
+          final int scan = scans[a];
+          scans[a] = scans[b];
+          scans[b] = scan;
+          final double mz = mzs[a];
+          mzs[a] = mzs[b];
+          mzs[b] = mz;
+          final double intensity = intensities[a];
+          intensities[a] = intensities[b];
+          intensities[b] = intensity;
+        });
+    sortedByScan = true;
   }
 
   /**
@@ -150,8 +196,32 @@ public class ADAPChromatogram {
     return "Chromatogram " + MZmineCore.getConfiguration().getMZFormat().format(mz) + " m/z";
   }
 
-  public @NotNull Collection<Scan> getScanNumbers() {
-    return dataPointsMap.keySet();
+  /**
+   * @return m/z values sorted by scan
+   */
+  public double[] getMzValues() {
+    ensureSortedByScan();
+    return mzValues.toDoubleArray();
+  }
+
+  /**
+   * @return intensity values sorted by scan
+   */
+  public double[] getIntensityValues() {
+    ensureSortedByScan();
+    return intensityValues.toDoubleArray();
+  }
+
+  /**
+   * @return the scans of all data points sorted by scan
+   */
+  public @NotNull List<Scan> getScans() {
+    ensureSortedByScan();
+    final List<Scan> scans = new ArrayList<>(scanIndices.size());
+    for (int i = 0; i < scanIndices.size(); i++) {
+      scans.add(allScans[scanIndices.getInt(i)]);
+    }
+    return scans;
   }
 
   /**
@@ -160,78 +230,49 @@ public class ADAPChromatogram {
    * @param minGap The minimum number of missing scans to be found, to fill up with zeros.
    * @param zeros  The number of zeros to add. zeros <= minGap
    */
-  public void addNZeros(Scan[] allChromatogramScans, int minGap, int zeros) {
+  public void addNZeros(int minGap, int zeros) {
     assert minGap >= zeros;
-    // add the same data point multiple times
-    final SimpleDataPoint zeroDataPoint = new SimpleDataPoint(getMZ(), 0d);
-
-    int allScansIndex; // contains the index of the next dp after a gap
-    Map<Scan, DataPoint> dataPointsToAdd = new HashMap<>();
-
-    Scan[] detectedScans = dataPointsMap.keySet().toArray(Scan[]::new);
-
-    // loop through all scans
-    int nextDetectedScanInAllIndex = -1;
-    int nextDetectedScanIndex = 0;
-    int currentGap = 0;
-    int added;
-    for (allScansIndex = 0; allScansIndex < allChromatogramScans.length; allScansIndex++) {
-      added = 0;
-      // was a DP detected in this scan?
-      if (allChromatogramScans[allScansIndex] == detectedScans[nextDetectedScanIndex]) {
-        if (currentGap >= minGap) {
-          // add leading zeros before allScansIndex
-          for (int i = 1; i <= zeros && i <= currentGap && (allScansIndex - i) >= 0; i++) {
-            // add zero data points
-            dataPointsToAdd.put(allChromatogramScans[allScansIndex - i], zeroDataPoint);
-            added++;
-          }
-          currentGap -= added;
-          // add trailing zeros after last detected
-          if (currentGap > 0 && nextDetectedScanInAllIndex >= 0) {
-            for (int i = 1; i <= zeros && i <= currentGap
-                && (nextDetectedScanInAllIndex + i) < allChromatogramScans.length; i++) {
-              // add zero data points after
-              dataPointsToAdd.put(allChromatogramScans[nextDetectedScanInAllIndex + i],
-                  zeroDataPoint);
-            }
-          }
+    if (scanIndices.isEmpty()) {
+      return;
+    }
+    ensureSortedByScan();
+
+    final IntArrayList zeroScanIndices = new IntArrayList();
+    // index of the last detected scan before the current gap
+    int previousDetected = -1;
+    for (int i = 0; i < scanIndices.size(); i++) {
+      final int currentDetected = scanIndices.getInt(i);
+      final int currentGap = currentDetected - previousDetected - 1;
+      if (currentGap >= minGap) {
+        // add leading zeros before the current detected scan
+        int added = 0;
+        for (int z = 1; z <= zeros && z <= currentGap; z++) {
+          zeroScanIndices.add(currentDetected - z);
+          added++;
         }
-        currentGap = 0;
-        nextDetectedScanIndex++;
-        nextDetectedScanInAllIndex = allScansIndex;
-
-        // no more detected scans
-        if (nextDetectedScanIndex == detectedScans.length) {
-          // add trailing zeros after last detected
-          for (int i = 1;
-              i <= zeros && (nextDetectedScanInAllIndex + i) < allChromatogramScans.length; i++) {
-            // add zero data points after
-            dataPointsToAdd.put(allChromatogramScans[nextDetectedScanInAllIndex + i],
-                zeroDataPoint);
+        // add trailing zeros after the previous detected scan
+        final int remainingGap = currentGap - added;
+        if (remainingGap > 0 && previousDetected >= 0) {
+          for (int z = 1; z <= zeros && z <= remainingGap; z++) {
+            zeroScanIndices.add(previousDetected + z);
           }
-          break;
         }
-      } else {
-        currentGap++;
       }
+      previousDetected = currentDetected;
+    }
+    // add trailing zeros after last detected
+    for (int z = 1; z <= zeros && previousDetected + z < allScans.length; z++) {
+      zeroScanIndices.add(previousDetected + z);
+    }
 
-      // last datapoint
-      if (allScansIndex == allChromatogramScans.length - 1) {
-        if (currentGap >= minGap) {
-          // add trailing zeros after last detected
-          if (currentGap > 0 && nextDetectedScanInAllIndex >= 0) {
-            for (int i = 1; i <= zeros && i <= currentGap
-                && (nextDetectedScanInAllIndex + i) < allChromatogramScans.length; i++) {
-              // add zero data points after
-              dataPointsToAdd.put(allChromatogramScans[nextDetectedScanInAllIndex + i],
-                  zeroDataPoint);
-            }
-          }
-        }
-      }
+    // add the same m/z multiple times
+    final double zeroMz = getMZ();
+    for (int i = 0; i < zeroScanIndices.size(); i++) {
+      final int scanIndex = zeroScanIndices.getInt(i);
+      usedScanIndices.add(scanIndex);
+      addDataPoint(scanIndex, zeroMz, 0d);
     }
-    dataPointsMap.putAll(dataPointsToAdd);
+    ensureSortedByScan();
   }
 
 }
@@ -37,6 +37,7 @@ import io.github.mzmine.parameters.Parameter;
 import io.github.mzmine.parameters.dialogs.ParameterSetupDialog;
 import io.github.mzmine.parameters.impl.IonMobilitySupport;
 import io.github.mzmine.parameters.impl.SimpleParameterSet;
+import io.github.mzmine.parameters.parametertypes.BooleanParameter;
 import io.github.mzmine.parameters.parametertypes.DoubleParameter;
 import io.github.mzmine.parameters.parametertypes.HiddenParameter;
 import io.github.mzmine.parameters.parametertypes.IntegerParameter;
@@ -97,9 +98,17 @@ public class ADAPChromatogramBuilderParameters extends SimpleParameterSet {
           "Allows selection of single scans as chromatograms. This is useful for "
           + "feature table generation if MALDI point measurements."));
 
+  /**
+   * The low memory builder keeps all signals in primitive arrays. The legacy builder creates one
+   * data point object per signal and is kept as a fallback. Both create the same chromatograms.
+   */
+  public static final HiddenParameter<Boolean> lowMemoryBuilder = new HiddenParameter<>(
+      new BooleanParameter("Low memory chromatogram builder",
+          "Build chromatograms from primitive arrays instead of one object per data point", true));
+
   public ADAPChromatogramBuilderParameters() {
     super(new Parameter[]{dataFiles, scanSelection, minimumConsecutiveScans, minGroupIntensity,
-            minHighestPoint, mzTolerance, suffix, allowSingleScans},
+            minHighestPoint, mzTolerance, suffix, allowSingleScans, lowMemoryBuilder},
         "https://mzmine.github.io/mzmine_documentation/module_docs/lc-ms_featdet/featdet_adap_chromatogram_builder/adap-chromatogram-builder.html");
   }
 
@@ -29,6 +29,7 @@ package io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder;
 import com.google.common.collect.Range;
 import com.google.common.collect.RangeMap;
 import com.google.common.collect.TreeRangeMap;
+import io.github.mzmine.datamodel.DataPoint;
 import io.github.mzmine.datamodel.IMSRawDataFile;
 import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.MassSpectrum;
@@ -43,6 +44,7 @@ import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.features.ModularFeatureListRow;
 import io.github.mzmine.datamodel.features.SimpleFeatureListAppliedMethod;
 import io.github.mzmine.datamodel.features.types.FeatureShapeType;
+import io.github.mzmine.datamodel.featuredata.impl.SimpleIonTimeSeries;
 import io.github.mzmine.gui.DesktopService;
 import io.github.mzmine.modules.MZmineModule;
 import io.github.mzmine.modules.dataprocessing.featdet_imagebuilder.ImageBuilderModule;
@@ -60,10 +62,13 @@ import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.SortingDirection;
 import io.github.mzmine.util.SortingProperty;
 import io.github.mzmine.util.exceptions.MissingMassListException;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.Supplier;
 import static java.util.Objects.requireNonNullElse;
 import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
@@ -91,6 +96,7 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
   private final ParameterSet parameters;
   private final Class<? extends MZmineModule> callingModule;
   private final boolean isImaging;
+  private final boolean lowMemoryBuilder;
   private double progress = 0.0;
   private ModularFeatureList newFeatureList;
 
@@ -126,6 +132,9 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
     this.minimumTotalScans = requireNonNullElse(minimumTotalScans, minimumConsecutiveScans);
 
     isImaging = callingModule.equals(ImageBuilderModule.class);
+    // the image builder parameters do not contain the option
+    lowMemoryBuilder = !parameters.hasParameter(ADAPChromatogramBuilderParameters.lowMemoryBuilder)
+        || parameters.getValue(ADAPChromatogramBuilderParameters.lowMemoryBuilder);
   }
 
   public static ModularADAPChromatogramBuilderTask forImaging(MZmineProject project,
@@ -235,49 +244,202 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
     // update mz avg and other stuff
     //
 
+    // Create new feature list
+    newFeatureList = new ModularFeatureList(dataFile + " " + suffix, getMemoryMapStorage(),
+        dataFile);
+    // ensure that the default columns are available
+    DataTypeUtils.addDefaultChromatographicTypeColumns(newFeatureList);
+
+    final boolean finished =
+        lowMemoryBuilder ? buildChromatograms(scans) : buildChromatogramsLegacy(scans);
+    if (!finished) {
+      return;
+    }
+
+    // sort and reset IDs here to have the same sorting for every feature list
+    FeatureListUtils.sortByDefault(newFeatureList, true);
+
+    newFeatureList.setSelectedScans(dataFile, Arrays.asList(scans));
+
+    dataFile.getAppliedMethods().forEach(m -> newFeatureList.getAppliedMethods().add(m));
+    // Add new feature list to the project
+    newFeatureList.getAppliedMethods()
+        .add(new SimpleFeatureListAppliedMethod(callingModule, parameters, getModuleCallDate()));
+    project.addFeatureList(newFeatureList);
+
+    progress = 1.0;
+
+    setStatus(TaskStatus.FINISHED);
+
+    logger.info(() -> "Finished chromatogram builder on " + dataFile);
+  }
+
+  /**
+   * Builds chromatograms from primitive arrays of all data points and adds them as rows to the new
+   * feature list.
+   *
+   * @return false if the task was canceled or failed
+   */
+  @SuppressWarnings("UnstableApiUsage")
+  private boolean buildChromatograms(Scan[] scans) {
     // map the mz tolerance to chromatograms
     RangeMap<Double, ADAPChromatogram> rangeToChromMap = TreeRangeMap.create();
 
     // make a list of all the data points
-    final int totalDps = Arrays.stream(scans).map(s -> {
-      if (s.getMassList() != null) {
-        return s.getMassList();
+    final int totalDps = countDataPoints(scans);
+    int dpCounter = 0;
+
+    // keep all data points in primitive arrays, the scan is referenced by its index in scans
+    final double[] allMzs = new double[totalDps];
+    final double[] allIntensities = new double[totalDps];
+    final int[] allScanIndices = new int[totalDps];
+
+    // iterate the same scans so that the scan index matches the scans array
+    ScanDataAccess scanData = EfficientDataAccess.of(dataFile, ScanDataType.MASS_LIST,
+        Arrays.asList(scans));
+
+    progress = 0;
+    double progressStep = 0.1 / scanData.getNumberOfScans();
+    int scanIndex = -1;
+    while (scanData.hasNextScan()) {
+      if (isCanceled()) {
+        return false;
       }
-      final MissingMassListException ex = new MissingMassListException(s);
-      DesktopService.getDesktop().displayErrorMessage(ex.getMessage());
-      throw ex;
-    }).mapToInt(MassSpectrum::getNumberOfDataPoints).sum();
+
+      try {
+        scanData.nextScan();
+      } catch (MissingMassListException e) {
+        setMissingMassListError(scanData);
+        e.printStackTrace();
+        return false;
+      }
+      scanIndex++;
+
+      int dps = scanData.getNumberOfDataPoints();
+      for (int i = 0; i < dps; i++) {
+        allMzs[dpCounter] = scanData.getMzValue(i);
+        allIntensities[dpCounter] = scanData.getIntensityValue(i);
+        allScanIndices[dpCounter] = scanIndex;
+        dpCounter++;
+      }
+      progress += progressStep;
+    }
+
+    // sort data points by intensity (descending), then m/z (descending), then by original order.
+    // Same order as the stable sort with the DataPointSorter but without an object per signal
+    final int[] sortedIndices = new int[dpCounter];
+    Arrays.setAll(sortedIndices, i -> i);
+    IntArrays.parallelQuickSort(sortedIndices, (a, b) -> {
+      int result = Double.compare(allIntensities[b], allIntensities[a]);
+      if (result == 0) {
+        result = Double.compare(allMzs[b], allMzs[a]);
+      }
+      if (result == 0) {
+        result = Integer.compare(a, b);
+      }
+      return result;
+    });
+
+    // count starts at 1 since we already have added one with a single point.
+    progress = 0.1;
+    progressStep = (sortedIndices.length > 0) ? 0.45 / sortedIndices.length : 0.0;
+
+    for (final int dp : sortedIndices) {
+
+      progress += progressStep;
+
+      if (isCanceled()) {
+        return false;
+      }
+
+      final double mz = allMzs[dp];
+      final double intensity = allIntensities[dp];
+      if (Double.isNaN(mz) || Double.isNaN(intensity)) {
+        continue;
+      }
+
+      final Entry<Range<Double>, ADAPChromatogram> existing = rangeToChromMap.getEntry(mz);
+      if (existing != null) {
+        // add data point to chromatogram
+        existing.getValue().addMzFeature(allScanIndices[dp], mz, intensity);
+      } else {
+        // skip it entierly if the intensity is not high enough
+        if (intensity < minHighestPoint) {
+          continue;
+        }
+        // add a new chromatogram to the range map - limit ranges to avoid overlap
+        findChromatogramLimitMzRanges(rangeToChromMap, mz,
+            () -> new ADAPChromatogram(scans)).addMzFeature(allScanIndices[dp], mz, intensity);
+      }
+    }
+
+    // finish chromatograms sorted by m/z
+    final Map<Range<Double>, ADAPChromatogram> finalRangeMap = rangeToChromMap.asMapOfRanges();
+
+    int numChromatograms = finalRangeMap.size();
+    progressStep = numChromatograms > 0 ? 0.45 / numChromatograms : 0.0;
+
+    // add chromatograms that match criteria
+    for (ADAPChromatogram chromatogram : finalRangeMap.values()) {
+      if (isCanceled()) {
+        return false;
+      }
+
+      progress += progressStep;
+
+      // And remove chromatograms who dont have a certain number of continous points above the
+      // IntensityThresh2 level.
+      var dps = chromatogram.getNumberOfDataPoints();
+      if (dps >= minimumTotalScans && chromatogram.matchesMinContinuousDataPoints(
+          minGroupIntensity, minimumConsecutiveScans, minHighestPoint)) {
+        // add zeros to edges
+        if (!isImaging) {
+          chromatogram.addNZeros(1, 1);
+        }
+
+        // add to list
+        addRow(FeatureConvertors.ADAPChromatogramToModularFeature(newFeatureList, dataFile,
+            chromatogram, mzTolerance));
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Previous implementation that creates one {@link ExpandedDataPoint} per signal and one
+   * {@link DataPoint} per scan in each chromatogram. Creates the same chromatograms as
+   * {@link #buildChromatograms(Scan[])} but needs more memory.
+   *
+   * @return false if the task was canceled or failed
+   */
+  @SuppressWarnings("UnstableApiUsage")
+  private boolean buildChromatogramsLegacy(Scan[] scans) {
+    // map the mz tolerance to chromatograms
+    RangeMap<Double, LegacyADAPChromatogram> rangeToChromMap = TreeRangeMap.create();
+
+    // make a list of all the data points
+    final int totalDps = countDataPoints(scans);
     int dpCounter = 0;
 
     ExpandedDataPoint[] allMzValues = new ExpandedDataPoint[totalDps];
 
     ScanDataAccess scanData = EfficientDataAccess.of(dataFile, ScanDataType.MASS_LIST,
-        scanSelection);
+        Arrays.asList(scans));
 
     progress = 0;
     double progressStep = 0.1 / scanData.getNumberOfScans();
     while (scanData.hasNextScan()) {
       if (isCanceled()) {
-        return;
+        return false;
       }
 
       Scan scan;
       try {
         scan = scanData.nextScan();
       } catch (MissingMassListException e) {
-        setStatus(TaskStatus.ERROR);
-        StringBuilder b = new StringBuilder("Scan #");
-        b.append(scanData.getCurrentScan().getScanNumber()).append(" from ");
-        b.append(dataFile.getName());
-        b.append(
-            " does not have a mass list. Please run \"Raw data methods\" -> \"Mass detection\"");
-        if (dataFile instanceof IMSRawDataFile) {
-          b.append("\nIMS files require mass detection on the frame level (Scan type = \"Frames ");
-          b.append("only\" or \"All scan types\"");
-        }
-        setErrorMessage(b.toString());
+        setMissingMassListError(scanData);
         e.printStackTrace();
-        return;
+        return false;
       }
 
       int dps = scanData.getNumberOfDataPoints();
@@ -294,16 +456,14 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
     Arrays.parallelSort(allMzValues,
         new DataPointSorter(SortingProperty.Intensity, SortingDirection.Descending));
 
-    // count starts at 1 since we already have added one with a single point.
     progress = 0.1;
     progressStep = (allMzValues.length > 0) ? 0.45 / allMzValues.length : 0.0;
 
     for (ExpandedDataPoint mzFeature : allMzValues) {
-
       progress += progressStep;
 
       if (isCanceled()) {
-        return;
+        return false;
       }
 
       if (mzFeature == null || Double.isNaN(mzFeature.getMZ()) || Double.isNaN(
@@ -311,7 +471,7 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
         continue;
       }
 
-      final Entry<Range<Double>, ADAPChromatogram> existing = rangeToChromMap.getEntry(
+      final Entry<Range<Double>, LegacyADAPChromatogram> existing = rangeToChromMap.getEntry(
           mzFeature.getMZ());
       if (existing != null) {
         // add data point to chromatogram
@@ -322,33 +482,23 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
           continue;
         }
         // add a new chromatogram to the range map - limit ranges to avoid overlap
-        startNewChromatogramLimitMzRanges(rangeToChromMap, mzFeature);
+        final LegacyADAPChromatogram joined = findChromatogramLimitMzRanges(rangeToChromMap,
+            mzFeature.getMZ(), LegacyADAPChromatogram::new);
+        joined.addMzFeature(mzFeature.getScan(), mzFeature);
       }
     }
 
-    // finish chromatograms sorted by m/z
-    final Map<Range<Double>, ADAPChromatogram> finalRangeMap = rangeToChromMap.asMapOfRanges();
-
+    final Map<Range<Double>, LegacyADAPChromatogram> finalRangeMap = rangeToChromMap.asMapOfRanges();
     int numChromatograms = finalRangeMap.size();
     progressStep = numChromatograms > 0 ? 0.45 / numChromatograms : 0.0;
 
-    // Create new feature list
-    newFeatureList = new ModularFeatureList(dataFile + " " + suffix, getMemoryMapStorage(),
-        dataFile);
-    // ensure that the default columns are available
-    DataTypeUtils.addDefaultChromatographicTypeColumns(newFeatureList);
-
-    int newFeatureID = 1;
-    // add chromatograms that match criteria
-    for (ADAPChromatogram chromatogram : finalRangeMap.values()) {
+    for (LegacyADAPChromatogram chromatogram : finalRangeMap.values()) {
       if (isCanceled()) {
-        return;
+        return false;
       }
 
       progress += progressStep;
 
-      // And remove chromatograms who dont have a certain number of continous points above the
-      // IntensityThresh2 level.
       var dps = chromatogram.getNumberOfDataPoints();
       if (dps >= minimumTotalScans && chromatogram.matchesMinContinuousDataPoints(scans,
           minGroupIntensity, minimumConsecutiveScans, minHighestPoint)) {
@@ -357,57 +507,71 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
           chromatogram.addNZeros(scans, 1, 1);
         }
 
-        // add to list
-        ModularFeature modular = FeatureConvertors.ADAPChromatogramToModularFeature(newFeatureList,
-            dataFile, chromatogram, mzTolerance);
-        ModularFeatureListRow newRow = new ModularFeatureListRow(newFeatureList, newFeatureID,
-            modular);
-        newFeatureList.addRow(newRow);
-        // activate shape for this row
-        if (!isImaging) {
-          newRow.set(FeatureShapeType.class, true);
-        }
-        newFeatureID++;
+        final SimpleIonTimeSeries timeSeries = FeatureConvertors.createSimpleTimeSeries(
+            newFeatureList.getMemoryMapStorage(), new ArrayList<>(chromatogram.getDataPoints()),
+            new ArrayList<>(chromatogram.getScanNumbers()));
+        addRow(FeatureConvertors.chromatogramToModularFeature(newFeatureList, dataFile,
+            timeSeries, mzTolerance));
       }
     }
+    return true;
+  }
 
-    // sort and reset IDs here to have the same sorting for every feature list
-    FeatureListUtils.sortByDefault(newFeatureList, true);
-
-    newFeatureList.setSelectedScans(dataFile, Arrays.asList(scans));
-
-    dataFile.getAppliedMethods().forEach(m -> newFeatureList.getAppliedMethods().add(m));
-    // Add new feature list to the project
-    newFeatureList.getAppliedMethods()
-        .add(new SimpleFeatureListAppliedMethod(callingModule, parameters, getModuleCallDate()));
-    project.addFeatureList(newFeatureList);
-
-    progress = 1.0;
+  private int countDataPoints(Scan[] scans) {
+    return Arrays.stream(scans).map(s -> {
+      if (s.getMassList() != null) {
+        return s.getMassList();
+      }
+      final MissingMassListException ex = new MissingMassListException(s);
+      DesktopService.getDesktop().displayErrorMessage(ex.getMessage());
+      throw ex;
+    }).mapToInt(MassSpectrum::getNumberOfDataPoints).sum();
+  }
 
-    setStatus(TaskStatus.FINISHED);
+  private void setMissingMassListError(ScanDataAccess scanData) {
+    setStatus(TaskStatus.ERROR);
+    StringBuilder b = new StringBuilder("Scan #");
+    b.append(scanData.getCurrentScan().getScanNumber()).append(" from ");
+    b.append(dataFile.getName());
+    b.append(" does not have a mass list. Please run \"Raw data methods\" -> \"Mass detection\"");
+    if (dataFile instanceof IMSRawDataFile) {
+      b.append("\nIMS files require mass detection on the frame level (Scan type = \"Frames ");
+      b.append("only\" or \"All scan types\"");
+    }
+    setErrorMessage(b.toString());
+  }
 
-    logger.info(() -> "Finished chromatogram builder on " + dataFile);
+  private void addRow(ModularFeature modular) {
+    ModularFeatureListRow newRow = new ModularFeatureListRow(newFeatureList,
+        newFeatureList.getNumberOfRows() + 1, modular);
+    newFeatureList.addRow(newRow);
+    // activate shape for this row
+    if (!isImaging) {
+      newRow.set(FeatureShapeType.class, true);
+    }
   }
 
   /**
-   * Starts a new chromatogram and limits its range so that it does not overlap with existing m/z
-   * ranges
+   * Finds the chromatogram for a data point that is not covered by any m/z range yet. Starts a new
+   * chromatogram and limits its range so that it does not overlap with existing m/z ranges.
    *
    * @param rangeToChromMap started chromatograms with their non overlapping m/z range
-   * @param mzFeature       current tested data point
+   * @param mz              m/z of the current tested data point
+   * @param newChromatogram creates a new chromatogram
+   * @return the new chromatogram or the neighboring chromatogram if there is no space left
    */
   @SuppressWarnings("UnstableApiUsage")
-  private void startNewChromatogramLimitMzRanges(RangeMap<Double, ADAPChromatogram> rangeToChromMap,
-      ExpandedDataPoint mzFeature) {
+  private <T> T findChromatogramLimitMzRanges(RangeMap<Double, T> rangeToChromMap, double mz,
+      Supplier<T> newChromatogram) {
     // start new chromatogram and create new range (subract overlapping existing ranges)
-    Range<Double> toleranceRange = mzTolerance.getToleranceRange(mzFeature.getMZ());
+    Range<Double> toleranceRange = mzTolerance.getToleranceRange(mz);
 
     // look +- mz tolerance to see if ther is a range near by.
     // If there is use the proper boundry of that range for the
     // new range to insure than NON OF THE RANGES OVERLAP.
-    final Entry<Range<Double>, ADAPChromatogram> minusRange = rangeToChromMap.getEntry(
+    final Entry<Range<Double>, T> minusRange = rangeToChromMap.getEntry(
         toleranceRange.lowerEndpoint());
-    final Entry<Range<Double>, ADAPChromatogram> plusRange = rangeToChromMap.getEntry(
+    final Entry<Range<Double>, T> plusRange = rangeToChromMap.getEntry(
         toleranceRange.upperEndpoint());
 
     // If both of the above ranges are null then we make the new range spaning the full
@@ -422,18 +586,16 @@ public class ModularADAPChromatogramBuilderTask extends AbstractTask {
     if (toBeLowerBound < toBeUpperBound) {
       // use closed open so that every value may be captured by rangeMap
       Range<Double> newRange = Range.closedOpen(toBeLowerBound, toBeUpperBound);
-      ADAPChromatogram newChrom = new ADAPChromatogram();
-      newChrom.addMzFeature(mzFeature.getScan(), mzFeature);
-
+      final T newChrom = newChromatogram.get();
       rangeToChromMap.put(newRange, newChrom);
+      return newChrom;
     } else if (toBeLowerBound.equals(toBeUpperBound) && plusRange != null) {
-      plusRange.getValue().addMzFeature(mzFeature.getScan(), mzFeature);
+      return plusRange.getValue();
     } else {
       throw new IllegalStateException(
           String.format("Incorrect range [%f, %f] for m/z %f", toBeLowerBound, toBeUpperBound,
-              mzFeature.getMZ()));
+              mz));
     }
   }
 
 }
-
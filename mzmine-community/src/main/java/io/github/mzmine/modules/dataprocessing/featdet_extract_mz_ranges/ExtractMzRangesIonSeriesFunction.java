@@ -27,9 +27,7 @@ package io.github.mzmine.modules.dataprocessing.featdet_extract_mz_ranges;
 import com.google.common.collect.Range;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
-import io.github.mzmine.datamodel.data_access.EfficientDataAccess;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
-import io.github.mzmine.datamodel.data_access.ScanDataAccess;
 import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
 import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries;
 import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries.IntensityMode;
@@ -37,9 +35,7 @@ import io.github.mzmine.datamodel.featuredata.impl.BuildingIonSeries.MzMode;
 import io.github.mzmine.parameters.parametertypes.selectors.ScanSelection;
 import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.taskcontrol.operations.AbstractTaskSubSupplier;
-import io.github.mzmine.util.collections.BinarySearch.DefaultTo;
 import java.util.List;
-import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -48,14 +44,10 @@ import org.jetbrains.annotations.Nullable;
  */
 public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<BuildingIonSeries[]> {
 
-  private static final Logger logger = Logger.getLogger(
-      ExtractMzRangesIonSeriesFunction.class.getName());
   private final List<Range<Double>> mzRangesSorted;
-  private final ScanDataAccess dataAccess;
+  private final IonSeriesExtractionEngine engine;
   private MzMode mzMode = MzMode.DEFAULT;
   private IntensityMode intensityMode = IntensityMode.DEFAULT;
-  private int processedScans, totalScans;
-  private String description;
 
   /**
    * @param mzRangesSorted sorted by mz ascending
@@ -63,12 +55,8 @@ public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<Bu
   public ExtractMzRangesIonSeriesFunction(@NotNull RawDataFile dataFile,
       @NotNull ScanSelection scanSelection, @NotNull List<Range<Double>> mzRangesSorted,
       @NotNull ScanDataType scanDataType, @Nullable Task parentTask) {
-    super(parentTask);
-
-    dataAccess = EfficientDataAccess.of(dataFile, scanDataType, scanSelection);
-    this.mzRangesSorted = mzRangesSorted;
-    description = "Extracting %d ion series from data file %s".formatted(mzRangesSorted.size(),
-        dataFile.getName());
+    this(dataFile, scanSelection.getMatchingScans(dataFile.getScans()), mzRangesSorted,
+        scanDataType, parentTask);
   }
 
   /**
@@ -79,7 +67,7 @@ public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<Bu
       @Nullable Task parentTask) {
     super(parentTask);
 
-    dataAccess = EfficientDataAccess.of(dataFile, scanDataType, scans);
+    engine = new IonSeriesExtractionEngine(dataFile, scans, scanDataType, parentTask);
     this.mzRangesSorted = mzRangesSorted;
   }
 
@@ -91,14 +79,21 @@ public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<Bu
     this.intensityMode = intensityMode;
   }
 
+  /**
+   * Extract blocks of scans in parallel. Results are the same as in sequential mode.
+   */
+  public void setParallel(final boolean parallel) {
+    engine.setParallel(parallel);
+  }
+
   @Override
   public @NotNull String getTaskDescription() {
-    return description;
+    return engine.getTaskDescription();
   }
 
   @Override
   public double getFinishedPercentage() {
-    return totalScans == 0 ? 0 : (double) processedScans / totalScans;
+    return engine.getFinishedPercentage();
   }
 
   /**
@@ -115,55 +110,23 @@ public class ExtractMzRangesIonSeriesFunction extends AbstractTaskSubSupplier<Bu
       return new BuildingIonSeries[0];
     }
 
-    totalScans = dataAccess.getNumberOfScans();
     // store data points for each range
+    final int numScans = engine.getScans().size();
     BuildingIonSeries[] chromatograms = new BuildingIonSeries[mzRangesSorted.size()];
     for (int i = 0; i < chromatograms.length; i++) {
-      chromatograms[i] = new BuildingIonSeries(dataAccess.getNumberOfScans(), mzMode, intensityMode);
+      final BuildingIonSeries chromatogram = new BuildingIonSeries(numScans, mzMode,
+          intensityMode);
+      chromatograms[i] = chromatogram;
+      engine.addWindow(mzRangesSorted.get(i), null, (access, scanIndex, from, to) -> {
+        for (int dp = from; dp < to; dp++) {
+          chromatogram.addValue(scanIndex, access.getMzValue(dp), access.getIntensityValue(dp));
+        }
+      });
     }
 
-    // binary search the start
-    double lowestMz = mzRangesSorted.getFirst().lowerEndpoint();
-
-    int currentScan = -1;
-    while (dataAccess.nextScan() != null) {
-      int currentTree = 0;
-      currentScan++;
-      processedScans++;
-
-      // Canceled?
-      if (isCanceled()) {
-        return new BuildingIonSeries[0];
-      }
-      // check value for tree and for all next trees in range
-      int nDataPoints = dataAccess.getNumberOfDataPoints();
-
-      // start index
-      int dp = dataAccess.binarySearch(lowestMz, DefaultTo.GREATER_EQUALS);
-      if (dp == -1) {
-        continue;
-      }
-
-      for (; dp < nDataPoints; dp++) {
-        double mz = dataAccess.getMzValue(dp);
-        // check all next trees
-        for (int t = currentTree; t < mzRangesSorted.size(); t++) {
-          if (mz > mzRangesSorted.get(t).upperEndpoint()) {
-            // out of bounds for current tree
-            currentTree++;
-          } else if (mz < mzRangesSorted.get(t).lowerEndpoint()) {
-            break; // below current tree - next datapoint
-          } else {
-            // found match
-            double intensity = dataAccess.getIntensityValue(dp);
-            chromatograms[t].addValue(currentScan, mz, intensity);
-          }
-        }
-        // all trees done
-        if (currentTree >= mzRangesSorted.size()) {
-          break;
-        }
-      }
+    engine.process();
+    if (isCanceled()) {
+      return new BuildingIonSeries[0];
     }
     return chromatograms;
   }
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.featdet_extract_mz_ranges;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.EfficientDataAccess;
+import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
+import io.github.mzmine.datamodel.data_access.ScanDataAccess;
+import io.github.mzmine.taskcontrol.Task;
+import io.github.mzmine.taskcontrol.operations.AbstractTaskSubProcessor;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Extracts many m/z and retention time windows from one raw data file in a single pass over the
+ * scans. Any number of consumers add their windows before {@link #process()}. The windows are
+ * sorted once by retention time, and the windows active in a scan are kept sorted by m/z, so each
+ * scan is only searched for the active windows.
+ * <p>
+ * Scans are processed in retention time order, consumers may rely on this order. With
+ * {@link #setParallel(boolean)}, blocks of scans are processed in parallel, which is only allowed
+ * for consumers that accept calls for different scans concurrently and out of order, e.g., when
+ * writing to arrays by scan index.
+ */
+public class IonSeriesExtractionEngine extends AbstractTaskSubProcessor {
+
+  /**
+   * Scans per block for parallel processing
+   */
+  private static final int BLOCK_SIZE = 512;
+
+  private final RawDataFile dataFile;
+  private final List<? extends Scan> scans;
+  private final ScanDataType scanDataType;
+
+  // windows
+  private final List<ExtractionConsumer> consumers = new ArrayList<>();
+  private double[] lowerMzs = new double[16];
+  private double[] upperMzs = new double[16];
+  private float[] lowerRts = new float[16];
+  private float[] upperRts = new float[16];
+
+  private final AtomicInteger processedScans = new AtomicInteger(0);
+  private boolean parallel = false;
+
+  /**
+   * @param scans the scans sorted by retention time
+   */
+  public IonSeriesExtractionEngine(@NotNull RawDataFile dataFile,
+      @NotNull List<? extends Scan> scans, @NotNull ScanDataType scanDataType,
+      @Nullable Task parentTask) {
+    super(parentTask);
+    this.dataFile = dataFile;
+    this.scans = scans;
+    this.scanDataType = scanDataType;
+  }
+
+  /**
+   * @param mzRange  the m/z range, both bounds are included
+   * @param rtRange  the retention time range, both bounds are included. Null for all scans
+   * @param consumer is called for every scan within the retention time range, even if there are
+   *                 no data points within the m/z range
+   * @return the index of the window
+   */
+  public int addWindow(@NotNull Range<Double> mzRange, @Nullable Range<Float> rtRange,
+      @NotNull ExtractionConsumer consumer) {
+    final int window = consumers.size();
+    if (window == lowerMzs.length) {
+      final int capacity = window * 2;
+      lowerMzs = Arrays.copyOf(lowerMzs, capacity);
+      upperMzs = Arrays.copyOf(upperMzs, capacity);
+      lowerRts = Arrays.copyOf(lowerRts, capacity);
+      upperRts = Arrays.copyOf(upperRts, capacity);
+    }
+    lowerMzs[window] = mzRange.lowerEndpoint();
+    upperMzs[window] = mzRange.upperEndpoint();
+    lowerRts[window] = rtRange != null && rtRange.hasLowerBound() ? rtRange.lowerEndpoint()
+        : Float.NEGATIVE_INFINITY;
+    upperRts[window] = rtRange != null && rtRange.hasUpperBound() ? rtRange.upperEndpoint()
+        : Float.POSITIVE_INFINITY;
+    consumers.add(consumer);
+    return window;
+  }
+
+  /**
+   * @param parallel process blocks of scans in parallel. Only if all consumers accept calls for
+   *                 different scans concurrently and out of order.
+   */
+  public void setParallel(final boolean parallel) {
+    this.parallel = parallel;
+  }
+
+  public @NotNull List<? extends Scan> getScans() {
+    return scans;
+  }
+
+  public int getNumberOfWindows() {
+    return consumers.size();
+  }
+
+  @Override
+  public @NotNull String getTaskDescription() {
+    return "Extracting %d m/z ranges from data file %s".formatted(consumers.size(),
+        dataFile.getName());
+  }
+
+  public int getProcessedScans() {
+    return processedScans.get();
+  }
+
+  @Override
+  public double getFinishedPercentage() {
+    return scans.isEmpty() ? 0 : processedScans.get() / (double) scans.size();
+  }
+
+  /**
+   * Extracts all windows. Stops if the parent task is canceled.
+   */
+  @Override
+  public void process() {
+    if (consumers.isEmpty() || scans.isEmpty()) {
+      processedScans.set(scans.size());
+      return;
+    }
+
+    // windows by lower retention time
+    final int numWindows = consumers.size();
+    final int[] rtOrder = IntStream.range(0, numWindows).toArray();
+    IntArrays.quickSort(rtOrder, (a, b) -> Float.compare(lowerRts[a], lowerRts[b]));
+
+    final int numBlocks = parallel ? (scans.size() + BLOCK_SIZE - 1) / BLOCK_SIZE : 1;
+    if (numBlocks == 1) {
+      processBlock(rtOrder, 0, scans.size());
+    } else {
+      IntStream.range(0, numBlocks).parallel().forEach(
+          block -> processBlock(rtOrder, block * BLOCK_SIZE,
+              Math.min(scans.size(), (block + 1) * BLOCK_SIZE)));
+    }
+  }
+
+  private void processBlock(final int[] rtOrder, final int firstScan, final int endScan) {
+    final ScanDataAccess access = EfficientDataAccess.of(dataFile, scanDataType,
+        scans.subList(firstScan, endScan));
+
+    // active windows sorted by lower m/z
+    int[] active = new int[64];
+    int numActive = 0;
+    int nextWindow = 0;
+
+    for (int scanIndex = firstScan; scanIndex < endScan; scanIndex++) {
+      if (isCanceled()) {
+        return;
+      }
+      access.nextScan();
+      final float rt = access.getRetentionTime();
+
+      // remove windows that ended before this scan
+      int kept = 0;
+      for (int i = 0; i < numActive; i++) {
+        if (upperRts[active[i]] >= rt) {
+          active[kept++] = active[i];
+        }
+      }
+      numActive = kept;
+
+      // add windows that start with this scan
+      for (; nextWindow < rtOrder.length && lowerRts[rtOrder[nextWindow]] <= rt; nextWindow++) {
+        final int window = rtOrder[nextWindow];
+        if (upperRts[window] < rt) {
+          continue; // only before the first scan of this block
+        }
+        if (numActive == active.length) {
+          active = Arrays.copyOf(active, active.length * 2);
+        }
+        int insert = numActive;
+        while (insert > 0 && compareMz(active[insert - 1], window) > 0) {
+          active[insert] = active[insert - 1];
+          insert--;
+        }
+        active[insert] = window;
+        numActive++;
+      }
+
+      // search all active windows in the data points sorted by m/z
+      final int numDataPoints = access.getNumberOfDataPoints();
+      int start = 0;
+      for (int i = 0; i < numActive; i++) {
+        final int window = active[i];
+        start = lowerBound(access, lowerMzs[window], start, numDataPoints);
+        int end = start;
+        while (end < numDataPoints && access.getMzValue(end) <= upperMzs[window]) {
+          end++;
+        }
+        consumers.get(window).accept(access, scanIndex, start, end);
+      }
+
+      processedScans.incrementAndGet();
+    }
+  }
+
+  private int compareMz(final int a, final int b) {
+    final int result = Double.compare(lowerMzs[a], lowerMzs[b]);
+    return result != 0 ? result : Integer.compare(a, b);
+  }
+
+  /**
+   * @return the first index with a m/z >= the mz
+   */
+  private static int lowerBound(final ScanDataAccess access, final double mz, int low,
+      int highExclusive) {
+    while (low < highExclusive) {
+      final int mid = (low + highExclusive) >>> 1;
+      if (access.getMzValue(mid) < mz) {
+        low = mid + 1;
+      } else {
+        highExclusive = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Receives the data points of a window in a scan
+   */
+  @FunctionalInterface
+  public interface ExtractionConsumer {
+
+    /**
+     * @param access           the current scan, data points are sorted by m/z
+     * @param scanIndex        the index of the scan in {@link #getScans()}
+     * @param fromIndex        first data point within the m/z range
+     * @param toIndexExclusive end of the data points within the m/z range, equal to fromIndex if
+     *                         there are none
+     */
+    void accept(@NotNull ScanDataAccess access, int scanIndex, int fromIndex,
+        int toIndexExclusive);
+  }
+}
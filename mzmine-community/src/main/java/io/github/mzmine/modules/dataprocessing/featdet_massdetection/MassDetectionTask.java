@@ -25,6 +25,7 @@
 
 package io.github.mzmine.modules.dataprocessing.featdet_massdetection;
 
+import io.github.mzmine.datamodel.IMSRawDataFile;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess;
@@ -39,20 +40,34 @@ import io.github.mzmine.taskcontrol.TaskStatus;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.scans.ScanUtils;
 import java.time.Instant;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 public class MassDetectionTask extends AbstractTask {
 
   private static final Logger logger = Logger.getLogger(MassDetectionTask.class.getName());
+  /**
+   * Scans per parallel chunk. Frames are processed in smaller chunks as each frame contains many
+   * mobility scans.
+   */
+  private static final int SCAN_CHUNK_SIZE = 256;
+  private static final int FRAME_CHUNK_SIZE = 4;
   private final RawDataFile dataFile;
   private final ScanSelection scanSelection;
   private final SelectedScanTypes scanTypes;
   private final Boolean denormalizeMSnScans;
   private final ParameterSet parameters;
   private final MassDetector detector;
-  private int processedScans = 0, totalScans = 0;
+  private final AtomicInteger processedScans = new AtomicInteger(0);
+  private int totalScans = 0;
 
   public MassDetectionTask(RawDataFile dataFile, ParameterSet parameters,
       MemoryMapStorage storageMemoryMap, @NotNull Instant moduleCallDate) {
@@ -78,7 +93,7 @@ public class MassDetectionTask extends AbstractTask {
 
   @Override
   public double getFinishedPercentage() {
-    return totalScans == 0 ? 0 : (double) processedScans / totalScans;
+    return totalScans == 0 ? 0 : (double) processedScans.get() / totalScans;
   }
 
   public RawDataFile getDataFile() {
@@ -93,21 +108,86 @@ public class MassDetectionTask extends AbstractTask {
 
       logger.info("Started mass detector on " + dataFile);
 
-      // uses only a single array for each (mz and intensity) to loop over all scans
-      ScanDataAccess data = EfficientDataAccess.of(dataFile, EfficientDataAccess.ScanDataType.RAW,
-          scanSelection);
-      totalScans = data.getNumberOfScans();
+      final List<Scan> scans = List.of(scanSelection.getMatchingScans(dataFile));
+      totalScans = scans.size();
+
+      // chunks of scans are detected in parallel, frames contain many mobility scans
+      final int chunkSize = dataFile instanceof IMSRawDataFile ? FRAME_CHUNK_SIZE : SCAN_CHUNK_SIZE;
+      // limit the number of detected mass lists held in memory before they are stored
+      final int batchSize = chunkSize * ForkJoinPool.getCommonPoolParallelism() * 4;
+
+      // each worker uses its own data access with a single array for each (mz and intensity)
+      final Queue<ScanDataAccess> dataAccessPool = new ConcurrentLinkedQueue<>();
+
+      for (int batchStart = 0; batchStart < totalScans; batchStart += batchSize) {
+        if (isCanceled()) {
+          return;
+        }
+
+        final int batchEnd = Math.min(totalScans, batchStart + batchSize);
+        final int firstScan = batchStart;
+        final int numChunks = (batchEnd - batchStart + chunkSize - 1) / chunkSize;
+        final DetectedMasses[][] detected = new DetectedMasses[numChunks][];
+        IntStream.range(0, numChunks).parallel().forEach(chunk -> {
+          final int from = firstScan + chunk * chunkSize;
+          detected[chunk] = detectChunk(scans, from, Math.min(batchEnd, from + chunkSize),
+              dataAccessPool);
+        });
 
-      // all scans
-      while (data.hasNextScan()) {
         if (isCanceled()) {
           return;
         }
+        // store in scan order
+        for (DetectedMasses[] chunk : detected) {
+          for (DetectedMasses masses : chunk) {
+            masses.addToScan(getMemoryMapStorage());
+          }
+        }
+      }
+
+      dataFile.getAppliedMethods().add(
+          new SimpleFeatureListAppliedMethod(MassDetectionModule.class, parameters,
+              getModuleCallDate()));
+    } catch (Exception e) {
+      logger.log(Level.WARNING, "Error during mass detection, " + e.getMessage(), e);
+      setErrorMessage(e.getMessage());
+      setStatus(TaskStatus.ERROR);
+      return;
+    }
+
+    setStatus(TaskStatus.FINISHED);
+
+    logger.info("Finished mass detector on " + dataFile);
+  }
+
+  /**
+   * Runs mass detection on a chunk of scans. Does not modify the scans.
+   *
+   * @param scans          all scans
+   * @param from           first scan index of this chunk (inclusive)
+   * @param to             last scan index (exclusive)
+   * @param dataAccessPool data accesses on all scans that are reused by the workers
+   * @return the detected masses in the order of the scans
+   */
+  private DetectedMasses[] detectChunk(List<Scan> scans, int from, int to,
+      Queue<ScanDataAccess> dataAccessPool) {
+    ScanDataAccess data = dataAccessPool.poll();
+    if (data == null) {
+      data = EfficientDataAccess.of(dataFile, EfficientDataAccess.ScanDataType.RAW, scans);
+    }
+
+    final DetectedMasses[] detected = new DetectedMasses[to - from];
+    try {
+      for (int i = from; i < to; i++) {
+        if (isCanceled()) {
+          break;
+        }
 
-        Scan scan = data.nextScan();
+        data.jumpToIndex(i);
+        Scan scan = data.getCurrentScan();
         assert scan != null;
 
-        double[][] mzPeaks;
+        double[][] mzPeaks = null;
         if (scanTypes.applyTo(scan)) {
           // run mass detection on data object
           // [mzs, intensities]
@@ -120,34 +200,47 @@ public class MassDetectionTask extends AbstractTask {
             ScanUtils.denormalizeIntensitiesMultiplyByInjectTime(mzPeaks[1],
                 scan.getInjectionTime());
           }
-
-          // add mass list to scans and frames
-          scan.addMassList(new SimpleMassList(getMemoryMapStorage(), mzPeaks[0], mzPeaks[1]));
         }
 
-        if (scan instanceof SimpleFrame frame && (scanTypes == SelectedScanTypes.MOBLITY_SCANS
-                                                  || scanTypes == SelectedScanTypes.SCANS)) {
+        List<double[][]> mobilityScanMasses = null;
+        final boolean detectMobilityScans = scan instanceof SimpleFrame && (
+            scanTypes == SelectedScanTypes.MOBLITY_SCANS || scanTypes == SelectedScanTypes.SCANS);
+        if (detectMobilityScans) {
           // for ion mobility, detect subscans, too
-          frame.getMobilityScanStorage()
-              .generateAndAddMobilityScanMassLists(getMemoryMapStorage(), detector,
-                  denormalizeMSnScans);
+          mobilityScanMasses = ((SimpleFrame) scan).getMobilityScanStorage()
+              .detectMobilityScanMassLists(detector, denormalizeMSnScans);
         }
 
-        processedScans++;
+        detected[i - from] = new DetectedMasses(scan, mzPeaks, detectMobilityScans,
+            mobilityScanMasses);
+        processedScans.incrementAndGet();
       }
-
-      dataFile.getAppliedMethods().add(
-          new SimpleFeatureListAppliedMethod(MassDetectionModule.class, parameters,
-              getModuleCallDate()));
-    } catch (Exception e) {
-      logger.log(Level.WARNING, "Error during mass detection, " + e.getMessage(), e);
-      setErrorMessage(e.getMessage());
-      setStatus(TaskStatus.ERROR);
-      return;
+    } finally {
+      dataAccessPool.offer(data);
     }
+    return detected;
+  }
 
-    setStatus(TaskStatus.FINISHED);
-
-    logger.info("Finished mass detector on " + dataFile);
+  /**
+   * Detection results of a single scan
+   *
+   * @param mzPeaks             [mzs, intensities] or null if the scan type was not selected
+   * @param detectMobilityScans true if the mobility scan mass lists of a frame should be set
+   * @param mobilityScanMasses  [mzs, intensities] for each mobility scan or null to use the raw
+   *                            data
+   */
+  private record DetectedMasses(Scan scan, @Nullable double[][] mzPeaks,
+                                boolean detectMobilityScans,
+                                @Nullable List<double[][]> mobilityScanMasses) {
+
+    private void addToScan(@Nullable MemoryMapStorage storage) {
+      if (mzPeaks != null) {
+        // add mass list to scans and frames
+        scan.addMassList(new SimpleMassList(storage, mzPeaks[0], mzPeaks[1]));
+      }
+      if (detectMobilityScans && scan instanceof SimpleFrame frame) {
+        frame.getMobilityScanStorage().addMobilityScanMassLists(storage, mobilityScanMasses);
+      }
+    }
   }
 }
@@ -32,7 +32,9 @@ import io.github.mzmine.parameters.ParameterSet;
 import org.jetbrains.annotations.NotNull;
 
 /**
- *
+ * Detects masses in spectra. Instances are used concurrently by multiple threads, e.g., in
+ * {@link MassDetectionTask}. Implementations should only hold immutable parameters and must not keep
+ * state between calls of {@link #getMassValues(MassSpectrum)}.
  */
 public interface MassDetector extends MZmineModule {
   public static final double[][] EMPTY_DATA = new double[2][0];
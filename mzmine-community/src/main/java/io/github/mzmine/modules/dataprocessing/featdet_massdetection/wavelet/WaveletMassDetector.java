@@ -56,6 +56,10 @@ public class WaveletMassDetector implements MassDetector {
   private final double noiseLevel;
   private final int scaleLevel;
   private final double waveletWindow;
+  /**
+   * the wavelet only depends on the window and is shared by all concurrent calls
+   */
+  private final double[] wavelet;
 
   /**
    * required to create a default instance via reflection
@@ -70,6 +74,7 @@ public class WaveletMassDetector implements MassDetector {
     this.noiseLevel = noiseLevel;
     this.scaleLevel = scaleLevel;
     this.waveletWindow = waveletWindow;
+    this.wavelet = calculateWavelet(waveletWindow);
   }
 
   @Override
@@ -88,7 +93,7 @@ public class WaveletMassDetector implements MassDetector {
   @Override
   public double[][] getMassValues(MassSpectrum scan) {
 
-    DataPoint waveletDataPoints[] = performCWT(scan, waveletWindow, scaleLevel);
+    DataPoint waveletDataPoints[] = performCWT(scan, scaleLevel);
 
     DataPoint detected[] = getMzPeaks(noiseLevel, scan, waveletDataPoints);
 
@@ -104,22 +109,31 @@ public class WaveletMassDetector implements MassDetector {
   }
 
   /**
-   * Perform the CWT over raw data points in the selected scale level
+   * Pre calculate the values of the wavelet
    *
-   * @param scan
+   * @param waveletWindow window width of the wavelet
    */
-  private SimpleDataPoint[] performCWT(MassSpectrum scan, double waveletWindow, int scaleLevel) {
-    int length = scan.getNumberOfDataPoints();
-    SimpleDataPoint[] cwtDataPoints = new SimpleDataPoint[length];
+  private static double[] calculateWavelet(double waveletWindow) {
     double wstep = ((WAVELET_ESR - WAVELET_ESL) / NPOINTS);
     double[] W = new double[(int) NPOINTS];
 
     double waveletIndex = WAVELET_ESL;
     for (int j = 0; j < NPOINTS; j++) {
-      // Pre calculate the values of the wavelet
       W[j] = cwtMEXHATreal(waveletIndex, waveletWindow, 0.0);
       waveletIndex += wstep;
     }
+    return W;
+  }
+
+  /**
+   * Perform the CWT over raw data points in the selected scale level
+   *
+   * @param scan
+   */
+  private SimpleDataPoint[] performCWT(MassSpectrum scan, int scaleLevel) {
+    int length = scan.getNumberOfDataPoints();
+    SimpleDataPoint[] cwtDataPoints = new SimpleDataPoint[length];
+    final double[] W = wavelet;
 
     /*
      * We only perform Translation of the wavelet in the selected scale
@@ -170,7 +184,7 @@ public class WaveletMassDetector implements MassDetector {
    * @param a Window Width of the wavelet
    * @param b Offset from the center of the peak
    */
-  private double cwtMEXHATreal(double x, double a, double b) {
+  private static double cwtMEXHATreal(double x, double a, double b) {
     /* c = 2 / ( sqrt(3) * pi^(1/4) ) */
     double c = 0.8673250705840776;
     double TINY = 1E-200;
@@ -120,6 +120,8 @@ public class MsnTreeFeatureDetectionTask extends AbstractTask {
 
     extractorFunction = new ExtractMzRangesIonSeriesFunction(dataFile, scanSelection,
         mzRangesSorted, ScanDataType.MASS_LIST, this);
+    // each ion series is written by scan index, so blocks of scans can run in parallel
+    extractorFunction.setParallel(true);
     BuildingIonSeries[] chromatograms = extractorFunction.get();
 
     if (isCanceled()) {
@@ -31,11 +31,9 @@ import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
 import io.github.mzmine.datamodel.data_access.BinningMobilogramDataAccess;
-import io.github.mzmine.datamodel.data_access.EfficientDataAccess;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess.MobilityScanDataType;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
 import io.github.mzmine.datamodel.data_access.MobilityScanDataAccess;
-import io.github.mzmine.datamodel.data_access.ScanDataAccess;
 import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
@@ -44,6 +42,7 @@ import io.github.mzmine.datamodel.features.SimpleFeatureListAppliedMethod;
 import io.github.mzmine.datamodel.features.compoundannotations.CompoundDBAnnotation;
 import io.github.mzmine.datamodel.features.types.numbers.MzPpmDifferenceType;
 import io.github.mzmine.datamodel.features.types.numbers.RtRelativeErrorType;
+import io.github.mzmine.modules.dataprocessing.featdet_extract_mz_ranges.IonSeriesExtractionEngine;
 import io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.Gap;
 import io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.multithreaded.ImsGap;
 import io.github.mzmine.modules.dataprocessing.id_ion_identity_networking.ionidnetworking.IonNetworkLibrary;
@@ -100,6 +99,7 @@ class TargetedFeatureDetectionModuleTask extends AbstractTask {
   private final int minDataPoints = 5;
   private FeatureList processedFeatureList;
   private int processedScans;
+  private volatile IonSeriesExtractionEngine extraction;
   private int ID = 1;
 
   TargetedFeatureDetectionModuleTask(MZmineProject project, ParameterSet parameters,
@@ -330,22 +330,21 @@ class TargetedFeatureDetectionModuleTask extends AbstractTask {
   }
 
   private boolean processLcmsFile(List<Gap> gaps) {
-    final ScanDataAccess access = EfficientDataAccess.of(dataFile, ScanDataType.MASS_LIST,
-        matchingScans);
-
-    while (access.hasNextScan()) {
-      access.nextScan();
-      // Canceled?
-      if (isCanceled()) {
-        return false;
-      }
-
-      // Feed this scan to all gaps
-      for (Gap gap : gaps) {
-        gap.offerNextScan(access);
-      }
+    // extract all gaps in one pass over the scans
+    final IonSeriesExtractionEngine engine = new IonSeriesExtractionEngine(dataFile, matchingScans,
+        ScanDataType.MASS_LIST, this);
+    for (Gap gap : gaps) {
+      engine.addWindow(gap.getMzRange(), gap.getRtRange(),
+          (access, _, from, to) -> gap.offerNextScan(access, from, to));
+    }
+    extraction = engine;
+    engine.process();
+    extraction = null;
+    processedScans += engine.getProcessedScans();
 
-      processedScans++;
+    // Canceled?
+    if (isCanceled()) {
+      return false;
     }
 
     for (Gap gap : gaps) {
@@ -362,7 +361,9 @@ class TargetedFeatureDetectionModuleTask extends AbstractTask {
     if (totalScans == 0) {
       return 0;
     }
-    return (double) processedScans / (double) totalScans;
+    final IonSeriesExtractionEngine current = extraction;
+    final int currentScans = current != null ? current.getProcessedScans() : 0;
+    return (double) (processedScans + currentScans) / (double) totalScans;
   }
 
   public String getTaskDescription() {
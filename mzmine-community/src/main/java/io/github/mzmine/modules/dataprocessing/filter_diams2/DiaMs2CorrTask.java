@@ -26,8 +26,6 @@
 package io.github.mzmine.modules.dataprocessing.filter_diams2;
 
 import com.google.common.collect.Range;
-import com.google.common.collect.RangeMap;
-import com.google.common.collect.TreeRangeMap;
 import io.github.mzmine.datamodel.FeatureStatus;
 import io.github.mzmine.datamodel.Frame;
 import io.github.mzmine.datamodel.IMSRawDataFile;
@@ -43,7 +41,6 @@ import io.github.mzmine.datamodel.featuredata.IonMobilogramTimeSeries;
 import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
 import io.github.mzmine.datamodel.features.Feature;
 import io.github.mzmine.datamodel.features.FeatureList;
-import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.features.SimpleFeatureListAppliedMethod;
 import io.github.mzmine.datamodel.features.correlation.CorrelationData;
@@ -75,13 +72,12 @@ import io.github.mzmine.util.IonMobilityUtils;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.collections.BinarySearch;
 import io.github.mzmine.util.collections.BinarySearch.DefaultTo;
-import io.github.mzmine.util.collections.EmptyIndexRange;
 import io.github.mzmine.util.collections.IndexRange;
 import io.github.mzmine.util.scans.ScanUtils;
 import io.github.mzmine.util.scans.SpectraMerging;
 import io.github.mzmine.util.scans.SpectraMerging.IntensityMergingType;
 import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
-import java.lang.foreign.ValueLayout;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -94,6 +90,7 @@ import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.stream.Stream;
@@ -118,7 +115,7 @@ public class DiaMs2CorrTask extends AbstractTask {
   //  private final ParameterSet smoothingParameters;
 //  private final ParameterSet resolverParameters;
   private final int numRows;
-  private int currentRow = 0;
+  private final AtomicInteger processedRows = new AtomicInteger(0);
 
   private String description = "";
 
@@ -163,24 +160,17 @@ public class DiaMs2CorrTask extends AbstractTask {
    * @param mzTolerance If the feauture's raw data point mz range is smaller than this range, the
    *                    range specified by the mz tolerance will be used.
    */
-  private static @NotNull Map<IsolationWindow, RangeMap<Double, IonTimeSeries<?>>> mapIsoWindowToEics(
+  private static @NotNull Map<IsolationWindow, Ms2EicIndex> mapIsoWindowToEics(
       Map<IsolationWindow, FeatureList> ms2Flists, @NotNull MZTolerance mzTolerance) {
-    final Map<IsolationWindow, RangeMap<Double, IonTimeSeries<?>>> isoWindowEicsMap = new HashMap<>();
-
-    for (Entry<IsolationWindow, FeatureList> entry : ms2Flists.entrySet()) {
-      final RawDataFile file = entry.getValue().getRawDataFile(0);
-      // store feature data in TreeRangeMap, to query by m/z in ms2 spectra
-      var ms2Flist = entry.getValue();
-      if (ms2Flist.isEmpty()) {
-        continue;
-      }
-      final RangeMap<Double, IonTimeSeries<?>> ms2Eics = TreeRangeMap.create();
-      ms2Flist.getRows().stream().map(row -> row.getFeature(file)).filter(Objects::nonNull)
-          .sorted(Comparator.comparingDouble(Feature::getHeight).reversed()).forEach(
-              feature -> ms2Eics.put(SpectraMerging.createNewNonOverlappingRange(ms2Eics,
-                  feature.getRawDataPointsMZRange()), feature.getFeatureData()));
-      isoWindowEicsMap.put(entry.getKey(), ms2Eics);
-    }
+    // store feature data in a flat index per window, to query by m/z in ms2 spectra
+    final List<Entry<IsolationWindow, Ms2EicIndex>> indices = ms2Flists.entrySet().parallelStream()
+        .map(entry -> {
+          final Ms2EicIndex ms2Eics = Ms2EicIndex.create(entry.getValue());
+          return ms2Eics == null ? null : Map.entry(entry.getKey(), ms2Eics);
+        }).filter(Objects::nonNull).toList();
+
+    final Map<IsolationWindow, Ms2EicIndex> isoWindowEicsMap = new HashMap<>();
+    indices.forEach(entry -> isoWindowEicsMap.put(entry.getKey(), entry.getValue()));
     return isoWindowEicsMap;
   }
 
@@ -192,7 +182,7 @@ public class DiaMs2CorrTask extends AbstractTask {
   @Override
   public double getFinishedPercentage() {
     return isolationWindowMergingProgress * 0.25 + adapTaskProgess * 0.25
-        + (currentRow / (double) numRows) * 0.5d;
+        + (processedRows.get() / (double) numRows) * 0.5d;
   }
 
   @Override
@@ -213,13 +203,14 @@ public class DiaMs2CorrTask extends AbstractTask {
         isolationWindowScanMap);
     description = "Building isolation window chromatograms.";
     final Map<IsolationWindow, FeatureList> ms2Flists = buildChromatograms(isolationWindowFileMap);
-    final Map<IsolationWindow, RangeMap<Double, IonTimeSeries<?>>> isoWindowEicsMap = mapIsoWindowToEics(
-        ms2Flists, mzTolerance);
+    final Map<IsolationWindow, Ms2EicIndex> isoWindowEicsMap = mapIsoWindowToEics(ms2Flists,
+        mzTolerance);
     final Set<IsolationWindow> isolationWindows = isoWindowEicsMap.keySet();
 
     description = "Finding correlated MS2 chromatograms.";
-    for (FeatureListRow row : flist.getRows()) {
-      currentRow++;
+    // rows are independent, the eic indices and scan maps are only read
+    flist.getRows().parallelStream().forEach(row -> {
+      processedRows.getAndIncrement();
       if (isCanceled()) {
         return;
       }
@@ -227,7 +218,7 @@ public class DiaMs2CorrTask extends AbstractTask {
       final Feature feature = row.getFeature(file);
       if (feature == null || feature.getFeatureStatus() != FeatureStatus.DETECTED
           || feature.getHeight() < minMs1Intensity) {
-        continue;
+        return;
       }
 
       final List<IsolationWindow> matchingWindows = getIsolationWindows(feature, isolationWindows);
@@ -242,6 +233,10 @@ public class DiaMs2CorrTask extends AbstractTask {
       } else {
         feature.setAllMS2FragmentScans((List<Scan>) (List<? extends Scan>) correlatedMs2s);
       }
+    });
+
+    if (isCanceled()) {
+      return;
     }
 
     flist.getAppliedMethods().add(
@@ -315,7 +310,7 @@ public class DiaMs2CorrTask extends AbstractTask {
 
   private @NotNull List<@NotNull PseudoSpectrum> processIsolationWindows(Feature feature,
       List<IsolationWindow> matchingWindows,
-      Map<IsolationWindow, RangeMap<Double, IonTimeSeries<?>>> isoWindowEicsMap,
+      Map<IsolationWindow, Ms2EicIndex> isoWindowEicsMap,
       Map<IsolationWindow, List<Scan>> isoWindowScansMap) {
     final IonTimeSeries<? extends Scan> ms1Eic = feature.getFeatureData();
     final double[][] shape = extractPointsAroundMaximum(feature.getHeight() * correlationThreshold,
@@ -341,9 +336,9 @@ public class DiaMs2CorrTask extends AbstractTask {
       if (closestMs2 == null) {
         continue;
       }
-      final RangeMap<Double, IonTimeSeries<?>> eics = isoWindowEicsMap.get(window);
+      final Ms2EicIndex eics = isoWindowEicsMap.get(window);
 
-      final List<IonTimeSeries<?>> eligibleEics = getEligibleEics(closestMs2, eics);
+      final IntArrayList eligibleEics = eics.findEics(closestMs2, minMs2Intensity);
       if (eligibleEics.isEmpty()) {
         continue;
       }
@@ -351,7 +346,7 @@ public class DiaMs2CorrTask extends AbstractTask {
       final PseudoSpectrum ms2 = extractCorrelatedMs2(feature,
           () -> extractMergedMobilityScan(feature, closestMs2,
               ms2Scans.stream().filter(s -> correlationRange.contains(s.getRetentionTime()))
-                  .toList()), correlationRange, eligibleEics, ms1Rts, ms1Intensities);
+                  .toList()), correlationRange, eics, eligibleEics, ms1Rts, ms1Intensities);
 
       if (ms2 != null) {
         correlatedMs2s.add(ms2);
@@ -366,8 +361,9 @@ public class DiaMs2CorrTask extends AbstractTask {
    * @param extractMergedMobilityScan A supplier to get a merged mobility scan for this feature.
    *                                  Only called if necessary
    * @param correlationRange          The rt correlation range between the ms1 and ms2 traces.
-   * @param eligibleEics              The MS2 EICs that appear during the elution of the MS1
-   *                                  feature.
+   * @param eics                      The MS2 EICs of the isolation window.
+   * @param eligibleEics              The indices of the MS2 EICs that appear during the elution of
+   *                                  the MS1 feature.
    * @param ms1Rts                    The rt values of the ms1 feature during the correlation range
    * @param ms1Intensities            The intensity values of the ms1 feature during the correlation
    *                                  range
@@ -375,30 +371,34 @@ public class DiaMs2CorrTask extends AbstractTask {
    */
   private @Nullable PseudoSpectrum extractCorrelatedMs2(Feature feature,
       Supplier<MergedMassSpectrum> extractMergedMobilityScan, Range<Float> correlationRange,
-      List<IonTimeSeries<?>> eligibleEics, double[] ms1Rts, double[] ms1Intensities) {
+      Ms2EicIndex eics, IntArrayList eligibleEics, double[] ms1Rts, double[] ms1Intensities) {
     DoubleArrayList ms2Mzs = new DoubleArrayList();
     DoubleArrayList ms2Intensities = new DoubleArrayList();
     DoubleArrayList collisionEnergies = new DoubleArrayList();
     MergedMassSpectrum mergedMobilityScan = null; // lazy initialization
     ActivationMethod activationMethod = ActivationMethod.UNKNOWN;
 
-    for (IonTimeSeries<?> ms2Eic : eligibleEics) {
-      final IonTimeSeries<?> subSeries = ms2Eic.subSeries(getMemoryMapStorage(),
-          correlationRange.lowerEndpoint(), correlationRange.upperEndpoint());
+    for (int e = 0; e < eligibleEics.size(); e++) {
+      final int eicIndex = eligibleEics.getInt(e);
+      final IonTimeSeries<?> ms2Eic = eics.eic(eicIndex);
+      final double[] eicRts = eics.rts(eicIndex);
 
-      if (subSeries.getNumberOfValues() < minCorrPoints) {
+      // rts and intensities are extracted once per eic, only the correlated range is copied
+      final IndexRange ms2CorrelatedIndexRange = BinarySearch.indexRange(eicRts,
+          correlationRange.lowerEndpoint(), correlationRange.upperEndpoint());
+      if (ms2CorrelatedIndexRange.isEmpty() || ms2CorrelatedIndexRange.min() == -1
+          || ms2CorrelatedIndexRange.size() < minCorrPoints) {
         continue;
       }
+      final List<? extends Scan> correlatedSpectra = ms2CorrelatedIndexRange.sublist(
+          ms2Eic.getSpectra());
+
       if (activationMethod == ActivationMethod.UNKNOWN) {
-        activationMethod = ScanUtils.streamMsMsInfos(subSeries.getSpectra(), feature.getMZ())
+        activationMethod = ScanUtils.streamMsMsInfos(correlatedSpectra, feature.getMZ())
             .map(MsMsInfo::getActivationMethod).findFirst().orElse(ActivationMethod.UNKNOWN);
       }
-      final double[] rts = new double[subSeries.getNumberOfValues()];
-      for (int i = 0; i < subSeries.getNumberOfValues(); i++) {
-        rts[i] = subSeries.getRetentionTime(i);
-      }
-      final double[] ms2Intensity = subSeries.getIntensityValueBuffer()
-          .toArray(ValueLayout.JAVA_DOUBLE);
+      final double[] rts = ms2CorrelatedIndexRange.subarray(eicRts);
+      final double[] ms2Intensity = ms2CorrelatedIndexRange.subarray(eics.intensities(eicIndex));
 
       final CorrelationData correlationData = DIA.corrFeatureShape(ms1Rts, ms1Intensities, rts,
           ms2Intensity, minCorrPoints, 2, minMs2Intensity / 5);
@@ -407,18 +407,10 @@ public class DiaMs2CorrTask extends AbstractTask {
         continue;
       }
 
-      final IndexRange ms2CorrelatedIndexRange = BinarySearch.indexRange(
-          correlationRange.lowerEndpoint(), correlationRange.upperEndpoint(),
-          ms2Eic.getNumberOfValues(), ms2Eic::getRetentionTime);
-      if (ms2CorrelatedIndexRange.equals(EmptyIndexRange.INSTANCE)
-          || ms2CorrelatedIndexRange.min() == -1) {
-        continue;
-      }
-
       double maxIntensity = Double.NEGATIVE_INFINITY;
-      for (int j = ms2CorrelatedIndexRange.min(); j < ms2CorrelatedIndexRange.maxExclusive(); j++) {
-        if (ms2Eic.getIntensity(j) > maxIntensity) {
-          maxIntensity = ms2Eic.getIntensity(j);
+      for (double intensity : ms2Intensity) {
+        if (intensity > maxIntensity) {
+          maxIntensity = intensity;
         }
       }
 
@@ -440,7 +432,7 @@ public class DiaMs2CorrTask extends AbstractTask {
 
       ms2Mzs.add(mz);
       ms2Intensities.add(maxIntensity);
-      ScanUtils.streamMsMsInfos(subSeries.getSpectra(), feature.getMZ())
+      ScanUtils.streamMsMsInfos(correlatedSpectra, feature.getMZ())
           .map(MsMsInfo::getActivationEnergy).filter(Objects::nonNull)
           .mapToDouble(Float::doubleValue).average().ifPresent(collisionEnergies::add);
     }
@@ -519,25 +511,6 @@ public class DiaMs2CorrTask extends AbstractTask {
     return SpectraMerging.mergeSpectra(mobilityScans, mzTolerance, MergingType.ALL_ENERGIES, null);
   }
 
-  private List<IonTimeSeries<?>> getEligibleEics(Scan ms2,
-      RangeMap<Double, IonTimeSeries<?>> eics) {
-    final List<IonTimeSeries<?>> result = new ArrayList<>();
-
-    for (int i = 0; i < ms2.getNumberOfDataPoints(); i++) {
-      if (ms2.getIntensityValue(i) < minMs2Intensity) {
-        continue;
-      }
-
-      final double mz = ms2.getMzValue(i);
-      final IonTimeSeries<?> eic = eics.get(mz);
-      if (eic != null) {
-        result.add(eic);
-      }
-    }
-
-    return result.stream().distinct().toList();
-  }
-
   private boolean checkMs2ScanRequirements(float featureRt, List<Scan> ms2Scans,
       Range<Float> correlationRange) {
     final List<Scan> ms2sInRtRange = ms2Scans.stream()
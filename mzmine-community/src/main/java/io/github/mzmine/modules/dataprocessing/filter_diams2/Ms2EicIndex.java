@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.filter_diams2;
+
+import com.google.common.collect.BoundType;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeMap;
+import com.google.common.collect.TreeRangeMap;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
+import io.github.mzmine.datamodel.features.Feature;
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.util.scans.SpectraMerging;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.ints.IntSet;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The MS2 EICs of a single isolation window with non-overlapping m/z ranges in flat arrays sorted by
+ * m/z. The index is built via a Guava {@link TreeRangeMap}, which resolves the overlapping m/z
+ * ranges of the features, and then flattened into primitive arrays for a binary search.
+ * <p>
+ * The retention times and intensities of an EIC are extracted on first access and then reused for
+ * the correlation with all MS1 features. EICs that never match an MS1 feature are not copied. Safe
+ * to query from multiple threads.
+ */
+final class Ms2EicIndex {
+
+  // m/z ranges sorted ascending, multiple ranges may point to the same eic
+  private final double[] lowerMzs;
+  private final double[] upperMzs;
+  private final boolean[] lowerOpen;
+  private final boolean[] upperOpen;
+  private final int[] eicIndices;
+
+  private final IonTimeSeries<?>[] eics;
+  // extracted on first access
+  private final AtomicReferenceArray<EicValues> eicValues;
+
+  Ms2EicIndex(RangeMap<Double, IonTimeSeries<?>> ranges) {
+    final Map<Range<Double>, IonTimeSeries<?>> map = ranges.asMapOfRanges();
+    final int numRanges = map.size();
+    lowerMzs = new double[numRanges];
+    upperMzs = new double[numRanges];
+    lowerOpen = new boolean[numRanges];
+    upperOpen = new boolean[numRanges];
+    eicIndices = new int[numRanges];
+
+    final Map<IonTimeSeries<?>, Integer> eicIndexMap = new IdentityHashMap<>();
+    int i = 0;
+    for (Entry<Range<Double>, IonTimeSeries<?>> entry : map.entrySet()) {
+      final Range<Double> range = entry.getKey();
+      lowerMzs[i] = range.lowerEndpoint();
+      upperMzs[i] = range.upperEndpoint();
+      lowerOpen[i] = range.lowerBoundType() == BoundType.OPEN;
+      upperOpen[i] = range.upperBoundType() == BoundType.OPEN;
+      eicIndices[i] = eicIndexMap.computeIfAbsent(entry.getValue(), _ -> eicIndexMap.size());
+      i++;
+    }
+
+    eics = new IonTimeSeries<?>[eicIndexMap.size()];
+    eicIndexMap.forEach((eic, index) -> eics[index] = eic);
+    eicValues = new AtomicReferenceArray<>(eics.length);
+  }
+
+  /**
+   * The most intense features claim their m/z range first, less intense features only get the
+   * remaining range.
+   *
+   * @return an index of the features of the ms2 feature list or null if the list is empty.
+   */
+  static @Nullable Ms2EicIndex create(@NotNull FeatureList ms2Flist) {
+    if (ms2Flist.isEmpty()) {
+      return null;
+    }
+    final RawDataFile file = ms2Flist.getRawDataFile(0);
+    final RangeMap<Double, IonTimeSeries<?>> ms2Eics = TreeRangeMap.create();
+    ms2Flist.getRows().stream().map(row -> row.getFeature(file)).filter(Objects::nonNull)
+        .sorted(Comparator.comparingDouble(Feature::getHeight).reversed()).forEach(
+            feature -> ms2Eics.put(SpectraMerging.createNewNonOverlappingRange(ms2Eics,
+                feature.getRawDataPointsMZRange()), feature.getFeatureData()));
+    return new Ms2EicIndex(ms2Eics);
+  }
+
+  /**
+   * @return the index of the eic with an m/z range containing the mz or -1
+   */
+  int indexOf(double mz) {
+    // last range with a lower bound <= mz
+    int low = 0;
+    int high = lowerMzs.length - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      if (lowerMzs[mid] <= mz) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    // a closed singleton range may share the lower bound with the next, open range
+    for (int i = high; i >= Math.max(0, high - 1); i--) {
+      if (contains(i, mz)) {
+        return eicIndices[i];
+      }
+    }
+    return -1;
+  }
+
+  private boolean contains(int range, double mz) {
+    return (lowerOpen[range] ? mz > lowerMzs[range] : mz >= lowerMzs[range]) && (upperOpen[range]
+        ? mz < upperMzs[range] : mz <= upperMzs[range]);
+  }
+
+  /**
+   * @param minIntensity the minimum intensity of the data points in the scan
+   * @return the distinct indices of all eics matching data points in the scan, ordered by m/z
+   */
+  @NotNull IntArrayList findEics(@NotNull Scan ms2, double minIntensity) {
+    final IntArrayList result = new IntArrayList();
+    final IntSet added = new IntOpenHashSet();
+    for (int i = 0; i < ms2.getNumberOfDataPoints(); i++) {
+      if (ms2.getIntensityValue(i) < minIntensity) {
+        continue;
+      }
+      final int index = indexOf(ms2.getMzValue(i));
+      if (index != -1 && added.add(index)) {
+        result.add(index);
+      }
+    }
+    return result;
+  }
+
+  @NotNull IonTimeSeries<?> eic(int index) {
+    return eics[index];
+  }
+
+  double @NotNull [] rts(int index) {
+    return values(index).rts();
+  }
+
+  double @NotNull [] intensities(int index) {
+    return values(index).intensities();
+  }
+
+  private @NotNull EicValues values(int index) {
+    final EicValues values = eicValues.get(index);
+    if (values != null) {
+      return values;
+    }
+    final IonTimeSeries<?> eic = eics[index];
+    final double[] rts = new double[eic.getNumberOfValues()];
+    for (int j = 0; j < rts.length; j++) {
+      rts[j] = eic.getRetentionTime(j);
+    }
+    final EicValues extracted = new EicValues(rts,
+        eic.getIntensityValues(new double[eic.getNumberOfValues()]));
+    // another thread may have extracted the same values first
+    return eicValues.compareAndSet(index, null, extracted) ? extracted : eicValues.get(index);
+  }
+
+  private record EicValues(double @NotNull [] rts, double @NotNull [] intensities) {
+
+  }
+}
@@ -25,22 +25,27 @@
 
 package io.github.mzmine.modules.dataprocessing.gapfill_peakfinder;
 
+import static java.util.Objects.requireNonNullElse;
+
 import com.google.common.collect.Range;
 import io.github.mzmine.datamodel.DataPoint;
 import io.github.mzmine.datamodel.FeatureStatus;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.ScanDataAccess;
 import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
 import io.github.mzmine.datamodel.featuredata.impl.SimpleIonTimeSeries;
 import io.github.mzmine.datamodel.features.Feature;
 import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.features.ModularFeature;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.impl.SimpleDataPoint;
 import io.github.mzmine.util.DataPointUtils;
 import io.github.mzmine.util.RangeUtils;
 import io.github.mzmine.util.scans.ScanUtils;
 import java.util.ArrayList;
 import java.util.List;
+import org.jetbrains.annotations.Nullable;
 
 public class Gap {
 
@@ -80,16 +85,52 @@ public class Gap {
   }
 
   public void offerNextScan(Scan scan) {
-
-    float scanRT = scan.getRetentionTime();
-
     // If not yet inside the RT range
-    if (!rtRange.contains(scanRT)) {
+    if (!rtRange.contains(scan.getRetentionTime())) {
       return;
     }
 
     // Find top m/z peak in our range
-    DataPoint basePeak = ScanUtils.findBasePeak(scan, mzRange);
+    offerBasePeak(scan, ScanUtils.findBasePeak(scan, mzRange));
+  }
+
+  /**
+   * Same as {@link #offerNextScan(Scan)} for data points already located by a
+   * {@link io.github.mzmine.modules.dataprocessing.featdet_extract_mz_ranges.IonSeriesExtractionEngine}
+   *
+   * @param fromIndex        first data point in the m/z range
+   * @param toIndexExclusive end of the data points in the m/z range
+   */
+  public void offerNextScan(ScanDataAccess access, int fromIndex, int toIndexExclusive) {
+    if (!rtRange.contains(access.getRetentionTime())) {
+      return;
+    }
+
+    // same as ScanUtils.findBasePeak
+    DataPoint basePeak = null;
+    final Double scanBasePeakMz = access.getBasePeakMz();
+    if (scanBasePeakMz != null && mzRange.contains(scanBasePeakMz)) {
+      basePeak = new SimpleDataPoint(scanBasePeakMz,
+          requireNonNullElse(access.getBasePeakIntensity(), 0d));
+    } else {
+      int baseIndex = -1;
+      double baseIntensity = 0d;
+      for (int i = fromIndex; i < toIndexExclusive; i++) {
+        final double intensity = access.getIntensityValue(i);
+        if (intensity > baseIntensity) {
+          baseIntensity = intensity;
+          baseIndex = i;
+        }
+      }
+      if (baseIndex != -1) {
+        basePeak = new SimpleDataPoint(access.getMzValue(baseIndex), baseIntensity);
+      }
+    }
+    offerBasePeak(access, basePeak);
+  }
+
+  private void offerBasePeak(Scan scan, @Nullable DataPoint basePeak) {
+    final float scanRT = scan.getRetentionTime();
 
     GapDataPointImpl currentDataPoint;
     if (basePeak != null) {
@@ -268,4 +309,12 @@ public class Gap {
   public FeatureListRow getFeatureListRow() {
     return featureListRow;
   }
+
+  public Range<Double> getMzRange() {
+    return mzRange;
+  }
+
+  public Range<Float> getRtRange() {
+    return rtRange;
+  }
 }
@@ -35,11 +35,11 @@ import io.github.mzmine.datamodel.data_access.EfficientDataAccess;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess.MobilityScanDataType;
 import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
 import io.github.mzmine.datamodel.data_access.MobilityScanDataAccess;
-import io.github.mzmine.datamodel.data_access.ScanDataAccess;
 import io.github.mzmine.datamodel.features.Feature;
 import io.github.mzmine.datamodel.features.FeatureListRow;
 import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.features.types.numbers.MobilityType;
+import io.github.mzmine.modules.dataprocessing.featdet_extract_mz_ranges.IonSeriesExtractionEngine;
 import io.github.mzmine.modules.dataprocessing.gapfill_peakfinder.Gap;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
@@ -70,6 +70,7 @@ class MultiThreadPeakFinderTask extends AbstractTask {
   private final int taskIndex;
   private final int minDataPoints;
   private int totalScans;
+  private volatile IonSeriesExtractionEngine extraction;
 
   MultiThreadPeakFinderTask(ModularFeatureList peakList, ModularFeatureList processedPeakList,
       ParameterSet parameters, int start, int endexcl, int taskIndex,
@@ -199,7 +200,9 @@ class MultiThreadPeakFinderTask extends AbstractTask {
     if (totalScans == 0) {
       return 0;
     }
-    return (double) processedScans.get() / (double) totalScans;
+    final IonSeriesExtractionEngine current = extraction;
+    final int currentScans = current != null ? current.getProcessedScans() : 0;
+    return (double) (processedScans.get() + currentScans) / (double) totalScans;
   }
 
   public String getTaskDescription() {
@@ -227,22 +230,17 @@ class MultiThreadPeakFinderTask extends AbstractTask {
       }
 
     } else {
-      // no IMS dimension
-
-      final ScanDataAccess scanAccess = EfficientDataAccess.of(file, ScanDataType.MASS_LIST,
-          peakList.getSeletedScans(file));
-      while (scanAccess.hasNextScan()) {
-        if (isCanceled()) {
-          return;
-        }
-        scanAccess.nextScan();
-        // Feed this scan to all gaps
-        for (Gap gap : gaps) {
-          gap.offerNextScan(scanAccess);
-        }
-
-        processedScans.incrementAndGet();
+      // no IMS dimension, extract all gaps in one pass over the scans
+      final IonSeriesExtractionEngine engine = new IonSeriesExtractionEngine(file,
+          peakList.getSeletedScans(file), ScanDataType.MASS_LIST, this);
+      for (Gap gap : gaps) {
+        engine.addWindow(gap.getMzRange(), gap.getRtRange(),
+            (access, _, from, to) -> gap.offerNextScan(access, from, to));
       }
+      extraction = engine;
+      engine.process();
+      extraction = null;
+      processedScans.addAndGet(engine.getProcessedScans());
     }
   }
 }
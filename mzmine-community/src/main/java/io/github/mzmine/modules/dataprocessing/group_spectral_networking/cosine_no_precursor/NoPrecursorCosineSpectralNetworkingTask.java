@@ -26,9 +26,7 @@
 package io.github.mzmine.modules.dataprocessing.group_spectral_networking.cosine_no_precursor;
 
 
-import static io.github.mzmine.modules.dataprocessing.group_spectral_networking.modified_cosine.ModifiedCosineSpectralNetworkingTask.SIZE_OVERLAP;
 import static io.github.mzmine.modules.dataprocessing.group_spectral_networking.modified_cosine.ModifiedCosineSpectralNetworkingTask.addNetworkStatisticsToRows;
-import static io.github.mzmine.modules.dataprocessing.group_spectral_networking.modified_cosine.ModifiedCosineSpectralNetworkingTask.createMS2Sim;
 
 import io.github.mzmine.datamodel.DataPoint;
 import io.github.mzmine.datamodel.Scan;
@@ -54,6 +52,9 @@ import io.github.mzmine.util.collections.CollectionUtils;
 import io.github.mzmine.util.collections.StreamUtils;
 import io.github.mzmine.util.exceptions.MissingMassListException;
 import io.github.mzmine.util.maths.Combinatorics;
+import io.github.mzmine.util.scans.similarity.Weights;
+import io.github.mzmine.util.scans.similarity.impl.cosine.VectorizedWeightedCosineSpectralSimilarity;
+import io.github.mzmine.util.scans.similarity.impl.cosine.WeightedSpectrum;
 import java.text.MessageFormat;
 import java.time.Instant;
 import java.util.List;
@@ -179,7 +180,7 @@ public class NoPrecursorCosineSpectralNetworkingTask extends AbstractFeatureList
 
   private boolean checkSpectralPair(final FilteredRowData a, final FilteredRowData b,
       final R2RMap<RowsRelationship> mapSimilarity) {
-    return checkR2RMs2Similarity(mapSimilarity, a.row(), b.row(), a.data(), b.data(),
+    return checkR2RMs2Similarity(mapSimilarity, a.row(), b.row(), a.spectrum(), b.spectrum(),
         Type.MS2_COSINE_SIM);
   }
 
@@ -190,10 +191,10 @@ public class NoPrecursorCosineSpectralNetworkingTask extends AbstractFeatureList
    * @param simType       similarity type
    */
   public boolean checkR2RMs2Similarity(R2RMap<RowsRelationship> mapSimilarity, FeatureListRow a,
-      FeatureListRow b, DataPoint[] sortedA, DataPoint[] sortedB, Type simType) {
-    // align and check spectra
-    SpectralSimilarity spectralSim = createMS2Sim(mzTolerance, sortedA, sortedB, minMatch,
-        SIZE_OVERLAP);
+      FeatureListRow b, WeightedSpectrum spectrumA, WeightedSpectrum spectrumB, Type simType) {
+    // align and check spectra, same as the unshifted modified cosine
+    SpectralSimilarity spectralSim = VectorizedWeightedCosineSpectralSimilarity.getModifiedCosine(
+        mzTolerance, minMatch, spectrumA, spectrumB, -1d, -1d);
 
     if (spectralSim != null && spectralSim.cosine() >= minCosineSimilarity) {
       var r2r = new R2RSpectralSimilarity(a, b, simType, spectralSim);
@@ -220,7 +221,7 @@ public class NoPrecursorCosineSpectralNetworkingTask extends AbstractFeatureList
     }
     // remove precursor signals
     DataPoint[] dps = signalFilter.applyFilterAndSortByIntensity(ms2, null, minDP);
-    return dps != null ? new FilteredRowData(row, dps) : null;
+    return dps != null ? FilteredRowData.of(row, dps, Weights.SQRT) : null;
   }
 
 
@@ -25,10 +25,10 @@
 
 package io.github.mzmine.modules.dataprocessing.group_spectral_networking.dreams;
 
-import static io.github.mzmine.modules.dataprocessing.group_spectral_networking.ms2deepscore.MS2DeepscoreNetworkingTask.convertMatrixToR2RMap;
+import static io.github.mzmine.modules.dataprocessing.group_spectral_networking.ms2deepscore.MS2DeepscoreNetworkingTask.convertIndexToR2RMap;
 import static io.github.mzmine.modules.dataprocessing.group_spectral_networking.ms2deepscore.MS2DeepscoreNetworkingTask.getScanAndApplyPrechecks;
 import static io.github.mzmine.util.collections.CollectionUtils.argsortReversed;
-import static io.github.mzmine.util.scans.similarity.impl.ms2deepscore.EmbeddingBasedSimilarity.dotProduct;
+import static io.github.mzmine.util.scans.similarity.impl.ms2deepscore.EmbeddingBasedSimilarity.toNormalizedEmbeddings;
 
 import ai.djl.MalformedModelException;
 import ai.djl.ndarray.NDArray;
@@ -51,6 +51,7 @@ import io.github.mzmine.taskcontrol.AbstractFeatureListTask;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.scans.FragmentScanSelection;
 import io.github.mzmine.util.scans.similarity.impl.DreaMS.DreaMSModel;
+import io.github.mzmine.util.scans.similarity.impl.ms2deepscore.HnswEmbeddingIndex;
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
@@ -146,8 +147,8 @@ public class DreaMSNetworkingTask extends AbstractFeatureListTask {
       }
     }
 
-    // Predict the matrix of pairwise DreaMS similarities
-    float[][] similarityMatrix;
+    // Predict the DreaMS embeddings and index them for neighbor searches
+    final HnswEmbeddingIndex embeddingIndex;
     try {
       // Pre-process mass spectra
       float[][][] tensorizedSpectra = model.getSpectrumTensorizer().tensorizeSpectra(scanList);
@@ -175,20 +176,20 @@ public class DreaMSNetworkingTask extends AbstractFeatureListTask {
       // Combine all predictions into a single NDArray (stacked along the batch dimension)
       NDArray embeddings = NDArrays.concat(allPredictions);
 
-      // Compute DreaMS similarities
-      similarityMatrix = dotProduct(embeddings, embeddings);
+      // the index replaces the n x n similarity matrix
+      description = "Indexing DreaMS embeddings";
+      embeddingIndex = new HnswEmbeddingIndex(toNormalizedEmbeddings(embeddings));
     } catch (TranslateException e) {
       throw new RuntimeException(e);
     }
 
     // Choose numNeighbors nearest neighbors for each spectrum and retain all similarities above minScore
-    if (numNeighbors != null) {
-      similarityMatrix = toKNNMatrix(similarityMatrix, numNeighbors, minScore);
-    }
-
-    // Convert the similarity matrix to a R2RMap
-    R2RMap<R2RSimpleSimilarity> relationsMap = convertMatrixToR2RMap(featureListRows,
-        similarityMatrix, numNeighbors != null ? minScoreNeighbors : minScore, Type.DREAMS);
+    // same as toKNNMatrix but without the matrix
+    description = "Searching DreaMS neighbors";
+    R2RMap<R2RSimpleSimilarity> relationsMap = numNeighbors != null ? convertIndexToR2RMap(
+        featureListRows, embeddingIndex, numNeighbors, minScore, minScoreNeighbors, Type.DREAMS)
+        : convertIndexToR2RMap(featureListRows, embeddingIndex, 0, minScore, minScore,
+            Type.DREAMS);
     R2RNetworkingMaps rowMaps = featureList.getRowMaps();
     rowMaps.addAllRowsRelationships(relationsMap, Type.DREAMS);
 
@@ -217,6 +218,11 @@ public class DreaMSNetworkingTask extends AbstractFeatureListTask {
     return List.of(featureLists);
   }
 
+  /**
+   * Retains the k nearest neighbors and all elements above a threshold of a similarity matrix.
+   * Networking uses {@link HnswEmbeddingIndex#searchNeighbors(int, int, double)} instead, which
+   * does not need the n x n matrix.
+   */
   public static float[][] toKNNMatrix(float[][] matrix, int k, double retainElementsAbove) {
     // Create a new matrix to store the result
     int n = matrix.length;
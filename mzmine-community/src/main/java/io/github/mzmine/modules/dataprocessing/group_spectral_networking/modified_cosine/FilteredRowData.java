@@ -27,10 +27,23 @@ package io.github.mzmine.modules.dataprocessing.group_spectral_networking.modifi
 
 import io.github.mzmine.datamodel.DataPoint;
 import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.util.scans.similarity.Weights;
+import io.github.mzmine.util.scans.similarity.impl.cosine.VectorizedWeightedCosineSpectralSimilarity;
+import io.github.mzmine.util.scans.similarity.impl.cosine.WeightedSpectrum;
 
 /**
  * the filtered data of the best MS2 scan from row
+ *
+ * @param data     data points sorted by intensity
+ * @param spectrum the data prepared once for all pairwise comparisons
  */
-public record FilteredRowData(FeatureListRow row, DataPoint[] data) {
+public record FilteredRowData(FeatureListRow row, DataPoint[] data, WeightedSpectrum spectrum) {
 
+  /**
+   * @param data data points sorted by intensity
+   */
+  public static FilteredRowData of(FeatureListRow row, DataPoint[] data, Weights weights) {
+    return new FilteredRowData(row, data,
+        VectorizedWeightedCosineSpectralSimilarity.prepare(data, weights));
+  }
 }
@@ -65,6 +65,8 @@ import io.github.mzmine.util.scans.FragmentScanSelection;
 import io.github.mzmine.util.scans.ScanAlignment;
 import io.github.mzmine.util.scans.ScanMZDiffConverter;
 import io.github.mzmine.util.scans.similarity.Weights;
+import io.github.mzmine.util.scans.similarity.impl.cosine.VectorizedWeightedCosineSpectralSimilarity;
+import io.github.mzmine.util.scans.similarity.impl.cosine.WeightedSpectrum;
 import java.text.MessageFormat;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -472,7 +474,7 @@ public class ModifiedCosineSpectralNetworkingTask extends AbstractFeatureListTas
     for (final FilteredRowData a : scans1) {
       for (final FilteredRowData b : scans2) {
         // align and check spectra
-        var result = calcSpectralSimilarity(a.row(), b.row(), a.data(), b.data());
+        var result = calcSpectralSimilarity(a.row(), b.row(), a.spectrum(), b.spectrum());
         if (result != null && (best == null || result.cosine() > best.cosine())) {
           best = result;
         }
@@ -532,14 +534,18 @@ public class ModifiedCosineSpectralNetworkingTask extends AbstractFeatureListTas
     }
     // remove precursor signals
     DataPoint[] dps = signalFilter.applyFilterAndSortByIntensity(ms2, precursorMz, minDP);
-    return dps != null ? new FilteredRowData(row, dps) : null;
+    return dps != null ? FilteredRowData.of(row, dps, Weights.SQRT) : null;
   }
 
 
+  /**
+   * Same as {@link #createMS2SimModificationAware(MZTolerance, DataPoint[], DataPoint[], double,
+   * Function, double, double)} with {@link #SIZE_OVERLAP} on the prepared spectra
+   */
   private @Nullable SpectralSimilarity calcSpectralSimilarity(final FeatureListRow a,
-      final FeatureListRow b, final DataPoint[] sortedA, final DataPoint[] sortedB) {
-    return createMS2SimModificationAware(mzTolerance, sortedA, sortedB, minMatch, SIZE_OVERLAP,
-        a.getAverageMZ(), b.getAverageMZ());
+      final FeatureListRow b, final WeightedSpectrum spectrumA, final WeightedSpectrum spectrumB) {
+    return VectorizedWeightedCosineSpectralSimilarity.getModifiedCosine(mzTolerance, minMatch,
+        spectrumA, spectrumB, a.getAverageMZ(), b.getAverageMZ());
   }
 
   @Override
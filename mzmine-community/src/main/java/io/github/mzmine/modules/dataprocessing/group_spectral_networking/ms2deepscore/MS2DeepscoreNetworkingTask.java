@@ -44,6 +44,8 @@ import io.github.mzmine.taskcontrol.AbstractFeatureListTask;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.exceptions.MissingMassListException;
 import io.github.mzmine.util.scans.FragmentScanSelection;
+import io.github.mzmine.util.scans.similarity.impl.ms2deepscore.HnswEmbeddingIndex;
+import io.github.mzmine.util.scans.similarity.impl.ms2deepscore.HnswEmbeddingIndex.Neighbor;
 import io.github.mzmine.util.scans.similarity.impl.ms2deepscore.MS2DeepscoreModel;
 import java.io.File;
 import java.io.IOException;
@@ -52,6 +54,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -132,16 +135,16 @@ public class MS2DeepscoreNetworkingTask extends AbstractFeatureListTask {
       }
     }
 
-    float[][] similarityMatrix;
+    final HnswEmbeddingIndex embeddingIndex;
     try {
-      similarityMatrix = model.predictMatrixSymmetric(scanList);
+      embeddingIndex = model.predictEmbeddingIndex(scanList);
     } catch (TranslateException e) {
       throw new RuntimeException(e);
     }
     description = "Calculate MS2Deepscore similarity";
-//    Convert the similarity matrix to a R2RMap
-    R2RMap<R2RSimpleSimilarity> relationsMap = convertMatrixToR2RMap(featureListRows,
-        similarityMatrix, minScore, Type.MS2Deepscore);
+    // search all neighbors above min score in the index
+    R2RMap<R2RSimpleSimilarity> relationsMap = convertIndexToR2RMap(featureListRows,
+        embeddingIndex, 0, minScore, minScore, Type.MS2Deepscore);
     R2RNetworkingMaps rowMaps = featureList.getRowMaps();
     rowMaps.addAllRowsRelationships(relationsMap, Type.MS2Deepscore);
     // stats are currently only available for modified cosine
@@ -172,6 +175,33 @@ public class MS2DeepscoreNetworkingTask extends AbstractFeatureListTask {
     return null;
   }
 
+  /**
+   * Searches the neighbors of each row in the embedding index. Memory scales with the number of
+   * rows and retained edges instead of the squared number of rows of a similarity matrix.
+   *
+   * @param featureListRows rows in the same order as the indexed embeddings
+   * @param minNeighbors    the number of nearest neighbors that is retained for each row
+   * @param retainAbove     neighbors with a higher similarity are retained in addition
+   * @param minScore        edges need a higher similarity than minScore
+   * @return map of all undirected edges
+   */
+  public static R2RMap<R2RSimpleSimilarity> convertIndexToR2RMap(
+      List<FeatureListRow> featureListRows, HnswEmbeddingIndex index, int minNeighbors,
+      double retainAbove, double minScore, RowsRelationship.Type rowsRelationshipType) {
+    final R2RMap<R2RSimpleSimilarity> relationsMap = new R2RMap<>();
+    IntStream.range(0, featureListRows.size()).parallel().forEach(i -> {
+      for (Neighbor neighbor : index.searchNeighbors(i, minNeighbors, retainAbove)) {
+        if (neighbor.similarity() > minScore) {
+          final FeatureListRow a = featureListRows.get(i);
+          final FeatureListRow b = featureListRows.get(neighbor.index());
+          relationsMap.add(a, b,
+              new R2RSimpleSimilarity(a, b, rowsRelationshipType, neighbor.similarity()));
+        }
+      }
+    });
+    return relationsMap;
+  }
+
   public static R2RMap<R2RSimpleSimilarity> convertMatrixToR2RMap(
       List<FeatureListRow> featureListRow, float[][] similarityMatrix, double minScore,
       RowsRelationship.Type rowsRelationshipType) {
@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.id_formulapredictionfeaturelist;
+
+import com.google.common.collect.Range;
+import it.unimi.dsi.fastutil.Arrays;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.BooleanSupplier;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.openscience.cdk.formula.MolecularFormulaGenerator;
+import org.openscience.cdk.formula.MolecularFormulaRange;
+import org.openscience.cdk.interfaces.IChemObjectBuilder;
+import org.openscience.cdk.interfaces.IIsotope;
+import org.openscience.cdk.interfaces.IMolecularFormula;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+
+/**
+ * Mass sorted index of all formulas of an element range within a set of mass ranges. The formulas
+ * are enumerated once by the {@link MolecularFormulaGenerator} and stored as element counts packed
+ * into a long next to the monoisotopic mass. Lookups of mass ranges are binary searches and the
+ * index is immutable, so it can be shared by multiple threads.
+ * <p>
+ * The last index is kept in a soft reference and is reused and extended by later calls with the
+ * same element ranges.
+ */
+public final class FormulaMassIndex {
+
+  private static final Logger logger = Logger.getLogger(FormulaMassIndex.class.getName());
+
+  private static SoftReference<FormulaMassIndex> lastIndex = new SoftReference<>(null);
+
+  private final String elementsKey;
+  private final IIsotope[] isotopes;
+  private final int[] bitOffsets;
+  private final long[] bitMasks;
+  // sorted by mass
+  private final double[] masses;
+  private final long[] counts;
+  // sorted and disjoint mass ranges that were enumerated
+  private final List<Range<Double>> coveredRanges;
+
+  private FormulaMassIndex(String elementsKey, IIsotope[] isotopes, int[] bitOffsets,
+      long[] bitMasks, double[] masses, long[] counts, List<Range<Double>> coveredRanges) {
+    this.elementsKey = elementsKey;
+    this.isotopes = isotopes;
+    this.bitOffsets = bitOffsets;
+    this.bitMasks = bitMasks;
+    this.masses = masses;
+    this.counts = counts;
+    this.coveredRanges = coveredRanges;
+  }
+
+  /**
+   * Creates or reuses the index for the element ranges that covers all mass ranges.
+   *
+   * @param elements   element ranges
+   * @param massRanges mass ranges that should be covered
+   * @param isCanceled stops the enumeration
+   * @return the index or null if the element counts do not fit into a long or if canceled
+   */
+  @Nullable
+  public static synchronized FormulaMassIndex getOrCreate(@NotNull MolecularFormulaRange elements,
+      @NotNull List<Range<Double>> massRanges, @NotNull BooleanSupplier isCanceled) {
+    final List<IIsotope> isotopeList = new ArrayList<>();
+    final StringBuilder key = new StringBuilder();
+    int totalBits = 0;
+    for (IIsotope isotope : elements.isotopes()) {
+      isotopeList.add(isotope);
+      key.append(isotope.getSymbol()).append(isotope.getMassNumber()).append('_')
+          .append(isotope.getExactMass()).append('[').append(elements.getIsotopeCountMin(isotope))
+          .append('-').append(elements.getIsotopeCountMax(isotope)).append(']');
+      totalBits += bitsFor(elements.getIsotopeCountMax(isotope));
+    }
+    if (totalBits > Long.SIZE) {
+      return null;
+    }
+
+    final List<Range<Double>> required = merge(massRanges);
+    final FormulaMassIndex last = lastIndex.get();
+    final FormulaMassIndex previous =
+        last != null && last.elementsKey.contentEquals(key) ? last : null;
+    if (previous != null && previous.covers(required)) {
+      return previous;
+    }
+
+    final IIsotope[] isotopes = isotopeList.toArray(IIsotope[]::new);
+    final int[] bitOffsets = new int[isotopes.length];
+    final long[] bitMasks = new long[isotopes.length];
+    int offset = 0;
+    for (int i = 0; i < isotopes.length; i++) {
+      final int bits = bitsFor(elements.getIsotopeCountMax(isotopes[i]));
+      bitOffsets[i] = offset;
+      bitMasks[i] = bits == Long.SIZE ? -1L : (1L << bits) - 1;
+      offset += bits;
+    }
+
+    final DoubleArrayList masses = new DoubleArrayList();
+    final LongArrayList counts = new LongArrayList();
+    final List<Range<Double>> missing = previous == null ? required : previous.missing(required);
+    final IChemObjectBuilder builder = SilentChemObjectBuilder.getInstance();
+    for (Range<Double> range : missing) {
+      final MolecularFormulaGenerator generator = new MolecularFormulaGenerator(builder,
+          range.lowerEndpoint(), range.upperEndpoint(), elements);
+      IMolecularFormula formula;
+      while ((formula = generator.getNextFormula()) != null) {
+        if (isCanceled.getAsBoolean()) {
+          generator.cancel();
+          return null;
+        }
+        long code = 0;
+        double mass = 0;
+        for (int i = 0; i < isotopes.length; i++) {
+          final int count = formula.getIsotopeCount(isotopes[i]);
+          code |= (long) count << bitOffsets[i];
+          mass += count * isotopes[i].getExactMass();
+        }
+        // missing ranges may share their bounds with already covered ranges
+        if (previous == null || !previous.isCovered(mass)) {
+          masses.add(mass);
+          counts.add(code);
+        }
+      }
+    }
+
+    final List<Range<Double>> covered = new ArrayList<>(required);
+    if (previous != null) {
+      masses.addElements(masses.size(), previous.masses);
+      counts.addElements(counts.size(), previous.counts);
+      covered.addAll(previous.coveredRanges);
+    }
+
+    final double[] massArray = masses.toDoubleArray();
+    final long[] countArray = counts.toLongArray();
+    Arrays.quickSort(0, massArray.length, (a, b) -> Double.compare(massArray[a], massArray[b]),
+        (a, b) -> {
+          final double m = massArray[a];
+          massArray[a] = massArray[b];
+          massArray[b] = m;
+          final long c = countArray[a];
+          countArray[a] = countArray[b];
+          countArray[b] = c;
+        });
+
+    final FormulaMassIndex index = new FormulaMassIndex(key.toString(), isotopes, bitOffsets,
+        bitMasks, massArray, countArray, merge(covered));
+    logger.finest(() -> "Created formula mass index with %d formulas in %d mass ranges".formatted(
+        massArray.length, index.coveredRanges.size()));
+    lastIndex = new SoftReference<>(index);
+    return index;
+  }
+
+  private static int bitsFor(int maxCount) {
+    return Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(0, maxCount));
+  }
+
+  /**
+   * @return sorted list of merged overlapping ranges
+   */
+  static List<Range<Double>> merge(List<Range<Double>> ranges) {
+    final List<Range<Double>> sorted = ranges.stream().filter(Objects::nonNull)
+        .sorted(Comparator.comparingDouble(Range::lowerEndpoint)).toList();
+    final List<Range<Double>> merged = new ArrayList<>();
+    Range<Double> current = null;
+    for (Range<Double> range : sorted) {
+      if (current == null) {
+        current = range;
+      } else if (range.lowerEndpoint() <= current.upperEndpoint()) {
+        current = current.span(range);
+      } else {
+        merged.add(current);
+        current = range;
+      }
+    }
+    if (current != null) {
+      merged.add(current);
+    }
+    return merged;
+  }
+
+  private boolean isCovered(double mass) {
+    // last range with lower bound <= mass
+    int low = 0;
+    int high = coveredRanges.size() - 1;
+    int candidate = -1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      if (coveredRanges.get(mid).lowerEndpoint() <= mass) {
+        candidate = mid;
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return candidate != -1 && coveredRanges.get(candidate).upperEndpoint() >= mass;
+  }
+
+  private boolean covers(List<Range<Double>> ranges) {
+    return missing(ranges).isEmpty();
+  }
+
+  /**
+   * @param ranges sorted merged ranges
+   * @return the parts of ranges that are not covered by this index
+   */
+  private List<Range<Double>> missing(List<Range<Double>> ranges) {
+    final List<Range<Double>> missing = new ArrayList<>();
+    for (Range<Double> range : ranges) {
+      double lower = range.lowerEndpoint();
+      final double upper = range.upperEndpoint();
+      for (Range<Double> covered : coveredRanges) {
+        if (covered.upperEndpoint() < lower) {
+          continue;
+        }
+        if (covered.lowerEndpoint() > upper) {
+          break;
+        }
+        if (covered.lowerEndpoint() > lower) {
+          missing.add(Range.closed(lower, covered.lowerEndpoint()));
+        }
+        lower = covered.upperEndpoint();
+        if (lower >= upper) {
+          break;
+        }
+      }
+      if (lower < upper) {
+        missing.add(Range.closed(lower, upper));
+      }
+    }
+    return missing;
+  }
+
+  /**
+   * @return the first index with a mass >= mass
+   */
+  public int fromIndex(double mass) {
+    int low = 0;
+    int high = masses.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (masses[mid] < mass) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return the first index with a mass > mass
+   */
+  public int toIndex(double mass) {
+    int low = 0;
+    int high = masses.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (masses[mid] <= mass) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  public double getMass(int index) {
+    return masses[index];
+  }
+
+  /**
+   * @return a new formula instance for the formula at index
+   */
+  public IMolecularFormula getFormula(int index, IChemObjectBuilder builder) {
+    final long code = counts[index];
+    final IMolecularFormula formula = builder.newInstance(IMolecularFormula.class);
+    for (int i = 0; i < isotopes.length; i++) {
+      final int count = (int) ((code >>> bitOffsets[i]) & bitMasks[i]);
+      if (count > 0) {
+        formula.addIsotope(isotopes[i], count);
+      }
+    }
+    return formula;
+  }
+
+  public int getNumberOfFormulas() {
+    return masses.length;
+  }
+}
@@ -56,6 +56,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.openscience.cdk.formula.MolecularFormulaGenerator;
@@ -88,8 +89,8 @@ public class FormulaPredictionFeatureListTask extends AbstractTask {
   private float sortIsotopeFactor;
   private MolecularFormulaGenerator generator;
   private String message;
-  private int totalRows, finishedRows;
-  private List<ResultFormula> resultingFormulas;
+  private final AtomicInteger finishedRows = new AtomicInteger(0);
+  private int totalRows;
   private Range<Double> rdbeRange;
   private Boolean rdbeIsInteger;
   private Boolean checkHCRatio;
@@ -184,7 +185,7 @@ public class FormulaPredictionFeatureListTask extends AbstractTask {
     if (totalRows == 0) {
       return 0.0;
     }
-    return (double) finishedRows / (double) totalRows;
+    return (double) finishedRows.get() / (double) totalRows;
   }
 
   @Override
@@ -202,60 +203,54 @@ public class FormulaPredictionFeatureListTask extends AbstractTask {
     featureList.addRowType(DataTypes.get(
         io.github.mzmine.datamodel.features.types.annotations.formula.FormulaListType.class));
 
-    for (FeatureListRow row : featureList.getRows()) {
+    // rows with identities are skipped
+    final List<FeatureListRow> rows = featureList.getRows().stream()
+        .filter(row -> row.getPeakIdentities().isEmpty()).toList();
+    finishedRows.set(totalRows - rows.size());
 
-      if (row.getPeakIdentities().size() > 0) {
-        continue;
-      }
-      this.resultingFormulas = new ArrayList<>();
-
-      double searchedMass =
-          (row.getAverageMZ() - ionType.getAddedMass()) * Math.abs(ionType.getCharge());
-
-      message = "Formula prediction for " + MZmineCore.getConfiguration().getMZFormat()
-          .format(searchedMass);
-
-      Range<Double> massRange = mzTolerance.getToleranceRange(searchedMass);
-
-      IChemObjectBuilder builder = SilentChemObjectBuilder.getInstance();
-      generator = new MolecularFormulaGenerator(builder, massRange.lowerEndpoint(),
-          massRange.upperEndpoint(), elementCounts);
-
-      IMolecularFormula cdkFormula;
+    // enumerate the formulas once for all rows
+    message = "Formula prediction: Creating formula index for " + rows.size() + " rows";
+    final List<Range<Double>> massRanges = rows.stream()
+        .map(row -> mzTolerance.getToleranceRange(getSearchedMass(row))).toList();
+    final FormulaMassIndex index = FormulaMassIndex.getOrCreate(elementCounts, massRanges,
+        this::isCanceled);
 
-      // create a map to store ResultFormula and relative mass deviation
-      // for sorting
-      while ((cdkFormula = generator.getNextFormula()) != null) {
-        // Mass is ok, so test other constraints
-        ResultFormula molf = checkConstraints(cdkFormula, row, searchedMass);
+    if (isCanceled()) {
+      return;
+    }
 
-        if (isCanceled() || getStatus().equals(TaskStatus.ERROR)) {
+    if (index != null) {
+      message = "Formula prediction for " + rows.size() + " rows";
+      final IChemObjectBuilder builder = SilentChemObjectBuilder.getInstance();
+      rows.parallelStream().forEach(row -> {
+        if (isCanceled()) {
           return;
         }
-
-        if (molf != null) {
-          resultingFormulas.add(molf);
+        final double searchedMass = getSearchedMass(row);
+        final Range<Double> massRange = mzTolerance.getToleranceRange(searchedMass);
+        final List<ResultFormula> resultingFormulas = new ArrayList<>();
+        final int to = index.toIndex(massRange.upperEndpoint());
+        for (int i = index.fromIndex(massRange.lowerEndpoint()); i < to; i++) {
+          // Mass is ok, so test other constraints
+          ResultFormula molf = checkConstraints(index.getFormula(i, builder), row, searchedMass);
+          if (isCanceled()) {
+            return;
+          }
+          if (molf != null) {
+            resultingFormulas.add(molf);
+          }
         }
+        setTopFormulas(row, resultingFormulas);
+        finishedRows.incrementAndGet();
+      });
+    } else {
+      // element counts too large for the index
+      for (FeatureListRow row : rows) {
+        if (!predictFormulasWithGenerator(row)) {
+          return;
+        }
+        finishedRows.incrementAndGet();
       }
-
-      if (isCanceled()) {
-        return;
-      }
-
-      // Add the new formula entry top results
-      if (!resultingFormulas.isEmpty()) {
-        FormulaUtils.sortFormulaList(resultingFormulas, sortPPMFactor, sortIsotopeFactor,
-            sortMSMSFactor);
-        // do not set sublist directly as this will keep the original full list
-        var topNFormulas = new ArrayList<>(resultingFormulas.subList(0,
-            Math.min(resultingFormulas.size(), maxBestFormulasPerFeature)));
-        row.setFormulas(topNFormulas);
-      }
-
-      if (isCanceled()) {
-        return;
-      }
-      finishedRows++;
     }
 
     if (isCanceled()) {
@@ -272,6 +267,68 @@ public class FormulaPredictionFeatureListTask extends AbstractTask {
 
   }
 
+  private double getSearchedMass(FeatureListRow row) {
+    return (row.getAverageMZ() - ionType.getAddedMass()) * Math.abs(ionType.getCharge());
+  }
+
+  /**
+   * Enumerates the formulas for a single row
+   *
+   * @return false if canceled
+   */
+  private boolean predictFormulasWithGenerator(FeatureListRow row) {
+    final List<ResultFormula> resultingFormulas = new ArrayList<>();
+
+    double searchedMass = getSearchedMass(row);
+
+    message = "Formula prediction for " + MZmineCore.getConfiguration().getMZFormat()
+        .format(searchedMass);
+
+    Range<Double> massRange = mzTolerance.getToleranceRange(searchedMass);
+
+    IChemObjectBuilder builder = SilentChemObjectBuilder.getInstance();
+    generator = new MolecularFormulaGenerator(builder, massRange.lowerEndpoint(),
+        massRange.upperEndpoint(), elementCounts);
+
+    IMolecularFormula cdkFormula;
+
+    // create a map to store ResultFormula and relative mass deviation
+    // for sorting
+    while ((cdkFormula = generator.getNextFormula()) != null) {
+      // Mass is ok, so test other constraints
+      ResultFormula molf = checkConstraints(cdkFormula, row, searchedMass);
+
+      if (isCanceled() || getStatus().equals(TaskStatus.ERROR)) {
+        return false;
+      }
+
+      if (molf != null) {
+        resultingFormulas.add(molf);
+      }
+    }
+
+    if (isCanceled()) {
+      return false;
+    }
+
+    setTopFormulas(row, resultingFormulas);
+    return !isCanceled();
+  }
+
+  /**
+   * Add the new formula entry top results
+   */
+  private void setTopFormulas(FeatureListRow row, List<ResultFormula> resultingFormulas) {
+    if (!resultingFormulas.isEmpty()) {
+      FormulaUtils.sortFormulaList(resultingFormulas, sortPPMFactor, sortIsotopeFactor,
+          sortMSMSFactor);
+      // do not set sublist directly as this will keep the original full list
+      var topNFormulas = new ArrayList<>(resultingFormulas.subList(0,
+          Math.min(resultingFormulas.size(), maxBestFormulasPerFeature)));
+      row.setFormulas(topNFormulas);
+    }
+  }
+
   /**
    * @param cdkFormula
    * @return null if molecular formula does not match requirements
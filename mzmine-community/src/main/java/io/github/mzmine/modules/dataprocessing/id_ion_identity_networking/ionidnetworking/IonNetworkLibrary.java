@@ -31,6 +31,7 @@ import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.features.Feature;
 import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.correlation.RowGroup;
 import io.github.mzmine.datamodel.identities.iontype.IonIdentity;
 import io.github.mzmine.datamodel.identities.iontype.IonModification;
 import io.github.mzmine.datamodel.identities.iontype.IonModificationType;
@@ -38,8 +39,14 @@ import io.github.mzmine.datamodel.identities.iontype.IonNetwork;
 import io.github.mzmine.datamodel.identities.iontype.IonType;
 import io.github.mzmine.parameters.parametertypes.ionidentity.IonLibraryParameterSet;
 import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.collections.BinarySearch;
+import io.github.mzmine.util.collections.BinarySearch.DefaultTo;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -57,11 +64,19 @@ public class IonNetworkLibrary {
     }
   }
 
+  /**
+   * Candidate rows are searched in a slightly larger m/z range, the exact check is done on the
+   * candidates
+   */
+  private static final double CANDIDATE_MZ_MARGIN = 1E-6;
+
   private MZTolerance mzTolerance;
   // adducts
   private final IonModification[] selectedAdducts;
   private final IonModification[] selectedMods;
   private final List<IonType> allAdducts = new ArrayList<>();
+  // all combinations of allAdducts that pass the checks independent of the rows
+  private final List<IonTypePair> ionTypePairs = new ArrayList<>();
   private final PolarityType polarity;
   private final int maxCharge;
   private final int maxMolecules;
@@ -134,6 +149,31 @@ public class IonNetworkLibrary {
     for (IonType a : allAdducts) {
       LOG.finest("Adding modification: " + a.toString());
     }
+    createIonTypePairs();
+  }
+
+  /**
+   * Precomputes all combinations of ion types in the order of the nested loops over
+   * {@link #allAdducts}. Only the charge states and m/z values of the rows are checked later.
+   */
+  private void createIonTypePairs() {
+    ionTypePairs.clear();
+    for (IonType adduct : allAdducts) {
+      for (IonType adduct2 : allAdducts) {
+        if (adduct.equals(adduct2)) {
+          continue;
+        }
+
+        // do not check if MOL = MOL and MOL>1
+        // only one can be modified
+        if (checkMolCount(adduct, adduct2) //
+            && checkMaxMod(adduct, adduct2) //
+            && checkMultiChargeDifference(adduct, adduct2) //
+            && checkSameAdducts(adduct, adduct2)) {
+          ionTypePairs.add(new IonTypePair(adduct, adduct2));
+        }
+      }
+    }
   }
 
   /**
@@ -160,45 +200,151 @@ public class IonNetworkLibrary {
     z2 = Math.abs(z2);
     List<IonIdentity[]> list = new ArrayList<>();
     // check all combinations of adducts
-    for (IonType adduct : allAdducts) {
-      for (IonType adduct2 : allAdducts) {
-        if (adduct.equals(adduct2)) {
+    for (IonTypePair pair : ionTypePairs) {
+      // check charge state if absCharge is not -1 or 0 (no charge detected)
+      // checks each raw file - only true if all m/z are in range
+      if (checkChargeStates(pair.a(), pair.b(), z1, z2) //
+          && checkAdduct(featureList, row1, row2, pair.a(), pair.b(), mode, minHeight)) {
+        list.add(addIdentity(row1, row2, pair.a(), pair.b()));
+      }
+    }
+    // no adduct to be found
+    return list;
+  }
+
+  /**
+   * Finds all adducts between the correlated rows of a group, with the same results as calling
+   * {@link #findAdducts(FeatureList, FeatureListRow, FeatureListRow, CheckMode, double)} for all
+   * row pairs i < k. Instead of testing all ion type pairs for all row pairs, the m/z range of the
+   * second row is calculated for each first row and ion type pair from the neutral mass. Only rows
+   * within this range in the m/z sorted group are checked.
+   *
+   * @param compared counts the compared row pairs
+   * @return the number of row pairs with at least one adduct
+   */
+  public long findAdducts(final FeatureList featureList, final RowGroup group,
+      final CheckMode mode, final double minHeight, final AtomicInteger compared) {
+    final int size = group.size();
+    // the m/z range of all features that are compared in the check mode
+    final double[] lowerMzs = new double[size];
+    final double[] upperMzs = new double[size];
+    final int[] charges = new int[size];
+    final int[] mzOrder = new int[size];
+    int numRows = 0;
+    double maxWidth = 0;
+    for (int i = 0; i < size; i++) {
+      final FeatureListRow row = group.get(i);
+      charges[i] = Math.abs(row.getRowCharge());
+      if (mode == CheckMode.AVGERAGE) {
+        lowerMzs[i] = upperMzs[i] = row.getAverageMZ();
+      } else {
+        lowerMzs[i] = Double.POSITIVE_INFINITY;
+        upperMzs[i] = Double.NEGATIVE_INFINITY;
+        for (RawDataFile raw : featureList.getRawDataFiles()) {
+          final Feature f = row.getFeature(raw);
+          if (f != null && f.getHeight() >= minHeight) {
+            lowerMzs[i] = Math.min(lowerMzs[i], f.getMZ());
+            upperMzs[i] = Math.max(upperMzs[i], f.getMZ());
+          }
+        }
+        if (lowerMzs[i] > upperMzs[i]) {
+          continue; // no feature to compare
+        }
+      }
+      maxWidth = Math.max(maxWidth, upperMzs[i] - lowerMzs[i]);
+      mzOrder[numRows++] = i;
+    }
+    IntArrays.quickSort(mzOrder, 0, numRows,
+        (i, k) -> Double.compare(lowerMzs[i], lowerMzs[k]));
+    final double[] sortedLowerMzs = new double[numRows];
+    for (int j = 0; j < numRows; j++) {
+      sortedLowerMzs[j] = lowerMzs[mzOrder[j]];
+    }
+
+    long annotations = 0;
+    // candidates of row i as (k << 32 | pair index) to keep the order of row k and ion type pairs
+    final LongArrayList candidates = new LongArrayList();
+    for (int i = 0; i < size - 1; i++) {
+      if (lowerMzs[i] > upperMzs[i]) {
+        continue;
+      }
+      candidates.clear();
+      for (int p = 0; p < ionTypePairs.size(); p++) {
+        final IonType adduct = ionTypePairs.get(p).a();
+        final IonType adduct2 = ionTypePairs.get(p).b();
+        if (charges[i] != 0 && adduct.getAbsCharge() != charges[i]) {
           continue;
         }
+        // neutral mass range of row i, the tolerance is based on this mass
+        final double lowerMass = adduct.getMass(lowerMzs[i]);
+        final double upperMass = adduct.getMass(upperMzs[i]);
+        final double tolerance = mzTolerance.getMzToleranceForMass(
+            Math.max(Math.abs(lowerMass), Math.abs(upperMass)));
+        // m/z range of the second row with margin for rounding errors
+        final double minMz = adduct2.getMZ(lowerMass - tolerance) - CANDIDATE_MZ_MARGIN;
+        final double maxMz = adduct2.getMZ(upperMass + tolerance) + CANDIDATE_MZ_MARGIN;
+
+        final double minLowerMz = minMz - maxWidth;
+        int j = BinarySearch.binarySearch(sortedLowerMzs, minLowerMz, DefaultTo.GREATER_EQUALS);
+        if (j == -1) {
+          continue;
+        }
+        // exact matches may point to any of multiple equal values
+        while (j > 0 && sortedLowerMzs[j - 1] >= minLowerMz) {
+          j--;
+        }
+        for (; j < numRows && sortedLowerMzs[j] <= maxMz; j++) {
+          final int k = mzOrder[j];
+          if (k > i && upperMzs[k] >= minMz) {
+            candidates.add(((long) k << 32) | p);
+          }
+        }
+      }
+      LongArrays.quickSort(candidates.elements(), 0, candidates.size());
 
-        // do not check if MOL = MOL and MOL>1
-        // only one can be modified
-        // check charge state if absCharge is not -1 or 0 (no charge detected)
-        if (checkMolCount(adduct, adduct2) //
-            && checkMaxMod(adduct, adduct2) //
-            && checkChargeStates(adduct, adduct2, z1, z2) //
-            && checkMultiChargeDifference(adduct, adduct2) //
-            && checkSameAdducts(adduct, adduct2)) {
-          // checks each raw file - only true if all m/z are in range
-          if (checkAdduct(featureList, row1, row2, adduct, adduct2, mode, minHeight)) {
-            // is a2 a modification of a1? (same adducts - different mods
-            if (adduct2.isModificationOf(adduct)) {
-              IonType mod = adduct2.subtractMods(adduct);
-              IonType undefined = new IonType(
-                  IonModification.getUndefinedforCharge(adduct.getCharge()));
-              list.add(IonIdentity.addAdductIdentityToRow(mzTolerance, row1, undefined, row1, mod));
-            } else if (adduct.isModificationOf(adduct2)) {
-              IonType mod = adduct.subtractMods(adduct2);
-              IonType undefined = new IonType(
-                  IonModification.getUndefinedforCharge(adduct2.getCharge()));
-              list.add(IonIdentity.addAdductIdentityToRow(mzTolerance, row1, mod, row2, undefined));
-            } else {
-              // Add adduct identity and notify GUI.
-              // only if not already present
-              list.add(
-                  IonIdentity.addAdductIdentityToRow(mzTolerance, row1, adduct, row2, adduct2));
-            }
+      for (int c = 0; c < candidates.size(); ) {
+        final int k = (int) (candidates.getLong(c) >>> 32);
+        final boolean correlated = group.isCorrelated(i, k);
+        if (correlated) {
+          compared.incrementAndGet();
+        }
+        boolean found = false;
+        for (; c < candidates.size() && (int) (candidates.getLong(c) >>> 32) == k; c++) {
+          if (!correlated) {
+            continue;
+          }
+          final IonTypePair pair = ionTypePairs.get((int) candidates.getLong(c));
+          if (checkChargeStates(pair.a(), pair.b(), charges[i], charges[k]) //
+              && checkAdduct(featureList, group.get(i), group.get(k), pair.a(), pair.b(), mode,
+              minHeight)) {
+            addIdentity(group.get(i), group.get(k), pair.a(), pair.b());
+            found = true;
           }
         }
+        if (found) {
+          annotations++;
+        }
       }
     }
-    // no adduct to be found
-    return list;
+    return annotations;
+  }
+
+  private IonIdentity[] addIdentity(final FeatureListRow row1, final FeatureListRow row2,
+      final IonType adduct, final IonType adduct2) {
+    // is a2 a modification of a1? (same adducts - different mods
+    if (adduct2.isModificationOf(adduct)) {
+      IonType mod = adduct2.subtractMods(adduct);
+      IonType undefined = new IonType(IonModification.getUndefinedforCharge(adduct.getCharge()));
+      return IonIdentity.addAdductIdentityToRow(mzTolerance, row1, undefined, row1, mod);
+    } else if (adduct.isModificationOf(adduct2)) {
+      IonType mod = adduct.subtractMods(adduct2);
+      IonType undefined = new IonType(IonModification.getUndefinedforCharge(adduct2.getCharge()));
+      return IonIdentity.addAdductIdentityToRow(mzTolerance, row1, mod, row2, undefined);
+    } else {
+      // Add adduct identity and notify GUI.
+      // only if not already present
+      return IonIdentity.addAdductIdentityToRow(mzTolerance, row1, adduct, row2, adduct2);
+    }
   }
 
 
@@ -419,4 +565,12 @@ public class IonNetworkLibrary {
     return maxCharge;
   }
 
+  /**
+   * @param a ion type of the first row
+   * @param b ion type of the second row
+   */
+  private record IonTypePair(IonType a, IonType b) {
+
+  }
+
 }
@@ -33,7 +33,6 @@ import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.features.SimpleFeatureListAppliedMethod;
 import io.github.mzmine.datamodel.features.correlation.RowGroup;
 import io.github.mzmine.datamodel.features.types.annotations.iin.IonIdentityListType;
-import io.github.mzmine.datamodel.identities.iontype.IonIdentity;
 import io.github.mzmine.datamodel.identities.iontype.IonNetworkLogic;
 import io.github.mzmine.modules.dataprocessing.group_metacorrelate.corrgrouping.CorrelateGroupingModule;
 import io.github.mzmine.modules.dataprocessing.id_ion_identity_networking.ionidnetworking.IonNetworkLibrary.CheckMode;
@@ -196,24 +195,8 @@ public class IonNetworkingTask extends AbstractTask {
    * @param compared
    */
   private long annotateGroup(RowGroup g, AtomicInteger compared) {
-    long annotations = 0;
-    for (int i = 0; i < g.size() - 1; i++) {
-      // check against existing networks
-      for (int k = i + 1; k < g.size(); k++) {
-        // only if row i and k are correlated
-        if (g.isCorrelated(i, k)) {
-          compared.incrementAndGet();
-          // check for adducts in library
-          List<IonIdentity[]> id = library.findAdducts(featureList, g.get(i), g.get(k),
-              adductCheckMode, minHeight);
-          if (!id.isEmpty()) {
-            annotations++;
-          }
-        }
-      }
-      // finished.incrementAndGet();
-    }
-    return annotations;
+    // only correlated rows with matching neutral masses are checked for adducts in library
+    return library.findAdducts(featureList, g, adductCheckMode, minHeight, compared);
   }
 
 
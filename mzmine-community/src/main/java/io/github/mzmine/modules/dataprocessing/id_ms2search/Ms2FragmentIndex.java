@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.id_ms2search;
+
+import io.github.mzmine.datamodel.DataPoint;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Fragment ions of all rows of a feature list in one array sorted by m/z. Counts the ion pairs
+ * that would match in {@link Ms2SearchTask} for all rows at once, so that only rows with enough
+ * matched ions need to be scored.
+ */
+final class Ms2FragmentIndex {
+
+  private final double[] mzs;
+  private final int[] rows;
+
+  /**
+   * @param ions the fragment ions of each row, null or empty for rows without MS2
+   */
+  Ms2FragmentIndex(@Nullable DataPoint[][] ions) {
+    int numIons = 0;
+    for (DataPoint[] rowIons : ions) {
+      numIons += rowIons == null ? 0 : rowIons.length;
+    }
+
+    final double[] unsortedMzs = new double[numIons];
+    final int[] unsortedRows = new int[numIons];
+    int n = 0;
+    for (int row = 0; row < ions.length; row++) {
+      if (ions[row] == null) {
+        continue;
+      }
+      for (DataPoint ion : ions[row]) {
+        unsortedMzs[n] = ion.getMZ();
+        unsortedRows[n] = row;
+        n++;
+      }
+    }
+
+    final int[] order = new int[numIons];
+    for (int i = 0; i < numIons; i++) {
+      order[i] = i;
+    }
+    IntArrays.mergeSort(order, (a, b) -> Double.compare(unsortedMzs[a], unsortedMzs[b]));
+
+    mzs = new double[numIons];
+    rows = new int[numIons];
+    for (int i = 0; i < numIons; i++) {
+      mzs[i] = unsortedMzs[order[i]];
+      rows[i] = unsortedRows[order[i]];
+    }
+  }
+
+  /**
+   * Counts the ion pairs within the ppm tolerance with the same condition as the score in
+   * {@link Ms2SearchTask}. The score never matches more ions of a row than counted here.
+   *
+   * @param ions   the query ions
+   * @param counts the number of matched ion pairs by row
+   */
+  void countMatches(DataPoint[] ions, double ppmTolerance, Int2IntOpenHashMap counts) {
+    for (DataPoint ion : ions) {
+      final double mz = ion.getMZ();
+      final double tolerance = mz * 1e-6 * ppmTolerance;
+      // search a wider window and apply the exact condition below
+      final double upper = mz + 2 * tolerance;
+      for (int i = lowerBound(mz - 2 * tolerance); i < mzs.length && mzs[i] <= upper; i++) {
+        if (Math.abs(mz - mzs[i]) < tolerance) {
+          counts.addTo(rows[i], 1);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return the first index with a m/z >= mz
+   */
+  private int lowerBound(double mz) {
+    int low = 0;
+    int high = mzs.length;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (mzs[mid] < mz) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  int getNumberOfIons() {
+    return mzs.length;
+  }
+}
@@ -37,18 +37,24 @@ import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
 import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.TaskStatus;
+import it.unimi.dsi.fastutil.ints.Int2IntMap.Entry;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
+import java.util.stream.IntStream;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 
 class Ms2SearchTask extends AbstractTask {
 
   private static final Logger logger = Logger.getLogger(Ms2SearchTask.class.getName());
 
-  private int finishedRows, totalRows;
+  private final AtomicInteger finishedRows = new AtomicInteger(0);
+  private int totalRows;
   private FeatureList peakList1;
   private FeatureList peakList2;
 
@@ -86,7 +92,7 @@ class Ms2SearchTask extends AbstractTask {
     if (totalRows == 0) {
       return 0;
     }
-    return ((double) finishedRows) / totalRows;
+    return ((double) finishedRows.get()) / totalRows;
   }
 
   /**
@@ -108,7 +114,6 @@ class Ms2SearchTask extends AbstractTask {
     logger.info("Starting MS2 similarity search between " + peakList1 + " and " + peakList2
         + " with mz tolerance:" + mzTolerance.getPpmTolerance());
 
-    Ms2SearchResult searchResult;
     FeatureListRow rows1[] = peakList1.getRows().toArray(FeatureListRow[]::new);
     FeatureListRow rows2[] = peakList2.getRows().toArray(FeatureListRow[]::new);
 
@@ -117,30 +122,55 @@ class Ms2SearchTask extends AbstractTask {
 
     totalRows = rows1Length;
 
-    for (int i = 0; i < rows1Length; i++) {
-      for (int j = 0; j < rows2Length; j++) {
-        Feature featureA = rows1[i].getBestFeature();
-        Feature featureB = rows2[j].getBestFeature();
-        // Complication. The "best" peak, may not have the "best"
-        // fragmentation
-        Scan scanA = rows1[i].getMostIntenseFragmentScan();
-        Scan scanB = rows2[j].getMostIntenseFragmentScan();
+    // Complication. The "best" peak, may not have the "best"
+    // fragmentation
+    final DataPoint[][] ions1 = getFragmentIons(rows1);
+    final DataPoint[][] ions2 = getFragmentIons(rows2);
+    if (ions1 == null || ions2 == null) {
+      return;
+    }
+
+    // only pairs with enough matched ions can be reported, except for negative thresholds
+    final boolean scoreAllPairs = minimumIonsMatched <= 0 && scoreThreshold < 0;
+    final int minIndexedMatches = Math.max(1, minimumIonsMatched);
+    final Ms2FragmentIndex index = new Ms2FragmentIndex(ions2);
+    final double ppmTolerance = mzTolerance.getPpmTolerance();
 
-        searchResult = simpleMS2similarity(scanA, scanB, intensityThreshold, mzTolerance);
+    IntStream.range(0, rows1Length).parallel().forEach(i -> {
+      if (isCanceled() || ions1[i] == null) {
+        finishedRows.incrementAndGet();
+        return;
+      }
+
+      final int[] candidates;
+      if (scoreAllPairs) {
+        candidates = IntStream.range(0, rows2Length).filter(j -> ions2[j] != null).toArray();
+      } else {
+        final Int2IntOpenHashMap matches = new Int2IntOpenHashMap();
+        index.countMatches(ions1[i], ppmTolerance, matches);
+        candidates = matches.int2IntEntrySet().stream()
+            .filter(e -> e.getIntValue() >= minIndexedMatches).mapToInt(Entry::getIntKey).sorted()
+            .toArray();
+      }
+
+      // same order of identities as comparing all rows
+      final Feature featureA = rows1[i].getBestFeature();
+      for (int j : candidates) {
+        Ms2SearchResult searchResult = simpleMS2similarity(ions1[i], ions2[j], ppmTolerance);
 
         // Report the final score to the peaklist identity
-        if (searchResult != null && searchResult.getScore() > scoreThreshold
+        if (searchResult.getScore() > scoreThreshold
             && searchResult.getNumIonsMatched() >= minimumIonsMatched) {
-          this.addMS2Identity(rows1[i], featureA, featureB, searchResult);
-        }
-
-        if (isCanceled()) {
-          return;
+          this.addMS2Identity(rows1[i], featureA, rows2[j].getBestFeature(), searchResult);
         }
       }
 
       // Update progress bar
-      finishedRows++;
+      finishedRows.incrementAndGet();
+    });
+
+    if (isCanceled()) {
+      return;
     }
 
     // Add task description to peakList
@@ -154,61 +184,41 @@ class Ms2SearchTask extends AbstractTask {
 
   }
 
-  private Ms2SearchResult simpleMS2similarity(Scan scanMS2A, Scan scanMS2B,
-      double intensityThreshold, MZTolerance mzRange) {
-
-    double runningScoreTotal = 0.0;
-    double mzRangePPM = mzRange.getPpmTolerance();
-
-    List<DataPoint> matchedIons = new ArrayList<DataPoint>();
-
-    // Fetch 1st feature MS2 scan.
-    // int ms2ScanNumberA = featureA.getMostIntenseFragmentScanNumber();
-    // Scan scanMS2A = featureA.getDataFile().getScan(ms2ScanNumberA);
-
-    // Fetch 2nd feature MS2 scan.
-    // int ms2ScanNumberB = featureB.getMostIntenseFragmentScanNumber();
-    // Scan scanMS2B = featureB.getDataFile().getScan(ms2ScanNumberB);
-
-    if (scanMS2A == null || scanMS2B == null) {
-      return null;
-    }
+  /**
+   * @return the mass list data points of the most intense fragment scan of each row. Null for rows
+   * without MS2 or an empty mass list. Null and sets an error if a mass list is missing.
+   */
+  private @Nullable DataPoint[][] getFragmentIons(FeatureListRow[] rows) {
+    final DataPoint[][] ions = new DataPoint[rows.length][];
+    for (int i = 0; i < rows.length; i++) {
+      final Scan scan = rows[i].getMostIntenseFragmentScan();
+      if (scan == null) {
+        continue;
+      }
 
-    // Fetch centroided data
-    MassList massListA = scanMS2A.getMassList();
-    MassList massListB = scanMS2B.getMassList();
-
-    if (massListA == null) {
-      // Will this work properly? As this function isn't directly the
-      // task?
-      setStatus(TaskStatus.ERROR);
-      setErrorMessage("Scan " + scanMS2A.getDataFile().getName() + " #" + scanMS2A.getScanNumber()
-          + " does not have a mass list");
-      return null;
-    }
+      // Fetch centroided data
+      final MassList massList = scan.getMassList();
+      if (massList == null) {
+        setStatus(TaskStatus.ERROR);
+        setErrorMessage("Scan " + scan.getDataFile().getName() + " #" + scan.getScanNumber()
+            + " does not have a mass list");
+        return null;
+      }
 
-    if (massListB == null) {
-      // Will this work properly? As this function isn't directly the
-      // task?
-      setStatus(TaskStatus.ERROR);
-      setErrorMessage("Scan " + scanMS2B.getDataFile().getName() + " #" + scanMS2B.getScanNumber()
-          + " does not have a mass list");
-      return null;
+      final DataPoint[] dataPoints = massList.getDataPoints();
+      if (dataPoints != null && dataPoints.length > 0) {
+        ions[i] = dataPoints;
+      }
     }
+    return ions;
+  }
 
-    DataPoint[] ionsA = null;
-    DataPoint[] ionsB = null;
+  private Ms2SearchResult simpleMS2similarity(DataPoint[] ionsA, DataPoint[] ionsB,
+      double mzRangePPM) {
 
-    ionsA = massListA.getDataPoints();
-    ionsB = massListB.getDataPoints();
+    double runningScoreTotal = 0.0;
 
-    if (ionsA == null || ionsB == null || ionsA.length == 0 || ionsB.length == 0) {
-      // Fall back to profile data?
-      // Profile / raw data.
-      // ionsA = scanMS2A.getDataPointsOverIntensity(intensityThreshold);
-      // ionsB = scanMS2B.getDataPointsOverIntensity(intensityThreshold);
-      return null;
-    }
+    List<DataPoint> matchedIons = new ArrayList<DataPoint>();
 
     // Compare every ion peak in MS2 scan A, to every ion peak in MS2 scan
     // B.
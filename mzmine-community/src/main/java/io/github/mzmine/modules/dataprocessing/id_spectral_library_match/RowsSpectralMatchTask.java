@@ -52,17 +52,23 @@ import io.github.mzmine.parameters.parametertypes.tolerances.RTTolerance;
 import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.util.RIRecord;
 import io.github.mzmine.util.collections.BinarySearch;
+import io.github.mzmine.util.collections.IndexRange;
 import io.github.mzmine.util.exceptions.MissingMassListException;
 import io.github.mzmine.util.scans.FragmentScanSelection;
 import io.github.mzmine.util.scans.ScanAlignment;
 import io.github.mzmine.util.scans.similarity.SpectralSimilarity;
 import io.github.mzmine.util.scans.similarity.SpectralSimilarityFunction;
 import io.github.mzmine.util.scans.similarity.SpectralSimilarityFunctions;
+import io.github.mzmine.util.scans.similarity.impl.composite.CompositeCosineSpectralSimilarity;
+import io.github.mzmine.util.scans.similarity.impl.cosine.VectorizedWeightedCosineSpectralSimilarity;
+import io.github.mzmine.util.scans.similarity.impl.cosine.WeightedCosineSpectralSimilarity;
+import io.github.mzmine.util.scans.similarity.impl.cosine.WeightedSpectrum;
 import io.github.mzmine.util.spectraldb.entry.DBEntryField;
 import io.github.mzmine.util.spectraldb.entry.SpectralDBAnnotation;
 import io.github.mzmine.util.spectraldb.entry.SpectralLibraryEntry;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
@@ -115,6 +121,8 @@ public class RowsSpectralMatchTask extends AbstractTask {
   // 13C, H, 2H or Cl
   private boolean needsIsotopePattern;
   private int minMatchedIsoSignals;
+  // prefilter of library entries by shared fragment signals, only for multiple rows
+  private SpectralLibraryFragmentIndex fragmentIndex;
 
   /**
    * Constructor used for matchign a single spectrum via {@link SingleSpectrumLibrarySearchModule}
@@ -324,6 +332,15 @@ public class RowsSpectralMatchTask extends AbstractTask {
 
     // run in parallel
     if (rows != null) {
+      if (useFragmentIndex()) {
+        fragmentIndex = new SpectralLibraryFragmentIndex(entries);
+        logger.fine(() -> "Created fragment index of %d library signals".formatted(
+            fragmentIndex.getNumberOfSignals()));
+        if (isCanceled()) {
+          return;
+        }
+      }
+
       description = """
           Spectral library matching of %d feature rows against %d spectral library entries""".formatted(
           rows.size(), entries.size());
@@ -347,6 +364,16 @@ public class RowsSpectralMatchTask extends AbstractTask {
     }
   }
 
+  /**
+   * The fragment index only finds entries with enough signals within the spectral m/z tolerance.
+   * This is only valid for similarity functions that require minMatch aligned signals.
+   */
+  private boolean useFragmentIndex() {
+    return minMatch > 0 && (simFunction instanceof WeightedCosineSpectralSimilarity
+        || simFunction instanceof VectorizedWeightedCosineSpectralSimilarity
+        || simFunction instanceof CompositeCosineSpectralSimilarity);
+  }
+
   private @NotNull List<SpectralLibraryEntry> getSortedSpectralLibraryEntries() {
     final List<SpectralLibraryEntry> entries = parameters.getValue(
         SpectralLibrarySearchParameters.libraries).getMatchingLibraryEntriesAndCheckAvailability();
@@ -439,16 +466,17 @@ public class RowsSpectralMatchTask extends AbstractTask {
   /**
    * Match row against all entries, add matches, sort them by score
    *
-   * @param entries combined library entries
-   * @param row     target row
+   * @param allEntries combined library entries
+   * @param row        target row
    */
-  public int matchRowToLibraries(List<SpectralLibraryEntry> entries, FeatureListRow row) {
+  public int matchRowToLibraries(List<SpectralLibraryEntry> allEntries, FeatureListRow row) {
     try {
       // filter entries first if not MS1
-      entries = binaryFindCandidateEntries(entries, row.getAverageMZ());
-      if (entries.isEmpty()) {
+      final IndexRange entryRange = binaryFindCandidateEntryRange(allEntries, row.getAverageMZ());
+      if (entryRange.isEmpty()) {
         return 0;
       }
+      final List<SpectralLibraryEntry> entries = entryRange.sublist(allEntries);
 
       // All MS2 or only best MS2 scan
       // best MS1 scan
@@ -466,25 +494,59 @@ public class RowsSpectralMatchTask extends AbstractTask {
         rowMassLists.add(rowMassList);
       }
 
+      // entries that share enough signals with each scan, relative to the entry range
+      final BitSet[] scanCandidates = findFragmentIndexCandidates(allEntries, entryRange,
+          rowMassLists);
+
+      // prepare the row spectra once for all library entries
+      final VectorizedWeightedCosineSpectralSimilarity preparedCosine = getPreparedCosine();
+      final List<WeightedSpectrum> preparedMassLists = preparedCosine == null ? null
+          : rowMassLists.stream().map(preparedCosine::prepare).toList();
+
       final Float rowCCS = row.getAverageCCS();
       List<SpectralDBAnnotation> ids = null;
       // match against all library entries
-      for (SpectralLibraryEntry ident : entries) {
+      for (int e = 0; e < entries.size(); e++) {
         if (isCanceled()) {
           return 0;
         }
+        if (scanCandidates != null && !isAnyCandidate(scanCandidates, e)) {
+          continue;
+        }
+        final SpectralLibraryEntry ident = entries.get(e);
 
         final String entryPolarity = ident.getOrElse(DBEntryField.POLARITY, null);
 
         final Float libCCS = ident.getOrElse(DBEntryField.CCS, null);
+        // prepared once for all scans of the row
+        WeightedSpectrum preparedLibrary = null;
         SpectralDBAnnotation best = null;
         // match all scans against this ident to find best match
         for (int i = 0; i < scans.size(); i++) {
+          if (scanCandidates != null && !scanCandidates[i].get(e)) {
+            // cannot reach minMatch signals
+            continue;
+          }
           final PolarityType scanPolarity = scans.get(i).getPolarity();
           if (!weakPolarityCheck(entryPolarity, scanPolarity)) {
             // check each ms2 scan individually, maybe we have grouped pos/neg rows in the future.
             continue;
           }
+          if (preparedCosine != null) {
+            if (!matchesPrefilters(row.getAverageRT(), row.getAverageRI(), row.getAverageMZ(),
+                rowCCS, ident)) {
+              break;
+            }
+            if (preparedLibrary == null) {
+              preparedLibrary = preparedCosine.prepare(filterLibrarySpectrum(ident));
+            }
+            // does not allocate for entries that do not match. Only matches are scored again below
+            // to create the aligned data points
+            if (preparedCosine.getSimilarity(mzToleranceSpectra, minMatch, preparedLibrary,
+                preparedMassLists.get(i)) == null) {
+              continue;
+            }
+          }
 
           SpectralSimilarity sim = matchSpectrum(row.getAverageRT(), row.getAverageRI(),
               row.getAverageMZ(), rowCCS, rowMassLists.get(i), ident);
@@ -522,6 +584,39 @@ public class RowsSpectralMatchTask extends AbstractTask {
     return 0;
   }
 
+  /**
+   * Uses the fragment index to find the entries within entryRange that share at least minMatch
+   * signals with each mass list.
+   *
+   * @param allEntries   all entries, need to be the same list that was indexed
+   * @param entryRange   the range of candidate entries in allEntries
+   * @param rowMassLists the query mass lists
+   * @return one set of candidates per mass list with indices relative to the entryRange or null if
+   * no fragment index is available
+   */
+  private @Nullable BitSet[] findFragmentIndexCandidates(List<SpectralLibraryEntry> allEntries,
+      IndexRange entryRange, List<DataPoint[]> rowMassLists) {
+    final SpectralLibraryFragmentIndex index = fragmentIndex;
+    if (index == null || !index.isIndexOf(allEntries)) {
+      return null;
+    }
+    final BitSet[] candidates = new BitSet[rowMassLists.size()];
+    for (int i = 0; i < candidates.length; i++) {
+      candidates[i] = index.findCandidates(rowMassLists.get(i), mzToleranceSpectra, minMatch,
+          entryRange.min(), entryRange.maxExclusive());
+    }
+    return candidates;
+  }
+
+  private static boolean isAnyCandidate(BitSet[] scanCandidates, int entry) {
+    for (BitSet candidates : scanCandidates) {
+      if (candidates.get(entry)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Does no filtering in MS1 but for all other filters by precursor mz using binary search.
    *
@@ -535,12 +630,24 @@ public class RowsSpectralMatchTask extends AbstractTask {
     if (scanPrecursorMZ == null || msLevelFilter.isMs1Only()) {
       return entries;
     }
-    var indexRange = BinarySearch.indexRange(
-        mzTolerancePrecursor.getToleranceRange(scanPrecursorMZ), entries,
-        SpectralLibraryEntry::getPrecursorMZ);
     // filter
-    entries = indexRange.sublist(entries);
-    return entries;
+    return binaryFindCandidateEntryRange(entries, scanPrecursorMZ).sublist(entries);
+  }
+
+  /**
+   * Does no filtering in MS1 but for all other filters by precursor mz using binary search.
+   *
+   * @param entries         entries sorted by precursor mz if not MS1
+   * @param scanPrecursorMZ if null returns the full range - otherwise used as filter if not MS1
+   * @return the index range of candidate entries
+   */
+  private IndexRange binaryFindCandidateEntryRange(List<SpectralLibraryEntry> entries,
+      @Nullable final Double scanPrecursorMZ) {
+    if (scanPrecursorMZ == null || msLevelFilter.isMs1Only()) {
+      return IndexRange.ofExclusive(0, entries.size());
+    }
+    return BinarySearch.indexRange(mzTolerancePrecursor.getToleranceRange(scanPrecursorMZ),
+        entries, SpectralLibraryEntry::getPrecursorMZ);
   }
 
   /**
@@ -561,13 +668,7 @@ public class RowsSpectralMatchTask extends AbstractTask {
    */
   private SpectralSimilarity matchSpectrum(Float rowRT, Float rowRI, double rowMZ, Float rowCCS,
       DataPoint[] rowMassList, SpectralLibraryEntry ident) {
-    // prefilters
-    if (!checkRT(rowRT, ident) // retention time optional
-        || !checkRI(rowRI, ident) // retention index optional
-        // mz only for MS2 not for MS1
-        || (msLevelFilter.isFragmentationNoMS1() && !checkPrecursorMZ(rowMZ, ident))
-        // CCS/ion mobility optional
-        || !checkCCS(rowCCS, ident)) {
+    if (!matchesPrefilters(rowRT, rowRI, rowMZ, rowCCS, ident)) {
       return null;
     }
     // prefilters matched - score spectrum
@@ -599,6 +700,41 @@ public class RowsSpectralMatchTask extends AbstractTask {
     return createSimilarity(library, query);
   }
 
+  private boolean matchesPrefilters(Float rowRT, Float rowRI, double rowMZ, Float rowCCS,
+      SpectralLibraryEntry ident) {
+    return checkRT(rowRT, ident) // retention time optional
+        && checkRI(rowRI, ident) // retention index optional
+        // mz only for MS2 not for MS1
+        && (!msLevelFilter.isFragmentationNoMS1() || checkPrecursorMZ(rowMZ, ident))
+        // CCS/ion mobility optional
+        && checkCCS(rowCCS, ident);
+  }
+
+  /**
+   * The library spectrum as scored by {@link #matchSpectrum} without cropping to the overlap
+   */
+  private DataPoint[] filterLibrarySpectrum(SpectralLibraryEntry ident) {
+    DataPoint[] library = ident.getDataPoints();
+    if (removeIsotopes) {
+      library = removeIsotopes(library);
+    }
+    if (!msLevelFilter.isMs1Only() && removePrecursor && ident.getPrecursorMZ() != null) {
+      library = removePrecursor(library, ident.getPrecursorMZ());
+    }
+    return library;
+  }
+
+  /**
+   * The vectorized cosine can score prepared spectra. Cropping depends on both spectra of a pair,
+   * so spectra are only prepared without cropping.
+   *
+   * @return the similarity function if row spectra should be prepared or null
+   */
+  private @Nullable VectorizedWeightedCosineSpectralSimilarity getPreparedCosine() {
+    return !cropSpectraToOverlap
+        && simFunction instanceof VectorizedWeightedCosineSpectralSimilarity cosine ? cosine : null;
+  }
+
   private boolean checkCCS(Float rowCCS, SpectralLibraryEntry ident) {
     return ccsTolerance == null || ccsTolerance.matches(rowCCS,
         ident.getOrElse(DBEntryField.CCS, null));
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.id_spectral_library_match;
+
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.datamodel.MassSpectrum;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Inverted index of all library fragment signals. Signals are binned by m/z and within each bin
+ * ordered by the index of their library entry. This way, the entries that share at least minMatch
+ * signals with a query spectrum are found without aligning the query against every entry and the
+ * search can be restricted to a range of entries, e.g., the entries within the precursor m/z
+ * tolerance if the entries are sorted by precursor m/z.
+ * <p>
+ * The number of library signals within the m/z tolerance of any query signal is an upper bound of
+ * the number of signals that {@link io.github.mzmine.util.scans.ScanAlignment#align} can match,
+ * because every aligned pair uses a distinct library signal within
+ * {@link MZTolerance#checkWithinTolerance(double, double)}. Removing signals (deisotoping,
+ * cropping, precursor removal) only lowers the number of matches. Therefore, entries that are not
+ * returned as candidates can never reach the minimum number of matched signals.
+ * <p>
+ * The index is immutable after creation and can be queried concurrently.
+ */
+final class SpectralLibraryFragmentIndex {
+
+  /**
+   * Default bin width in Da. Smaller bins reduce the number of signals that are checked outside of
+   * the tolerance window.
+   */
+  private static final double DEFAULT_BIN_WIDTH = 0.01;
+  /**
+   * Limits the number of bins for libraries with very wide m/z ranges
+   */
+  private static final int MAX_BINS = 1 << 20;
+
+  private final List<? extends MassSpectrum> entries;
+  private final double minMz;
+  private final double binWidth;
+  private final int numBins;
+  // start of each bin in the postings arrays, length numBins+1
+  private final int[] binStart;
+  // postings: library entry index and signal m/z, sorted by bin and entry index
+  private final int[] postingEntries;
+  private final double[] postingMzs;
+
+  /**
+   * @param entries the library entries. The index of an entry in this list is used in all queries.
+   */
+  SpectralLibraryFragmentIndex(@NotNull List<? extends MassSpectrum> entries) {
+    this.entries = entries;
+    final int numEntries = entries.size();
+
+    double min = Double.POSITIVE_INFINITY;
+    double max = Double.NEGATIVE_INFINITY;
+    int totalSignals = 0;
+    for (MassSpectrum entry : entries) {
+      for (int i = 0; i < entry.getNumberOfDataPoints(); i++) {
+        final double mz = entry.getMzValue(i);
+        // NaN never matches within tolerance
+        if (Double.isNaN(mz)) {
+          continue;
+        }
+        min = Math.min(min, mz);
+        max = Math.max(max, mz);
+        totalSignals++;
+      }
+    }
+
+    if (totalSignals == 0) {
+      minMz = 0;
+      binWidth = DEFAULT_BIN_WIDTH;
+      numBins = 0;
+      binStart = new int[1];
+      postingEntries = new int[0];
+      postingMzs = new double[0];
+      return;
+    }
+
+    minMz = min;
+    binWidth = Math.max(DEFAULT_BIN_WIDTH, (max - min) / (MAX_BINS - 1));
+    numBins = (int) ((max - min) / binWidth) + 1;
+
+    // counting sort by bin - entries are added in order so each bin is sorted by entry index
+    binStart = new int[numBins + 1];
+    for (MassSpectrum entry : entries) {
+      for (int i = 0; i < entry.getNumberOfDataPoints(); i++) {
+        final double mz = entry.getMzValue(i);
+        if (!Double.isNaN(mz)) {
+          binStart[bin(mz) + 1]++;
+        }
+      }
+    }
+    for (int b = 0; b < numBins; b++) {
+      binStart[b + 1] += binStart[b];
+    }
+
+    postingEntries = new int[totalSignals];
+    postingMzs = new double[totalSignals];
+    final int[] nextPosting = Arrays.copyOf(binStart, numBins);
+    for (int e = 0; e < numEntries; e++) {
+      final MassSpectrum entry = entries.get(e);
+      for (int i = 0; i < entry.getNumberOfDataPoints(); i++) {
+        final double mz = entry.getMzValue(i);
+        if (Double.isNaN(mz)) {
+          continue;
+        }
+        final int posting = nextPosting[bin(mz)]++;
+        postingEntries[posting] = e;
+        postingMzs[posting] = mz;
+      }
+    }
+  }
+
+  private int bin(double mz) {
+    final double bin = (mz - minMz) / binWidth;
+    if (bin <= 0) {
+      return 0;
+    }
+    return bin >= numBins - 1 ? numBins - 1 : (int) bin;
+  }
+
+  /**
+   * @return true if this index was created for exactly this list of entries
+   */
+  public boolean isIndexOf(@NotNull List<?> entries) {
+    return this.entries == entries;
+  }
+
+  public int getNumberOfEntries() {
+    return entries.size();
+  }
+
+  public int getNumberOfSignals() {
+    return postingMzs.length;
+  }
+
+  /**
+   * Finds all library entries in the range fromEntry (inclusive) to toEntry (exclusive) that have
+   * at least minMatch signals within mzTol of any query signal. Each library signal is counted
+   * once, even if multiple query signals are within tolerance.
+   *
+   * @param query     the query signals
+   * @param mzTol     the tolerance that is also used for the spectral alignment
+   * @param minMatch  minimum number of library signals within tolerance
+   * @param fromEntry first entry index, inclusive
+   * @param toEntry   last entry index, exclusive
+   * @return the candidates as bits relative to fromEntry, so bit 0 refers to fromEntry
+   */
+  @NotNull
+  public BitSet findCandidates(@NotNull DataPoint[] query, @NotNull MZTolerance mzTol,
+      int minMatch, int fromEntry, int toEntry) {
+    final int numCandidates = Math.max(0, toEntry - fromEntry);
+    final BitSet candidates = new BitSet(numCandidates);
+    if (numCandidates == 0) {
+      return candidates;
+    }
+    if (minMatch <= 0) {
+      candidates.set(0, numCandidates);
+      return candidates;
+    }
+    if (numBins == 0 || query.length == 0) {
+      return candidates;
+    }
+
+    final double[] queryMzs = new double[query.length];
+    for (int i = 0; i < query.length; i++) {
+      queryMzs[i] = query[i].getMZ();
+    }
+    Arrays.sort(queryMzs);
+
+    final int[] counts = new int[numCandidates];
+    // merge overlapping tolerance windows so that no library signal is counted twice
+    double windowLower = Double.NaN;
+    double windowUpper = Double.NaN;
+    for (double mz : queryMzs) {
+      if (Double.isNaN(mz)) {
+        // sorted to the end
+        break;
+      }
+      final double lower = lowerBound(mzTol, mz);
+      final double upper = upperBound(mzTol, mz);
+      if (!Double.isNaN(windowUpper) && lower <= windowUpper) {
+        windowUpper = Math.max(windowUpper, upper);
+        continue;
+      }
+      if (!Double.isNaN(windowLower)) {
+        countWindow(windowLower, windowUpper, fromEntry, toEntry, counts);
+      }
+      windowLower = lower;
+      windowUpper = upper;
+    }
+    if (!Double.isNaN(windowLower)) {
+      countWindow(windowLower, windowUpper, fromEntry, toEntry, counts);
+    }
+
+    for (int i = 0; i < numCandidates; i++) {
+      if (counts[i] >= minMatch) {
+        candidates.set(i);
+      }
+    }
+    return candidates;
+  }
+
+  /**
+   * Count all library signals within lower and upper m/z (inclusive)
+   */
+  private void countWindow(double lower, double upper, int fromEntry, int toEntry, int[] counts) {
+    if (upper < minMz) {
+      return;
+    }
+    final int lastBin = bin(upper);
+    for (int b = bin(lower); b <= lastBin; b++) {
+      final int end = binStart[b + 1];
+      // first posting of fromEntry in this bin
+      int posting = Arrays.binarySearch(postingEntries, binStart[b], end, fromEntry);
+      if (posting < 0) {
+        posting = -posting - 1;
+      } else {
+        // binary search finds any posting of this entry - go to the first
+        while (posting > binStart[b] && postingEntries[posting - 1] == fromEntry) {
+          posting--;
+        }
+      }
+
+      for (; posting < end; posting++) {
+        final int entry = postingEntries[posting];
+        if (entry >= toEntry) {
+          break;
+        }
+        final double mz = postingMzs[posting];
+        if (mz >= lower && mz <= upper) {
+          counts[entry - fromEntry]++;
+        }
+      }
+    }
+  }
+
+  /**
+   * The lowest library m/z that may still be within tolerance of the query m/z. The relative
+   * tolerance in {@link MZTolerance#checkWithinTolerance(double, double)} is based on the library
+   * m/z, therefore the window is not symmetric.
+   */
+  private static double lowerBound(MZTolerance mzTol, double queryMz) {
+    final double relative = mzTol.getPpmTolerance() / 1E6;
+    final double lower = Math.min(queryMz - mzTol.getMzTolerance(), queryMz / (1 + relative));
+    // small margin for rounding errors - only adds candidates
+    return lower - 4 * Math.ulp(queryMz);
+  }
+
+  /**
+   * The highest library m/z that may still be within tolerance of the query m/z.
+   */
+  private static double upperBound(MZTolerance mzTol, double queryMz) {
+    final double relative = mzTol.getPpmTolerance() / 1E6;
+    if (relative >= 1) {
+      return Double.POSITIVE_INFINITY;
+    }
+    final double upper = Math.max(queryMz + mzTol.getMzTolerance(), queryMz / (1 - relative));
+    return upper + 4 * Math.ulp(queryMz);
+  }
+}
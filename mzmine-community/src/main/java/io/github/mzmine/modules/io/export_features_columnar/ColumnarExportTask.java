@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.io.export_features_columnar;
+
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.SimpleFeatureListAppliedMethod;
+import io.github.mzmine.modules.io.export_features_gnps.fbmn.FeatureListRowsFilter;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.taskcontrol.AbstractTask;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import io.github.mzmine.util.FeatureListRowSorter;
+import io.github.mzmine.util.files.FileAndPathUtil;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+import org.jetbrains.annotations.NotNull;
+
+public class ColumnarExportTask extends AbstractTask {
+
+  private static final Logger logger = Logger.getLogger(ColumnarExportTask.class.getName());
+  private final ModularFeatureList[] featureLists;
+  private final File fileName;
+  private final FeatureListRowsFilter rowFilter;
+  private final ParameterSet parameters;
+  private int exportedLists = 0;
+
+  public ColumnarExportTask(ParameterSet parameters, @NotNull Instant moduleCallDate) {
+    super(null, moduleCallDate); // no new data stored -> null
+    featureLists = parameters.getValue(ColumnarExportParameters.featureLists)
+        .getMatchingFeatureLists();
+    fileName = parameters.getValue(ColumnarExportParameters.filename);
+    rowFilter = parameters.getValue(ColumnarExportParameters.filter);
+    this.parameters = parameters;
+  }
+
+  @Override
+  public String getTaskDescription() {
+    return "Exporting feature list(s) " + Arrays.toString(featureLists)
+        + " to columnar binary file(s)";
+  }
+
+  @Override
+  public double getFinishedPercentage() {
+    return featureLists.length == 0 ? 0 : exportedLists / (double) featureLists.length;
+  }
+
+  @Override
+  public void run() {
+    setStatus(TaskStatus.PROCESSING);
+
+    final String plNamePattern = "{}";
+    final boolean substitute = fileName.getPath().contains(plNamePattern);
+
+    for (ModularFeatureList featureList : featureLists) {
+      if (isCanceled()) {
+        return;
+      }
+
+      File curFile = fileName;
+      if (substitute) {
+        String cleanPlName = featureList.getName().replaceAll("[^a-zA-Z0-9.-]", "_");
+        curFile = new File(
+            fileName.getPath().replaceAll(Pattern.quote(plNamePattern), cleanPlName));
+      }
+      curFile = FileAndPathUtil.getRealFilePath(curFile, ColumnarFeatureTableFormat.FILE_EXTENSION);
+
+      final List<FeatureListRow> rows = featureList.getRows().stream().filter(rowFilter::accept)
+          .sorted(FeatureListRowSorter.DEFAULT_ID).toList();
+      try {
+        if (!new ColumnarFeatureTableWriter(featureList, rows).write(curFile.toPath(),
+            this::isCanceled)) {
+          return;
+        }
+      } catch (IOException e) {
+        logger.log(Level.WARNING,
+            "Error writing columnar feature table to file: " + curFile.getAbsolutePath(), e);
+        error("Could not write file " + curFile + ": " + e.getMessage());
+        return;
+      }
+
+      featureList.getAppliedMethods().add(
+          new SimpleFeatureListAppliedMethod(ColumnarExportModule.class, parameters,
+              getModuleCallDate()));
+      exportedLists++;
+
+      if (!substitute) {
+        break;
+      }
+    }
+
+    setStatus(TaskStatus.FINISHED);
+  }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.io.export_features_columnar;
+
+import io.github.mzmine.datamodel.features.types.DataType;
+import io.github.mzmine.datamodel.features.types.abstr.EnumDataType;
+import io.github.mzmine.datamodel.features.types.numbers.abstr.DoubleType;
+import io.github.mzmine.datamodel.features.types.numbers.abstr.FloatType;
+import io.github.mzmine.datamodel.features.types.numbers.abstr.IntegerType;
+import io.github.mzmine.datamodel.utils.UniqueIdSupplier;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Self-describing columnar binary layout of a feature table, stored in files with the extension
+ * {@value #FILE_EXTENSION}. All numbers are little endian.
+ * <pre>
+ * header
+ *   byte[8]  magic "MZMINECT"
+ *   int32    format version, see below
+ *   int32    number of rows
+ *   string   feature list name
+ *   int32    number of raw files, then one string per raw file name
+ *   int32    number of columns, then for each column:
+ *     byte     scope: 0 ROW, 1 FEATURE, 2 FEATURE_PRESENT
+ *     int32    raw file index, -1 for row columns
+ *     byte     value kind: 0 BOOL8, 1 INT32, 2 FLOAT32, 3 FLOAT64, 4 ENUM32
+ *     string   unique id of the data type, empty for FEATURE_PRESENT
+ *     [int32 n, n strings]  unique ids of the enum values, only for ENUM32
+ *     int64    absolute file offset of the column buffer
+ * column buffers
+ *   one buffer per column in header order, each starting at an offset aligned to 8 bytes and
+ *   holding one value per row in the order of the feature list
+ * </pre>
+ * Strings are written as int32 byte length and UTF-8 bytes. Like Arrow buffers the values of a
+ * column are stored contiguously so that readers can map them directly. Missing values are NaN for
+ * floating point columns, {@link io.github.mzmine.datamodel.features.columnar_data.columns.general.NullableInteger#NULL_VALUE}
+ * for integers and -1 for enums, which are stored as index into the enum ids of their column. Thus
+ * enum values are resolved by their unique id and not by the ordinal of the current enum. The
+ * BOOL8 {@link Scope#FEATURE_PRESENT} column of each raw file is 1 for rows with a feature in this
+ * file and 0 otherwise. The row ID is read from the {@link io.github.mzmine.datamodel.features.types.numbers.IDType}
+ * row column if present. Readers skip columns with unknown type ids or with a type that is now
+ * stored as a different value kind.
+ * <p>
+ * Versioning: {@link #VERSION} is the only version so far. It is incremented with every change of
+ * the layout, including new {@link Scope} or {@link ValueKind} constants, which are stored by their
+ * ordinal and therefore must only be appended. Readers reject files with a higher version and keep
+ * reading all older versions. New data types only add columns and do not require a new version.
+ */
+public final class ColumnarFeatureTableFormat {
+
+  public static final String FILE_EXTENSION = "mzct";
+  // increment with every change of the layout, see class doc
+  public static final int VERSION = 1;
+  static final byte[] MAGIC = "MZMINECT".getBytes(StandardCharsets.US_ASCII);
+  static final int ALIGNMENT = 8;
+
+  private ColumnarFeatureTableFormat() {
+  }
+
+  public enum Scope {
+    ROW, FEATURE, FEATURE_PRESENT
+  }
+
+  public enum ValueKind {
+    BOOL8(1), INT32(4), FLOAT32(4), FLOAT64(8), ENUM32(4);
+
+    private final int bytes;
+
+    ValueKind(final int bytes) {
+      this.bytes = bytes;
+    }
+
+    public int bytes() {
+      return bytes;
+    }
+
+    /**
+     * @return the kind to store values of this type or null if the type is not supported
+     */
+    public static @Nullable ValueKind of(@NotNull DataType<?> type) {
+      return switch (type) {
+        case EnumDataType<?> _ -> ENUM32;
+        case IntegerType _ -> INT32;
+        case FloatType _ -> FLOAT32;
+        case DoubleType _ -> FLOAT64;
+        default -> null;
+      };
+    }
+  }
+
+  /**
+   * @param rawIndex index of the raw file or -1 for row columns
+   * @param typeId   unique id of the data type, empty for {@link Scope#FEATURE_PRESENT}
+   * @param enumIds  unique ids of the enum values, empty for other kinds
+   * @param offset   position of the column buffer in the file
+   */
+  public record Column(@NotNull Scope scope, int rawIndex, @NotNull ValueKind kind,
+                       @NotNull String typeId, @NotNull List<String> enumIds, long offset) {
+
+    public static Column of(@NotNull Scope scope, int rawIndex, @NotNull DataType<?> type) {
+      final ValueKind kind = ValueKind.of(type);
+      if (kind == null) {
+        throw new IllegalArgumentException("Unsupported type " + type.getUniqueID());
+      }
+      final List<String> enumIds = type instanceof EnumDataType<?> et ? Arrays.stream(
+          et.enumValues()).map(UniqueIdSupplier::getUniqueID).toList() : List.of();
+      return new Column(scope, rawIndex, kind, type.getUniqueID(), enumIds, 0);
+    }
+
+    public static Column present(int rawIndex) {
+      return new Column(Scope.FEATURE_PRESENT, rawIndex, ValueKind.BOOL8, "", List.of(), 0);
+    }
+
+    public Column withOffset(long offset) {
+      return new Column(scope, rawIndex, kind, typeId, enumIds, offset);
+    }
+
+    public long byteSize(int numRows) {
+      return (long) numRows * kind.bytes();
+    }
+  }
+
+  public record Header(@NotNull String featureListName, int numRows,
+                       @NotNull List<String> rawFileNames, @NotNull List<Column> columns) {
+
+    /**
+     * @return this header with the offsets of all column buffers set
+     */
+    public Header withOffsets() {
+      long offset = align(toBytes().remaining());
+      final List<Column> placed = new ArrayList<>(columns.size());
+      for (Column column : columns) {
+        placed.add(column.withOffset(offset));
+        offset = align(offset + column.byteSize(numRows));
+      }
+      return new Header(featureListName, numRows, rawFileNames, placed);
+    }
+
+    /**
+     * @return the serialized header ready to read
+     */
+    public ByteBuffer toBytes() {
+      final List<byte[]> strings = new ArrayList<>();
+      strings.add(utf8(featureListName));
+      rawFileNames.stream().map(ColumnarFeatureTableFormat::utf8).forEach(strings::add);
+      for (Column column : columns) {
+        strings.add(utf8(column.typeId()));
+        column.enumIds().stream().map(ColumnarFeatureTableFormat::utf8).forEach(strings::add);
+      }
+      final long enumColumns = columns.stream().filter(c -> c.kind() == ValueKind.ENUM32).count();
+      final int size = (int) (MAGIC.length + 4 * 4 + columns.size() * (1 + 4 + 1 + 8)
+          + enumColumns * 4 + strings.stream().mapToInt(s -> 4 + s.length).sum());
+
+      final ByteBuffer buffer = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+      buffer.put(MAGIC).putInt(VERSION).putInt(numRows);
+      putString(buffer, featureListName);
+      buffer.putInt(rawFileNames.size());
+      rawFileNames.forEach(name -> putString(buffer, name));
+      buffer.putInt(columns.size());
+      for (Column column : columns) {
+        buffer.put((byte) column.scope().ordinal()).putInt(column.rawIndex())
+            .put((byte) column.kind().ordinal());
+        putString(buffer, column.typeId());
+        if (column.kind() == ValueKind.ENUM32) {
+          buffer.putInt(column.enumIds().size());
+          column.enumIds().forEach(id -> putString(buffer, id));
+        }
+        buffer.putLong(column.offset());
+      }
+      return buffer.flip();
+    }
+
+    /**
+     * @param buffer little endian buffer positioned at the start of the file
+     */
+    public static Header read(@NotNull ByteBuffer buffer) throws IOException {
+      try {
+        final byte[] magic = new byte[MAGIC.length];
+        buffer.get(magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+          throw new IOException("Not a columnar feature table file");
+        }
+        final int version = buffer.getInt();
+        if (version > VERSION) {
+          throw new IOException("Unsupported columnar feature table version " + version);
+        }
+        final int numRows = buffer.getInt();
+        final String name = getString(buffer);
+        final int numRaws = buffer.getInt();
+        final List<String> raws = new ArrayList<>(numRaws);
+        for (int i = 0; i < numRaws; i++) {
+          raws.add(getString(buffer));
+        }
+        final int numColumns = buffer.getInt();
+        final List<Column> columns = new ArrayList<>(numColumns);
+        for (int i = 0; i < numColumns; i++) {
+          final Scope scope = Scope.values()[buffer.get()];
+          final int rawIndex = buffer.getInt();
+          final ValueKind kind = ValueKind.values()[buffer.get()];
+          final String typeId = getString(buffer);
+          List<String> enumIds = List.of();
+          if (kind == ValueKind.ENUM32) {
+            final int n = buffer.getInt();
+            enumIds = new ArrayList<>(n);
+            for (int e = 0; e < n; e++) {
+              enumIds.add(getString(buffer));
+            }
+          }
+          columns.add(new Column(scope, rawIndex, kind, typeId, enumIds, buffer.getLong()));
+        }
+        return new Header(name, numRows, raws, columns);
+      } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+        throw new IOException("Corrupt columnar feature table header", e);
+      }
+    }
+  }
+
+  static long align(long position) {
+    return (position + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+  }
+
+  private static byte[] utf8(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static void putString(ByteBuffer buffer, String s) {
+    final byte[] bytes = utf8(s);
+    buffer.putInt(bytes.length).put(bytes);
+  }
+
+  private static String getString(ByteBuffer buffer) {
+    final byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.io.export_features_columnar;
+
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularFeature;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.features.columnar_data.columns.DataColumn;
+import io.github.mzmine.datamodel.features.columnar_data.columns.NullableDoubleDataColumn;
+import io.github.mzmine.datamodel.features.columnar_data.columns.NullableFloatDataColumn;
+import io.github.mzmine.datamodel.features.columnar_data.columns.NullableIntDataColumn;
+import io.github.mzmine.datamodel.features.columnar_data.columns.general.NullableInteger;
+import io.github.mzmine.datamodel.features.types.DataType;
+import io.github.mzmine.datamodel.features.types.DataTypes;
+import io.github.mzmine.modules.io.export_features_columnar.ColumnarFeatureTableFormat.Column;
+import io.github.mzmine.modules.io.export_features_columnar.ColumnarFeatureTableFormat.Header;
+import io.github.mzmine.modules.io.export_features_columnar.ColumnarFeatureTableFormat.Scope;
+import io.github.mzmine.modules.io.export_features_columnar.ColumnarFeatureTableFormat.ValueKind;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Writes the numeric and enum columns of a feature list in the
+ * {@link ColumnarFeatureTableFormat}. Values are read in bulk from the primitive columns of the
+ * feature list, memory mapped columns are copied block wise without boxing or formatting.
+ */
+public class ColumnarFeatureTableWriter {
+
+  /**
+   * Number of rows gathered and written at once
+   */
+  private static final int CHUNK_SIZE = 1 << 16;
+
+  private final ModularFeatureList flist;
+  private final List<FeatureListRow> rows;
+  private final List<RawDataFile> rawFiles;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(CHUNK_SIZE * Double.BYTES)
+      .order(ByteOrder.LITTLE_ENDIAN);
+
+  /**
+   * @param flist the feature list
+   * @param rows  the rows to export in this order
+   */
+  public ColumnarFeatureTableWriter(@NotNull ModularFeatureList flist,
+      @NotNull List<FeatureListRow> rows) {
+    this.flist = flist;
+    this.rows = rows;
+    this.rawFiles = flist.getRawDataFiles();
+  }
+
+  /**
+   * @return the header of all exported columns without offsets
+   */
+  public Header createHeader() {
+    final List<Column> columns = new ArrayList<>();
+    for (DataType<?> type : flist.getRowTypes()) {
+      if (ValueKind.of(type) != null && flist.getRowTypeColumn(type) != null) {
+        columns.add(Column.of(Scope.ROW, -1, type));
+      }
+    }
+    final List<DataType<?>> featureTypes = flist.getFeatureTypes().stream()
+        .<DataType<?>>map(t -> t)
+        .filter(t -> ValueKind.of(t) != null && flist.getFeatureTypeColumn(t) != null).toList();
+    for (int r = 0; r < rawFiles.size(); r++) {
+      columns.add(Column.present(r));
+      for (DataType<?> type : featureTypes) {
+        columns.add(Column.of(Scope.FEATURE, r, type));
+      }
+    }
+    return new Header(flist.getName(), rows.size(),
+        rawFiles.stream().map(RawDataFile::getName).toList(), columns);
+  }
+
+  /**
+   * @param file     the target file, will be overwritten
+   * @param canceled stops writing if true
+   * @return false if canceled
+   */
+  public boolean write(@NotNull Path file, @NotNull BooleanSupplier canceled) throws IOException {
+    final Header header = createHeader().withOffsets();
+
+    // model indices of rows and of features for each raw file, -1 for missing features
+    final int[] rowIndices = new int[rows.size()];
+    final int[][] featureIndices = new int[rawFiles.size()][rows.size()];
+    for (int i = 0; i < rows.size(); i++) {
+      final ModularFeatureListRow row = (ModularFeatureListRow) rows.get(i);
+      rowIndices[i] = row.getModelRowIndex();
+      for (int r = 0; r < rawFiles.size(); r++) {
+        final ModularFeature feature = row.getFeature(rawFiles.get(r));
+        featureIndices[r][i] = feature == null ? -1 : feature.getModelRowIndex();
+      }
+    }
+
+    try (var channel = FileChannel.open(file, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      writeFully(channel, header.toBytes());
+      for (Column column : header.columns()) {
+        if (canceled.getAsBoolean()) {
+          return false;
+        }
+        padTo(channel, column.offset());
+        final int[] indices = column.scope() == Scope.ROW ? rowIndices
+            : featureIndices[column.rawIndex()];
+        writeColumn(channel, column, indices);
+      }
+    }
+    return true;
+  }
+
+  private void writeColumn(FileChannel channel, Column column, int[] indices) throws IOException {
+    final DataType<?> type = DataTypes.getTypeForId(column.typeId());
+    final DataColumn<?> data = switch (column.scope()) {
+      case ROW -> flist.getRowTypeColumn(type);
+      case FEATURE -> flist.getFeatureTypeColumn(type);
+      case FEATURE_PRESENT -> null;
+    };
+
+    // reused buffers for one chunk
+    final int chunk = Math.min(CHUNK_SIZE, indices.length);
+    final double[] doubles = column.kind() == ValueKind.FLOAT64 ? new double[chunk] : null;
+    final float[] floats = column.kind() == ValueKind.FLOAT32 ? new float[chunk] : null;
+    final int[] ints = column.kind() == ValueKind.INT32 ? new int[chunk] : null;
+
+    for (int start = 0; start < indices.length; start += CHUNK_SIZE) {
+      final int[] chunkIndices = Arrays.copyOfRange(indices, start,
+          Math.min(indices.length, start + CHUNK_SIZE));
+      final int n = chunkIndices.length;
+      buffer.clear();
+      switch (column.kind()) {
+        case BOOL8 -> {
+          for (int index : chunkIndices) {
+            buffer.put((byte) (index < 0 ? 0 : 1));
+          }
+        }
+        case FLOAT64 -> {
+          if (data instanceof NullableDoubleDataColumn col) {
+            col.getDoubles(chunkIndices, doubles);
+          } else {
+            for (int i = 0; i < n; i++) {
+              final Number value = getNumber(data, chunkIndices[i]);
+              doubles[i] = value == null ? Double.NaN : value.doubleValue();
+            }
+          }
+          buffer.asDoubleBuffer().put(doubles, 0, n);
+          buffer.position(n * Double.BYTES);
+        }
+        case FLOAT32 -> {
+          if (data instanceof NullableFloatDataColumn col) {
+            col.getFloats(chunkIndices, floats);
+          } else {
+            for (int i = 0; i < n; i++) {
+              final Number value = getNumber(data, chunkIndices[i]);
+              floats[i] = value == null ? Float.NaN : value.floatValue();
+            }
+          }
+          buffer.asFloatBuffer().put(floats, 0, n);
+          buffer.position(n * Float.BYTES);
+        }
+        case INT32 -> {
+          if (data instanceof NullableIntDataColumn col) {
+            col.getInts(chunkIndices, ints);
+          } else {
+            for (int i = 0; i < n; i++) {
+              final Number value = getNumber(data, chunkIndices[i]);
+              ints[i] = value == null ? NullableInteger.NULL_VALUE : value.intValue();
+            }
+          }
+          buffer.asIntBuffer().put(ints, 0, n);
+          buffer.position(n * Integer.BYTES);
+        }
+        case ENUM32 -> {
+          for (int index : chunkIndices) {
+            final Object value = index < 0 ? null : data.get(index);
+            buffer.putInt(value instanceof Enum<?> e ? e.ordinal() : -1);
+          }
+        }
+      }
+      writeFully(channel, buffer.flip());
+    }
+  }
+
+  private static @Nullable Number getNumber(DataColumn<?> data, int index) {
+    return index < 0 ? null : (Number) data.get(index);
+  }
+
+  private static void padTo(FileChannel channel, long position) throws IOException {
+    final long padding = position - channel.position();
+    if (padding > 0) {
+      writeFully(channel, ByteBuffer.allocate((int) padding));
+    }
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer bytes) throws IOException {
+    while (bytes.hasRemaining()) {
+      channel.write(bytes);
+    }
+  }
+}
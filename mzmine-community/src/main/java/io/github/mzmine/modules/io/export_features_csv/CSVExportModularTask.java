@@ -66,10 +66,12 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
@@ -88,6 +90,10 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
   private final boolean removeEmptyCols;
   private final ParameterSet parameters;
   // track number of exported items
+  /**
+   * Rows are formatted in parallel chunks of this size, which bounds the memory of the export
+   */
+  private static final int ROW_CHUNK_SIZE = 1000;
   private final AtomicInteger exportedRows = new AtomicInteger(0);
   private int processedTypes = 0, totalTypes = 0;
 
@@ -255,50 +261,52 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
     writer.append(header.toString());
     writer.newLine();
 
-    // write data
-    totalTypes = rowTypes.size() + featureTypes.size() * rawDataFiles.size();
-
-    List<String[]> formattedCols = new ArrayList<>(totalTypes);
-
-    // list string values for each type and sub type
+    // one formatter per column, the formatted table is never held in memory as a whole
+    final List<Function<FeatureListRow, String>> columns = new ArrayList<>();
     for (DataType rowType : rowTypes) {
-      if (isCanceled()) {
-        return;
-      }
-
-      addFormattedColumnsRecursively(formattedCols, rows, null, rowType, rowsSubTypesIndex);
-
-      processedTypes++;
+      addColumnFormattersRecursively(columns, rows, null, rowType, rowsSubTypesIndex);
     }
-
     // add feature types for each raw data file
     for (RawDataFile raw : rawDataFiles) {
       for (DataType featureType : featureTypes) {
-        if (isCanceled()) {
-          return;
-        }
-
-        addFormattedColumnsRecursively(formattedCols, rows, raw, featureType, null);
-        processedTypes++;
+        addColumnFormattersRecursively(columns, rows, raw, featureType, null);
       }
     }
 
-    for (int i = 0; i < rows.size(); i++) {
+    // format chunks of rows in parallel and write them in the original order
+    final String[] lines = new String[Math.min(ROW_CHUNK_SIZE, rows.size())];
+    for (int start = 0; start < rows.size(); start += ROW_CHUNK_SIZE) {
       // Cancel?
       if (isCanceled()) {
         return;
       }
 
-      final int row = i;
-      writer.append(
-          formattedCols.stream().map(col -> col[row]).collect(Collectors.joining(fieldSeparator)));
-      writer.newLine();
+      final int chunkStart = start;
+      final int chunkSize = Math.min(ROW_CHUNK_SIZE, rows.size() - start);
+      IntStream.range(0, chunkSize).parallel()
+          .forEach(i -> lines[i] = formatRow(rows.get(chunkStart + i), columns));
+
+      for (int i = 0; i < chunkSize; i++) {
+        writer.append(lines[i]);
+        writer.newLine();
+      }
 
-      exportedRows.incrementAndGet();
-      processedTypes++;
+      exportedRows.addAndGet(chunkSize);
+      processedTypes += chunkSize;
     }
   }
 
+  private String formatRow(FeatureListRow row, List<Function<FeatureListRow, String>> columns) {
+    final StringBuilder line = new StringBuilder();
+    for (int c = 0; c < columns.size(); c++) {
+      if (c > 0) {
+        line.append(fieldSeparator);
+      }
+      line.append(columns.get(c).apply(row));
+    }
+    return line.toString();
+  }
+
   /**
    * Checks all rows and their data types for sub types, that may or may not be listed in the
    * {@link SubColumnsFactory#getType(int)} method.
@@ -357,15 +365,15 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
   }
 
   /**
-   * Adds columns of formatted values for each column / sub column. missing values are replaced by
-   * empty strings or default values
+   * Adds a formatter for each column / sub column. missing values are replaced by empty strings or
+   * default values
    *
-   * @param formattedCols the target list
-   * @param rows          the data
-   * @param raw           defines the feature
-   * @param type          the feature data type to be added (and its sub columns)
+   * @param columns the target list
+   * @param rows    the data, used to filter empty sub columns
+   * @param raw     defines the feature
+   * @param type    the feature data type to be added (and its sub columns)
    */
-  private void addFormattedColumnsRecursively(List<String[]> formattedCols,
+  private void addColumnFormattersRecursively(List<Function<FeatureListRow, String>> columns,
       @NotNull final List<FeatureListRow> rows, @Nullable RawDataFile raw,
       @NotNull final DataType type, @Nullable final Map<DataType, List<DataType>> subTypesIndex) {
 
@@ -374,10 +382,7 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
       // explicitly indexed types
       final List<DataType> subTypes = subTypesIndex.get(type);
       for (DataType subType : subTypes) {
-        // collect column data
-        String[] column = getDataStream(rows, raw, false).map(
-            data -> getFormattedValue(data, subFactory, subType)).toArray(String[]::new);
-        formattedCols.add(column);
+        columns.add(row -> getFormattedValue(getData(row, raw), subFactory, subType));
       }
     } else if (type instanceof SubColumnsFactory subFactory) {
       // only "static" sub columns for this type, e.g. for number types as they are a dirty hack
@@ -389,19 +394,23 @@ public class CSVExportModularTask extends AbstractTask implements ProcessedItems
             s))) {
           continue;
         }
-        // collect column data
         final int subIndex = s;
-        String[] column = getDataStream(rows, raw, false).map(
-            data -> getFormattedValue(data, subFactory, subIndex)).toArray(String[]::new);
-        formattedCols.add(column);
+        columns.add(row -> getFormattedValue(getData(row, raw), subFactory, subIndex));
       }
     } else {
-      String[] column = getDataStream(rows, raw, false).map(data -> getFormattedValue(data, type))
-          .toArray(String[]::new);
-      formattedCols.add(column);
+      columns.add(row -> getFormattedValue(getData(row, raw), type));
     }
   }
 
+  /**
+   * @param raw defines the feature or null for the row itself
+   * @return the row or its feature of the raw data file
+   */
+  @Nullable
+  private static ModularDataModel getData(FeatureListRow row, @Nullable RawDataFile raw) {
+    return raw == null ? row : ((ModularFeatureListRow) row).getFeature(raw);
+  }
+
   /**
    * Data stream for rows or all features
    *
@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.io.import_features_columnar;
+
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.ModularDataModel;
+import io.github.mzmine.datamodel.features.ModularFeature;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.features.columnar_data.columns.general.NullableInteger;
+import io.github.mzmine.datamodel.features.types.DataType;
+import io.github.mzmine.datamodel.features.types.DataTypes;
+import io.github.mzmine.datamodel.features.types.RawFileType;
+import io.github.mzmine.datamodel.features.types.abstr.EnumDataType;
+import io.github.mzmine.datamodel.features.types.numbers.IDType;
+import io.github.mzmine.datamodel.utils.UniqueIdSupplier;
+import io.github.mzmine.modules.io.export_features_columnar.ColumnarFeatureTableFormat;
+import io.github.mzmine.modules.io.export_features_columnar.ColumnarFeatureTableFormat.Column;
+import io.github.mzmine.modules.io.export_features_columnar.ColumnarFeatureTableFormat.Header;
+import io.github.mzmine.modules.io.export_features_columnar.ColumnarFeatureTableFormat.Scope;
+import io.github.mzmine.modules.io.export_features_columnar.ColumnarFeatureTableFormat.ValueKind;
+import io.github.mzmine.util.FeatureListUtils;
+import io.github.mzmine.util.MemoryMapStorage;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads a {@link ColumnarFeatureTableFormat} file into a new {@link ModularFeatureList}. The file
+ * is memory mapped and the values are read straight from the column buffers.
+ */
+public class ColumnarFeatureTableReader {
+
+  private static final Logger logger = Logger.getLogger(
+      ColumnarFeatureTableReader.class.getName());
+
+  private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(
+      ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfFloat FLOAT = ValueLayout.JAVA_FLOAT.withOrder(
+      ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfDouble DOUBLE = ValueLayout.JAVA_DOUBLE.withOrder(
+      ByteOrder.LITTLE_ENDIAN);
+
+  /**
+   * A column with its data type
+   *
+   * @param enumValues enum constants for each stored index or null for other kinds
+   */
+  private record TypedColumn(@NotNull Column column, @NotNull DataType type,
+                             @Nullable Object[] enumValues) {
+
+  }
+
+  /**
+   * @param file          the columnar feature table
+   * @param rawFileByName finds the raw data files of the feature list by name or returns null
+   * @param canceled      stops reading if true
+   * @return the new feature list or null if canceled
+   * @throws IOException if the file cannot be read or raw data files are missing
+   */
+  public static @Nullable ModularFeatureList read(@NotNull Path file,
+      @NotNull Function<String, RawDataFile> rawFileByName,
+      @Nullable MemoryMapStorage storage, @NotNull BooleanSupplier canceled) throws IOException {
+    try (var channel = FileChannel.open(file, StandardOpenOption.READ); //
+        var arena = Arena.ofConfined()) {
+      final MemorySegment data = channel.map(MapMode.READ_ONLY, 0, channel.size(), arena);
+      final Header header = Header.read(
+          data.asSlice(0, Math.min(data.byteSize(), Integer.MAX_VALUE)).asByteBuffer()
+              .order(ByteOrder.LITTLE_ENDIAN));
+      final int numRows = header.numRows();
+
+      final List<RawDataFile> raws = new ArrayList<>();
+      for (String name : header.rawFileNames()) {
+        final RawDataFile raw = rawFileByName.apply(name);
+        if (raw == null) {
+          throw new IOException("Raw data file " + name + " is missing in the project");
+        }
+        raws.add(raw);
+      }
+
+      final List<TypedColumn> rowColumns = new ArrayList<>();
+      final List<List<TypedColumn>> featureColumns = new ArrayList<>();
+      final Column[] presentColumns = new Column[raws.size()];
+      raws.forEach(_ -> featureColumns.add(new ArrayList<>()));
+      for (Column column : header.columns()) {
+        if (column.offset() < 0 || column.offset() + column.byteSize(numRows) > data.byteSize()) {
+          throw new IOException("Column " + column.typeId() + " exceeds the file size");
+        }
+        if (column.scope() == Scope.FEATURE_PRESENT) {
+          presentColumns[column.rawIndex()] = column;
+          continue;
+        }
+        final TypedColumn typed = resolve(column);
+        if (typed == null) {
+          continue;
+        }
+        if (column.scope() == Scope.ROW) {
+          rowColumns.add(typed);
+        } else {
+          featureColumns.get(column.rawIndex()).add(typed);
+        }
+      }
+      final TypedColumn idColumn = rowColumns.stream()
+          .filter(c -> c.type() instanceof IDType && c.column().kind() == ValueKind.INT32)
+          .findFirst().orElse(null);
+
+      final ModularFeatureList flist = new ModularFeatureList(header.featureListName(), storage,
+          numRows, FeatureListUtils.estimateFeatures(numRows, raws.size()), raws);
+      for (int i = 0; i < numRows; i++) {
+        if (canceled.getAsBoolean()) {
+          return null;
+        }
+        final int id = idColumn == null ? i + 1
+            : data.get(INT, idColumn.column().offset() + (long) i * Integer.BYTES);
+        final ModularFeatureListRow row = new ModularFeatureListRow(flist, id);
+
+        for (int r = 0; r < raws.size(); r++) {
+          final Column present = presentColumns[r];
+          if (present == null || data.get(ValueLayout.JAVA_BYTE, present.offset() + i) == 0) {
+            continue;
+          }
+          final RawDataFile raw = raws.get(r);
+          final ModularFeature feature = new ModularFeature(flist);
+          feature.set(RawFileType.class, raw);
+          for (TypedColumn column : featureColumns.get(r)) {
+            setValue(data, feature, column, i);
+          }
+          row.addFeature(raw, feature, false);
+        }
+
+        // row values after the features, adding features updates row bindings
+        for (TypedColumn column : rowColumns) {
+          if (column != idColumn) {
+            setValue(data, row, column, i);
+          }
+        }
+        flist.addRow(row);
+      }
+      return flist;
+    }
+  }
+
+  private static @Nullable TypedColumn resolve(Column column) {
+    final DataType type = DataTypes.getTypeForId(column.typeId());
+    if (type == null || ValueKind.of(type) != column.kind()) {
+      logger.warning("Skipping column %s of unknown or changed data type".formatted(
+          column.typeId()));
+      return null;
+    }
+    Object[] enumValues = null;
+    if (type instanceof EnumDataType<?> enumType) {
+      enumValues = column.enumIds().stream()
+          .map(id -> UniqueIdSupplier.parseOrElse(id, enumType.enumValues(), null)).toArray();
+    }
+    return new TypedColumn(column, type, enumValues);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void setValue(MemorySegment data, ModularDataModel model, TypedColumn typed,
+      int index) {
+    final Column column = typed.column();
+    final long position = column.offset() + (long) index * column.kind().bytes();
+    final Object value = switch (column.kind()) {
+      case FLOAT64 -> {
+        final double v = data.get(DOUBLE, position);
+        yield Double.isNaN(v) ? null : v;
+      }
+      case FLOAT32 -> {
+        final float v = data.get(FLOAT, position);
+        yield Float.isNaN(v) ? null : v;
+      }
+      case INT32 -> {
+        final int v = data.get(INT, position);
+        yield v == NullableInteger.NULL_VALUE ? null : v;
+      }
+      case ENUM32 -> {
+        final int v = data.get(INT, position);
+        yield v < 0 || v >= typed.enumValues().length ? null : typed.enumValues()[v];
+      }
+      case BOOL8 -> null;
+    };
+    if (value != null) {
+      model.set(typed.type(), value);
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.io.import_features_columnar;
+
+import io.github.mzmine.datamodel.MZmineProject;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.SimpleFeatureListAppliedMethod;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.taskcontrol.AbstractTask;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import io.github.mzmine.util.MemoryMapStorage;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+public class ColumnarImportTask extends AbstractTask {
+
+  private static final Logger logger = Logger.getLogger(ColumnarImportTask.class.getName());
+  private final MZmineProject project;
+  private final File file;
+  private final ParameterSet parameters;
+
+  ColumnarImportTask(MZmineProject project, File file, ParameterSet parameters,
+      @Nullable MemoryMapStorage storage, @NotNull Instant moduleCallDate) {
+    super(storage, moduleCallDate);
+    this.project = project;
+    this.file = file;
+    this.parameters = parameters;
+  }
+
+  @Override
+  public String getTaskDescription() {
+    return "Importing columnar feature table " + file.getName();
+  }
+
+  @Override
+  public double getFinishedPercentage() {
+    return 0;
+  }
+
+  @Override
+  public void run() {
+    setStatus(TaskStatus.PROCESSING);
+
+    final ModularFeatureList flist;
+    try {
+      flist = ColumnarFeatureTableReader.read(file.toPath(), project::getDataFileByName, storage,
+          this::isCanceled);
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Cannot import columnar feature table " + file, e);
+      error("Could not import feature list from file " + file.getName() + ": " + e.getMessage());
+      return;
+    }
+    if (flist == null || isCanceled()) {
+      return;
+    }
+
+    flist.getAppliedMethods().add(
+        new SimpleFeatureListAppliedMethod(ColumnarImportModule.class, parameters,
+            getModuleCallDate()));
+    project.addFeatureList(flist);
+    setStatus(TaskStatus.FINISHED);
+  }
+}
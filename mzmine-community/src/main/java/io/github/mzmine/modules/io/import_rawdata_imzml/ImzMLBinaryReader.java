@@ -0,0 +1,231 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.io.import_rawdata_imzml;
+
+import com.alanmrace.jimzmlparser.mzml.BinaryDataArray;
+import com.alanmrace.jimzmlparser.mzml.CVParam;
+import java.io.File;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Reads binary arrays directly from a memory mapped imzML .ibd file. The offsets and lengths of
+ * each array are taken from the parsed imzML once, so that arrays can be decoded concurrently from
+ * multiple threads without going through the imzML library, which reads sequentially from a single
+ * file handle.
+ * <p>
+ * Values in the .ibd file are always little endian.
+ */
+class ImzMLBinaryReader implements AutoCloseable {
+
+  private static final String EXTERNAL_OFFSET = "IMS:1000102";
+  private static final String EXTERNAL_ARRAY_LENGTH = "IMS:1000103";
+  private static final String EXTERNAL_ENCODED_LENGTH = "IMS:1000104";
+
+  private static final String FLOAT_32 = "MS:1000521";
+  private static final String FLOAT_64 = "MS:1000523";
+  private static final String INT_32 = "MS:1000519";
+  private static final String INT_64 = "MS:1000522";
+
+  private static final String NO_COMPRESSION = "MS:1000576";
+  private static final String ZLIB_COMPRESSION = "MS:1000574";
+
+  private static final ValueLayout.OfDouble DOUBLE_LE = ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(
+      ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfFloat FLOAT_LE = ValueLayout.JAVA_FLOAT_UNALIGNED.withOrder(
+      ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfInt INT_LE = ValueLayout.JAVA_INT_UNALIGNED.withOrder(
+      ByteOrder.LITTLE_ENDIAN);
+  private static final ValueLayout.OfLong LONG_LE = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(
+      ByteOrder.LITTLE_ENDIAN);
+
+  private final Arena arena;
+  private final MemorySegment data;
+
+  private ImzMLBinaryReader(Arena arena, MemorySegment data) {
+    this.arena = arena;
+    this.data = data;
+  }
+
+  /**
+   * Maps the whole .ibd file. The mapping is released on {@link #close()}.
+   */
+  public static ImzMLBinaryReader open(@NotNull File ibdFile) throws IOException {
+    final Arena arena = Arena.ofShared();
+    try (var channel = FileChannel.open(ibdFile.toPath(), StandardOpenOption.READ)) {
+      final MemorySegment data = channel.map(MapMode.READ_ONLY, 0, channel.size(), arena);
+      return new ImzMLBinaryReader(arena, data);
+    } catch (IOException | RuntimeException e) {
+      arena.close();
+      throw e;
+    }
+  }
+
+  /**
+   * @return the location of the binary data in the .ibd file or null if it is not described by the
+   * external offset and length parameters or uses an unsupported data type or compression. Such
+   * arrays need to be read through the imzML library.
+   */
+  @Nullable
+  public static ArrayRef createRef(@Nullable BinaryDataArray array) {
+    if (array == null) {
+      return null;
+    }
+    final CVParam offsetParam = array.getCVParam(EXTERNAL_OFFSET);
+    final CVParam lengthParam = array.getCVParam(EXTERNAL_ARRAY_LENGTH);
+    if (offsetParam == null || lengthParam == null) {
+      return null;
+    }
+
+    final DataType type;
+    if (array.getCVParam(FLOAT_64) != null) {
+      type = DataType.FLOAT_64;
+    } else if (array.getCVParam(FLOAT_32) != null) {
+      type = DataType.FLOAT_32;
+    } else if (array.getCVParam(INT_32) != null) {
+      type = DataType.INT_32;
+    } else if (array.getCVParam(INT_64) != null) {
+      type = DataType.INT_64;
+    } else {
+      return null;
+    }
+
+    final boolean zlib = array.getCVParam(ZLIB_COMPRESSION) != null;
+    if (!zlib && array.getCVParam(NO_COMPRESSION) == null) {
+      // other compressions like numpress
+      return null;
+    }
+
+    try {
+      final long offset = Long.parseLong(offsetParam.getValueAsString().trim());
+      final int numValues = Integer.parseInt(lengthParam.getValueAsString().trim());
+      final CVParam encodedLengthParam = array.getCVParam(EXTERNAL_ENCODED_LENGTH);
+      final long encodedLength = encodedLengthParam != null ? Long.parseLong(
+          encodedLengthParam.getValueAsString().trim()) : (long) numValues * type.bytes;
+      return new ArrayRef(offset, numValues, encodedLength, type, zlib);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Decodes an array to doubles. Thread safe.
+   */
+  public double[] readDoubles(@NotNull ArrayRef ref) {
+    final double[] values = new double[ref.numValues()];
+    if (ref.numValues() == 0) {
+      return values;
+    }
+
+    MemorySegment segment = data.asSlice(ref.offset(), ref.encodedLength());
+    if (ref.zlib()) {
+      segment = MemorySegment.ofArray(inflate(segment, (long) ref.numValues() * ref.type().bytes));
+    }
+
+    switch (ref.type()) {
+      case FLOAT_64 -> MemorySegment.copy(segment, DOUBLE_LE, 0, values, 0, values.length);
+      case FLOAT_32 -> {
+        for (int i = 0; i < values.length; i++) {
+          values[i] = segment.getAtIndex(FLOAT_LE, i);
+        }
+      }
+      case INT_32 -> {
+        for (int i = 0; i < values.length; i++) {
+          values[i] = segment.getAtIndex(INT_LE, i);
+        }
+      }
+      case INT_64 -> {
+        for (int i = 0; i < values.length; i++) {
+          values[i] = segment.getAtIndex(LONG_LE, i);
+        }
+      }
+    }
+    return values;
+  }
+
+  private static byte[] inflate(MemorySegment compressed, long decodedBytes) {
+    final Inflater inflater = new Inflater();
+    try {
+      // buffers of shared arenas are not supported by the inflater, copy to heap
+      inflater.setInput(compressed.toArray(ValueLayout.JAVA_BYTE));
+      final byte[] decoded = new byte[Math.toIntExact(decodedBytes)];
+      int length = 0;
+      while (length < decoded.length && !inflater.finished()) {
+        final int n = inflater.inflate(decoded, length, decoded.length - length);
+        if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        length += n;
+      }
+      if (length != decoded.length) {
+        throw new IllegalStateException(
+            "Compressed imzML array decoded to %d bytes instead of %d".formatted(length,
+                decoded.length));
+      }
+      return decoded;
+    } catch (DataFormatException e) {
+      throw new IllegalStateException("Cannot decompress imzML array: " + e.getMessage(), e);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  @Override
+  public void close() {
+    arena.close();
+  }
+
+  enum DataType {
+    FLOAT_32(4), FLOAT_64(8), INT_32(4), INT_64(8);
+
+    private final int bytes;
+
+    DataType(int bytes) {
+      this.bytes = bytes;
+    }
+  }
+
+  /**
+   * Location of one binary array in the .ibd file
+   *
+   * @param offset        byte offset in the file
+   * @param numValues     number of values in the array
+   * @param encodedLength number of bytes in the file
+   */
+  record ArrayRef(long offset, int numValues, long encodedLength, DataType type, boolean zlib) {
+
+  }
+}
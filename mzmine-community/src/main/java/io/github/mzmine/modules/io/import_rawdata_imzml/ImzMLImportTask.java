@@ -46,10 +46,10 @@ import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.RawDataImportTask;
 import io.github.mzmine.datamodel.features.SimpleFeatureListAppliedMethod;
 import io.github.mzmine.datamodel.impl.SimpleImagingScan;
-import io.github.mzmine.datamodel.impl.SimpleScan;
 import io.github.mzmine.datamodel.impl.builders.SimpleBuildingScan;
 import io.github.mzmine.datamodel.impl.masslist.ScanPointerMassList;
 import io.github.mzmine.modules.MZmineModule;
+import io.github.mzmine.modules.io.import_rawdata_imzml.ImzMLBinaryReader.ArrayRef;
 import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.ScanImportProcessorConfig;
 import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.SimpleSpectralArrays;
 import io.github.mzmine.parameters.ParameterSet;
@@ -58,17 +58,22 @@ import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.TaskStatus;
 import io.github.mzmine.util.MemoryMapStorage;
 import io.github.mzmine.util.exceptions.ExceptionUtils;
+import io.github.mzmine.util.files.FileAndPathUtil;
 import io.github.mzmine.util.scans.ScanUtils;
 import java.io.File;
 import java.io.IOException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Hashtable;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -86,21 +91,17 @@ public class ImzMLImportTask extends AbstractTask implements RawDataImportTask {
   private final ImagingRawDataFile newMZmineFile;
   private final ParameterSet parameters;
   private final Class<? extends MZmineModule> module;
-  private int totalScans = 0, parsedScans;
+  private int totalScans = 0;
+  private final AtomicInteger parsedScans = new AtomicInteger(0);
 
   private int lastScanNumber = 0;
 
   private final Map<String, Integer> scanIdTable = new Hashtable<>();
 
-  /*
-   * This stack stores at most 20 consecutive scans. This window serves to find possible fragments
-   * (current scan) that belongs to any of the stored scans in the stack. The reason of the size
-   * follows the concept of neighborhood of scans and all his fragments. These solution is
-   * implemented because exists the possibility to find fragments of one scan after one or more full
-   * scans.
+  /**
+   * Pixels are decoded and processed in parallel chunks of this size
    */
-  private static final int PARENT_STACK_SIZE = 20;
-  private final LinkedList<SimpleScan> parentStack = new LinkedList<>();
+  private static final int PIXEL_CHUNK_SIZE = 512;
 
   public ImzMLImportTask(MZmineProject project, File fileToOpen,
       final @NotNull ScanImportProcessorConfig scanProcessorConfig,
@@ -118,7 +119,7 @@ public class ImzMLImportTask extends AbstractTask implements RawDataImportTask {
 
   @Override
   public double getFinishedPercentage() {
-    return totalScans == 0 ? 0 : (double) parsedScans / totalScans;
+    return totalScans == 0 ? 0 : (double) parsedScans.get() / totalScans;
   }
 
   /**
@@ -136,81 +137,35 @@ public class ImzMLImportTask extends AbstractTask implements RawDataImportTask {
 
       SpectrumList spectra = imzml.getRun().getSpectrumList();
       totalScans = spectra.size();
-      for (int i = 0; i < totalScans; i++) {
 
+      final File ibdFile = getIbdFile(file);
+      try (ImzMLBinaryReader reader = ibdFile.exists() ? ImzMLBinaryReader.open(ibdFile) : null) {
+        // metadata and binary array locations are read sequentially from the parsed imzML
+        final List<PixelSpectrum> pixels = collectPixelSpectra(spectra, reader != null);
         if (isCanceled()) {
           return;
         }
 
-        Spectrum spectrum = spectra.get(i);
-
-        // Ignore scans that are not MS, e.g. UV
-        if (!isMsSpectrum(spectrum)) {
-          parsedScans++;
-          continue;
-        }
-
-        String scanId = spectrum.getID();
-        int scanNumber = convertScanIdToScanNumber(scanId);
-
-        // Extract scan data
-        int msLevel = extractMSLevel(spectrum);
-        float retentionTime = extractRetentionTime(spectrum);
-        PolarityType polarity = extractPolarity(spectrum);
-        int parentScan = extractParentScanNumber(spectrum);
-        double precursorMz = extractPrecursorMz(spectrum);
-        int precursorCharge = extractPrecursorCharge(spectrum);
-        String scanDefinition = extractScanDefinition(spectrum);
-        // imaging
-        Coordinates coord = extractCoordinates(spectrum);
-
-        // TODO find out if spectrum type is encoded in imzml file
-        var metadataScan = new SimpleBuildingScan(scanNumber, msLevel, polarity,
-            MassSpectrumType.CENTROIDED, retentionTime, precursorMz, precursorCharge);
-        if (!scanProcessorConfig.scanFilter().matches(metadataScan)) {
-          // skip parsing of data and skip this scan completely
-          parsedScans++;
-          continue;
-        }
-
-        double[] mzValues = extractMzValues(spectrum);
-        double[] intensityValues = extractIntensityValues(spectrum);
-        // Auto-detect whether this scan is centroided
-        SimpleSpectralArrays data = new SimpleSpectralArrays(mzValues, intensityValues);
-        MassSpectrumType spectrumType = ScanUtils.detectSpectrumType(mzValues, intensityValues);
-
-        data = scanProcessorConfig.processor().processScan(metadataScan, data);
-
-        if (scanProcessorConfig.isMassDetectActive(msLevel)) {
-          spectrumType = MassSpectrumType.CENTROIDED;
-        }
-
-        SimpleImagingScan scan = new SimpleImagingScan(newMZmineFile, scanNumber, msLevel,
-            retentionTime, precursorMz, precursorCharge, data.mzs(), data.intensities(),
-            spectrumType, polarity, scanDefinition, null, coord);
-
-        if (scanProcessorConfig.isMassDetectActive(msLevel)) {
-          scan.addMassList(new ScanPointerMassList(scan));
+        // decoding and processing of the binary data runs in parallel chunks of pixels
+        final SimpleImagingScan[] scans = new SimpleImagingScan[pixels.size()];
+        final int numChunks = (pixels.size() + PIXEL_CHUNK_SIZE - 1) / PIXEL_CHUNK_SIZE;
+        IntStream.range(0, numChunks).parallel().forEach(chunk -> {
+          final int end = Math.min(pixels.size(), (chunk + 1) * PIXEL_CHUNK_SIZE);
+          for (int i = chunk * PIXEL_CHUNK_SIZE; i < end; i++) {
+            if (isCanceled()) {
+              return;
+            }
+            scans[i] = createScan(reader, pixels.get(i));
+            parsedScans.incrementAndGet();
+          }
+        });
+        if (isCanceled()) {
+          return;
         }
 
-        /*
-         * Verify the size of parentStack. The actual size of the window to cover possible
-         * candidates is defined by limitSize.
-         */
-        if (parentStack.size() > PARENT_STACK_SIZE) {
-          io.github.mzmine.datamodel.Scan firstScan = parentStack.removeLast();
-          newMZmineFile.addScan(firstScan);
+        for (SimpleImagingScan scan : scans) {
+          newMZmineFile.addScan(scan);
         }
-
-        parentStack.addFirst(scan);
-
-        parsedScans++;
-
-      }
-
-      while (!parentStack.isEmpty()) {
-        io.github.mzmine.datamodel.Scan scan = parentStack.removeLast();
-        newMZmineFile.addScan(scan);
       }
       newMZmineFile.getScans().sort(io.github.mzmine.datamodel.Scan::compareTo);
 
@@ -226,7 +181,7 @@ public class ImzMLImportTask extends AbstractTask implements RawDataImportTask {
       return;
     }
 
-    if (parsedScans == 0) {
+    if (parsedScans.get() == 0) {
       setStatus(TaskStatus.ERROR);
       setErrorMessage("No scans found");
       return;
@@ -237,6 +192,114 @@ public class ImzMLImportTask extends AbstractTask implements RawDataImportTask {
 
   }
 
+  /**
+   * Extracts the metadata of all MS spectra that pass the scan filter. Binary arrays are only
+   * located in the .ibd file if possible and otherwise read directly through the imzML library.
+   *
+   * @param locateArrays true if the .ibd file is memory mapped and arrays should be located
+   */
+  private List<PixelSpectrum> collectPixelSpectra(SpectrumList spectra, boolean locateArrays) {
+    final List<PixelSpectrum> pixels = new ArrayList<>(totalScans);
+    for (int i = 0; i < totalScans; i++) {
+
+      if (isCanceled()) {
+        return pixels;
+      }
+
+      Spectrum spectrum = spectra.get(i);
+
+      // Ignore scans that are not MS, e.g. UV
+      if (!isMsSpectrum(spectrum)) {
+        parsedScans.incrementAndGet();
+        continue;
+      }
+
+      String scanId = spectrum.getID();
+      int scanNumber = convertScanIdToScanNumber(scanId);
+
+      // Extract scan data
+      int msLevel = extractMSLevel(spectrum);
+      float retentionTime = extractRetentionTime(spectrum);
+      PolarityType polarity = extractPolarity(spectrum);
+      double precursorMz = extractPrecursorMz(spectrum);
+      int precursorCharge = extractPrecursorCharge(spectrum);
+      String scanDefinition = extractScanDefinition(spectrum);
+      // imaging
+      Coordinates coord = extractCoordinates(spectrum);
+
+      // TODO find out if spectrum type is encoded in imzml file
+      var metadataScan = new SimpleBuildingScan(scanNumber, msLevel, polarity,
+          MassSpectrumType.CENTROIDED, retentionTime, precursorMz, precursorCharge);
+      if (!scanProcessorConfig.scanFilter().matches(metadataScan)) {
+        // skip parsing of data and skip this scan completely
+        parsedScans.incrementAndGet();
+        continue;
+      }
+
+      final BinaryDataArrayList dataList = spectrum.getBinaryDataArrayList();
+      final ArrayRef mzRef =
+          locateArrays && dataList != null ? ImzMLBinaryReader.createRef(dataList.getmzArray())
+              : null;
+      final ArrayRef intensityRef =
+          locateArrays && dataList != null ? ImzMLBinaryReader.createRef(
+              dataList.getIntensityArray()) : null;
+
+      if (mzRef != null && intensityRef != null) {
+        pixels.add(
+            new PixelSpectrum(metadataScan, scanDefinition, coord, mzRef, intensityRef, null,
+                null));
+      } else {
+        pixels.add(new PixelSpectrum(metadataScan, scanDefinition, coord, null, null,
+            extractMzValues(spectrum), extractIntensityValues(spectrum)));
+      }
+    }
+    return pixels;
+  }
+
+  /**
+   * Decodes the binary data if needed and applies the scan processors. Called concurrently.
+   */
+  private SimpleImagingScan createScan(@Nullable ImzMLBinaryReader reader, PixelSpectrum pixel) {
+    final SimpleBuildingScan metadataScan = pixel.metadataScan();
+    final int msLevel = metadataScan.getMSLevel();
+
+    double[] mzValues = pixel.mzValues();
+    double[] intensityValues = pixel.intensityValues();
+    if (mzValues == null || intensityValues == null) {
+      Objects.requireNonNull(reader);
+      mzValues = reader.readDoubles(Objects.requireNonNull(pixel.mzRef()));
+      intensityValues = reader.readDoubles(Objects.requireNonNull(pixel.intensityRef()));
+    }
+
+    // Auto-detect whether this scan is centroided
+    SimpleSpectralArrays data = new SimpleSpectralArrays(mzValues, intensityValues);
+    MassSpectrumType spectrumType = ScanUtils.detectSpectrumType(mzValues, intensityValues);
+
+    data = scanProcessorConfig.processor().processScan(metadataScan, data);
+
+    if (scanProcessorConfig.isMassDetectActive(msLevel)) {
+      spectrumType = MassSpectrumType.CENTROIDED;
+    }
+
+    SimpleImagingScan scan = new SimpleImagingScan(newMZmineFile, metadataScan.getScanNumber(),
+        msLevel, metadataScan.getRetentionTime(), metadataScan.precursorMz,
+        metadataScan.precursorCharge, data.mzs(), data.intensities(), spectrumType,
+        metadataScan.getPolarity(), pixel.scanDefinition(), null, pixel.coordinates());
+
+    if (scanProcessorConfig.isMassDetectActive(msLevel)) {
+      scan.addMassList(new ScanPointerMassList(scan));
+    }
+    return scan;
+  }
+
+  /**
+   * The binary data file has the same name as the imzML file, only the trailing extension is
+   * replaced
+   */
+  static File getIbdFile(File imzmlFile) {
+    return new File(FileAndPathUtil.eraseFormat(imzmlFile).getPath() + ".ibd");
+  }
+
   private int convertScanIdToScanNumber(String scanId) {
 
     if (scanIdTable.containsKey(scanId)) {
@@ -476,4 +539,16 @@ public class ImzMLImportTask extends AbstractTask implements RawDataImportTask {
   public RawDataFile getImportedRawDataFile() {
     return getStatus() == TaskStatus.FINISHED ? newMZmineFile : null;
   }
+
+  /**
+   * Metadata of one pixel spectrum. The data is either located in the .ibd file by the array refs or
+   * was already read by the imzML library.
+   */
+  private record PixelSpectrum(@NotNull SimpleBuildingScan metadataScan,
+                               @NotNull String scanDefinition, @Nullable Coordinates coordinates,
+                               @Nullable ArrayRef mzRef, @Nullable ArrayRef intensityRef,
+                               double @Nullable [] mzValues,
+                               double @Nullable [] intensityValues) {
+
+  }
 }
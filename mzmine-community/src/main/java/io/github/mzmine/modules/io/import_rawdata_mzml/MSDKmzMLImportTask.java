@@ -78,6 +78,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
@@ -541,6 +542,14 @@ public class MSDKmzMLImportTask extends AbstractTask implements RawDataImportTas
    * @return a {@link MzMLRawDataFile MzMLRawDataFile} object containing the parsed data
    */
   public MzMLRawDataFile parseMzMl() throws MSDKException {
+    return parseMzMl(null);
+  }
+
+  /**
+   * @param spectrumDecoder decodes the spectra or null to use the default parallel decoder
+   * @return a {@link MzMLRawDataFile MzMLRawDataFile} object containing the parsed data
+   */
+  MzMLRawDataFile parseMzMl(@Nullable Executor spectrumDecoder) throws MSDKException {
     try {
       // comparison of woodstox and aalto:
       // woodstox seems to use less memory
@@ -561,7 +570,7 @@ public class MSDKmzMLImportTask extends AbstractTask implements RawDataImportTas
           // buffered reader had no performance gains. most likely because the XMLStreamReader already buffers
 //        BufferedReader br = new BufferedReader(reader, 8192*4);
           XMLStreamReader xmlStreamReader = factory.createXMLStreamReader(reader);
-          return parseMzMlInternal(xmlStreamReader);
+          return parseMzMlInternal(xmlStreamReader, spectrumDecoder);
         }
       } else if (file != null) {
         logger.finest("Began parsing file: " + file.getAbsolutePath());
@@ -570,7 +579,7 @@ public class MSDKmzMLImportTask extends AbstractTask implements RawDataImportTas
         try (var fis = Files.newInputStream(file.toPath()); Reader br = new InputStreamReader(fis,
             StandardCharsets.UTF_8)) {
           XMLStreamReader xmlStreamReader = factory.createXMLStreamReader(br);
-          return parseMzMlInternal(xmlStreamReader);
+          return parseMzMlInternal(xmlStreamReader, spectrumDecoder);
         }
       } else {
         throw new MSDKException("Invalid input");
@@ -580,9 +589,11 @@ public class MSDKmzMLImportTask extends AbstractTask implements RawDataImportTas
     }
   }
 
-  private MzMLRawDataFile parseMzMlInternal(XMLStreamReader xmlStreamReader) throws MSDKException {
+  private MzMLRawDataFile parseMzMlInternal(XMLStreamReader xmlStreamReader,
+      @Nullable Executor spectrumDecoder) throws MSDKException {
     try {
-      this.parser = new MzMLParser(this, storage, scanProcessorConfig);
+      this.parser = spectrumDecoder == null ? new MzMLParser(this, storage, scanProcessorConfig)
+          : new MzMLParser(this, storage, scanProcessorConfig, spectrumDecoder);
 
       int eventType;
       try {
@@ -110,6 +110,8 @@ public class BuildingMzMLMsScan extends MetadataOnlyScan {
 
   // mobility scans are memory mapped later
   private @Nullable SimpleSpectralArrays mobilityScanSimpleSpectralData;
+  // processed data of regular scans until it is memory mapped on the parsing thread
+  private @Nullable SimpleSpectralArrays processedSpectralData;
 
 
   /**
@@ -627,10 +629,25 @@ public class BuildingMzMLMsScan extends MetadataOnlyScan {
    * Called when spectrum end is read. Load, process data points and memory map resulting data to
    * disk to save RAM.
    *
-   * @return false if
+   * @return false if no data was loaded
    */
   public boolean loadProcessMemMapMzData(final MemoryMapStorage storage,
       final @NotNull ScanImportProcessorConfig config) {
+    if (!loadAndProcessMzData(config)) {
+      return false;
+    }
+    memoryMapProcessedMzData(storage);
+    return true;
+  }
+
+  /**
+   * Loads and processes the data points but does not memory map them. May run on other threads than
+   * the parser as it only changes this scan and the processors only hold immutable parameters.
+   * Call {@link #memoryMapProcessedMzData(MemoryMapStorage)} afterwards.
+   *
+   * @return false if no data was loaded
+   */
+  public boolean loadAndProcessMzData(final @NotNull ScanImportProcessorConfig config) {
     try {
       SimpleSpectralArrays specData = loadMzData();
       if (specData == null) {
@@ -650,10 +667,7 @@ public class BuildingMzMLMsScan extends MetadataOnlyScan {
         // cannot memory map mobility scan data as we need to do this later all mobility scans at once
         mobilityScanSimpleSpectralData = specData;
       } else {
-        // memory map regular scan data but not mobility scans
-        this.mzValues = StorageUtils.storeValuesToDoubleBuffer(storage, specData.mzs());
-        this.intensityValues = StorageUtils.storeValuesToDoubleBuffer(storage,
-            specData.intensities());
+        processedSpectralData = specData;
       }
 
     } catch (MSDKException | IOException e) {
@@ -663,6 +677,21 @@ public class BuildingMzMLMsScan extends MetadataOnlyScan {
     return true;
   }
 
+  /**
+   * Memory maps the data of {@link #loadAndProcessMzData(ScanImportProcessorConfig)} for regular
+   * scans. Mobility scans are memory mapped later for the whole frame.
+   */
+  public void memoryMapProcessedMzData(final MemoryMapStorage storage) {
+    final SimpleSpectralArrays specData = processedSpectralData;
+    if (specData == null) {
+      return;
+    }
+    this.mzValues = StorageUtils.storeValuesToDoubleBuffer(storage, specData.mzs());
+    this.intensityValues = StorageUtils.storeValuesToDoubleBuffer(storage,
+        specData.intensities());
+    processedSpectralData = null;
+  }
+
   /**
    * loads data for mzml scan entries that were created using the --combineMobilityScans option.
    * Splits the combined data into individual scans and memory maps the data.
@@ -32,11 +32,19 @@ import io.github.mzmine.util.MemoryMapStorage;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -74,8 +82,34 @@ public class MzMLParser {
       .collect(Collectors.toMap(MzMLArrayType::getAccession, Function.identity()));
   private int totalScans = 0, parsedScans = 0;
 
+  /**
+   * Maximum number of spectra that are read but not yet decoded. Each holds its encoded binary data
+   * in memory.
+   */
+  private static final int MAX_PENDING_SPECTRA = 256;
+
+  /**
+   * Decodes and processes spectra of all mzML imports. Separate from the common pool and bounded to
+   * the number of processors, as multiple files may be imported at the same time.
+   */
+  private static final ExecutorService SPECTRUM_DECODER = createSpectrumDecoder();
+
+  private final Executor spectrumDecoder;
+
   public MzMLParser(MSDKmzMLImportTask importer, MemoryMapStorage storage,
       @NotNull ScanImportProcessorConfig scanProcessorConfig) {
+    this(importer, storage, scanProcessorConfig, SPECTRUM_DECODER);
+  }
+
+  /**
+   * @param spectrumDecoder decodes and processes the data of regular spectra. Memory mapping always
+   *                        happens on the parsing thread in the order of the file, so the storage is
+   *                        only used by one thread. The scan processors only hold immutable
+   *                        parameters and are shared by all decoding threads.
+   */
+  public MzMLParser(MSDKmzMLImportTask importer, MemoryMapStorage storage,
+      @NotNull ScanImportProcessorConfig scanProcessorConfig, @NotNull Executor spectrumDecoder) {
+    this.spectrumDecoder = spectrumDecoder;
     this.vars = new Vars();
     this.tracker = new TagTracker();
     mzMLFile = importer.getMzMLFile();
@@ -512,6 +546,7 @@ public class MzMLParser {
     }
     if (closingTagName.contentEquals(MzMLTags.TAG_SPECTRUM_LIST)) {
       // finished the last scan
+      addFinishedSpectra(true);
       vars.memoryMapAndClearFrameMobilityScanData(storage);
     } else if (tracker.inside(MzMLTags.TAG_CHROMATOGRAM_LIST)) {
       if (closingTagName.contentEquals(MzMLTags.TAG_CHROMATOGRAM)) {
@@ -523,30 +558,92 @@ public class MzMLParser {
     }
   }
 
+  private static ExecutorService createSpectrumDecoder() {
+    final AtomicInteger threadNumber = new AtomicInteger();
+    return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), runnable -> {
+      final Thread thread = new Thread(runnable,
+          "mzML-spectrum-decoder-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
   /**
    * Called when spectrum end is read. Check if spectrum is filtered - skip this scan if not in
    * filter. Then process data points and memory map resulting data to disk to save RAM.
+   * <p>
+   * Decoding and processing of regular MS spectra is done on the {@link #spectrumDecoder} so that
+   * the XML stream is read while previous spectra are decoded on other threads. Spectra are memory
+   * mapped and added in the order of the file in {@link #addFinishedSpectra(boolean)}.
    */
   private void filterProcessFinalizeScan() {
     var spectrum = vars.spectrum;
 //    logger.info(STR."Finalizing scan \{spectrum.getScanNumber()}");
+    vars.spectrum = null;
     if (spectrum.isUVSpectrum()) {
+      // keep order of spectra
+      addFinishedSpectra(true);
       if (spectrum.loadProcessMemMapUvData(storage, scanProcessorConfig)) {
         vars.addSpectrumToList(storage, spectrum);
       }
-      vars.spectrum = null;
       return;
     }
 
     if (scanProcessorConfig.scanFilter().matches(spectrum)) {
       if (spectrum.isMergedMobilitySpectrum()) {
+        addFinishedSpectra(true);
         vars.mobilityScanData.add(
             spectrum.loadProccessMemMapMzDataForMergedMobilityScan(storage, scanProcessorConfig));
-      } else if (spectrum.loadProcessMemMapMzData(storage, scanProcessorConfig)) {
-        vars.addSpectrumToList(storage, spectrum);
+      } else {
+        final FutureTask<Boolean> loaded = new FutureTask<>(
+            () -> spectrum.loadAndProcessMzData(scanProcessorConfig));
+        spectrumDecoder.execute(loaded);
+        vars.pendingSpectra.add(new PendingSpectrum(spectrum, loaded));
+        // limit the memory of spectra waiting for decoding
+        addFinishedSpectra(vars.pendingSpectra.size() >= MAX_PENDING_SPECTRA);
       }
     }
-    vars.spectrum = null;
+  }
+
+  /**
+   * Adds all decoded spectra to the spectrum list in their original order. Stops at the first
+   * spectrum that is still decoding unless waitForAll is true.
+   *
+   * @param waitForAll wait until all pending spectra are decoded
+   */
+  private void addFinishedSpectra(boolean waitForAll) {
+    PendingSpectrum pending;
+    while ((pending = vars.pendingSpectra.peek()) != null) {
+      if (!waitForAll && !pending.loaded().isDone()) {
+        return;
+      }
+      vars.pendingSpectra.poll();
+      if (awaitLoaded(pending.loaded())) {
+        pending.spectrum().memoryMapProcessedMzData(storage);
+        vars.addSpectrumToList(storage, pending.spectrum());
+      }
+    }
+  }
+
+  /**
+   * @return true if data was loaded. Exceptions of the decoding thread are rethrown unwrapped.
+   */
+  private static boolean awaitLoaded(Future<Boolean> loaded) {
+    try {
+      return loaded.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while decoding mzML spectra", e);
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      if (cause instanceof Error error) {
+        throw error;
+      }
+      throw new IllegalStateException(cause);
+    }
   }
 
   /**
@@ -672,6 +769,8 @@ public class MzMLParser {
    * @return a {@link MzMLRawDataFile MzMLRawDataFile} containing the parsed data
    */
   public MzMLRawDataFile getMzMLRawFile() {
+    // usually already done at the end of the spectrum list
+    addFinishedSpectra(true);
     final List<BuildingMzMLMsScan> msSpectra = vars.spectrumList.stream()
         .filter(BuildingMzMLMsScan::isMassSpectrum).toList();
     newRawFile.setMsScans(msSpectra);
@@ -736,6 +835,11 @@ public class MzMLParser {
 
     int nextFrameStartScanIndex = 0;
 
+    /**
+     * Spectra that are decoded asynchronously in the order of the file
+     */
+    final ArrayDeque<PendingSpectrum> pendingSpectra = new ArrayDeque<>();
+
     Vars() {
       defaultArrayLength = 0;
       skipBinaryDataArray = false;
@@ -797,4 +901,11 @@ public class MzMLParser {
       mobilityScans.clear();
     }
   }
+
+  /**
+   * @param loaded true if data was loaded, false if the spectrum should be skipped
+   */
+  private record PendingSpectrum(BuildingMzMLMsScan spectrum, Future<Boolean> loaded) {
+
+  }
 }
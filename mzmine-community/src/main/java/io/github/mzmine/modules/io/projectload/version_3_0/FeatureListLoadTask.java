@@ -25,6 +25,8 @@
 
 package io.github.mzmine.modules.io.projectload.version_3_0;
 
+import static java.util.Objects.requireNonNullElse;
+
 import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.RawDataFile;
 import io.github.mzmine.datamodel.Scan;
@@ -36,6 +38,8 @@ import io.github.mzmine.datamodel.features.SimpleFeatureListAppliedMethod;
 import io.github.mzmine.datamodel.features.types.DataType;
 import io.github.mzmine.datamodel.features.types.DataTypes;
 import io.github.mzmine.datamodel.features.types.numbers.IDType;
+import io.github.mzmine.gui.preferences.MZminePreferences;
+import io.github.mzmine.main.ConfigService;
 import io.github.mzmine.main.MZmineCore;
 import io.github.mzmine.modules.io.projectload.CachedIMSRawDataFile;
 import io.github.mzmine.modules.io.projectsave.FeatureListSaveTask;
@@ -58,7 +62,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
@@ -89,10 +92,9 @@ public class FeatureListLoadTask extends AbstractTask {
       "([^\\n]+)(" + FeatureListSaveTask.DATA_FILE_SUFFIX + ")");
 
   private static final Logger logger = Logger.getLogger(FeatureListLoadTask.class.getName());
-  final String idTypeUniqueID = new IDType().getUniqueID();
+  private static final String idTypeUniqueID = new IDType().getUniqueID();
   private final ZipFile zip;
   private final MZmineProject project;
-  private final AtomicInteger rowCounter = new AtomicInteger(0);
   private int totalRows = 1;
   private int processedRows = 0;
   private String currentFlist = "";
@@ -165,6 +167,11 @@ public class FeatureListLoadTask extends AbstractTask {
       }
 
       numFlists = files.length;
+      final boolean loadRowsOnDemand = requireNonNullElse(
+          ConfigService.getPreference(MZminePreferences.loadFeatureListsOnDemand), false);
+      if (loadRowsOnDemand) {
+        logger.info("Loading the rows of feature lists on demand.");
+      }
 
       final MemoryMapStorage storage = MemoryMapStorage.forFeatureList();
 
@@ -175,11 +182,24 @@ public class FeatureListLoadTask extends AbstractTask {
         if (isCanceled()) {
           return;
         }
-        rowCounter.set(0);
 
         final File metadataFile = new File(flistFile.toString()
             .replace(FeatureListSaveTask.DATA_FILE_SUFFIX,
                 FeatureListSaveTask.METADATA_FILE_SUFFIX));
+        if (loadRowsOnDemand) {
+          final ModularFeatureList flist = readMetadataCreateFeatureList(metadataFile, storage);
+          if (flist == null) {
+            logger.severe(() -> "Cannot load feature list from file " + metadataFile);
+            continue;
+          }
+          flist.replaceCachedFilesAndScans();
+          flist.setRowsLoader(new FeatureListRowsOnDemandLoader(project, flistFile),
+              readNumberOfRows(flistFile));
+          project.addFeatureList(flist);
+          processedFlists++;
+          continue;
+        }
+
         ModularFeatureList flist = createRows(storage, flistFile, metadataFile);
 
         if (flist == null) {
@@ -238,7 +258,8 @@ public class FeatureListLoadTask extends AbstractTask {
                       + reader.getAttributeValue(null, CONST.XML_FLIST_NAME_ATTR));
             }
           } else if (CONST.XML_ROW_ELEMENT.equals(localName)) {
-            parseRow(reader, storage, project, flist);
+            parseRow(reader, storage, project, flist,
+                (ModularFeatureListRow) flist.getRow(processedRows));
             processedRows++;
           }
         }
@@ -270,6 +291,20 @@ public class FeatureListLoadTask extends AbstractTask {
       throw new IllegalStateException("Cannot create feature list.");
     }
 
+    try {
+      createEmptyRows(flist, dataFile);
+    } catch (IOException | XMLStreamException e) {
+      logger.log(Level.WARNING, e.getMessage(), e);
+      return null;
+    }
+    return flist;
+  }
+
+  /**
+   * Passes the feature list data file once and creates the rows with the associated ids.
+   */
+  static void createEmptyRows(ModularFeatureList flist, File dataFile)
+      throws IOException, XMLStreamException {
     try (InputStream fis = new FileInputStream(dataFile)) {
       final XMLInputFactory xif = XMLInputFactory.newInstance();
       final XMLStreamReader reader = xif.createXMLStreamReader(fis);
@@ -284,14 +319,31 @@ public class FeatureListLoadTask extends AbstractTask {
           flist.addRow(new ModularFeatureListRow(flist, id));
         }
       }
-    } catch (IOException | XMLStreamException e) {
-      logger.log(Level.WARNING, e.getMessage(), e);
-      return null;
     }
 
     logger.finest(
         () -> "Created " + flist.getNumberOfRows() + " rows in feature list " + flist.getName());
-    return flist;
+  }
+
+  /**
+   * Reads the number of rows from the feature list element at the start of the data file.
+   *
+   * @return the number of rows or -1 if the data file does not specify it
+   */
+  private static int readNumberOfRows(File dataFile) {
+    try (InputStream fis = new FileInputStream(dataFile)) {
+      final XMLStreamReader reader = XMLInputFactory.newInstance().createXMLStreamReader(fis);
+      while (reader.hasNext()) {
+        if (reader.next() == XMLEvent.START_ELEMENT && CONST.XML_FEATURE_LIST_ELEMENT.equals(
+            reader.getLocalName())) {
+          final String numRows = reader.getAttributeValue(null, CONST.XML_NUM_ROWS_ATTR);
+          return numRows != null ? Integer.parseInt(numRows) : -1;
+        }
+      }
+    } catch (IOException | XMLStreamException | NumberFormatException e) {
+      logger.log(Level.WARNING, "Cannot read number of rows from " + dataFile, e);
+    }
+    return -1;
   }
 
   /**
@@ -392,14 +444,20 @@ public class FeatureListLoadTask extends AbstractTask {
     }
   }
 
-  private void parseRow(XMLStreamReader reader, MemoryMapStorage storage, MZmineProject project,
-      ModularFeatureList flist) throws XMLStreamException {
+  /**
+   * Parses the values and features of a row. The reader has to be positioned at the start of the
+   * row element.
+   *
+   * @param row the row created by {@link #createEmptyRows(ModularFeatureList, File)} for this row
+   *            element
+   */
+  static void parseRow(XMLStreamReader reader, MemoryMapStorage storage, MZmineProject project,
+      ModularFeatureList flist, ModularFeatureListRow row) throws XMLStreamException {
     if (!reader.getLocalName().equals(CONST.XML_ROW_ELEMENT)) {
       throw new IllegalStateException("Cannot parse row if current element is not a row element");
     }
 
     int id = Integer.parseInt(reader.getAttributeValue(null, idTypeUniqueID));
-    final ModularFeatureListRow row = (ModularFeatureListRow) flist.getRow(rowCounter.get());
     if (id != row.getID()) {
       throw new IllegalStateException("Row ids do not match.");
     }
@@ -435,10 +493,9 @@ public class FeatureListLoadTask extends AbstractTask {
         }
       }
     }
-    rowCounter.getAndIncrement();
   }
 
-  private void parseFeature(@NotNull XMLStreamReader reader, @Nullable MemoryMapStorage storage,
+  private static void parseFeature(@NotNull XMLStreamReader reader, @Nullable MemoryMapStorage storage,
       MZmineProject project, @NotNull ModularFeatureList flist, @NotNull ModularFeatureListRow row,
       @NotNull RawDataFile file) throws XMLStreamException {
 
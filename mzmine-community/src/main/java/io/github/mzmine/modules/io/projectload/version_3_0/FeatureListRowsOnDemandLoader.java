@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.io.projectload.version_3_0;
+
+import io.github.mzmine.datamodel.MZmineProject;
+import io.github.mzmine.datamodel.features.FeatureListRowsLoader;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Logger;
+import javax.management.NotificationEmitter;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.XMLEvent;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Loads the rows of a feature list from the unzipped data file of a project on first access. The
+ * empty rows are created in one pass over the file, so that rows can reference each other by their
+ * id. The file is then split into blocks of row elements that are parsed in parallel. Loading
+ * fails if any row element cannot be parsed completely.
+ * <p>
+ * Loaded feature lists are unloaded again by {@link ModularFeatureList#unloadRows()} when the heap
+ * is almost full after a garbage collection. Only feature lists that are unchanged since loading
+ * and were not used since the previous garbage collection above the threshold are unloaded.
+ */
+class FeatureListRowsOnDemandLoader implements FeatureListRowsLoader {
+
+  private static final Logger logger = Logger.getLogger(
+      FeatureListRowsOnDemandLoader.class.getName());
+
+  static final int ROWS_PER_BLOCK = 200;
+  private static final byte[] ROW_START_TAG = ("<" + CONST.XML_ROW_ELEMENT + " ").getBytes(
+      StandardCharsets.UTF_8);
+  /**
+   * Root element for the row elements of a block. The block is not closed as parsing stops after
+   * the last row.
+   */
+  private static final byte[] BLOCK_ROOT = "<rows>".getBytes(StandardCharsets.UTF_8);
+  /**
+   * Fraction of the maximum heap size that triggers unloading after a garbage collection
+   */
+  private static final double MEMORY_THRESHOLD = 0.85;
+
+  /**
+   * Feature lists loaded by this loader
+   */
+  private static final Set<ModularFeatureList> loadedFeatureLists = Collections.synchronizedSet(
+      Collections.newSetFromMap(new WeakHashMap<>()));
+  private static boolean memoryListenerRegistered = false;
+
+  private final @NotNull MZmineProject project;
+  private final @NotNull File dataFile;
+
+  FeatureListRowsOnDemandLoader(@NotNull MZmineProject project, @NotNull File dataFile) {
+    this.project = project;
+    this.dataFile = dataFile;
+    registerMemoryListener();
+  }
+
+  @Override
+  public void loadRows(@NotNull ModularFeatureList flist) throws IOException, XMLStreamException {
+    logger.fine(() -> "Loading rows of feature list %s from %s".formatted(flist.getName(),
+        dataFile.getAbsolutePath()));
+    FeatureListLoadTask.createEmptyRows(flist, dataFile);
+    final List<ModularFeatureListRow> rows = flist.modularStream().toList();
+
+    // parse a few blocks per thread at once to limit the memory of the blocks
+    final int blocksPerBatch = Runtime.getRuntime().availableProcessors() * 4;
+    final List<RowBlock> batch = new ArrayList<>(blocksPerBatch);
+    try (InputStream is = new FileInputStream(dataFile)) {
+      final RowBlockReader blockReader = new RowBlockReader(is);
+      RowBlock block;
+      while ((block = blockReader.next()) != null) {
+        batch.add(block);
+        if (batch.size() >= blocksPerBatch) {
+          parseBlocks(flist, rows, batch);
+          batch.clear();
+        }
+      }
+      parseBlocks(flist, rows, batch);
+      if (blockReader.getNumberOfRows() != rows.size()) {
+        throw new IOException(
+            "Found %d row elements for %d rows of feature list %s in %s".formatted(
+                blockReader.getNumberOfRows(), rows.size(), flist.getName(),
+                dataFile.getAbsolutePath()));
+      }
+    }
+    loadedFeatureLists.add(flist);
+  }
+
+  /**
+   * Unloads loaded feature lists when the heap is almost full after a garbage collection. Uses the
+   * collection usage threshold of the heap pools that support it (the old generation).
+   */
+  private static synchronized void registerMemoryListener() {
+    if (memoryListenerRegistered) {
+      return;
+    }
+    memoryListenerRegistered = true;
+
+    boolean thresholdSet = false;
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      final long max = pool.getUsage().getMax();
+      if (pool.getType() == MemoryType.HEAP && pool.isCollectionUsageThresholdSupported()
+          && max > 0) {
+        pool.setCollectionUsageThreshold((long) (max * MEMORY_THRESHOLD));
+        thresholdSet = true;
+      }
+    }
+    if (!thresholdSet) {
+      logger.fine("Cannot unload feature lists on low memory, no heap pool supports thresholds.");
+      return;
+    }
+
+    final NotificationEmitter emitter = (NotificationEmitter) ManagementFactory.getMemoryMXBean();
+    emitter.addNotificationListener((notification, _) -> {
+      if (MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(
+          notification.getType())) {
+        unloadFeatureLists();
+      }
+    }, null, null);
+  }
+
+  /**
+   * Unloads all loaded feature lists that are unchanged and were not used since the last call
+   */
+  static void unloadFeatureLists() {
+    final List<ModularFeatureList> flists;
+    synchronized (loadedFeatureLists) {
+      flists = List.copyOf(loadedFeatureLists);
+    }
+    int unloaded = 0;
+    for (ModularFeatureList flist : flists) {
+      if (flist.unloadRows()) {
+        loadedFeatureLists.remove(flist);
+        unloaded++;
+      }
+    }
+    if (unloaded > 0) {
+      logger.info("Low memory: unloaded the rows of %d feature lists".formatted(unloaded));
+    }
+  }
+
+  private void parseBlocks(@NotNull ModularFeatureList flist,
+      @NotNull List<ModularFeatureListRow> rows, @NotNull List<RowBlock> blocks)
+      throws XMLStreamException {
+    try {
+      blocks.parallelStream()
+          .forEach(block -> flist.runAsRowsLoader(() -> parseBlock(flist, rows, block)));
+    } catch (RowParsingException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * @throws RowParsingException if a row cannot be parsed or the block ends before its last row
+   */
+  private void parseBlock(@NotNull ModularFeatureList flist,
+      @NotNull List<ModularFeatureListRow> rows, @NotNull RowBlock block) {
+    final InputStream is = new SequenceInputStream(new ByteArrayInputStream(BLOCK_ROOT),
+        new ByteArrayInputStream(block.data(), 0, block.length()));
+    int rowIndex = block.firstRow();
+    final int endRow = block.firstRow() + block.numRows();
+    try {
+      final XMLStreamReader reader = XMLInputFactory.newInstance()
+          .createXMLStreamReader(is, StandardCharsets.UTF_8.name());
+      while (rowIndex < endRow && reader.hasNext()) {
+        if (reader.next() == XMLEvent.START_ELEMENT && CONST.XML_ROW_ELEMENT.equals(
+            reader.getLocalName())) {
+          FeatureListLoadTask.parseRow(reader, flist.getMemoryMapStorage(), project, flist,
+              rows.get(rowIndex));
+          rowIndex++;
+        }
+      }
+      if (rowIndex < endRow) {
+        throw new XMLStreamException(
+            "Block ends after row %d of %d".formatted(rowIndex, endRow));
+      }
+    } catch (XMLStreamException e) {
+      throw new RowParsingException(new XMLStreamException(
+          "Cannot parse row %d of feature list %s: %s".formatted(rowIndex, flist.getName(),
+              e.getMessage()), e));
+    }
+  }
+
+  /**
+   * Carries the parsing error of a block out of the parallel stream
+   */
+  private static class RowParsingException extends RuntimeException {
+
+    private RowParsingException(@NotNull XMLStreamException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized XMLStreamException getCause() {
+      return (XMLStreamException) super.getCause();
+    }
+  }
+
+  /**
+   * A block of complete row elements
+   *
+   * @param firstRow index of the first row in the feature list
+   * @param numRows  number of row elements in the block
+   */
+  record RowBlock(int firstRow, int numRows, byte[] data, int length) {
+
+  }
+
+  /**
+   * Splits the data file into blocks of row elements at the row start tags. The writer escapes all
+   * '<' in text and attributes, so the tag only occurs at the start of row elements. The content
+   * before the first row is skipped, the last block may contain the end of the feature list
+   * element.
+   */
+  static class RowBlockReader {
+
+    private final InputStream is;
+    private final byte[] buffer = new byte[1 << 16];
+    private int bufferLength = 0;
+    private int bufferPos = 0;
+    private boolean endOfStream = false;
+    private int nextFirstRow = 0;
+    // the start tag of the next block that was already read
+    private boolean pendingRowStart = false;
+
+    RowBlockReader(@NotNull InputStream is) {
+      this.is = is;
+    }
+
+    /**
+     * @return the next block or null if there are no more rows
+     */
+    @Nullable RowBlock next() throws IOException {
+      byte[] data = new byte[1 << 16];
+      int length = 0;
+      int numRows = 0;
+      if (pendingRowStart) {
+        System.arraycopy(ROW_START_TAG, 0, data, 0, ROW_START_TAG.length);
+        length = ROW_START_TAG.length;
+        numRows = 1;
+        pendingRowStart = false;
+      }
+      int matched = 0;
+
+      while (fillBuffer()) {
+        final byte b = buffer[bufferPos++];
+        if (length == data.length) {
+          data = Arrays.copyOf(data, data.length * 2);
+        }
+        data[length++] = b;
+
+        matched = b == ROW_START_TAG[matched] ? matched + 1 : (b == ROW_START_TAG[0] ? 1 : 0);
+        if (matched < ROW_START_TAG.length) {
+          continue;
+        }
+        matched = 0;
+        if (numRows == 0) {
+          // skip everything before the first row
+          System.arraycopy(ROW_START_TAG, 0, data, 0, ROW_START_TAG.length);
+          length = ROW_START_TAG.length;
+          numRows = 1;
+        } else if (numRows == ROWS_PER_BLOCK) {
+          // start of the next block
+          pendingRowStart = true;
+          return createBlock(data, length - ROW_START_TAG.length, numRows);
+        } else {
+          numRows++;
+        }
+      }
+      return numRows == 0 ? null : createBlock(data, length, numRows);
+    }
+
+    /**
+     * @return the number of row elements read so far
+     */
+    int getNumberOfRows() {
+      return nextFirstRow;
+    }
+
+    private RowBlock createBlock(byte[] data, int length, int numRows) {
+      final RowBlock block = new RowBlock(nextFirstRow, numRows, data, length);
+      nextFirstRow += numRows;
+      return block;
+    }
+
+    /**
+     * @return true if there is at least one byte left
+     */
+    private boolean fillBuffer() throws IOException {
+      if (bufferPos < bufferLength) {
+        return true;
+      }
+      if (endOfStream) {
+        return false;
+      }
+      bufferLength = is.read(buffer);
+      bufferPos = 0;
+      if (bufferLength <= 0) {
+        endOfStream = true;
+        bufferLength = 0;
+        return false;
+      }
+      return true;
+    }
+  }
+}
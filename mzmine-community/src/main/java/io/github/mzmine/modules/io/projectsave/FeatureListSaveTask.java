@@ -39,23 +39,20 @@ import io.github.mzmine.datamodel.features.types.numbers.IDType;
 import io.github.mzmine.modules.io.projectload.version_3_0.CONST;
 import io.github.mzmine.taskcontrol.AbstractTask;
 import io.github.mzmine.taskcontrol.TaskStatus;
+import io.github.mzmine.datamodel.features.columnar_data.ColumnarModularDataModelSchema;
 import io.github.mzmine.util.ParsingUtils;
-import io.github.mzmine.util.StreamCopy;
 import io.github.mzmine.util.XMLUtils;
+import io.github.mzmine.util.ZipUtils;
 import io.github.mzmine.util.files.FileAndPathUtil;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.OutputStream;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 import javafx.collections.ObservableList;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
@@ -64,11 +61,18 @@ import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamWriter;
 import javax.xml.transform.TransformerException;
+import org.apache.commons.compress.archivers.zip.ScatterZipOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 
+/**
+ * Serializes and compresses a feature list into temporary files. This is independent of other
+ * feature lists and may run in parallel. The compressed entries are then added to the project zip
+ * by {@link #writeToZip(ZipArchiveOutputStream)}.
+ */
 public class FeatureListSaveTask extends AbstractTask {
 
   public static final String METADATA_FILE_SUFFIX = "_metadata.xml";
@@ -78,17 +82,22 @@ public class FeatureListSaveTask extends AbstractTask {
   private static final IDType idType = new IDType();
 
   private final ModularFeatureList flist;
-  private final ZipOutputStream zos;
+  private final String flistName;
   private final int rows;
-  private final StreamCopy copy;
   private int processedRows = 0;
-
-  public FeatureListSaveTask(ModularFeatureList flist, ZipOutputStream zos) {
+  private File dataFile;
+  private File metadataFile;
+  /**
+   * The deflated entries of this feature list
+   */
+  private ScatterZipOutputStream compressedEntries;
+
+  public FeatureListSaveTask(ModularFeatureList flist) {
     super(null, Instant.now());
     this.flist = flist;
-    this.zos = zos;
+    // the name defines the zip entries, keep the name of the serialized state
+    flistName = flist.getName();
     rows = flist.getNumberOfRows();
-    copy = new StreamCopy();
   }
 
   public static String getDataFileName(String flistname) {
@@ -106,22 +115,78 @@ public class FeatureListSaveTask extends AbstractTask {
 
   @Override
   public double getFinishedPercentage() {
-    return (((double) processedRows / rows) + copy.getProgress()) / 2;
+    return (((double) processedRows / rows) + (compressedEntries != null ? 1 : 0)) / 2;
   }
 
   @Override
   public void run() {
     setStatus(TaskStatus.PROCESSING);
 
-    if (!saveFeatureData()) {
+    // reading the values to save them does not change the feature list
+    if (!ColumnarModularDataModelSchema.withUntrackedReads(this::saveFeatureData)) {
+      return;
+    }
+    if (!saveAppliedMethods()) {
+      dataFile.delete();
+      return;
+    }
+    if (!compressEntries()) {
       return;
     }
-
-    saveAppliedMethods();
 
     setStatus(TaskStatus.FINISHED);
   }
 
+  public ModularFeatureList getFeatureList() {
+    return flist;
+  }
+
+  /**
+   * Adds the compressed feature list to the project file without compressing it again and deletes
+   * the temporary files. Requires this task to be finished.
+   */
+  public void writeToZip(ZipArchiveOutputStream zos) throws IOException {
+    if (getStatus() != TaskStatus.FINISHED) {
+      throw new IllegalStateException("Feature list " + flistName + " was not serialized.");
+    }
+    try (ScatterZipOutputStream entries = compressedEntries) {
+      entries.writeTo(zos);
+    }
+  }
+
+  /**
+   * Deflates the serialized files on this thread so that only the compressed bytes are copied into
+   * the project zip.
+   */
+  private boolean compressEntries() {
+    File tempFile = null;
+    try {
+      tempFile = FileAndPathUtil.createTempFile("mzmine_featurelist_compressed", ".tmp");
+      final ScatterZipOutputStream entries = ScatterZipOutputStream.fileBased(tempFile);
+      try {
+        entries.addArchiveEntry(
+            ZipUtils.createDeflateRequest(dataFile, getDataFileName(flistName)));
+        entries.addArchiveEntry(
+            ZipUtils.createDeflateRequest(metadataFile, getMetadataFileName(flistName)));
+      } catch (IOException | RuntimeException e) {
+        entries.close();
+        throw e;
+      }
+      compressedEntries = entries;
+      return true;
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.SEVERE, "Cannot compress feature list " + flistName, e);
+      if (tempFile != null) {
+        tempFile.delete();
+      }
+      setStatus(TaskStatus.ERROR);
+      return false;
+    } finally {
+      dataFile.delete();
+      metadataFile.delete();
+    }
+  }
+
   private boolean saveAppliedMethods() {
     logger.finest(() -> "Creating temporary file for feature list " + flist.getName() + ".");
     File tempFile;
@@ -143,15 +208,10 @@ public class FeatureListSaveTask extends AbstractTask {
       appendMetadata(document, root, flist);
 
       XMLUtils.saveToFile(tempFile, document);
-        zos.putNextEntry(new ZipEntry(getMetadataFileName(flist.getName())));
-
-        try (InputStream is = new FileInputStream(tempFile)) {
-          copy.copy(is, zos);
-      }
-
-      tempFile.delete();
+      metadataFile = tempFile;
     } catch (ParserConfigurationException | TransformerException | IOException e) {
       logger.log(Level.SEVERE, e.getMessage(), e);
+      tempFile.delete();
       setStatus(TaskStatus.ERROR);
       return false;
     }
@@ -253,6 +313,7 @@ public class FeatureListSaveTask extends AbstractTask {
       writer.close();
     } catch (IOException | XMLStreamException e) {
       logger.log(Level.SEVERE, e.getMessage(), e);
+      tempFile.delete();
       setStatus(TaskStatus.ERROR);
       return false;
     }
@@ -262,16 +323,7 @@ public class FeatureListSaveTask extends AbstractTask {
       return false;
     }
 
-      try (FileInputStream is = new FileInputStream(tempFile)) {
-        zos.putNextEntry(new ZipEntry(getDataFileName(flist.getName())));
-        copy.copy(is, zos);
-      } catch (IOException e) {
-        logger.log(Level.SEVERE, e.getMessage(), e);
-        setStatus(TaskStatus.ERROR);
-        return false;
-    }
-
-//    tempFile.delete();
+    dataFile = tempFile;
     return true;
   }
 
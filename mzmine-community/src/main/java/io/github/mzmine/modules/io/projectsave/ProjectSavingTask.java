@@ -35,6 +35,7 @@ import io.github.mzmine.modules.tools.siriusapi.Sirius;
 import io.github.mzmine.parameters.ParameterSet;
 import io.github.mzmine.project.impl.MZmineProjectImpl;
 import io.github.mzmine.taskcontrol.AbstractTask;
+import io.github.mzmine.taskcontrol.Task;
 import io.github.mzmine.taskcontrol.TaskStatus;
 import io.github.mzmine.util.StreamCopy;
 import io.github.mzmine.util.exceptions.ExceptionUtils;
@@ -42,21 +43,26 @@ import io.github.mzmine.util.files.FileAndPathUtil;
 import io.github.mzmine.util.io.SemverVersionReader;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 import javax.xml.parsers.ParserConfigurationException;
-import javax.xml.transform.TransformerConfigurationException;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
 import org.jetbrains.annotations.NotNull;
-import org.xml.sax.SAXException;
+import org.jetbrains.annotations.Nullable;
 
 public class ProjectSavingTask extends AbstractTask {
 
@@ -72,6 +78,17 @@ public class ProjectSavingTask extends AbstractTask {
   private final int finishedSaveItems = 0;
   // This hashtable maps raw data files to their ID within the saved project
   private final Hashtable<RawDataFile, String> dataFilesIDMap;
+  /**
+   * Feature lists and their state in the last project file they were saved to. Used for
+   * incremental saving.
+   */
+  private static final Map<FeatureList, SavedFeatureList> savedFeatureLists = Collections.synchronizedMap(
+      new WeakHashMap<>());
+  /**
+   * State of the feature lists saved by this task
+   */
+  private final Map<FeatureList, FeatureListState> pendingStates = new HashMap<>();
+  private int reusedFeatureLists = 0;
   private RawDataFileSaveHandler rawDataFileSaveHandler;
   private int currentStage;
   private String currentSavedObjectName;
@@ -165,8 +182,7 @@ public class ProjectSavingTask extends AbstractTask {
       tempFile.deleteOnExit();
 
       // Create a ZIP stream writing to the temporary file
-      FileOutputStream tempStream = new FileOutputStream(tempFile);
-      ZipOutputStream zipStream = new ZipOutputStream(tempStream);
+      ZipArchiveOutputStream zipStream = new ZipArchiveOutputStream(tempFile);
 
       // Stage 1 - save version and configuration
       currentStage++;
@@ -241,6 +257,7 @@ public class ProjectSavingTask extends AbstractTask {
       // mainWindow.updateTitle();
       // }
 
+      rememberSavedFeatureLists();
       logger.info("Finished saving the project to " + saveFile);
       setStatus(TaskStatus.FINISHED);
 
@@ -268,21 +285,22 @@ public class ProjectSavingTask extends AbstractTask {
    *
    * @throws java.io.IOException
    */
-  private void saveVersion(ZipOutputStream zipStream) throws IOException {
+  private void saveVersion(ZipArchiveOutputStream zipStream) throws IOException {
 
-    zipStream.putNextEntry(new ZipEntry(VERSION_FILENAME));
+    zipStream.putArchiveEntry(new ZipArchiveEntry(VERSION_FILENAME));
 
     String MZmineVersion = String.valueOf(SemverVersionReader.getMZmineVersion());
 
     zipStream.write(MZmineVersion.getBytes());
-
+    zipStream.closeArchiveEntry();
   }
 
-  private void saveStandalone(ZipOutputStream zipStream) throws IOException {
+  private void saveStandalone(ZipArchiveOutputStream zipStream) throws IOException {
     if (savedProject.isStandalone()) {
-      zipStream.putNextEntry(new ZipEntry(STANDALONE_FILENAME));
+      zipStream.putArchiveEntry(new ZipArchiveEntry(STANDALONE_FILENAME));
       String MZmineVersion = STANDALONE_FILENAME;
       zipStream.write(MZmineVersion.getBytes());
+      zipStream.closeArchiveEntry();
     }
   }
 
@@ -291,13 +309,13 @@ public class ProjectSavingTask extends AbstractTask {
    *
    * @throws java.io.IOException
    */
-  private void saveConfiguration(ZipOutputStream zipStream) throws IOException {
+  private void saveConfiguration(ZipArchiveOutputStream zipStream) throws IOException {
 
     logger.info("Saving configuration file");
 
     currentSavedObjectName = "configuration";
 
-    zipStream.putNextEntry(new ZipEntry(CONFIG_FILENAME));
+    zipStream.putArchiveEntry(new ZipArchiveEntry(CONFIG_FILENAME));
 
     try {
       File tempConfigFile = FileAndPathUtil.createTempFile("mzmineconfig", ".tmp");
@@ -312,13 +330,15 @@ public class ProjectSavingTask extends AbstractTask {
     } catch (Exception e) {
       logger.log(Level.SEVERE, e.getMessage(), e);
       logger.warning("Could not save configuration" + ExceptionUtils.exceptionToString(e));
+    } finally {
+      zipStream.closeArchiveEntry();
     }
   }
 
   /**
    * Save the raw data files
    */
-  private void saveRawDataFiles(ZipOutputStream zipStream)
+  private void saveRawDataFiles(ZipArchiveOutputStream zipStream)
       throws IOException, ParserConfigurationException {
 
     AtomicBoolean finished = new AtomicBoolean(false);
@@ -354,30 +374,45 @@ public class ProjectSavingTask extends AbstractTask {
   }
 
   /**
-   * Save the feature lists
-   *
-   * @throws SAXException
-   * @throws TransformerConfigurationException
+   * Save the feature lists. Changed feature lists are serialized and compressed in parallel and
+   * added to the zip in the project order. Feature lists that did not change since the last save to the same project
+   * file are copied from the previous file without decompressing them.
    */
-  private void savePeakLists(ZipOutputStream zipStream)
-      throws IOException, TransformerConfigurationException, SAXException {
+  private void savePeakLists(ZipArchiveOutputStream zipStream) throws IOException {
 
     final List<FeatureList> currentFeatureLists = savedProject.getCurrentFeatureLists();
-    for (FeatureList featureList : currentFeatureLists) {
-      FeatureListSaveTask saveTask = new FeatureListSaveTask((ModularFeatureList) featureList,
-          zipStream);
-
-      AtomicBoolean finished = new AtomicBoolean(false);
-      saveTask.addTaskStatusListener((_, newStatus, _) -> {
-        switch (newStatus) {
-          case WAITING, PROCESSING -> {
-          }
-          case FINISHED, ERROR, CANCELED -> finished.set(true);
+    try (ZipFile previousProject = openPreviousProject()) {
+      final Map<FeatureList, FeatureListSaveTask> saveTasks = new HashMap<>();
+      for (FeatureList featureList : currentFeatureLists) {
+        final ModularFeatureList flist = (ModularFeatureList) featureList;
+        // the state before serialization, changes during saving are saved the next time
+        pendingStates.put(flist, FeatureListState.of(flist));
+        if (!canReuse(previousProject, flist)) {
+          saveTasks.put(flist, new FeatureListSaveTask(flist));
         }
-      });
-      MZmineCore.getTaskController().addTask(saveTask);
+      }
+      reusedFeatureLists = currentFeatureLists.size() - saveTasks.size();
+      logger.info("Saving %d feature lists, reusing %d unchanged feature lists".formatted(
+          saveTasks.size(), reusedFeatureLists));
+
+      // serialize and compress in parallel
+      final AtomicInteger finished = new AtomicInteger(0);
+      for (FeatureListSaveTask saveTask : saveTasks.values()) {
+        saveTask.addTaskStatusListener((_, newStatus, _) -> {
+          switch (newStatus) {
+            case WAITING, PROCESSING -> {
+            }
+            case FINISHED, ERROR, CANCELED -> finished.incrementAndGet();
+          }
+        });
+      }
+      MZmineCore.getTaskController().addTasks(saveTasks.values().toArray(Task[]::new));
 
-      while (!finished.get()) {
+      while (finished.get() < saveTasks.size()) {
+        if (isCanceled()) {
+          saveTasks.values().forEach(Task::cancel);
+          return;
+        }
         try {
           Thread.sleep(50);
         } catch (InterruptedException e) {
@@ -385,10 +420,111 @@ public class ProjectSavingTask extends AbstractTask {
         }
       }
 
-      if (isCanceled()) {
-        break;
+      // add to zip in the project order
+      for (FeatureList featureList : currentFeatureLists) {
+        if (isCanceled()) {
+          return;
+        }
+        final FeatureListSaveTask saveTask = saveTasks.get(featureList);
+        currentSavedObjectName = featureList.getName();
+        if (saveTask == null) {
+          copyRawEntry(previousProject, zipStream,
+              FeatureListSaveTask.getDataFileName(featureList.getName()));
+          copyRawEntry(previousProject, zipStream,
+              FeatureListSaveTask.getMetadataFileName(featureList.getName()));
+        } else if (saveTask.getStatus() == TaskStatus.FINISHED) {
+          saveTask.writeToZip(zipStream);
+        } else {
+          logger.warning("Feature list %s was not saved.".formatted(featureList.getName()));
+          pendingStates.remove(featureList);
+        }
       }
     }
   }
 
+  /**
+   * @return the project file that is overwritten if it was saved by this session before, otherwise
+   * null
+   */
+  @Nullable
+  private ZipFile openPreviousProject() {
+    if (!saveFile.exists() || savedFeatureLists.values().stream()
+        .noneMatch(saved -> saved.isSameFile(saveFile))) {
+      return null;
+    }
+    try {
+      return ZipFile.builder().setFile(saveFile).get();
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Cannot read previous project file, saving all feature lists.", e);
+      return null;
+    }
+  }
+
+  private boolean canReuse(@Nullable ZipFile previousProject, ModularFeatureList flist) {
+    if (previousProject == null) {
+      return false;
+    }
+    final SavedFeatureList saved = savedFeatureLists.get(flist);
+    return saved != null && saved.isSameFile(saveFile) && saved.state()
+        .equals(pendingStates.get(flist))
+        && previousProject.getEntry(FeatureListSaveTask.getDataFileName(flist.getName())) != null
+        && previousProject.getEntry(FeatureListSaveTask.getMetadataFileName(flist.getName()))
+        != null;
+  }
+
+  /**
+   * Copies the compressed entry without decompressing and compressing it again
+   */
+  private static void copyRawEntry(ZipFile source, ZipArchiveOutputStream zipStream, String name)
+      throws IOException {
+    final ZipArchiveEntry entry = source.getEntry(name);
+    try (InputStream is = source.getRawInputStream(entry)) {
+      zipStream.addRawArchiveEntry(entry, is);
+    }
+  }
+
+  /**
+   * @return number of feature lists copied from the previous project file in the last save
+   */
+  int getReusedFeatureLists() {
+    return reusedFeatureLists;
+  }
+
+  /**
+   * Remember the saved state of all feature lists for the next incremental save
+   */
+  private void rememberSavedFeatureLists() {
+    final long lastModified = saveFile.lastModified();
+    pendingStates.forEach((flist, state) -> savedFeatureLists.put(flist,
+        new SavedFeatureList(saveFile.getAbsoluteFile(), lastModified, state)));
+  }
+
+  /**
+   * The state of a feature list in a project file
+   *
+   * @param lastModified of the project file to detect external changes
+   */
+  private record SavedFeatureList(File projectFile, long lastModified, FeatureListState state) {
+
+    boolean isSameFile(File file) {
+      return projectFile.equals(file.getAbsoluteFile()) && lastModified == file.lastModified();
+    }
+  }
+
+  /**
+   * Everything that is written to the feature list entries. The feature lists reference their raw
+   * data files by name and path and their selected scans by index.
+   *
+   * @param stamp    the modification stamp of the feature list
+   * @param rawFiles name, path and number of scans of each raw data file
+   */
+  private record FeatureListState(String name, long stamp, List<String> rawFiles) {
+
+    static FeatureListState of(ModularFeatureList flist) {
+      final List<String> rawFiles = flist.getRawDataFiles().stream()
+          .map(raw -> raw.getName() + "|" + raw.getAbsolutePath() + "|" + raw.getNumOfScans())
+          .toList();
+      return new FeatureListState(flist.getName(), flist.getModificationStamp(), rawFiles);
+    }
+  }
 }
@@ -27,6 +27,7 @@ package io.github.mzmine.modules.io.projectsave;
 
 import io.github.mzmine.datamodel.MZmineProject;
 import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.main.MZmineCore;
 import io.github.mzmine.modules.MZmineProcessingModule;
 import io.github.mzmine.modules.MZmineProcessingStep;
 import io.github.mzmine.modules.batchmode.BatchQueue;
@@ -56,19 +57,27 @@ import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Pattern;
-import java.util.zip.ZipEntry;
+import java.util.zip.Deflater;
 import java.util.zip.ZipException;
-import java.util.zip.ZipOutputStream;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.transform.TransformerException;
+import org.apache.commons.compress.archivers.zip.DefaultBackingStoreSupplier;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.w3c.dom.Document;
@@ -89,7 +98,11 @@ public class RawDataFileSaveHandler extends AbstractTask {
   private static final Logger logger = Logger.getLogger(RawDataFileSaveHandler.class.getName());
 
   private final MZmineProject project;
-  private final ZipOutputStream zipStream;
+  private final ZipArchiveOutputStream zipStream;
+  /**
+   * Names of the copied files in the zip, the same file may be required by multiple raw files
+   */
+  private final Set<String> copiedZipPaths = new HashSet<>();
   private final List<RawDataFile> files;
   /**
    * Files from {@link FileNameParameter}s that are not a {@link RawDataFile}, e.g. metadata files.
@@ -102,7 +115,7 @@ public class RawDataFileSaveHandler extends AbstractTask {
   private double progress = 0;
   private String description;
 
-  public RawDataFileSaveHandler(MZmineProject project, ZipOutputStream zipOutputStream,
+  public RawDataFileSaveHandler(MZmineProject project, ZipArchiveOutputStream zipOutputStream,
       boolean saveFilesInProject, @NotNull Instant moduleCallDate) {
     super(null, moduleCallDate);
     this.project = project;
@@ -160,7 +173,7 @@ public class RawDataFileSaveHandler extends AbstractTask {
       copyRawDataFilesToZip();
     }
 
-    zipStream.putNextEntry(new ZipEntry(RAW_DATA_IMPORT_BATCH_FILENAME));
+    zipStream.putArchiveEntry(new ZipArchiveEntry(RAW_DATA_IMPORT_BATCH_FILENAME));
 
     try {
       final DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
@@ -192,6 +205,8 @@ public class RawDataFileSaveHandler extends AbstractTask {
       e.printStackTrace();
       logger.log(Level.WARNING, "Could not save batch import step.\n" + e.getMessage(), e);
       return false;
+    } finally {
+      zipStream.closeArchiveEntry();
     }
     progress += stepProgress;
 
@@ -199,59 +214,76 @@ public class RawDataFileSaveHandler extends AbstractTask {
   }
 
   /**
-   * Copies the raw data files to the zip folder (MZmine project file).
+   * Copies the raw data files to the zip folder (MZmine project file). The files are compressed in
+   * parallel into temporary files and then added to the zip in the order of the files.
    *
    * @throws IOException
    */
   private void copyRawDataFilesToZip() throws IOException {
+    final int threads = Math.max(1, MZmineCore.getConfiguration().getNumOfThreads());
+    final ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      final ParallelScatterZipCreator scatter = new ParallelScatterZipCreator(executor,
+          new DefaultBackingStoreSupplier(FileAndPathUtil.getTempDir().toPath()),
+          Deflater.DEFAULT_COMPRESSION);
 
-    // these are non-ms raw data files, e.g. metadata.
-    for (final File file : otherReplacedFiles) {
-      copyToZip(file, getZipPath(file));
-    }
-
-    for (final RawDataFile file : files) {
-      if (file.getAbsolutePath() == null || !Files.exists(Paths.get(file.getAbsolutePath()))) {
-        progress += stepProgress;
-        continue;
+      // these are non-ms raw data files, e.g. metadata.
+      for (final File file : otherReplacedFiles) {
+        copyToZip(scatter, file, getZipPath(file));
       }
 
-      description = prefix + "Copying data file " + file.getAbsolutePath() + " to project file.";
-      logger.finest(() -> "Copying data file " + file.getAbsolutePath() + " to project file.");
-
-      final File f = new File(file.getAbsolutePath());
-      if (f.isDirectory()) {
-        ZipUtils.zipDirectory(zipStream, f, getZipPath(file));
-      } else {
-        try {
-          String zipPath = getZipPath(file);
-          copyToZip(file.getAbsoluteFilePath(), zipPath);
-
-          for (File additional : RawDataFileType.getAdditionalRequiredFiles(file)) {
-            if (!additional.exists() || !additional.canRead()) {
-              throw new RuntimeException(
-                  "Required file %s for raw file %s does not exist.".formatted(
-                      additional.getAbsolutePath(), file.getAbsolutePath()));
+      int compressedFiles = 0;
+      for (final RawDataFile file : files) {
+        if (file.getAbsolutePath() == null || !Files.exists(Paths.get(file.getAbsolutePath()))) {
+          progress += stepProgress;
+          continue;
+        }
+
+        logger.finest(() -> "Copying data file " + file.getAbsolutePath() + " to project file.");
+
+        final File f = new File(file.getAbsolutePath());
+        if (f.isDirectory()) {
+          ZipUtils.zipDirectory(scatter, f, getZipPath(file));
+        } else {
+          try {
+            String zipPath = getZipPath(file);
+            copyToZip(scatter, file.getAbsoluteFilePath(), zipPath);
+
+            for (File additional : RawDataFileType.getAdditionalRequiredFiles(file)) {
+              if (!additional.exists() || !additional.canRead()) {
+                throw new RuntimeException(
+                    "Required file %s for raw file %s does not exist.".formatted(
+                        additional.getAbsolutePath(), file.getAbsolutePath()));
+              }
+              copyToZip(scatter, additional, getZipPath(additional));
             }
-            copyToZip(additional, getZipPath(additional));
+          } catch (ZipException e) {
+            // this might happen in case of duplicate files
+            logger.info(e::getMessage);
+            progress += stepProgress;
+            continue;
           }
-        } catch (ZipException e) {
-          // this might happen in case of duplicate files
-          logger.info(e::getMessage);
-          continue;
         }
+        compressedFiles++;
       }
 
-      progress += stepProgress;
+      description = prefix + "Compressing " + compressedFiles + " data files to project file.";
+      scatter.writeTo(zipStream);
+      progress += stepProgress * compressedFiles;
+    } catch (InterruptedException | ExecutionException e) {
+      throw new IOException("Cannot compress raw data files", e);
+    } finally {
+      // already shut down after writing, but not on errors
+      executor.shutdownNow();
     }
   }
 
-  private void copyToZip(File actualFile, String zipPath) throws IOException {
-    zipStream.putNextEntry(new ZipEntry(zipPath));
-    FileInputStream inputStream = new FileInputStream(actualFile);
-    StreamCopy cpy = new StreamCopy();
-    cpy.copy(inputStream, zipStream);
-    inputStream.close();
+  private void copyToZip(ParallelScatterZipCreator scatter, File actualFile, String zipPath)
+      throws ZipException {
+    if (!copiedZipPaths.add(zipPath)) {
+      throw new ZipException("duplicate entry: " + zipPath);
+    }
+    scatter.addArchiveEntry(() -> ZipUtils.createDeflateRequest(actualFile, zipPath));
   }
 
   /**
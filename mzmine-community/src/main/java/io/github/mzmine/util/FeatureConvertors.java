@@ -72,7 +72,6 @@ import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
 import io.github.mzmine.util.scans.ScanUtils;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.Comparator;
 import java.util.Hashtable;
 import java.util.List;
@@ -93,16 +92,22 @@ public class FeatureConvertors {
    */
   static public ModularFeature ADAPChromatogramToModularFeature(ModularFeatureList featureList,
       RawDataFile dataFile, @NotNull ADAPChromatogram chromatogram, final MZTolerance mzTolerance) {
-    // Data points of feature
-    final Collection<DataPoint> dataPoints = chromatogram.getDataPoints();
-    final Collection<Scan> scans = chromatogram.getScanNumbers();
-    if (dataPoints.size() != scans.size()) {
-      throw new IllegalArgumentException(
-          "Number of data points does not match number of scan numbers");
-    }
+    // Data points of feature sorted by scan
+    SimpleIonTimeSeries timeSeries = new SimpleIonTimeSeries(featureList.getMemoryMapStorage(),
+        chromatogram.getMzValues(), chromatogram.getIntensityValues(), chromatogram.getScans());
+    return chromatogramToModularFeature(featureList, dataFile, timeSeries, mzTolerance);
+  }
 
-    SimpleIonTimeSeries timeSeries = createSimpleTimeSeries(featureList.getMemoryMapStorage(),
-        new ArrayList<>(dataPoints), new ArrayList<>(scans));
+  /**
+   * Creates a ModularFeature from a chromatogram time series and assigns all MS2 scans within the
+   * m/z tolerance and the retention time range.
+   *
+   * @param timeSeries data points of the chromatogram sorted by scan
+   * @return output modular feature
+   */
+  public static ModularFeature chromatogramToModularFeature(ModularFeatureList featureList,
+      RawDataFile dataFile, @NotNull SimpleIonTimeSeries timeSeries,
+      final MZTolerance mzTolerance) {
     ModularFeature modularFeature = new ModularFeature(featureList, dataFile, timeSeries,
         FeatureStatus.DETECTED);
 
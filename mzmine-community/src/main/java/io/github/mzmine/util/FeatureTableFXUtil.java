@@ -27,6 +27,7 @@ package io.github.mzmine.util;
 
 import io.github.mzmine.datamodel.features.FeatureList;
 import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
 import io.github.mzmine.datamodel.features.ModularFeatureListRow;
 import io.github.mzmine.gui.Desktop;
 import io.github.mzmine.gui.DesktopService;
@@ -37,6 +38,8 @@ import io.github.mzmine.main.MZmineCore;
 import io.github.mzmine.modules.visualization.featurelisttable_modular.FeatureTableFX;
 import io.github.mzmine.modules.visualization.featurelisttable_modular.FeatureTableTab;
 import io.github.mzmine.modules.visualization.featurelisttable_modular.FxFeatureTableController;
+import io.github.mzmine.taskcontrol.SimpleRunnableTask;
+import io.github.mzmine.taskcontrol.TaskService;
 import java.util.List;
 import java.util.Optional;
 import java.util.logging.Logger;
@@ -54,11 +57,20 @@ public class FeatureTableFXUtil {
 
   /**
    * Creates and shows a new FeatureTable. Should be called via
-   * {@link Platform#runLater(Runnable)}.
+   * {@link Platform#runLater(Runnable)}. Rows of feature lists that are loaded on demand are loaded
+   * in a task first, not on the FX thread.
    *
    * @param flist The feature list.
    */
   public static void addFeatureTableTab(FeatureList flist) {
+    if (flist instanceof ModularFeatureList mflist && !mflist.isRowsLoaded()) {
+      TaskService.getController().addTask(
+          new SimpleRunnableTask("Loading rows of feature list " + flist.getName(), () -> {
+            mflist.getRows();
+            FxThread.runLater(() -> addFeatureTableTab(flist));
+          }));
+      return;
+    }
     FeatureTableTab newTab = new FeatureTableTab(flist);
     MZmineCore.getDesktop().addTab(newTab);
   }
@@ -30,6 +30,7 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
@@ -39,8 +40,11 @@ import java.util.List;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
+import org.apache.commons.compress.archivers.zip.ParallelScatterZipCreator;
+import org.apache.commons.compress.archivers.zip.ScatterZipOutputStream;
 import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntryRequest;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
@@ -94,7 +98,7 @@ public class ZipUtils {
    * @param destPath
    * @throws IOException
    */
-  public static void zipDirectory(@NotNull ZipOutputStream stream, @NotNull File dir,
+  public static void zipDirectory(@NotNull ZipArchiveOutputStream stream, @NotNull File dir,
       @Nullable String destPath) throws IOException {
     if (!dir.isDirectory()) {
       return;
@@ -116,11 +120,66 @@ public class ZipUtils {
       }
 
       if (file.isFile()) {
-        stream.putNextEntry(new ZipEntry(destPath + file.getName()));
+        stream.putArchiveEntry(new ZipArchiveEntry(destPath + file.getName()));
         final StreamCopy copy = new StreamCopy();
         try (final FileInputStream inputStream = new FileInputStream(file)) {
           copy.copy(inputStream, stream);
         }
+        stream.closeArchiveEntry();
+      }
+    }
+  }
+
+  /**
+   * A request to deflate a file into a zip entry, e.g., to compress entries in parallel with a
+   * {@link ParallelScatterZipCreator} or a {@link ScatterZipOutputStream}. The file is opened when
+   * the entry is compressed.
+   *
+   * @param file    the file to compress
+   * @param zipPath the name of the entry
+   */
+  public static ZipArchiveEntryRequest createDeflateRequest(@NotNull File file,
+      @NotNull String zipPath) {
+    final ZipArchiveEntry entry = new ZipArchiveEntry(zipPath);
+    entry.setMethod(ZipEntry.DEFLATED);
+    return ZipArchiveEntryRequest.createZipArchiveEntryRequest(entry, () -> {
+      try {
+        return new FileInputStream(file);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  /**
+   * Adds all files of a directory to the parallel compression
+   *
+   * @param destPath the path of the directory in the zip
+   */
+  public static void zipDirectory(@NotNull ParallelScatterZipCreator scatter, @NotNull File dir,
+      @Nullable String destPath) {
+    if (!dir.isDirectory()) {
+      return;
+    }
+
+    final File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    destPath = (destPath == null) ? "" : destPath;
+    if (!destPath.endsWith("/")) {
+      destPath = destPath + "/";
+    }
+
+    for (final File file : files) {
+      if (file.isDirectory()) {
+        zipDirectory(scatter, file, destPath + file.getName());
+      }
+
+      if (file.isFile()) {
+        final String zipPath = destPath + file.getName();
+        scatter.addArchiveEntry(() -> createDeflateRequest(file, zipPath));
       }
     }
   }
@@ -0,0 +1,474 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.scans;
+
+import io.github.mzmine.datamodel.MassSpectrum;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.maths.CenterFunction;
+import io.github.mzmine.util.scans.SpectraMerging.IntensityMergingType;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import java.util.Arrays;
+import java.util.Collection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Merges spectra on primitive arrays with pooled scratch buffers per thread. Gives the same results
+ * as the previous implementation on {@link IndexedDataPoint}s and a Guava range map:
+ * <ul>
+ *   <li>Data points are processed by descending intensity and m/z (stable for ties).</li>
+ *   <li>A data point is added to the group whose m/z range contains its m/z. Only one data point
+ *   per source spectrum is kept per group, less intense data points of the same spectrum are
+ *   dropped.</li>
+ *   <li>Otherwise, a new group is created with the tolerance range around the m/z, trimmed to not
+ *   overlap with existing ranges.</li>
+ * </ul>
+ * Ranges are bucketed by their lower bound in buckets wider than the widest range, so a lookup
+ * only checks two buckets.
+ */
+final class SpectraMergingEngine {
+
+  /**
+   * Buffers of larger calls are not pooled to not keep memory per thread
+   */
+  private static final int MAX_POOLED_POINTS = 1 << 20;
+  private static final ThreadLocal<SpectraMergingEngine> POOL = ThreadLocal.withInitial(
+      SpectraMergingEngine::new);
+
+  // data points in extraction order
+  private double[] mzs = new double[0];
+  private double[] intensities = new double[0];
+  private int[] spectrumIndexes = new int[0];
+  private int[] groupOfPoint = new int[0];
+  private int[] order = new int[0];
+  private int[] sortSupport = new int[0];
+  private double[] rawMzs = new double[0];
+  private double[] rawIntensities = new double[0];
+  private int numPoints;
+
+  // groups with their m/z ranges
+  private double[] lowers = new double[0];
+  private double[] uppers = new double[0];
+  private boolean[] lowerOpen = new boolean[0];
+  private boolean[] upperOpen = new boolean[0];
+  private boolean[] removed = new boolean[0];
+  private int[] nextInBucket = new int[0];
+  private int[] groupSizes = new int[0];
+  private int numGroups;
+
+  private int[] bucketHeads = new int[0];
+  private int numBuckets;
+  private double bucketOrigin;
+  private double bucketWidth;
+
+  // spectrum index and group of accepted data points
+  private final LongOpenHashSet groupSpectra = new LongOpenHashSet();
+
+  // current range while creating a new group
+  private double rangeLower;
+  private double rangeUpper;
+  private boolean rangeLowerOpen;
+  private boolean rangeUpperOpen;
+
+  private SpectraMergingEngine() {
+  }
+
+  /**
+   * See {@link SpectraMerging#calculatedMergedMzsAndIntensities}
+   */
+  static <T extends MassSpectrum> double[][] merge(@NotNull final Collection<T> source,
+      @NotNull final MZTolerance tolerance,
+      @NotNull final IntensityMergingType intensityMergingType,
+      @NotNull final CenterFunction mzCenterFunction, @Nullable final Double inputNoiseLevel,
+      @Nullable final Double outputNoiseLevel, @Nullable final Integer minNumPeaks) {
+    final SpectraMergingEngine engine = POOL.get();
+    try {
+      engine.extract(source, inputNoiseLevel);
+      engine.group(tolerance);
+      return engine.mergeGroups(intensityMergingType, mzCenterFunction, outputNoiseLevel,
+          minNumPeaks);
+    } finally {
+      if (engine.mzs.length > MAX_POOLED_POINTS || engine.bucketHeads.length > MAX_POOLED_POINTS) {
+        POOL.remove();
+      }
+    }
+  }
+
+  private <T extends MassSpectrum> void extract(Collection<T> source,
+      @Nullable Double inputNoiseLevel) {
+    int maxPoints = 0;
+    int totalPoints = 0;
+    for (T spectrum : source) {
+      maxPoints = Math.max(maxPoints, spectrum.getNumberOfDataPoints());
+      totalPoints += spectrum.getNumberOfDataPoints();
+    }
+    if (rawMzs.length < maxPoints) {
+      rawMzs = new double[maxPoints];
+      rawIntensities = new double[maxPoints];
+    }
+    ensurePointCapacity(totalPoints);
+
+    numPoints = 0;
+    int index = 0;
+    for (T spectrum : source) {
+      spectrum.getMzValues(rawMzs);
+      spectrum.getIntensityValues(rawIntensities);
+
+      for (int i = 0; i < spectrum.getNumberOfDataPoints(); i++) {
+        if (inputNoiseLevel == null || rawIntensities[i] > inputNoiseLevel) {
+          mzs[numPoints] = rawMzs[i];
+          intensities[numPoints] = rawIntensities[i];
+          spectrumIndexes[numPoints] = index;
+          numPoints++;
+        }
+      }
+      index++;
+    }
+  }
+
+  private void group(MZTolerance tolerance) {
+    // descending intensity and m/z, stable like List.sort of the data points
+    for (int i = 0; i < numPoints; i++) {
+      order[i] = i;
+      sortSupport[i] = i;
+    }
+    final double[] ints = intensities;
+    final double[] mz = mzs;
+    IntArrays.mergeSort(order, 0, numPoints, (a, b) -> {
+      final int result = Double.compare(ints[b], ints[a]);
+      return result != 0 ? result : Double.compare(mz[b], mz[a]);
+    }, sortSupport);
+
+    initBuckets(tolerance);
+    numGroups = 0;
+    groupSpectra.clear();
+
+    for (int i = 0; i < numPoints; i++) {
+      final int point = order[i];
+      final double mzValue = mzs[point];
+      int group = findGroup(mzValue);
+      if (group == -1) {
+        final double absTolerance = tolerance.getMzToleranceForMass(mzValue);
+        group = createGroup(mzValue - absTolerance, mzValue + absTolerance);
+      } else if (groupSpectra.contains(groupSpectrumKey(group, spectrumIndexes[point]))) {
+        // only one data point per spectrum in each group
+        groupOfPoint[point] = -1;
+        continue;
+      }
+      groupSpectra.add(groupSpectrumKey(group, spectrumIndexes[point]));
+      groupOfPoint[point] = group;
+      groupSizes[group]++;
+    }
+  }
+
+  private double[][] mergeGroups(IntensityMergingType intensityMergingType,
+      CenterFunction mzCenterFunction, @Nullable Double outputNoiseLevel,
+      @Nullable Integer minNumPeaks) {
+    // groups ascending by their m/z range
+    final int[] groupOrder = new int[numGroups];
+    int numLiveGroups = 0;
+    for (int g = 0; g < numGroups; g++) {
+      if (!removed[g]) {
+        groupOrder[numLiveGroups++] = g;
+      }
+    }
+    IntArrays.quickSort(groupOrder, 0, numLiveGroups,
+        (a, b) -> compareCut(lowers[a], lowerOpen[a] ? 1 : -1, lowers[b], lowerOpen[b] ? 1 : -1));
+
+    // offsets of the data points of each group, filled in extraction order = spectrum order
+    final int[] groupOffsets = new int[numGroups + 1];
+    for (int g = 0; g < numGroups; g++) {
+      groupOffsets[g + 1] = groupOffsets[g] + groupSizes[g];
+    }
+    final int[] fill = Arrays.copyOf(groupOffsets, numGroups);
+    final int[] groupedPoints = sortSupport;
+    for (int point = 0; point < numPoints; point++) {
+      final int group = groupOfPoint[point];
+      if (group != -1) {
+        groupedPoints[fill[group]++] = point;
+      }
+    }
+
+    final double[] newMzs = new double[numLiveGroups];
+    final double[] newIntensities = new double[numLiveGroups];
+    int numMerged = 0;
+    for (int i = 0; i < numLiveGroups; i++) {
+      final int group = groupOrder[i];
+      final int size = groupSizes[group];
+      if (minNumPeaks != null && size < minNumPeaks) {
+        continue;
+      }
+
+      final double[] groupMzs = new double[size];
+      final double[] groupIntensities = new double[size];
+      for (int j = 0; j < size; j++) {
+        final int point = groupedPoints[groupOffsets[group] + j];
+        groupMzs[j] = mzs[point];
+        groupIntensities[j] = intensities[point];
+      }
+
+      final double newMz = mzCenterFunction.calcCenter(groupMzs, groupIntensities);
+      final double newIntensity = switch (intensityMergingType) {
+        case SUMMED -> Arrays.stream(groupIntensities).sum();
+        case MAXIMUM -> Arrays.stream(groupIntensities).max().orElse(0d);
+        case AVERAGE -> Arrays.stream(groupIntensities).average().orElse(0d);
+      };
+
+      if (outputNoiseLevel == null || newIntensity > outputNoiseLevel) {
+        newMzs[numMerged] = newMz;
+        newIntensities[numMerged] = newIntensity;
+        numMerged++;
+      }
+    }
+
+    return new double[][]{Arrays.copyOf(newMzs, numMerged),
+        Arrays.copyOf(newIntensities, numMerged)};
+  }
+
+  private static long groupSpectrumKey(int group, int spectrumIndex) {
+    return ((long) group << 32) | (spectrumIndex & 0xffffffffL);
+  }
+
+  /**
+   * Creates a group for the tolerance range and trims it to not overlap with existing groups, like
+   * {@link SpectraMerging#createNewNonOverlappingRange}.
+   *
+   * @return the new group
+   */
+  private int createGroup(double lower, double upper) {
+    rangeLower = lower;
+    rangeUpper = upper;
+    rangeLowerOpen = false;
+    rangeUpperOpen = false;
+
+    while (true) {
+      final int lowerEntry = findGroup(
+          rangeLowerOpen ? rangeLower + SpectraMerging.EPSILON : rangeLower);
+      final int upperEntry = findGroup(
+          rangeUpperOpen ? rangeUpper - SpectraMerging.EPSILON : rangeUpper);
+      if (lowerEntry == -1 && upperEntry == -1) {
+        break;
+      }
+      final boolean lowerDisjoint = lowerEntry == -1 || isIntersectionEmpty(lowerEntry);
+      final boolean upperDisjoint = upperEntry == -1 || isIntersectionEmpty(upperEntry);
+      if (lowerDisjoint && upperDisjoint) {
+        break;
+      }
+
+      if (!lowerDisjoint) {
+        rangeLower = uppers[lowerEntry];
+        rangeLowerOpen = true;
+      }
+      if (!upperDisjoint) {
+        rangeUpper = lowers[upperEntry];
+        rangeUpperOpen = true;
+      }
+      if (compareCut(rangeLower, lowerSide(rangeLowerOpen), rangeUpper,
+          upperSide(rangeUpperOpen)) > 0) {
+        throw new IllegalArgumentException(
+            "Invalid range %f - %f".formatted(rangeLower, rangeUpper));
+      }
+    }
+
+    final int group = addGroup();
+    if (compareCut(rangeLower, lowerSide(rangeLowerOpen), rangeUpper, upperSide(rangeUpperOpen))
+        == 0) {
+      // an empty range is not put into the range map
+      removed[group] = true;
+      return group;
+    }
+    removeOverlaps();
+    addToBucket(group);
+    return group;
+  }
+
+  private int addGroup() {
+    if (numGroups == lowers.length) {
+      final int capacity = Math.max(16, numGroups * 2);
+      lowers = Arrays.copyOf(lowers, capacity);
+      uppers = Arrays.copyOf(uppers, capacity);
+      lowerOpen = Arrays.copyOf(lowerOpen, capacity);
+      upperOpen = Arrays.copyOf(upperOpen, capacity);
+      removed = Arrays.copyOf(removed, capacity);
+      nextInBucket = Arrays.copyOf(nextInBucket, capacity);
+      groupSizes = Arrays.copyOf(groupSizes, capacity);
+    }
+    final int group = numGroups++;
+    lowers[group] = rangeLower;
+    uppers[group] = rangeUpper;
+    lowerOpen[group] = rangeLowerOpen;
+    upperOpen[group] = rangeUpperOpen;
+    removed[group] = false;
+    nextInBucket[group] = -1;
+    groupSizes[group] = 0;
+    return group;
+  }
+
+  /**
+   * Existing groups overlapping the new range are removed or trimmed, like putting a range into a
+   * range map
+   */
+  private void removeOverlaps() {
+    final int first = bucketOf(rangeLower - bucketWidth);
+    final int last = bucketOf(rangeUpper);
+    for (int b = first; b <= last; b++) {
+      for (int g = bucketHeads[b]; g != -1; g = nextInBucket[g]) {
+        if (removed[g]) {
+          continue;
+        }
+        final int lowerVsNewUpper = compareCut(lowers[g], lowerSide(lowerOpen[g]), rangeUpper,
+            upperSide(rangeUpperOpen));
+        final int upperVsNewLower = compareCut(uppers[g], upperSide(upperOpen[g]), rangeLower,
+            lowerSide(rangeLowerOpen));
+        if (lowerVsNewUpper >= 0 || upperVsNewLower <= 0) {
+          continue; // no overlap
+        }
+        final boolean keepsLower =
+            compareCut(lowers[g], lowerSide(lowerOpen[g]), rangeLower, lowerSide(rangeLowerOpen))
+                < 0;
+        final boolean keepsUpper =
+            compareCut(uppers[g], upperSide(upperOpen[g]), rangeUpper, upperSide(rangeUpperOpen))
+                > 0;
+        if (keepsLower) {
+          // the upper cut becomes the lower cut of the new range
+          uppers[g] = rangeLower;
+          upperOpen[g] = !rangeLowerOpen;
+        } else if (keepsUpper) {
+          // the lower cut becomes the upper cut of the new range. Stays in its bucket, the range
+          // is narrower than a bucket and lookups check the previous bucket
+          lowers[g] = rangeUpper;
+          lowerOpen[g] = !rangeUpperOpen;
+        } else {
+          removed[g] = true;
+        }
+      }
+    }
+  }
+
+  private boolean isIntersectionEmpty(int group) {
+    final int lowerCompare = compareCut(lowers[group], lowerSide(lowerOpen[group]), rangeLower,
+        lowerSide(rangeLowerOpen));
+    final double maxLower = lowerCompare >= 0 ? lowers[group] : rangeLower;
+    final int maxLowerSide =
+        lowerCompare >= 0 ? lowerSide(lowerOpen[group]) : lowerSide(rangeLowerOpen);
+
+    final int upperCompare = compareCut(uppers[group], upperSide(upperOpen[group]), rangeUpper,
+        upperSide(rangeUpperOpen));
+    final double minUpper = upperCompare <= 0 ? uppers[group] : rangeUpper;
+    final int minUpperSide =
+        upperCompare <= 0 ? upperSide(upperOpen[group]) : upperSide(rangeUpperOpen);
+
+    final int compare = compareCut(maxLower, maxLowerSide, minUpper, minUpperSide);
+    if (compare > 0) {
+      throw new IllegalArgumentException("Ranges are not connected");
+    }
+    return compare == 0;
+  }
+
+  /**
+   * @return the group with a range that contains the m/z or -1
+   */
+  private int findGroup(double mz) {
+    final int bucket = bucketOf(mz);
+    for (int b = Math.max(0, bucket - 1); b <= bucket; b++) {
+      for (int g = bucketHeads[b]; g != -1; g = nextInBucket[g]) {
+        if (!removed[g] && contains(g, mz)) {
+          return g;
+        }
+      }
+    }
+    return -1;
+  }
+
+  private boolean contains(int group, double mz) {
+    return (lowerOpen[group] ? mz > lowers[group] : mz >= lowers[group]) && (upperOpen[group]
+        ? mz < uppers[group] : mz <= uppers[group]);
+  }
+
+  /**
+   * Range cuts: a closed lower bound is below the value, an open lower bound above the value. A
+   * closed upper bound is above the value, an open upper bound below.
+   */
+  private static int compareCut(double a, int sideA, double b, int sideB) {
+    final int result = Double.compare(a, b);
+    return result != 0 ? result : Integer.compare(sideA, sideB);
+  }
+
+  private static int lowerSide(boolean open) {
+    return open ? 1 : -1;
+  }
+
+  private static int upperSide(boolean open) {
+    return open ? -1 : 1;
+  }
+
+  private void initBuckets(MZTolerance tolerance) {
+    double minMz = Double.POSITIVE_INFINITY;
+    double maxMz = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < numPoints; i++) {
+      minMz = Math.min(minMz, mzs[i]);
+      maxMz = Math.max(maxMz, mzs[i]);
+    }
+    if (numPoints == 0) {
+      minMz = maxMz = 0;
+    }
+    // all ranges are at most as wide as the tolerance range at the maximum m/z
+    final double maxWidth = 2 * tolerance.getMzToleranceForMass(maxMz);
+    final double mzSpan = maxMz - minMz;
+    // limit the number of buckets for very small tolerances
+    final int maxBuckets = 4 * numPoints + 1024;
+    bucketWidth = Math.max(maxWidth * (1 + 1E-9) + 1E-9, mzSpan / maxBuckets);
+    bucketOrigin = minMz - 2 * bucketWidth;
+    numBuckets = (int) ((maxMz + 2 * bucketWidth - bucketOrigin) / bucketWidth) + 2;
+    if (bucketHeads.length < numBuckets) {
+      bucketHeads = new int[numBuckets];
+    }
+    Arrays.fill(bucketHeads, 0, numBuckets, -1);
+  }
+
+  private int bucketOf(double mz) {
+    final int bucket = (int) Math.floor((mz - bucketOrigin) / bucketWidth);
+    return Math.clamp(bucket, 0, numBuckets - 1);
+  }
+
+  private void addToBucket(int group) {
+    final int bucket = bucketOf(lowers[group]);
+    nextInBucket[group] = bucketHeads[bucket];
+    bucketHeads[bucket] = group;
+  }
+
+  private void ensurePointCapacity(int capacity) {
+    if (mzs.length < capacity) {
+      mzs = new double[capacity];
+      intensities = new double[capacity];
+      spectrumIndexes = new int[capacity];
+      groupOfPoint = new int[capacity];
+      order = new int[capacity];
+      sortSupport = new int[capacity];
+    }
+  }
+}
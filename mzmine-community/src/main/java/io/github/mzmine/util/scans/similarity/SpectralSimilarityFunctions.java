@@ -28,15 +28,18 @@ package io.github.mzmine.util.scans.similarity;
 import io.github.mzmine.parameters.parametertypes.submodules.ModuleOptionsEnum;
 import io.github.mzmine.parameters.parametertypes.submodules.ValueWithParameters;
 import io.github.mzmine.util.scans.similarity.impl.composite.CompositeCosineSpectralSimilarity;
+import io.github.mzmine.util.scans.similarity.impl.cosine.VectorizedWeightedCosineSpectralSimilarity;
 import io.github.mzmine.util.scans.similarity.impl.cosine.WeightedCosineSpectralSimilarity;
 
 public enum SpectralSimilarityFunctions implements ModuleOptionsEnum<SpectralSimilarityFunction> {
-  WEIGHTED_COSINE, NIST_COMPOSITE_COSINE;
+  WEIGHTED_COSINE, VECTORIZED_WEIGHTED_COSINE, NIST_COMPOSITE_COSINE;
 
   public static SpectralSimilarityFunction createOption(
       final ValueWithParameters<SpectralSimilarityFunctions> simfuncParams) {
     return switch (simfuncParams.value()) {
       case WEIGHTED_COSINE -> new WeightedCosineSpectralSimilarity(simfuncParams.parameters());
+      case VECTORIZED_WEIGHTED_COSINE ->
+          new VectorizedWeightedCosineSpectralSimilarity(simfuncParams.parameters());
       case NIST_COMPOSITE_COSINE ->
           new CompositeCosineSpectralSimilarity(simfuncParams.parameters());
     };
@@ -52,6 +55,7 @@ public enum SpectralSimilarityFunctions implements ModuleOptionsEnum<SpectralSim
     return switch (this) {
       case NIST_COMPOSITE_COSINE -> CompositeCosineSpectralSimilarity.class;
       case WEIGHTED_COSINE -> WeightedCosineSpectralSimilarity.class;
+      case VECTORIZED_WEIGHTED_COSINE -> VectorizedWeightedCosineSpectralSimilarity.class;
     };
   }
 
@@ -61,6 +65,7 @@ public enum SpectralSimilarityFunctions implements ModuleOptionsEnum<SpectralSim
       case NIST_COMPOSITE_COSINE ->
           "Composite cosine identity (e.g., GC-EI-MS; similar to NIST search)";
       case WEIGHTED_COSINE -> "Weighted cosine similarity";
+      case VECTORIZED_WEIGHTED_COSINE -> "Weighted cosine similarity (vectorized)";
     };
   }
 }
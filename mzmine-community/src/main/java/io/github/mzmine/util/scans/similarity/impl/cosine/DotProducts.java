@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.scans.similarity.impl.cosine;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Dot products on primitive arrays. Uses the VectorDotProduct kernel when the JVM was started with
+ * --add-modules=jdk.incubator.vector and falls back to a scalar loop otherwise. The kernel is
+ * compiled in the separate vector source set (src/vector/java), so the main sources never depend
+ * on the incubator module.
+ */
+final class DotProducts {
+
+  private static final Logger logger = Logger.getLogger(DotProducts.class.getName());
+
+  private static final String VECTOR_KERNEL_CLASS =
+      DotProducts.class.getPackageName() + ".VectorDotProduct";
+
+  private static final @Nullable DotProduct VECTOR_KERNEL = loadVectorKernel();
+
+  private DotProducts() {
+  }
+
+  /**
+   * @return the vector kernel or null if the vector module or the kernel is not available
+   */
+  private static @Nullable DotProduct loadVectorKernel() {
+    if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+      logger.fine(
+          "Module jdk.incubator.vector is not available. Using scalar dot products for spectral similarity.");
+      return null;
+    }
+    try {
+      return (DotProduct) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor()
+          .newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      logger.log(Level.FINE,
+          "Vector kernel is not available. Using scalar dot products for spectral similarity.", e);
+      return null;
+    }
+  }
+
+  /**
+   * @return true if the vector kernel is used
+   */
+  static boolean isVectorized() {
+    return VECTOR_KERNEL != null;
+  }
+
+  /**
+   * @return sum of x[i]*y[i] for the first length values
+   */
+  static double dot(double[] x, double[] y, int length) {
+    if (VECTOR_KERNEL != null) {
+      return VECTOR_KERNEL.dot(x, y, length);
+    }
+    return scalarDot(x, y, length);
+  }
+
+  /**
+   * @return sum of x[i]^2 for the first length values
+   */
+  static double squaredNorm(double[] x, int length) {
+    return dot(x, x, length);
+  }
+
+  static double scalarDot(double[] x, double[] y, int length) {
+    double sum = 0;
+    for (int i = 0; i < length; i++) {
+      sum += x[i] * y[i];
+    }
+    return sum;
+  }
+
+  /**
+   * Implemented by the vector kernel
+   */
+  interface DotProduct {
+
+    /**
+     * @return sum of x[i]*y[i] for the first length values
+     */
+    double dot(double[] x, double[] y, int length);
+  }
+}
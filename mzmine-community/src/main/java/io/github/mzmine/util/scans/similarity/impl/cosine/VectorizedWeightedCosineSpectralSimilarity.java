@@ -0,0 +1,441 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.scans.similarity.impl.cosine;
+
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.DataPointSorter;
+import io.github.mzmine.util.scans.similarity.HandleUnmatchedSignalOptions;
+import io.github.mzmine.util.scans.similarity.SpectralSimilarity;
+import io.github.mzmine.util.scans.similarity.SpectralSimilarityFunction;
+import io.github.mzmine.util.scans.similarity.Weights;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Same results as {@link WeightedCosineSpectralSimilarity} but works on m/z sorted primitive
+ * arrays ({@link WeightedSpectrum}) instead of aligned data point lists. The tolerance windows
+ * are found by a single sweep over both spectra and signals are matched greedily by intensity
+ * like {@link io.github.mzmine.util.scans.ScanAlignment#align(MZTolerance, DataPoint[],
+ * DataPoint[])}. The dot products run on the vector API if available. Scratch buffers are reused
+ * per thread, so scoring prepared spectra does not allocate unless a match is reported.
+ */
+public class VectorizedWeightedCosineSpectralSimilarity extends SpectralSimilarityFunction {
+
+  private static final ThreadLocal<AlignmentBuffers> buffers = ThreadLocal.withInitial(
+      AlignmentBuffers::new);
+
+  private final Weights weights;
+  private final double minCos;
+  private final HandleUnmatchedSignalOptions handleUnmatched;
+
+  /**
+   * required default constructor in module for initial instance in config
+   */
+  public VectorizedWeightedCosineSpectralSimilarity() {
+    this(Weights.SQRT, 0.7, HandleUnmatchedSignalOptions.KEEP_ALL_AND_MATCH_TO_ZERO);
+  }
+
+  public VectorizedWeightedCosineSpectralSimilarity(ParameterSet parameters) {
+    this(parameters.getParameter(WeightedCosineSpectralSimilarityParameters.weight).getValue(),
+        parameters.getParameter(WeightedCosineSpectralSimilarityParameters.minCosine).getValue(),
+        parameters.getParameter(WeightedCosineSpectralSimilarityParameters.handleUnmatched)
+            .getValue());
+  }
+
+  public VectorizedWeightedCosineSpectralSimilarity(Weights weights, double minCos,
+      HandleUnmatchedSignalOptions handleUnmatched) {
+    this.weights = weights;
+    this.minCos = minCos;
+    this.handleUnmatched = handleUnmatched;
+  }
+
+  /**
+   * Prepare a spectrum once to compare it many times with
+   * {@link #getSimilarity(MZTolerance, int, WeightedSpectrum, WeightedSpectrum)}
+   *
+   * @param dataPoints data points in any order
+   */
+  public WeightedSpectrum prepare(DataPoint[] dataPoints) {
+    return prepare(dataPoints, weights);
+  }
+
+  /**
+   * @param dataPoints data points in any order
+   */
+  public static WeightedSpectrum prepare(DataPoint[] dataPoints, Weights weights) {
+    return WeightedSpectrum.of(sortedByMz(dataPoints), weights);
+  }
+
+  @Override
+  public @Nullable SpectralSimilarity getSimilarity(MZTolerance mzTol, int minMatch,
+      DataPoint[] library, DataPoint[] query) {
+    final DataPoint[] sortedLibrary = sortedByMz(library);
+    final DataPoint[] sortedQuery = sortedByMz(query);
+    final WeightedSpectrum lib = WeightedSpectrum.of(sortedLibrary, weights);
+    final WeightedSpectrum qry = WeightedSpectrum.of(sortedQuery, weights);
+
+    final AlignmentBuffers buffer = buffers.get();
+    final double cosine = calcCosine(mzTol, minMatch, lib, qry, buffer);
+    if (Double.isNaN(cosine)) {
+      return null;
+    }
+
+    return new SpectralSimilarity(getName(), cosine, buffer.overlap, sortedLibrary, sortedQuery,
+        alignedDataPoints(sortedLibrary, sortedQuery, lib, qry, buffer));
+  }
+
+  /**
+   * Same aligned data points as the data point implementation, which aligns with
+   * {@link io.github.mzmine.util.scans.ScanAlignment#align(MZTolerance, DataPoint[], DataPoint[])}
+   * and applies {@link HandleUnmatchedSignalOptions#handleUnmatched(List)}
+   *
+   * @return aligned data points [library, query]
+   */
+  List<DataPoint[]> alignDataPoints(MZTolerance mzTol, DataPoint[] library, DataPoint[] query) {
+    final DataPoint[] sortedLibrary = sortedByMz(library);
+    final DataPoint[] sortedQuery = sortedByMz(query);
+    final WeightedSpectrum lib = WeightedSpectrum.of(sortedLibrary, weights);
+    final WeightedSpectrum qry = WeightedSpectrum.of(sortedQuery, weights);
+    final AlignmentBuffers buffer = buffers.get();
+    align(mzTol, lib, qry, Double.NaN, buffer);
+    return alignedDataPoints(sortedLibrary, sortedQuery, lib, qry, buffer);
+  }
+
+  /**
+   * Same order as {@link io.github.mzmine.util.scans.ScanAlignment#align(MZTolerance, DataPoint[],
+   * DataPoint[])}: library signals by intensity with their match or null, then the unmatched query
+   * signals. Unmatched signals are removed like in {@link HandleUnmatchedSignalOptions}.
+   *
+   * @return aligned data points [library, query]
+   */
+  private List<DataPoint[]> alignedDataPoints(DataPoint[] sortedLibrary, DataPoint[] sortedQuery,
+      WeightedSpectrum library, WeightedSpectrum query, AlignmentBuffers buffer) {
+    final boolean keepLibrary = switch (handleUnmatched) {
+      case KEEP_ALL_AND_MATCH_TO_ZERO, KEEP_LIBRARY_SIGNALS -> true;
+      case REMOVE_ALL, KEEP_EXPERIMENTAL_SIGNALS -> false;
+    };
+    final boolean keepQuery = switch (handleUnmatched) {
+      case KEEP_ALL_AND_MATCH_TO_ZERO, KEEP_EXPERIMENTAL_SIGNALS -> true;
+      case REMOVE_ALL, KEEP_LIBRARY_SIGNALS -> false;
+    };
+
+    final List<DataPoint[]> aligned = new ArrayList<>(
+        library.getNumberOfSignals() + query.getNumberOfSignals());
+    for (final int i : library.intensityOrder()) {
+      final int match = buffer.matchOfLibrary[i];
+      if (match != -1) {
+        aligned.add(new DataPoint[]{sortedLibrary[i], sortedQuery[match]});
+      } else if (keepLibrary) {
+        aligned.add(new DataPoint[]{sortedLibrary[i], null});
+      }
+    }
+    if (keepQuery) {
+      for (final int j : query.intensityOrder()) {
+        if (!buffer.usedQuery[j]) {
+          aligned.add(new DataPoint[]{null, sortedQuery[j]});
+        }
+      }
+    }
+    return aligned;
+  }
+
+  /**
+   * Similarity of two prepared spectra. Does not allocate memory unless a similarity is returned.
+   *
+   * @return the similarity without the aligned data points or null if the minimum number of
+   * matched signals or the minimum cosine is not reached.
+   */
+  public @Nullable SpectralSimilarity getSimilarity(MZTolerance mzTol, int minMatch,
+      WeightedSpectrum library, WeightedSpectrum query) {
+    final AlignmentBuffers buffer = buffers.get();
+    final double cosine = calcCosine(mzTol, minMatch, library, query, buffer);
+    if (Double.isNaN(cosine)) {
+      return null;
+    }
+    return new SpectralSimilarity(getName(), cosine, buffer.overlap,
+        explainedIntensity(library, buffer));
+  }
+
+  /**
+   * Modification aware cosine of two prepared spectra with all unmatched signals kept. Same results
+   * as
+   * {@link io.github.mzmine.modules.dataprocessing.group_spectral_networking.modified_cosine.ModifiedCosineSpectralNetworkingTask#createMS2SimModificationAware(MZTolerance,
+   * Weights, DataPoint[], DataPoint[], double, java.util.function.Function, double, double)} with
+   * the size overlap. Each signal of b (most intense first) is matched to the most intense unmatched
+   * signal of a within the tolerance of its m/z or its m/z shifted by the precursor difference. Both
+   * spectra need to be prepared with the same weights.
+   *
+   * @param precursorMzA precursor m/z of a, signals are only matched unshifted if any precursor m/z
+   *                     is not positive
+   * @param precursorMzB precursor m/z of b
+   * @return the similarity or null if less than minMatch signals were matched
+   */
+  @Nullable
+  public static io.github.mzmine.datamodel.features.correlation.SpectralSimilarity getModifiedCosine(
+      MZTolerance mzTol, double minMatch, WeightedSpectrum a, WeightedSpectrum b,
+      double precursorMzA, double precursorMzB) {
+    final double shift = precursorMzA > 0 && precursorMzB > 0 ? precursorMzA - precursorMzB
+        : Double.NaN;
+    final AlignmentBuffers buffer = buffers.get();
+    // b is aligned against a like in the data point implementation
+    final int overlap = align(mzTol, b, a, shift, buffer);
+    if (overlap < minMatch) {
+      return null;
+    }
+
+    final double dot = DotProducts.dot(buffer.matchedLibrary, buffer.matchedQuery,
+        gatherMatches(b, a, buffer));
+    final double cosine = dot / (Math.sqrt(b.squaredNorm()) * Math.sqrt(a.squaredNorm()));
+
+    double explainedA = 0;
+    double totalA = 0;
+    for (int j = 0; j < a.getNumberOfSignals(); j++) {
+      totalA += a.intensities()[j];
+      if (buffer.usedQuery[j]) {
+        explainedA += a.intensities()[j];
+      }
+    }
+    double explainedB = 0;
+    double totalB = 0;
+    for (int i = 0; i < b.getNumberOfSignals(); i++) {
+      totalB += b.intensities()[i];
+      if (buffer.matchOfLibrary[i] != -1) {
+        explainedB += b.intensities()[i];
+      }
+    }
+    // the data point implementation reports the aligned spectrum b first
+    return new io.github.mzmine.datamodel.features.correlation.SpectralSimilarity(cosine, overlap,
+        b.getNumberOfSignals(), a.getNumberOfSignals(), explainedB / totalB,
+        explainedA / totalA);
+  }
+
+  /**
+   * Gathers the weighted intensities of matched pairs into contiguous arrays for the dot products
+   *
+   * @return the number of matched pairs
+   */
+  private static int gatherMatches(WeightedSpectrum library, WeightedSpectrum query,
+      AlignmentBuffers buffer) {
+    final double[] x = buffer.matchedLibrary;
+    final double[] y = buffer.matchedQuery;
+    int k = 0;
+    for (int i = 0; i < library.getNumberOfSignals(); i++) {
+      final int match = buffer.matchOfLibrary[i];
+      if (match != -1) {
+        x[k] = library.weighted()[i];
+        y[k] = query.weighted()[match];
+        k++;
+      }
+    }
+    return k;
+  }
+
+  /**
+   * @return the cosine or NaN if requirements were not met
+   */
+  private double calcCosine(MZTolerance mzTol, int minMatch, WeightedSpectrum library,
+      WeightedSpectrum query, AlignmentBuffers buffer) {
+    final int overlap = align(mzTol, library, query, Double.NaN, buffer);
+    if (overlap < minMatch) {
+      return Double.NaN;
+    }
+
+    gatherMatches(library, query, buffer);
+    final double[] x = buffer.matchedLibrary;
+    final double[] y = buffer.matchedQuery;
+
+    final double dot = DotProducts.dot(x, y, overlap);
+    // unmatched signals are matched against 0 and only add to the norm if kept
+    final double normLibrary = switch (handleUnmatched) {
+      case KEEP_ALL_AND_MATCH_TO_ZERO, KEEP_LIBRARY_SIGNALS -> library.squaredNorm();
+      case REMOVE_ALL, KEEP_EXPERIMENTAL_SIGNALS -> DotProducts.squaredNorm(x, overlap);
+    };
+    final double normQuery = switch (handleUnmatched) {
+      case KEEP_ALL_AND_MATCH_TO_ZERO, KEEP_EXPERIMENTAL_SIGNALS -> query.squaredNorm();
+      case REMOVE_ALL, KEEP_LIBRARY_SIGNALS -> DotProducts.squaredNorm(y, overlap);
+    };
+
+    final double cosine = dot / (Math.sqrt(normLibrary) * Math.sqrt(normQuery));
+    return cosine >= minCos ? cosine : Double.NaN;
+  }
+
+  /**
+   * Matches each library signal (most intense first) to the most intense unmatched query signal
+   * within the tolerance. The candidate windows are found with two pointers as both tolerance
+   * bounds increase with m/z.
+   *
+   * @param shift library signals also match query signals within the tolerance of their m/z plus
+   *              this shift. NaN to only match unshifted signals.
+   * @return number of matched signals, the matches are in {@link AlignmentBuffers#matchOfLibrary}
+   * and {@link AlignmentBuffers#usedQuery}
+   */
+  static int align(MZTolerance mzTol, WeightedSpectrum library, WeightedSpectrum query,
+      double shift, AlignmentBuffers buffer) {
+    final int n = library.getNumberOfSignals();
+    final int m = query.getNumberOfSignals();
+    buffer.ensureCapacity(n, m);
+    final double[] mzA = library.mzs();
+    final double[] mzB = query.mzs();
+    final int[] start = buffer.windowStart;
+    final int[] end = buffer.windowEnd;
+    final int[] shiftedStart = buffer.shiftedWindowStart;
+    final int[] shiftedEnd = buffer.shiftedWindowEnd;
+    final boolean shifted = !Double.isNaN(shift);
+
+    findWindows(mzTol, mzA, n, 0, mzB, m, start, end);
+    if (shifted) {
+      findWindows(mzTol, mzA, n, shift, mzB, m, shiftedStart, shiftedEnd);
+    }
+
+    final double[] intensityB = query.intensities();
+    final boolean[] used = buffer.usedQuery;
+    Arrays.fill(used, 0, m, false);
+    final int[] matchOfLibrary = buffer.matchOfLibrary;
+    Arrays.fill(matchOfLibrary, 0, n, -1);
+
+    int overlap = 0;
+    for (final int i : library.intensityOrder()) {
+      int best = findBest(intensityB, mzB, used, start[i], end[i], -1);
+      if (shifted) {
+        best = findBest(intensityB, mzB, used, shiftedStart[i], shiftedEnd[i], best);
+      }
+      if (best != -1) {
+        used[best] = true;
+        matchOfLibrary[i] = best;
+        overlap++;
+      }
+    }
+    buffer.overlap = overlap;
+    return overlap;
+  }
+
+  /**
+   * Finds the query signals within the tolerance of each library m/z plus shift
+   */
+  private static void findWindows(MZTolerance mzTol, double[] mzA, int n, double shift,
+      double[] mzB, int m, int[] start, int[] end) {
+    int lo = 0;
+    int hi = 0;
+    for (int i = 0; i < n; i++) {
+      final double mz = mzA[i] + shift;
+      while (lo < m && mzB[lo] < mz && !mzTol.checkWithinTolerance(mz, mzB[lo])) {
+        lo++;
+      }
+      hi = Math.max(hi, lo);
+      while (hi < m && (mzB[hi] <= mz || mzTol.checkWithinTolerance(mz, mzB[hi]))) {
+        hi++;
+      }
+      start[i] = lo;
+      end[i] = hi;
+    }
+  }
+
+  /**
+   * @return the highest intensity, then highest m/z unused signal in the window, like the intensity
+   * sorted alignment, or best if none is better
+   */
+  private static int findBest(double[] intensityB, double[] mzB, boolean[] used, int start,
+      int end, int best) {
+    for (int j = start; j < end; j++) {
+      if (!used[j] && (best == -1 || intensityB[j] > intensityB[best] || (
+          intensityB[j] == intensityB[best] && mzB[j] > mzB[best]))) {
+        best = j;
+      }
+    }
+    return best;
+  }
+
+  private static double explainedIntensity(WeightedSpectrum library, AlignmentBuffers buffer) {
+    final double[] intensities = library.intensities();
+    double matched = 0;
+    double total = 0;
+    for (int i = 0; i < intensities.length; i++) {
+      total += intensities[i];
+      if (buffer.matchOfLibrary[i] != -1) {
+        matched += intensities[i];
+      }
+    }
+    return total > 0 ? matched / total : 0;
+  }
+
+  private static DataPoint[] sortedByMz(DataPoint[] dataPoints) {
+    for (int i = 1; i < dataPoints.length; i++) {
+      if (DataPointSorter.DEFAULT_MZ_ASCENDING.compare(dataPoints[i - 1], dataPoints[i]) > 0) {
+        final DataPoint[] sorted = Arrays.copyOf(dataPoints, dataPoints.length);
+        Arrays.sort(sorted, DataPointSorter.DEFAULT_MZ_ASCENDING);
+        return sorted;
+      }
+    }
+    return dataPoints;
+  }
+
+  @Override
+  @NotNull
+  public String getName() {
+    return "Weighted cosine similarity (vectorized)";
+  }
+
+  @Override
+  public @Nullable Class<? extends ParameterSet> getParameterSetClass() {
+    return WeightedCosineSpectralSimilarityParameters.class;
+  }
+
+  /**
+   * Per thread scratch arrays that only grow
+   */
+  static final class AlignmentBuffers {
+
+    private int[] windowStart = new int[0];
+    private int[] windowEnd = new int[0];
+    private int[] shiftedWindowStart = new int[0];
+    private int[] shiftedWindowEnd = new int[0];
+    private int[] matchOfLibrary = new int[0];
+    private double[] matchedLibrary = new double[0];
+    private double[] matchedQuery = new double[0];
+    private boolean[] usedQuery = new boolean[0];
+    private int overlap;
+
+    private void ensureCapacity(int librarySignals, int querySignals) {
+      if (windowStart.length < librarySignals) {
+        windowStart = new int[librarySignals];
+        windowEnd = new int[librarySignals];
+        shiftedWindowStart = new int[librarySignals];
+        shiftedWindowEnd = new int[librarySignals];
+        matchOfLibrary = new int[librarySignals];
+        matchedLibrary = new double[librarySignals];
+        matchedQuery = new double[librarySignals];
+      }
+      if (usedQuery.length < querySignals) {
+        usedQuery = new boolean[querySignals];
+      }
+    }
+  }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.scans.similarity.impl.cosine;
+
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.util.scans.similarity.Weights;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Struct of arrays representation of a spectrum for
+ * {@link VectorizedWeightedCosineSpectralSimilarity}. Signals are sorted by ascending m/z and the
+ * intensities are already weighted so that a spectrum can be prepared once and compared many
+ * times.
+ *
+ * @param mzs            ascending m/z values
+ * @param intensities    raw intensities, used to match the most intense signals first
+ * @param weighted       weighted intensities {@link Weights#apply(double, double)}
+ * @param intensityOrder signal indices sorted by descending intensity (and descending m/z for
+ *                       equal intensities) like {@link io.github.mzmine.util.scans.ScanAlignment}
+ * @param squaredNorm    sum of all squared weighted intensities
+ */
+public record WeightedSpectrum(double[] mzs, double[] intensities, double[] weighted,
+                               int[] intensityOrder, double squaredNorm) {
+
+  /**
+   * @param dataPoints data points sorted by ascending m/z
+   */
+  public static WeightedSpectrum of(@NotNull DataPoint[] dataPoints, @NotNull Weights weights) {
+    final double[] mzs = new double[dataPoints.length];
+    final double[] intensities = new double[dataPoints.length];
+    for (int i = 0; i < dataPoints.length; i++) {
+      mzs[i] = dataPoints[i].getMZ();
+      intensities[i] = dataPoints[i].getIntensity();
+    }
+    return of(mzs, intensities, weights);
+  }
+
+  /**
+   * @param mzs         ascending m/z values
+   * @param intensities intensities for each m/z
+   */
+  public static WeightedSpectrum of(double[] mzs, double[] intensities, @NotNull Weights weights) {
+    final int n = mzs.length;
+    final double[] weighted = new double[n];
+    for (int i = 0; i < n; i++) {
+      weighted[i] = weights.apply(mzs[i], intensities[i]);
+    }
+
+    final int[] order = new int[n];
+    for (int i = 0; i < n; i++) {
+      order[i] = i;
+    }
+    // descending intensity, then descending m/z
+    IntArrays.quickSort(order, (a, b) -> {
+      final int result = Double.compare(intensities[b], intensities[a]);
+      return result != 0 ? result : Double.compare(mzs[b], mzs[a]);
+    });
+
+    return new WeightedSpectrum(mzs, intensities, weighted, order,
+        DotProducts.squaredNorm(weighted, n));
+  }
+
+  public int getNumberOfSignals() {
+    return mzs.length;
+  }
+}
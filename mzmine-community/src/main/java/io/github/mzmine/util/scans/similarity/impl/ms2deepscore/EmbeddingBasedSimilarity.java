@@ -42,6 +42,18 @@ public abstract class EmbeddingBasedSimilarity {
   public abstract NDArray predictEmbedding(List<? extends MassSpectrum> scans)
       throws TranslateException;
 
+  /**
+   * Predict embeddings and create an approximate nearest neighbor index. In contrast to
+   * {@link #predictMatrixSymmetric(List)}, memory scales linearly with the number of scans.
+   *
+   * @param scans scans to index
+   * @return index of the normalized embeddings in the same order as scans
+   */
+  public HnswEmbeddingIndex predictEmbeddingIndex(List<? extends MassSpectrum> scans)
+      throws TranslateException {
+    return new HnswEmbeddingIndex(toNormalizedEmbeddings(predictEmbedding(scans)));
+  }
+
   /**
    * Predict similarity matrix from list of scans. The scans are converted into embeddings and then
    * compared by similarity, usually cosine similarity but depending on the implementation
@@ -90,6 +102,30 @@ public abstract class EmbeddingBasedSimilarity {
     return convertNDArrayToFloatMatrix(embedding1.dot(embedding2.transpose()));
   }
 
+  /**
+   * Converts embeddings into L2 normalized float vectors. The dot product of two vectors is the
+   * cosine similarity, the same as in {@link #dotProduct(NDArray, NDArray)}.
+   *
+   * @param embeddings A 2D NDArray with one embedding per row.
+   * @return one normalized embedding per row
+   */
+  public static float[][] toNormalizedEmbeddings(NDArray embeddings) {
+    final float[][] vectors = convertNDArrayToFloatMatrix(embeddings);
+    for (float[] vector : vectors) {
+      double norm = 0;
+      for (float v : vector) {
+        norm += v * v;
+      }
+      norm = Math.sqrt(norm);
+      if (norm > 0) {
+        for (int i = 0; i < vector.length; i++) {
+          vector[i] = (float) (vector[i] / norm);
+        }
+      }
+    }
+    return vectors;
+  }
+
   /**
    * Converts a 2D NDArray into a float matrix.
    *
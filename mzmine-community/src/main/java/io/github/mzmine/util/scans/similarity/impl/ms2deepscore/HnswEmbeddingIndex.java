@@ -0,0 +1,596 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.scans.similarity.impl.ms2deepscore;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongComparators;
+import it.unimi.dsi.fastutil.longs.LongHeapPriorityQueue;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Approximate nearest neighbor index of spectrum embeddings (e.g., DreaMS or MS2Deepscore) based on
+ * a hierarchical navigable small world (HNSW) graph. Embeddings are L2 normalized, so the dot product
+ * equals the cosine similarity that is otherwise computed by
+ * {@link EmbeddingBasedSimilarity#dotProduct}. Memory scales linearly with the number of
+ * embeddings, the n x n similarity matrix is never created.
+ * <p>
+ * Small indices are searched exactly. The graph is built in batches: all nodes of a batch search
+ * the graph of previous batches in parallel and are linked in a fixed order afterwards. Of equal
+ * similarities, the lower index always ranks first, in the graph and in all results, like a stable
+ * sort by descending similarity. This keeps the graph and all search results reproducible.
+ * <p>
+ * Searches are thread safe.
+ */
+public class HnswEmbeddingIndex {
+
+  /**
+   * Indices up to this size are searched exactly without building the graph
+   */
+  public static final int EXACT_SEARCH_MAX_SIZE = 5000;
+  public static final int DEFAULT_M = 16;
+  public static final int DEFAULT_EF_CONSTRUCTION = 100;
+  public static final int DEFAULT_EF_SEARCH = 64;
+  /**
+   * Searches for all neighbors above a similarity threshold double the candidate list until it
+   * reaches below the threshold. Once the list would exceed this fraction of the index, scanning all
+   * embeddings is cheaper than the graph search.
+   */
+  public static final int EXACT_FALLBACK_FRACTION = 8;
+  private static final int MAX_BATCH_SIZE = 256;
+  private static final long DEFAULT_SEED = 42L;
+
+  private final float[][] embeddings;
+  private final int m;
+  private final int maxM0;
+  private final int efConstruction;
+  private final int[] levels;
+  // node -> level -> links
+  private final Links[][] links;
+  private int entryPoint = -1;
+  private int maxLevel = -1;
+
+  /**
+   * Index with default parameters
+   *
+   * @param normalizedEmbeddings L2 normalized embeddings, one per spectrum. See
+   *                             {@link EmbeddingBasedSimilarity#toNormalizedEmbeddings}
+   */
+  public HnswEmbeddingIndex(float[][] normalizedEmbeddings) {
+    this(normalizedEmbeddings, DEFAULT_M, DEFAULT_EF_CONSTRUCTION, DEFAULT_SEED, false);
+  }
+
+  /**
+   * @param normalizedEmbeddings L2 normalized embeddings, one per spectrum
+   * @param m                    number of links per node and level, level 0 uses 2*m
+   * @param efConstruction       size of the dynamic candidate list during construction
+   * @param seed                 seed for the node levels and insertion order
+   * @param forceGraph           build the graph even for small indices, which are otherwise
+   *                             searched exactly
+   */
+  public HnswEmbeddingIndex(float[][] normalizedEmbeddings, int m, int efConstruction, long seed,
+      boolean forceGraph) {
+    if (m < 2) {
+      throw new IllegalArgumentException("m needs to be at least 2");
+    }
+    this.embeddings = normalizedEmbeddings;
+    this.m = m;
+    this.maxM0 = 2 * m;
+    this.efConstruction = Math.max(efConstruction, m);
+
+    final int n = embeddings.length;
+    if (!forceGraph && n <= EXACT_SEARCH_MAX_SIZE) {
+      levels = null;
+      links = null;
+      return;
+    }
+
+    final Random random = new Random(seed);
+    final double levelMultiplier = 1d / Math.log(m);
+    levels = new int[n];
+    links = new Links[n][];
+    for (int i = 0; i < n; i++) {
+      levels[i] = (int) (-Math.log(1d - random.nextDouble()) * levelMultiplier);
+      links[i] = new Links[levels[i] + 1];
+      for (int l = 0; l <= levels[i]; l++) {
+        links[i][l] = new Links(l == 0 ? maxM0 : m);
+      }
+    }
+
+    // random insertion order so that similar neighboring spectra do not end up in the same batch
+    final int[] order = IntStream.range(0, n).toArray();
+    IntArrays.shuffle(order, random);
+
+    int inserted = 0;
+    while (inserted < n) {
+      final int batchSize = Math.clamp(inserted / 8, 1, MAX_BATCH_SIZE);
+      final int[] batch = Arrays.copyOfRange(order, inserted, Math.min(n, inserted + batchSize));
+      insertBatch(batch);
+      inserted += batch.length;
+    }
+  }
+
+  /**
+   * Sortable key of a similarity and node. Natural long order sorts by similarity and then by
+   * descending node, so that the lower node is the greater key for equal similarities.
+   */
+  private static long toKey(float similarity, int node) {
+    int bits = Float.floatToIntBits(similarity);
+    bits ^= (bits >> 31) & 0x7fffffff;
+    return ((long) bits << 32) | (~node & 0xffffffffL);
+  }
+
+  private static float keySimilarity(long key) {
+    int bits = (int) (key >> 32);
+    bits ^= (bits >> 31) & 0x7fffffff;
+    return Float.intBitsToFloat(bits);
+  }
+
+  private static int keyNode(long key) {
+    return ~(int) key;
+  }
+
+  /**
+   * Dot product of two embeddings
+   */
+  public static float similarity(float[] a, float[] b) {
+    float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+    final int length = Math.min(a.length, b.length);
+    final int unrolled = length & ~3;
+    int i = 0;
+    for (; i < unrolled; i += 4) {
+      s0 += a[i] * b[i];
+      s1 += a[i + 1] * b[i + 1];
+      s2 += a[i + 2] * b[i + 2];
+      s3 += a[i + 3] * b[i + 3];
+    }
+    for (; i < length; i++) {
+      s0 += a[i] * b[i];
+    }
+    return (s0 + s1) + (s2 + s3);
+  }
+
+  private float similarity(float[] query, int node) {
+    return similarity(query, embeddings[node]);
+  }
+
+  public int size() {
+    return embeddings.length;
+  }
+
+  public float[] getEmbedding(int index) {
+    return embeddings[index];
+  }
+
+  /**
+   * @return true if searches use the graph, false if all searches are exact
+   */
+  public boolean isApproximate() {
+    return links != null;
+  }
+
+  /**
+   * Search the graph of all previous batches in parallel, then link all nodes in batch order.
+   */
+  private void insertBatch(int[] batch) {
+    final Links[][] selected = new Links[batch.length][];
+    IntStream.range(0, batch.length).parallel()
+        .forEach(b -> selected[b] = selectNeighbors(batch, b));
+
+    // set the own links first - nodes of the same batch may link each other
+    for (int b = 0; b < batch.length; b++) {
+      final int node = batch[b];
+      for (int l = 0; l < selected[b].length; l++) {
+        links[node][l].addAll(selected[b][l]);
+      }
+    }
+    // reverse links
+    for (int b = 0; b < batch.length; b++) {
+      final int node = batch[b];
+      for (int l = 0; l < selected[b].length; l++) {
+        final Links own = selected[b][l];
+        for (int i = 0; i < own.size; i++) {
+          links[own.nodes[i]][l].addOrReplaceLeastSimilar(node, own.similarities[i]);
+        }
+      }
+    }
+    for (int node : batch) {
+      if (levels[node] > maxLevel) {
+        maxLevel = levels[node];
+        entryPoint = node;
+      }
+    }
+  }
+
+  /**
+   * Finds the neighbors of a new node in the current graph and in its batch
+   *
+   * @return the selected neighbors for each level of the node
+   */
+  private Links[] selectNeighbors(int[] batch, int b) {
+    final int node = batch[b];
+    final float[] query = embeddings[node];
+    final int nodeLevel = levels[node];
+    final Links[] result = new Links[nodeLevel + 1];
+
+    int current = entryPoint;
+    float currentSim = current == -1 ? 0 : similarity(query, current);
+    for (int l = maxLevel; l > nodeLevel; l--) {
+      current = greedySearch(query, current, l);
+    }
+    if (current != -1) {
+      currentSim = similarity(query, current);
+    }
+
+    for (int l = nodeLevel; l >= 0; l--) {
+      final LongArrayList candidates = new LongArrayList();
+      if (l <= maxLevel && current != -1) {
+        final long[] found = searchLayer(query, current, currentSim, efConstruction, l);
+        candidates.addElements(0, found);
+        current = keyNode(found[0]);
+        currentSim = keySimilarity(found[0]);
+      }
+      // other nodes of the same batch are not in the graph yet
+      for (int other : batch) {
+        if (other != node && levels[other] >= l) {
+          candidates.add(toKey(similarity(query, other), other));
+        }
+      }
+      long[] sorted = candidates.toLongArray();
+      LongArrays.quickSort(sorted, LongComparators.OPPOSITE_COMPARATOR);
+      if (sorted.length > efConstruction) {
+        sorted = Arrays.copyOf(sorted, efConstruction);
+      }
+      result[l] = selectByHeuristic(sorted, m);
+    }
+    return result;
+  }
+
+  /**
+   * Selects diverse neighbors: a candidate is preferred if it is more similar to the new node than
+   * to all already selected neighbors. Remaining slots are filled with the most similar candidates.
+   *
+   * @param sortedCandidates keys sorted by descending similarity
+   */
+  private Links selectByHeuristic(long[] sortedCandidates, int max) {
+    final Links selected = new Links(max);
+    final boolean[] used = new boolean[sortedCandidates.length];
+    for (int c = 0; c < sortedCandidates.length && selected.size < max; c++) {
+      final int candidate = keyNode(sortedCandidates[c]);
+      final float sim = keySimilarity(sortedCandidates[c]);
+      boolean diverse = true;
+      for (int s = 0; s < selected.size && diverse; s++) {
+        diverse = similarity(embeddings[candidate], selected.nodes[s]) <= sim;
+      }
+      if (diverse) {
+        selected.add(candidate, sim);
+        used[c] = true;
+      }
+    }
+    for (int c = 0; c < sortedCandidates.length && selected.size < max; c++) {
+      if (!used[c]) {
+        selected.add(keyNode(sortedCandidates[c]), keySimilarity(sortedCandidates[c]));
+      }
+    }
+    return selected;
+  }
+
+  private int greedySearch(float[] query, int start, int level) {
+    long current = toKey(similarity(query, start), start);
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      final Links nodeLinks = links[keyNode(current)][level];
+      for (int i = 0; i < nodeLinks.size; i++) {
+        final int neighbor = nodeLinks.nodes[i];
+        final long key = toKey(similarity(query, neighbor), neighbor);
+        if (key > current) {
+          current = key;
+          changed = true;
+        }
+      }
+    }
+    return keyNode(current);
+  }
+
+  /**
+   * Best first search on one level of the graph
+   *
+   * @return keys of the ef most similar nodes found, sorted by descending similarity
+   */
+  private long[] searchLayer(float[] query, int start, float startSim, int ef, int level) {
+    final IntOpenHashSet visited = new IntOpenHashSet(ef * 4);
+    // most similar first
+    final LongHeapPriorityQueue candidates = new LongHeapPriorityQueue(
+        LongComparators.OPPOSITE_COMPARATOR);
+    // least similar first
+    final LongHeapPriorityQueue results = new LongHeapPriorityQueue(ef + 1);
+
+    final long startKey = toKey(startSim, start);
+    visited.add(start);
+    candidates.enqueue(startKey);
+    results.enqueue(startKey);
+
+    while (!candidates.isEmpty()) {
+      final long candidate = candidates.dequeueLong();
+      if (results.size() >= ef && candidate < results.firstLong()) {
+        break;
+      }
+      final Links nodeLinks = links[keyNode(candidate)][level];
+      for (int i = 0; i < nodeLinks.size; i++) {
+        final int neighbor = nodeLinks.nodes[i];
+        if (!visited.add(neighbor)) {
+          continue;
+        }
+        final long key = toKey(similarity(query, neighbor), neighbor);
+        if (results.size() < ef || key > results.firstLong()) {
+          candidates.enqueue(key);
+          results.enqueue(key);
+          if (results.size() > ef) {
+            results.dequeueLong();
+          }
+        }
+      }
+    }
+
+    final long[] sorted = new long[results.size()];
+    for (int i = sorted.length - 1; i >= 0; i--) {
+      sorted[i] = results.dequeueLong();
+    }
+    return sorted;
+  }
+
+  /**
+   * Search the k most similar embeddings
+   *
+   * @param query normalized query embedding
+   * @param k     number of neighbors
+   * @return neighbors sorted by descending similarity
+   */
+  public @NotNull Neighbor[] search(float[] query, int k) {
+    return search(query, k, DEFAULT_EF_SEARCH);
+  }
+
+  /**
+   * Search the k most similar embeddings
+   *
+   * @param query normalized query embedding
+   * @param k     number of neighbors
+   * @param ef    size of the dynamic candidate list, higher values increase recall and time
+   * @return neighbors sorted by descending similarity
+   */
+  public @NotNull Neighbor[] search(float[] query, int k, int ef) {
+    return searchAbove(query, k, Double.POSITIVE_INFINITY, ef, -1);
+  }
+
+  /**
+   * Exact search of the k most similar embeddings, e.g., to measure the recall of the approximate
+   * search.
+   *
+   * @return neighbors sorted by descending similarity
+   */
+  public @NotNull Neighbor[] searchExact(float[] query, int k) {
+    return searchExactAbove(query, k, Double.POSITIVE_INFINITY, -1);
+  }
+
+  /**
+   * Finds the neighbors of an indexed embedding, excluding itself. This matches a row of a kNN
+   * similarity matrix.
+   *
+   * @param index         the index of the embedding
+   * @param minNeighbors  the number of most similar neighbors that are always retained
+   * @param minSimilarity all neighbors with a higher similarity are retained
+   * @return neighbors sorted by descending similarity
+   */
+  public @NotNull Neighbor[] searchNeighbors(int index, int minNeighbors, double minSimilarity) {
+    return searchAbove(embeddings[index], minNeighbors, minSimilarity, DEFAULT_EF_SEARCH, index);
+  }
+
+  /**
+   * @param exclude index of the embedding that is excluded from the results or -1
+   */
+  private @NotNull Neighbor[] searchAbove(float[] query, int minNeighbors, double minSimilarity,
+      int ef, int exclude) {
+    if (!isApproximate()) {
+      return searchExactAbove(query, minNeighbors, minSimilarity, exclude);
+    }
+    if (entryPoint == -1) {
+      return new Neighbor[0];
+    }
+
+    int current = entryPoint;
+    for (int l = maxLevel; l > 0; l--) {
+      current = greedySearch(query, current, l);
+    }
+    final float currentSim = similarity(query, current);
+
+    // one more to account for the excluded embedding
+    final int required = minNeighbors + (exclude >= 0 ? 1 : 0);
+    int currentEf = Math.max(ef, required);
+    long[] found;
+    while (true) {
+      found = searchLayer(query, current, currentSim, currentEf, 0);
+      // all results above the threshold - there may be more
+      if (found.length < currentEf || currentEf >= size()
+          || keySimilarity(found[found.length - 1]) <= minSimilarity) {
+        break;
+      }
+      currentEf *= 2;
+      if (currentEf > size() / EXACT_FALLBACK_FRACTION) {
+        // dense neighborhood, keep all edges above the threshold
+        return searchExactAbove(query, minNeighbors, minSimilarity, exclude);
+      }
+    }
+
+    final Neighbor[] result = new Neighbor[found.length];
+    int n = 0;
+    for (long key : found) {
+      final int node = keyNode(key);
+      final float sim = keySimilarity(key);
+      if (node != exclude && (n < minNeighbors || sim > minSimilarity)) {
+        result[n++] = new Neighbor(node, sim);
+      }
+    }
+    return Arrays.copyOf(result, n);
+  }
+
+  private @NotNull Neighbor[] searchExactAbove(float[] query, int minNeighbors,
+      double minSimilarity, int exclude) {
+    final LongArrayList above = new LongArrayList();
+    // least similar first, only for the neighbors below the threshold
+    final LongHeapPriorityQueue best = new LongHeapPriorityQueue(minNeighbors + 1);
+    for (int i = 0; i < embeddings.length; i++) {
+      if (i == exclude) {
+        continue;
+      }
+      final float sim = similarity(query, i);
+      final long key = toKey(sim, i);
+      if (sim > minSimilarity) {
+        above.add(key);
+      } else if (minNeighbors > 0) {
+        best.enqueue(key);
+        if (best.size() > minNeighbors) {
+          best.dequeueLong();
+        }
+      }
+    }
+    while (!best.isEmpty()) {
+      above.add(best.dequeueLong());
+    }
+    final long[] sorted = above.toLongArray();
+    LongArrays.quickSort(sorted, LongComparators.OPPOSITE_COMPARATOR);
+
+    final int n = Math.max(Math.min(minNeighbors, sorted.length), countAbove(sorted,
+        minSimilarity));
+    final Neighbor[] result = new Neighbor[n];
+    for (int i = 0; i < n; i++) {
+      result[i] = new Neighbor(keyNode(sorted[i]), keySimilarity(sorted[i]));
+    }
+    return result;
+  }
+
+  private static int countAbove(long[] sortedKeys, double minSimilarity) {
+    int count = 0;
+    while (count < sortedKeys.length && keySimilarity(sortedKeys[count]) > minSimilarity) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Measures the recall@k of the approximate search against the exact search for a random sample
+   * of indexed embeddings.
+   *
+   * @param k          number of neighbors
+   * @param ef         size of the dynamic candidate list
+   * @param numQueries number of sampled embeddings
+   * @return the fraction of exact neighbors that were found
+   */
+  public double estimateRecall(int k, int ef, int numQueries, long seed) {
+    final Random random = new Random(seed);
+    long found = 0;
+    long total = 0;
+    for (int q = 0; q < numQueries; q++) {
+      final float[] query = embeddings[random.nextInt(size())];
+      final IntOpenHashSet approximate = new IntOpenHashSet();
+      for (Neighbor neighbor : search(query, k, ef)) {
+        approximate.add(neighbor.index());
+      }
+      for (Neighbor neighbor : searchExact(query, k)) {
+        total++;
+        if (approximate.contains(neighbor.index())) {
+          found++;
+        }
+      }
+    }
+    return total == 0 ? 1d : found / (double) total;
+  }
+
+  /**
+   * @param index      the index of the embedding
+   * @param similarity dot product of the normalized embeddings
+   */
+  public record Neighbor(int index, float similarity) {
+
+  }
+
+  /**
+   * Links of one node on one level with the similarity to each linked node
+   */
+  private static final class Links {
+
+    private final int[] nodes;
+    private final float[] similarities;
+    private int size;
+
+    private Links(int capacity) {
+      nodes = new int[capacity];
+      similarities = new float[capacity];
+    }
+
+    private void add(int node, float similarity) {
+      nodes[size] = node;
+      similarities[size] = similarity;
+      size++;
+    }
+
+    private void addAll(Links other) {
+      for (int i = 0; i < other.size; i++) {
+        addOrReplaceLeastSimilar(other.nodes[i], other.similarities[i]);
+      }
+    }
+
+    /**
+     * Adds a link if there is capacity left or replaces the least similar link. Of equal
+     * similarities, the link to the higher node is replaced first.
+     */
+    private void addOrReplaceLeastSimilar(int node, float similarity) {
+      int leastSimilar = -1;
+      long leastKey = Long.MAX_VALUE;
+      for (int i = 0; i < size; i++) {
+        if (nodes[i] == node) {
+          return;
+        }
+        final long key = toKey(similarities[i], nodes[i]);
+        if (key < leastKey) {
+          leastKey = key;
+          leastSimilar = i;
+        }
+      }
+      if (size < nodes.length) {
+        add(node, similarity);
+      } else if (toKey(similarity, node) > leastKey) {
+        nodes[leastSimilar] = node;
+        similarities[leastSimilar] = similarity;
+      }
+    }
+  }
+}
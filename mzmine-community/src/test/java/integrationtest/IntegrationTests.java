@@ -25,7 +25,13 @@
 
 package integrationtest;
 
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.gui.preferences.MZminePreferences;
+import io.github.mzmine.main.ConfigService;
+import io.github.mzmine.project.ProjectService;
 import java.io.File;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.logging.Logger;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Assertions;
@@ -73,6 +79,30 @@ public class IntegrationTests {
     testSmallLcMsBatch(tempDir, "workshop_dataset_integration_test_process_in_place.mzbatch");
   }
 
+  @Test
+  void testSmallLcMsBatchPipelinedPerFile(@TempDir File tempDir) {
+    final String batchFile = "workshop_dataset_integration_test_keep.mzbatch";
+    testSmallLcMsBatch(tempDir, batchFile);
+    // intermediate feature lists are kept and need to be the same for each file
+    final Map<String, Integer> regularFeatureLists = getFeatureListRows();
+    MZmineTestUtil.clearProjectAndLibraries();
+
+    ConfigService.getPreferences().setParameter(MZminePreferences.pipelineBatchPerFile, true);
+    try {
+      testSmallLcMsBatch(tempDir, batchFile);
+    } finally {
+      ConfigService.getPreferences().setParameter(MZminePreferences.pipelineBatchPerFile, false);
+    }
+    Assertions.assertEquals(regularFeatureLists, getFeatureListRows());
+  }
+
+  /**
+   * @return number of rows by feature list name
+   */
+  private static Map<String, Integer> getFeatureListRows() {
+    return ProjectService.getProject().getCurrentFeatureLists().stream()
+        .collect(Collectors.toMap(FeatureList::getName, FeatureList::getNumberOfRows));
+  }
 
   void testSmallLcMsBatch(File tempDir, String batchFile) {
     final File results = IntegrationTest.builder("rawdatafiles/integration_tests/workshop_dataset",
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.FeatureStatus;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.types.DetectionType;
+import io.github.mzmine.datamodel.features.types.RawFileType;
+import io.github.mzmine.datamodel.features.types.numbers.IDType;
+import io.github.mzmine.datamodel.features.types.numbers.MZType;
+import io.github.mzmine.datamodel.features.types.numbers.MobilityType;
+import io.github.mzmine.datamodel.features.types.numbers.RTType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class FeatureListRowsIndexTest {
+
+  private final Random random = new Random(42);
+  private RawDataFile raw;
+  private ModularFeatureList flist;
+
+  @BeforeEach
+  void setUp() {
+    raw = Mockito.mock(RawDataFile.class);
+    flist = new ModularFeatureList("List", null, raw);
+    for (int i = 0; i < 500; i++) {
+      addRow(i + 1, 100 + random.nextDouble() * 900, random.nextFloat() * 20,
+          random.nextFloat() * 2);
+    }
+  }
+
+  private ModularFeatureListRow addRow(int id, double mz, float rt, float mobility) {
+    ModularFeature f = new ModularFeature(flist);
+    f.set(RawFileType.class, raw);
+    f.set(MZType.class, mz);
+    f.set(RTType.class, rt);
+    f.set(MobilityType.class, mobility);
+    f.set(DetectionType.class, FeatureStatus.DETECTED);
+    ModularFeatureListRow row = new ModularFeatureListRow(flist, id, f);
+    flist.addRow(row);
+    return row;
+  }
+
+  private static List<FeatureListRow> bruteForce(List<FeatureListRow> rows, Range<Float> rtRange,
+      Range<Double> mzRange, Range<Float> mobilityRange) {
+    List<FeatureListRow> result = new ArrayList<>();
+    for (FeatureListRow row : rows) {
+      if (rtRange.contains(row.getAverageRT()) && mzRange.contains(row.getAverageMZ())
+          && mobilityRange.contains(row.getAverageMobility())) {
+        result.add(row);
+      }
+    }
+    return result;
+  }
+
+  private void assertQueriesMatch() {
+    // enough queries to build the index
+    for (int i = 0; i < 50; i++) {
+      final double mz = 100 + random.nextDouble() * 900;
+      final float rt = random.nextFloat() * 20;
+      final Range<Double> mzRange = Range.closed(mz - 20, mz + 20);
+      final Range<Float> rtRange = Range.closed(rt - 2, rt + 2);
+
+      assertEquals(bruteForce(flist.getRows(), rtRange, mzRange, Range.all()),
+          flist.getRowsInsideScanAndMZRange(rtRange, mzRange));
+      assertEquals(bruteForce(flist.getRows(), Range.all(), mzRange, Range.all()),
+          flist.getRowsInsideMZRange(mzRange));
+      assertEquals(bruteForce(flist.getRows(), rtRange, Range.all(), Range.all()),
+          flist.getRowsInsideScanRange(rtRange));
+      assertEquals(bruteForce(flist.getRows(), rtRange, mzRange, Range.closed(0.5f, 1.5f)),
+          flist.getRowsInsideScanMZAndMobilityRange(rtRange, mzRange, Range.closed(0.5f, 1.5f)));
+
+      final List<Feature> features = bruteForce(flist.getRows(), rtRange, mzRange,
+          Range.all()).stream().<Feature>map(row -> row.getFeature(raw)).toList();
+      assertEquals(features, flist.getFeaturesInsideScanAndMZRange(raw, rtRange, mzRange));
+    }
+  }
+
+  @Test
+  void testRangeQueries() {
+    assertQueriesMatch();
+
+    // appended rows are searched in the tail
+    for (int i = 0; i < 20; i++) {
+      addRow(1000 + i, 100 + random.nextDouble() * 900, random.nextFloat() * 20, 1f);
+    }
+    assertQueriesMatch();
+
+    // removed rows and new order
+    flist.removeRow(flist.getRow(10));
+    flist.removeRow(flist.getRow(200));
+    flist.applyDefaultRowsSorting();
+    assertQueriesMatch();
+
+    // changed values of indexed rows
+    final ModularFeatureListRow row = (ModularFeatureListRow) flist.getRow(50);
+    row.getFeature(raw).set(MZType.class, 1200d);
+    flist.applyRowBindings(row);
+    assertQueriesMatch();
+    assertEquals(List.of(row), flist.getRowsInsideMZRange(Range.closed(1100d, 1300d)));
+  }
+
+  @Test
+  void testFindRowById() {
+    for (int i = 0; i < 50; i++) {
+      final int id = 1 + random.nextInt(500);
+      assertEquals(id, flist.findRowByID(id).getID().intValue());
+    }
+    assertNull(flist.findRowByID(5000));
+
+    final ModularFeatureListRow appended = addRow(5000, 200, 5, 1);
+    assertSame(appended, flist.findRowByID(5000));
+
+    // changed ids
+    final ModularFeatureListRow row = (ModularFeatureListRow) flist.findRowByID(20);
+    row.set(IDType.class, 6000);
+    assertNull(flist.findRowByID(20));
+    assertSame(row, flist.findRowByID(6000));
+
+    flist.removeRow(row);
+    assertNull(flist.findRowByID(6000));
+  }
+
+  @Test
+  void testDuplicateIdsAreLoggedWithIndex() {
+    final List<LogRecord> warnings = new ArrayList<>();
+    final Handler handler = new Handler() {
+      @Override
+      public void publish(LogRecord logRecord) {
+        if (logRecord.getLevel() == Level.WARNING) {
+          warnings.add(logRecord);
+        }
+      }
+
+      @Override
+      public void flush() {
+      }
+
+      @Override
+      public void close() {
+      }
+    };
+    final Logger logger = Logger.getLogger(FeatureListRowsIndex.class.getName());
+    logger.addHandler(handler);
+    try {
+      addRow(30, 500, 5, 1);
+      flist.applyDefaultRowsSorting();
+      final FeatureListRow first = flist.getRows().stream().filter(r -> r.getID() == 30)
+          .findFirst().orElseThrow();
+
+      // builds the index, which includes both rows with id 30
+      for (int i = 0; i < 50; i++) {
+        assertSame(first, flist.findRowByID(30));
+      }
+      assertTrue(warnings.stream().anyMatch(
+          r -> r.getMessage().contains("duplicate IDs") && r.getMessage().contains("[30]")));
+
+      // duplicate in the tail of an indexed list
+      warnings.clear();
+      addRow(40, 500, 5, 1);
+      assertEquals(40, flist.findRowByID(40).getID());
+      assertTrue(warnings.stream().anyMatch(r -> r.getMessage().contains("40")));
+    } finally {
+      logger.removeHandler(handler);
+    }
+  }
+
+  @Test
+  void testFeatureRow() {
+    for (int i = 0; i < 50; i++) {
+      final FeatureListRow row = flist.getRow(random.nextInt(flist.getNumberOfRows()));
+      assertSame(row, flist.getFeatureRow(row.getFeature(raw)));
+    }
+    final FeatureListRow row = flist.getRow(0);
+    final Feature feature = row.getFeature(raw);
+    flist.removeRow(row);
+    assertNull(flist.getFeatureRow(feature));
+  }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.datamodel.FeatureStatus;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.types.DetectionType;
+import io.github.mzmine.datamodel.features.types.RawFileType;
+import io.github.mzmine.datamodel.features.types.annotations.CommentType;
+import io.github.mzmine.datamodel.features.types.numbers.MZType;
+import io.github.mzmine.datamodel.features.types.numbers.RTType;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class ModularFeatureListLazyRowsTest {
+
+  private static final int ROWS = 300;
+  private final AtomicInteger loads = new AtomicInteger();
+  private RawDataFile raw;
+  private ModularFeatureList flist;
+
+  @BeforeEach
+  void setUp() {
+    raw = Mockito.mock(RawDataFile.class);
+    flist = new ModularFeatureList("List", null, raw);
+    flist.setRowsLoader(this::loadRows, ROWS);
+  }
+
+  /**
+   * Creates the rows on the loading thread and sets the values in parallel like the project loader
+   */
+  private void loadRows(ModularFeatureList flist) {
+    loads.incrementAndGet();
+    for (int i = 0; i < ROWS; i++) {
+      flist.addRow(new ModularFeatureListRow(flist, i + 1));
+    }
+    final List<ModularFeatureListRow> rows = flist.modularStream().toList();
+    IntStream.range(0, ROWS).parallel().forEach(i -> flist.runAsRowsLoader(() -> {
+      final ModularFeatureListRow row = rows.get(i);
+      final ModularFeature f = new ModularFeature(flist);
+      f.set(RawFileType.class, raw);
+      f.set(MZType.class, 100d + i);
+      f.set(RTType.class, i / 10f);
+      f.set(DetectionType.class, FeatureStatus.DETECTED);
+      row.addFeature(raw, f);
+    }));
+  }
+
+  @Test
+  void rowsLoadedOnFirstAccess() {
+    assertFalse(flist.isRowsLoaded());
+    // the number of rows is known without loading
+    assertEquals(ROWS, flist.getNumberOfRows());
+    assertEquals(0, loads.get());
+
+    assertEquals(ROWS, flist.getRows().size());
+    assertTrue(flist.isRowsLoaded());
+    final FeatureListRow row = flist.findRowByID(5);
+    assertNotNull(row);
+    assertEquals(104d, row.getFeature(raw).getMZ());
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void concurrentAccessLoadsOnce() {
+    IntStream.range(0, 16).parallel()
+        .forEach(_ -> assertEquals(ROWS, flist.stream().count()));
+    assertEquals(1, loads.get());
+  }
+
+  private List<String> describeRows() {
+    return flist.getRows().stream().map(row -> {
+      final Feature f = row.getFeature(raw);
+      return "%d %s %s %s %s %s".formatted(row.getID(), row.getAverageMZ(), row.getAverageRT(),
+          f.getMZ(), f.getRT(), f.getFeatureStatus());
+    }).toList();
+  }
+
+  @Test
+  void unloadedRowsAreLoadedAgain() {
+    final List<String> loaded = describeRows();
+    final FeatureListRow kept = flist.findRowByID(5);
+    assertNotNull(kept);
+
+    // rows that were accessed since the last attempt are kept
+    assertFalse(flist.unloadRows());
+    assertTrue(flist.unloadRows());
+    assertFalse(flist.isRowsLoaded());
+    assertEquals(ROWS, flist.getNumberOfRows());
+    assertEquals(1, loads.get());
+
+    assertEquals(loaded, describeRows());
+    assertEquals(2, loads.get());
+    // rows from before unloading keep their values but cannot be changed
+    assertNotSame(kept, flist.findRowByID(5));
+    assertEquals(104d, kept.getFeature(raw).getMZ());
+    assertThrows(IllegalStateException.class, () -> kept.set(CommentType.class, "lost"));
+    assertEquals(loaded, describeRows());
+  }
+
+  @Test
+  void changedRowsAreNotUnloaded() {
+    flist.getRow(0).setComment("changed after loading");
+    assertFalse(flist.unloadRows());
+    assertFalse(flist.unloadRows());
+    assertTrue(flist.isRowsLoaded());
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void failedLoadingIsNeverUsed() {
+    final ModularFeatureList failing = new ModularFeatureList("Failing", null, raw);
+    failing.setRowsLoader(f -> {
+      loads.incrementAndGet();
+      f.addRow(new ModularFeatureListRow(f, 1));
+      throw new IOException("Truncated file");
+    }, ROWS);
+
+    final IllegalStateException e = assertThrows(IllegalStateException.class, failing::getRows);
+    assertInstanceOf(IOException.class, e.getCause());
+    assertFalse(failing.isRowsLoaded());
+    // the partial rows are not used and loading is not repeated
+    assertThrows(IllegalStateException.class, failing::stream);
+    assertThrows(IllegalStateException.class, () -> failing.findRowByID(1));
+    assertEquals(1, loads.get());
+  }
+}
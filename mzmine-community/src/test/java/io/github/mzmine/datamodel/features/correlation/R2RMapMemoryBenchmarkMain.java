@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features.correlation;
+
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.util.MathUtils;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+/**
+ * Measures the retained heap per one million row-to-row correlations. Compares the previous
+ * storage (a {@link ConcurrentHashMap} with boxed Integer keys and six double values per
+ * correlation) with the {@link R2RMap} and the float based {@link R2RSimpleCorrelationData}.
+ * <p>
+ * Run with a fixed heap, e.g., -Xms4g -Xmx4g. The numbers are only approximate as they are based
+ * on the used heap after garbage collection.
+ */
+public class R2RMapMemoryBenchmarkMain {
+
+  private static final int RELATIONSHIPS = 1_000_000;
+
+  public static void main(String[] args) {
+    // 1415 rows give slightly more than 1M pairs
+    final int numRows = 1415;
+    final ModularFeatureList flist = new ModularFeatureList("benchmark", null, List.of());
+    final FeatureListRow[] rows = IntStream.range(0, numRows)
+        .mapToObj(id -> new ModularFeatureListRow(flist, id)).toArray(FeatureListRow[]::new);
+
+    for (int run = 0; run < 3; run++) {
+      final long base = usedMemory();
+      Map<Integer, LegacySimpleCorrelationData> legacy = fillLegacy(rows);
+      final long legacyBytes = usedMemory() - base;
+      System.out.printf("Legacy ConcurrentHashMap: %d entries, %.1f MB per 1M relationships%n",
+          legacy.size(), legacyBytes / 1e6 * RELATIONSHIPS / legacy.size());
+      legacy = null;
+
+      final long base2 = usedMemory();
+      R2RMap<R2RCorrelationData> map = fillR2RMap(rows);
+      final long mapBytes = usedMemory() - base2;
+      System.out.printf("R2RMap:                   %d entries, %.1f MB per 1M relationships%n",
+          map.size(), mapBytes / 1e6 * RELATIONSHIPS / map.size());
+      map = null;
+    }
+  }
+
+  private static Map<Integer, LegacySimpleCorrelationData> fillLegacy(FeatureListRow[] rows) {
+    final Map<Integer, LegacySimpleCorrelationData> map = new ConcurrentHashMap<>();
+    forAllPairs(rows, (a, b) -> map.put(MathUtils.undirectedPairing(a.getID(), b.getID()),
+        new LegacySimpleCorrelationData(a, b, 0.9, 0.8, 0.85, 0.7, 0.95, 12)));
+    return map;
+  }
+
+  private static R2RMap<R2RCorrelationData> fillR2RMap(FeatureListRow[] rows) {
+    final R2RMap<R2RCorrelationData> map = new R2RMap<>();
+    forAllPairs(rows,
+        (a, b) -> map.add(a, b, new R2RSimpleCorrelationData(a, b, 0.9, 0.8, 0.85, 0.7, 0.95, 12)));
+    return map;
+  }
+
+  private static void forAllPairs(FeatureListRow[] rows, PairConsumer consumer) {
+    IntStream.range(0, rows.length).parallel().forEach(i -> {
+      for (int j = i + 1; j < rows.length; j++) {
+        consumer.accept(rows[i], rows[j]);
+      }
+    });
+  }
+
+  private static long usedMemory() {
+    final Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      try {
+        Thread.sleep(100);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  private interface PairConsumer {
+
+    void accept(FeatureListRow a, FeatureListRow b);
+  }
+
+  /**
+   * Approximates the memory layout of the previous double based R2RSimpleCorrelationData
+   */
+  private record LegacySimpleCorrelationData(FeatureListRow a, FeatureListRow b, double totalSim,
+                                             double heightSim, double avgShapeSim,
+                                             double minShapeSim, double maxShapeSim,
+                                             double avgDPcount) {
+
+  }
+}
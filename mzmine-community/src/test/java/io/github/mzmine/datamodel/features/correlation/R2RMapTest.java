@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features.correlation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.features.correlation.RowsRelationship.Type;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class R2RMapTest {
+
+  private final ModularFeatureList flist = new ModularFeatureList("List", null, List.of());
+
+  private FeatureListRow row(int id) {
+    return new ModularFeatureListRow(flist, id);
+  }
+
+  private static R2RSimpleSimilarity sim(FeatureListRow a, FeatureListRow b) {
+    return new R2RSimpleSimilarity(a, b, Type.MS2_COSINE_SIM, 0.5f);
+  }
+
+  @Test
+  void testUndirectedKey() {
+    assertEquals(R2RMap.toKey(5, 7), R2RMap.toKey(7, 5));
+    assertNotEquals(R2RMap.toKey(5, 7), R2RMap.toKey(5, 8));
+    // the previous int pairing overflowed for large IDs
+    assertNotEquals(R2RMap.toKey(50_000, 50_001), R2RMap.toKey(50_001, 50_002));
+    assertNotEquals(R2RMap.toKey(0, Integer.MAX_VALUE), R2RMap.toKey(1, Integer.MAX_VALUE));
+  }
+
+  @Test
+  void testAddGetRemove() {
+    final R2RMap<RowsRelationship> map = new R2RMap<>();
+    final FeatureListRow a = row(60_000);
+    final FeatureListRow b = row(70_000);
+    final FeatureListRow c = row(80_000);
+    final R2RSimpleSimilarity ab = sim(a, b);
+    map.add(b, a, ab);
+
+    assertSame(ab, map.get(a, b));
+    assertSame(ab, map.get(b, a));
+    assertTrue(map.contains(a, b));
+    assertNull(map.get(a, c));
+    assertEquals(1, map.size());
+
+    assertSame(ab, map.remove(a, b));
+    assertTrue(map.isEmpty());
+  }
+
+  @Test
+  void testRemoveAndPutAgain() {
+    final FeatureListRow[] rows = IntStream.range(0, 200).mapToObj(this::row)
+        .toArray(FeatureListRow[]::new);
+    final R2RMap<RowsRelationship> map = new R2RMap<>();
+    // includes the pair of row 0 with itself, which has the key 0
+    for (int i = 0; i < rows.length; i++) {
+      map.add(rows[0], rows[i], sim(rows[0], rows[i]));
+    }
+    // removed entries are dropped on rehash while new entries are added
+    for (int round = 0; round < 5; round++) {
+      for (int i = 0; i < rows.length; i += 2) {
+        assertSame(rows[i], map.remove(rows[0], rows[i]).getRowB());
+      }
+      assertEquals(rows.length / 2, map.size());
+      for (int i = 1; i < rows.length; i++) {
+        map.add(rows[round + 1], rows[i], sim(rows[round + 1], rows[i]));
+      }
+      for (int i = 0; i < rows.length; i += 2) {
+        map.add(rows[0], rows[i], sim(rows[0], rows[i]));
+      }
+    }
+    for (int i = 0; i < rows.length; i++) {
+      assertSame(rows[i], map.get(rows[0], rows[i]).getRowB());
+    }
+    assertEquals(map.size(), map.values().size());
+
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertNull(map.get(rows[0], rows[0]));
+  }
+
+  @Test
+  void testReadsDuringWrites() {
+    final FeatureListRow[] rows = IntStream.range(0, 400).mapToObj(this::row)
+        .toArray(FeatureListRow[]::new);
+    final R2RMap<RowsRelationship> map = new R2RMap<>();
+    final AtomicBoolean writing = new AtomicBoolean(true);
+    // readers run without locks and must only see missing or complete mappings
+    final CompletableFuture<Void> reader = CompletableFuture.runAsync(() -> {
+      int round = 0;
+      while (writing.get() || round++ < 2) {
+        for (int i = 0; i < rows.length; i++) {
+          final RowsRelationship r = map.get(rows[i], rows[rows.length - 1 - i]);
+          if (r != null) {
+            assertEquals(R2RMap.toKey(rows[i], rows[rows.length - 1 - i]),
+                R2RMap.toKey(r.getRowA(), r.getRowB()));
+          }
+        }
+      }
+    });
+    IntStream.range(0, rows.length).parallel().forEach(i -> {
+      for (int j = i + 1; j < rows.length; j++) {
+        map.add(rows[i], rows[j], sim(rows[i], rows[j]));
+      }
+    });
+    writing.set(false);
+    reader.join();
+    assertEquals(400 * 399 / 2, map.size());
+  }
+
+  @Test
+  void testConcurrentAddAndValues() {
+    final FeatureListRow[] rows = IntStream.range(0, 300).map(i -> 300 - i).mapToObj(this::row)
+        .toArray(FeatureListRow[]::new);
+    final R2RMap<RowsRelationship> map = new R2RMap<>();
+    IntStream.range(0, rows.length).parallel().forEach(i -> {
+      for (int j = i + 1; j < rows.length; j++) {
+        map.add(rows[i], rows[j], sim(rows[i], rows[j]));
+      }
+    });
+    assertEquals(300 * 299 / 2, map.size());
+
+    // sorted by row IDs
+    final List<RowsRelationship> values = map.values();
+    assertEquals(map.size(), values.size());
+    for (int i = 1; i < values.size(); i++) {
+      final RowsRelationship prev = values.get(i - 1);
+      final RowsRelationship current = values.get(i);
+      final int compare = Integer.compare(prev.getRowA().getID(), current.getRowA().getID());
+      assertTrue(compare < 0 || (compare == 0 && prev.getRowB().getID() < current.getRowB()
+          .getID()));
+    }
+
+    final R2RMap<RowsRelationship> copy = new R2RMap<>();
+    copy.putAll(map);
+    assertEquals(map.values(), copy.values());
+  }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.features.correlation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.util.maths.similarity.SimilarityMeasure;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class R2RSimpleCorrelationDataTest {
+
+  // float keeps 24 significant bits
+  private static final double MAX_CORRELATION_ERROR = Math.pow(2, -25);
+  private static final double MAX_RELATIVE_ERROR = Math.pow(2, -24);
+
+  private final ModularFeatureList flist = new ModularFeatureList("List", null, List.of());
+  private final FeatureListRow a = new ModularFeatureListRow(flist, 1);
+  private final FeatureListRow b = new ModularFeatureListRow(flist, 2);
+
+  @Test
+  void testFloatTolerance() {
+    final Random random = new Random(42);
+    for (int i = 0; i < 10_000; i++) {
+      final double total = random.nextDouble(-1, 1);
+      final double height = random.nextDouble(-1, 1);
+      final double avgShape = random.nextDouble(-1, 1);
+      final double minShape = random.nextDouble(-1, 1);
+      final double maxShape = random.nextDouble(-1, 1);
+      final double avgDP = random.nextDouble(1, 10_000);
+      final R2RSimpleCorrelationData data = new R2RSimpleCorrelationData(a, b, total, height,
+          avgShape, minShape, maxShape, avgDP);
+
+      assertEquals(total, data.getTotalPearsonR(), MAX_CORRELATION_ERROR);
+      assertEquals(total, data.getTotalSimilarity(SimilarityMeasure.PEARSON),
+          MAX_CORRELATION_ERROR);
+      assertEquals(height, data.getHeightPearsonR(), MAX_CORRELATION_ERROR);
+      assertEquals(avgShape, data.getAvgShapeR(), MAX_CORRELATION_ERROR);
+      assertEquals(minShape, data.getMinShapeR(), MAX_CORRELATION_ERROR);
+      assertEquals(maxShape, data.getMaxShapeR(), MAX_CORRELATION_ERROR);
+      assertEquals(avgDP, data.getAvgDPcount(), avgDP * MAX_RELATIVE_ERROR);
+    }
+  }
+
+  @Test
+  void testMissingCorrelations() {
+    final R2RSimpleCorrelationData data = new R2RSimpleCorrelationData(a, b, Double.NaN,
+        Double.NaN, Double.NaN, Double.NaN, Double.NaN, 5);
+    assertFalse(data.hasTotalCorrelation());
+    assertFalse(data.hasHeightCorr());
+    assertFalse(data.hasFeatureShapeCorrelation());
+
+    final R2RSimpleCorrelationData valid = new R2RSimpleCorrelationData(a, b, 0.5, 0.5, 0.5, 0.5,
+        0.5, 5);
+    assertTrue(valid.hasTotalCorrelation());
+    assertTrue(valid.hasHeightCorr());
+    assertTrue(valid.hasFeatureShapeCorrelation());
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.datamodel.statistics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import io.github.mzmine.datamodel.AbundanceMeasure;
+import io.github.mzmine.modules.dataanalysis.utils.imputation.ImputationFunctions;
+import io.github.mzmine.modules.dataanalysis.utils.scaling.ScalingFunctions;
+import io.github.mzmine.parameters.parametertypes.statistics.AbundanceDataTablePreparationConfig;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class FeaturesDataTableCacheTest {
+
+  private static final AbundanceDataTablePreparationConfig EXTRACTED = new AbundanceDataTablePreparationConfig(
+      AbundanceMeasure.Area, ImputationFunctions.None);
+  private static final AbundanceDataTablePreparationConfig IMPUTED = new AbundanceDataTablePreparationConfig(
+      AbundanceMeasure.Area, ImputationFunctions.Zero);
+  private static final AbundanceDataTablePreparationConfig SCALED = new AbundanceDataTablePreparationConfig(
+      AbundanceMeasure.Area, ImputationFunctions.Zero, ScalingFunctions.AutoScaling,
+      ScalingFunctions.None);
+
+  private static FeaturesDataTable newTable() {
+    return new FeaturesDataTable(List.of(), new FeatureListRowAbundances[0]);
+  }
+
+  private static FeaturesDataTable get(FeaturesDataTableCache cache,
+      AbundanceDataTablePreparationConfig stage, AtomicInteger computations) {
+    return cache.computeIfAbsent(List.of(), List.of(), stage, () -> {
+      computations.incrementAndGet();
+      return newTable();
+    });
+  }
+
+  @Test
+  void testStagesAreCached() {
+    final FeaturesDataTableCache cache = new FeaturesDataTableCache();
+    final AtomicInteger computations = new AtomicInteger();
+
+    final FeaturesDataTable first = get(cache, IMPUTED, computations);
+    assertSame(first, get(cache, IMPUTED, computations));
+    assertEquals(1, computations.get());
+
+    // other stages are cached on their own
+    assertNotSame(first, get(cache, SCALED, computations));
+    assertEquals(2, computations.get());
+    assertEquals(2, cache.size());
+  }
+
+  @Test
+  void testNestedStages() {
+    final FeaturesDataTableCache cache = new FeaturesDataTableCache();
+    final AtomicInteger computations = new AtomicInteger();
+
+    // later stage computes the previous stage through the cache
+    cache.computeIfAbsent(List.of(), List.of(), SCALED,
+        () -> get(cache, IMPUTED, computations).copy());
+    assertEquals(1, computations.get());
+    assertEquals(2, cache.size());
+
+    get(cache, IMPUTED, computations);
+    assertEquals(1, computations.get());
+  }
+
+  @Test
+  void testInvalidate() {
+    final FeaturesDataTableCache cache = new FeaturesDataTableCache();
+    final AtomicInteger computations = new AtomicInteger();
+
+    final FeaturesDataTable first = get(cache, EXTRACTED, computations);
+    cache.invalidate();
+    assertEquals(0, cache.size());
+    assertNotSame(first, get(cache, EXTRACTED, computations));
+    assertEquals(2, computations.get());
+  }
+
+  @Test
+  void testChangeDuringComputationIsNotCached() {
+    final FeaturesDataTableCache cache = new FeaturesDataTableCache();
+
+    cache.computeIfAbsent(List.of(), List.of(), EXTRACTED, () -> {
+      cache.invalidate();
+      return newTable();
+    });
+    assertEquals(0, cache.size());
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.batchmode.checkpoint;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.datamodel.MZmineProject;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.modules.batchmode.BatchQueue;
+import io.github.mzmine.modules.batchmode.checkpoint.BatchCheckpointCache.Checkpoint;
+import io.github.mzmine.modules.batchmode.checkpoint.BatchCheckpointCache.RestoredState;
+import io.github.mzmine.modules.dataprocessing.filter_duplicatefilter.DuplicateFilterModule;
+import io.github.mzmine.modules.dataprocessing.filter_duplicatefilter.DuplicateFilterParameters;
+import io.github.mzmine.modules.impl.MZmineProcessingStepImpl;
+import io.github.mzmine.modules.io.import_rawdata_all.AllSpectralDataImportModule;
+import io.github.mzmine.modules.io.import_rawdata_all.AllSpectralDataImportParameters;
+import io.github.mzmine.modules.io.projectload.ProjectLoaderParameters;
+import io.github.mzmine.modules.io.projectload.ProjectOpeningTask;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.project.ProjectService;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import testutils.MZmineTestUtil;
+
+@TestInstance(Lifecycle.PER_CLASS)
+@DisabledOnOs(OS.MAC)
+class BatchCheckpointCacheTest {
+
+  @TempDir
+  File tempDir;
+
+  @BeforeAll
+  void init() {
+    MZmineTestUtil.startMzmineCore();
+  }
+
+  @AfterAll
+  void tearDown() {
+    MZmineTestUtil.cleanProject();
+  }
+
+  private static ParameterSet duplicateFilter(String suffix) {
+    final ParameterSet params = new DuplicateFilterParameters().cloneParameterSet();
+    params.setParameter(DuplicateFilterParameters.suffix, suffix);
+    return params;
+  }
+
+  /**
+   * Import of the data file followed by two duplicate filters
+   */
+  private static BatchQueue createQueue(File dataFile, String firstSuffix, String secondSuffix) {
+    final BatchQueue queue = new BatchQueue();
+    queue.add(new MZmineProcessingStepImpl<>(new AllSpectralDataImportModule(),
+        AllSpectralDataImportParameters.create(false, new File[]{dataFile}, null, new File[0])));
+    queue.add(new MZmineProcessingStepImpl<>(new DuplicateFilterModule(),
+        duplicateFilter(firstSuffix)));
+    queue.add(new MZmineProcessingStepImpl<>(new DuplicateFilterModule(),
+        duplicateFilter(secondSuffix)));
+    return queue;
+  }
+
+  private File createDataFile(String content) throws IOException {
+    final File file = new File(tempDir, "data.mzML");
+    Files.writeString(file.toPath(), content);
+    return file;
+  }
+
+  @Test
+  void testKeysAreStableAndChained() throws IOException {
+    final File data = createDataFile("spectra");
+    final String[] keys = BatchCheckpointCache.computeStepKeys(createQueue(data, "a", "b"));
+    assertEquals(3, keys.length);
+    assertEquals(3, List.of(keys).stream().distinct().count());
+    assertArrayEquals(keys, BatchCheckpointCache.computeStepKeys(createQueue(data, "a", "b")));
+  }
+
+  @Test
+  void testParameterChangeInvalidatesFollowingSteps() throws IOException {
+    final File data = createDataFile("spectra");
+    final String[] keys = BatchCheckpointCache.computeStepKeys(createQueue(data, "a", "b"));
+
+    final String[] changedLast = BatchCheckpointCache.computeStepKeys(
+        createQueue(data, "a", "changed"));
+    assertEquals(keys[0], changedLast[0]);
+    assertEquals(keys[1], changedLast[1]);
+    assertNotEquals(keys[2], changedLast[2]);
+
+    final String[] changedSecond = BatchCheckpointCache.computeStepKeys(
+        createQueue(data, "changed", "b"));
+    assertEquals(keys[0], changedSecond[0]);
+    assertNotEquals(keys[1], changedSecond[1]);
+    assertNotEquals(keys[2], changedSecond[2]);
+  }
+
+  @Test
+  void testInputFileChangeInvalidatesAllSteps() throws IOException {
+    final File data = createDataFile("spectra");
+    final String[] keys = BatchCheckpointCache.computeStepKeys(createQueue(data, "a", "b"));
+
+    // different size of the input file
+    createDataFile("more spectra");
+    final String[] changed = BatchCheckpointCache.computeStepKeys(createQueue(data, "a", "b"));
+    for (int i = 0; i < keys.length; i++) {
+      assertNotEquals(keys[i], changed[i]);
+    }
+  }
+
+  @Test
+  void testFindLatestCompleteCheckpoint() throws IOException {
+    final File directory = new File(tempDir, "checkpoints");
+    Files.createDirectories(directory.toPath());
+    final BatchCheckpointCache cache = new BatchCheckpointCache(directory, Long.MAX_VALUE,
+        Duration.ZERO);
+    final String[] keys = {"k0", "k1", "k2"};
+    assertNull(cache.findLatest(keys));
+
+    Files.writeString(new File(directory, "k0.mzmine").toPath(), "");
+    Files.writeString(new File(directory, "k0.checkpoint").toPath(), "");
+    // a checkpoint without state file is incomplete
+    Files.writeString(new File(directory, "k2.mzmine").toPath(), "");
+    final Checkpoint checkpoint = cache.findLatest(keys);
+    assertNotNull(checkpoint);
+    assertEquals(0, checkpoint.step());
+
+    Files.writeString(new File(directory, "k2.checkpoint").toPath(), "");
+    assertEquals(2, cache.findLatest(keys).step());
+    // changed steps have other keys
+    assertEquals(0, cache.findLatest(new String[]{"k0", "other1", "other2"}).step());
+  }
+
+  @Test
+  void testCheckpointDue() {
+    final BatchCheckpointCache cache = new BatchCheckpointCache(tempDir, Long.MAX_VALUE,
+        Duration.ofSeconds(60));
+    assertFalse(cache.isCheckpointDue(Duration.ofSeconds(59)));
+    assertTrue(cache.isCheckpointDue(Duration.ofSeconds(60)));
+  }
+
+  @Test
+  void testSaveAndResume() {
+    final ParameterSet param = new ProjectLoaderParameters().cloneParameterSet();
+    param.setParameter(ProjectLoaderParameters.projectFile, new File(
+        ProjectLoaderParameters.class.getClassLoader().getResource("rawdatafiles/dom_test.mzmine")
+            .getFile()));
+    new ProjectOpeningTask(param, Instant.now()).run();
+    final MZmineProject project = ProjectService.getProject();
+    final File originalProjectFile = project.getProjectFile();
+    final List<RawDataFile> lastFiles = project.getCurrentRawDataFiles();
+    final List<FeatureList> lastFlists = List.of(project.getCurrentFeatureLists().getLast());
+
+    final BatchCheckpointCache cache = new BatchCheckpointCache(new File(tempDir, "resume"),
+        Long.MAX_VALUE, Duration.ZERO);
+    final String[] keys = {"step0", "step1"};
+    assertTrue(cache.save(project, 1, keys[1], lastFiles, lastFlists));
+    // saving a checkpoint does not change the current project file
+    assertEquals(originalProjectFile, project.getProjectFile());
+
+    final int numFlists = project.getCurrentFeatureLists().size();
+    final List<String> fileNames = lastFiles.stream().map(RawDataFile::getName).toList();
+    final String flistName = lastFlists.getFirst().getName();
+    final int rows = lastFlists.getFirst().getNumberOfRows();
+    ProjectService.getProjectManager().clearProject();
+
+    final Checkpoint checkpoint = cache.findLatest(keys);
+    assertNotNull(checkpoint);
+    assertEquals(1, checkpoint.step());
+    final RestoredState state = cache.restore(checkpoint);
+    assertNotNull(state);
+    assertEquals(numFlists, state.project().getCurrentFeatureLists().size());
+    assertEquals(fileNames, state.lastDataFiles().stream().map(RawDataFile::getName).toList());
+    assertEquals(flistName, state.lastFeatureLists().getFirst().getName());
+    assertEquals(rows, state.lastFeatureLists().getFirst().getNumberOfRows());
+
+    ProjectService.getProjectManager().clearProject();
+    ProjectService.getProject().clearSpectralLibrary();
+  }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataanalysis.pca_new;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.apache.commons.math3.linear.Array2DRowRealMatrix;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RandomizedTruncatedSVDTest {
+
+  private static final int SAMPLES = 40;
+  private static final int FEATURES = 300;
+  private static final int COMPONENTS = 4;
+
+  private double[][] featureData;
+  private PCAResult exact;
+  private PCAResult truncated;
+
+  /**
+   * Low rank data with noise, centered for each feature
+   */
+  @BeforeEach
+  void setUp() {
+    final Random random = new Random(1);
+    final double[] signal = {50, 30, 20, 10, 5};
+    final double[][] sampleFactors = new double[signal.length][SAMPLES];
+    final double[][] featureFactors = new double[signal.length][FEATURES];
+    for (int k = 0; k < signal.length; k++) {
+      Arrays.setAll(sampleFactors[k], _ -> random.nextGaussian());
+      Arrays.setAll(featureFactors[k], _ -> random.nextGaussian());
+    }
+
+    featureData = new double[FEATURES][SAMPLES];
+    final RealMatrix matrix = new Array2DRowRealMatrix(SAMPLES, FEATURES);
+    for (int j = 0; j < FEATURES; j++) {
+      for (int i = 0; i < SAMPLES; i++) {
+        double value = 0.05 * random.nextGaussian();
+        for (int k = 0; k < signal.length; k++) {
+          value += signal[k] * sampleFactors[k][i] * featureFactors[k][j] / Math.sqrt(
+              SAMPLES * FEATURES);
+        }
+        featureData[j][i] = value;
+      }
+      final double mean = Arrays.stream(featureData[j]).average().orElse(0);
+      for (int i = 0; i < SAMPLES; i++) {
+        featureData[j][i] -= mean;
+      }
+      matrix.setColumn(j, featureData[j]);
+    }
+
+    exact = PCAUtils.quickPCA(matrix);
+    truncated = PCAUtils.truncatedPCA(featureData, SAMPLES, COMPONENTS);
+  }
+
+  @Test
+  void singularValuesMatchExactSvd() {
+    assertEquals(COMPONENTS, truncated.singularValues().length);
+    assertArrayEquals(Arrays.copyOf(exact.singularValues(), COMPONENTS), truncated.singularValues(),
+        1e-8);
+    assertEquals(exact.totalVariance(), truncated.totalVariance(), 1e-8);
+    assertArrayEquals(exact.getComponentContributions(COMPONENTS),
+        truncated.getComponentContributions(COMPONENTS), 1e-6f);
+  }
+
+  @Test
+  void componentsMatchExactSvdUpToSign() {
+    for (int c = 0; c < COMPONENTS; c++) {
+      assertEquals(1d, Math.abs(exact.u().getColumnVector(c).dotProduct(
+          truncated.u().getColumnVector(c))), 1e-8);
+      assertEquals(1d, Math.abs(exact.v().getColumnVector(c).dotProduct(
+          truncated.v().getColumnVector(c))), 1e-8);
+    }
+
+    final RealMatrix exactScores = exact.projectDataToScores(0, 1);
+    final RealMatrix truncatedScores = truncated.projectDataToScores(0, 1);
+    for (int i = 0; i < SAMPLES; i++) {
+      for (int c = 0; c < 2; c++) {
+        assertEquals(Math.abs(exactScores.getEntry(i, c)),
+            Math.abs(truncatedScores.getEntry(i, c)), 1e-8);
+      }
+    }
+    assertEquals(FEATURES, truncated.getLoadingsMatrix().getColumnDimension());
+  }
+
+  @Test
+  void sameResultForSameData() {
+    final PCAResult again = PCAUtils.truncatedPCA(featureData, SAMPLES, COMPONENTS);
+    assertArrayEquals(truncated.u().getData()[0], again.u().getData()[0]);
+  }
+}
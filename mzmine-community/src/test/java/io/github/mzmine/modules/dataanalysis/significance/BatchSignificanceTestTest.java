@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataanalysis.significance;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.datamodel.statistics.SimpleArrayDataTable;
+import java.util.List;
+import java.util.Random;
+import org.apache.commons.math3.stat.inference.TestUtils;
+import org.junit.jupiter.api.Test;
+
+class BatchSignificanceTestTest {
+
+  private static final int ROWS = 2500;
+
+  private static SimpleArrayDataTable randomTable(Random random, int samples, double shift) {
+    final double[][] data = new double[ROWS][samples];
+    for (int row = 0; row < ROWS; row++) {
+      for (int sample = 0; sample < samples; sample++) {
+        data[row][sample] = 100 + shift * (row % 3) + random.nextGaussian() * (1 + row % 5);
+      }
+    }
+    return new SimpleArrayDataTable(data);
+  }
+
+  @Test
+  void testTTestsMatchCommonsMath() {
+    final Random random = new Random(42);
+    final SimpleArrayDataTable a = randomTable(random, 6, 0);
+    final SimpleArrayDataTable b = randomTable(random, 6, 1.5);
+
+    final var welch = BatchSignificanceTest.testAllRows(List.of(a, b),
+        SignificanceTests.WELCHS_T_TEST);
+    final var student = BatchSignificanceTest.testAllRows(List.of(a, b),
+        SignificanceTests.STUDENTS_T_TEST);
+    final var paired = BatchSignificanceTest.testAllRows(List.of(a, b),
+        SignificanceTests.PAIRED_T_TEST);
+
+    for (int row = 0; row < ROWS; row++) {
+      final double[] valuesA = a.getFeatureData(row, false);
+      final double[] valuesB = b.getFeatureData(row, false);
+      assertEquals(TestUtils.t(valuesA, valuesB), welch.statistics()[row], 1e-9);
+      assertEquals(TestUtils.tTest(valuesA, valuesB), welch.pValues()[row], 1e-9);
+      assertEquals(TestUtils.homoscedasticTTest(valuesA, valuesB), student.pValues()[row], 1e-9);
+      assertEquals(TestUtils.pairedTTest(valuesA, valuesB), paired.pValues()[row], 1e-9);
+    }
+  }
+
+  @Test
+  void testAnovaMatchesCommonsMath() {
+    final Random random = new Random(7);
+    final List<SimpleArrayDataTable> groups = List.of(randomTable(random, 4, 0),
+        randomTable(random, 5, 1), randomTable(random, 3, 2));
+
+    final var result = BatchSignificanceTest.testAllRows(groups, SignificanceTests.ONE_WAY_ANOVA);
+    for (int row = 0; row < ROWS; row++) {
+      final int r = row;
+      final List<double[]> rowData = groups.stream().map(g -> g.getFeatureData(r, false))
+          .toList();
+      assertEquals(TestUtils.oneWayAnovaFValue(rowData), result.statistics()[row], 1e-9);
+      assertEquals(TestUtils.oneWayAnovaPValue(rowData), result.pValues()[row], 1e-9);
+    }
+  }
+
+  @Test
+  void testConstantRowsHaveNoPValue() {
+    // same constant value in all samples, commons-math fails on these rows
+    final double[][] constant = {{5, 5, 5}, {1, 2, 3}};
+    final List<SimpleArrayDataTable> groups = List.of(new SimpleArrayDataTable(constant),
+        new SimpleArrayDataTable(constant));
+
+    for (SignificanceTests test : List.of(SignificanceTests.WELCHS_T_TEST,
+        SignificanceTests.STUDENTS_T_TEST, SignificanceTests.ONE_WAY_ANOVA)) {
+      final var result = BatchSignificanceTest.testAllRows(groups, test);
+      assertTrue(Double.isNaN(result.pValues()[0]), test.toString());
+      assertTrue(Double.isNaN(result.qValues()[0]), test.toString());
+      assertEquals(1d, result.pValues()[1], 1e-9, test.toString());
+    }
+  }
+
+  @Test
+  void testBenjaminiHochberg() {
+    final double[] p = {0.01, 0.04, Double.NaN, 0.03, 0.5};
+    // 4 tests: sorted 0.01, 0.03, 0.04, 0.5 -> 0.04, 0.0533, 0.0533, 0.5
+    final double[] expected = {0.04, 0.16 / 3, Double.NaN, 0.16 / 3, 0.5};
+    assertArrayEquals(expected, BatchSignificanceTest.benjaminiHochberg(p), 1e-12);
+  }
+
+  @Test
+  void testWrongGroups() {
+    final SimpleArrayDataTable a = randomTable(new Random(1), 3, 0);
+    assertThrows(IllegalArgumentException.class,
+        () -> BatchSignificanceTest.testAllRows(List.of(a), SignificanceTests.WELCHS_T_TEST));
+    assertThrows(IllegalArgumentException.class,
+        () -> BatchSignificanceTest.testAllRows(List.of(a, randomTable(new Random(2), 4, 0)),
+            SignificanceTests.PAIRED_T_TEST));
+  }
+}
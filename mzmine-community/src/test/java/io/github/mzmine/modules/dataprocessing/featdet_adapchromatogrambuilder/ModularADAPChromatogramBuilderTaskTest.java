@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.featdet_adapchromatogrambuilder;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.MZmineProject;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.datamodel.impl.masslist.ScanPointerMassList;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.selectors.ScanSelection;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.project.impl.MZmineProjectImpl;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+
+class ModularADAPChromatogramBuilderTaskTest {
+
+  private static final int SCANS = 150;
+  private static final int COMPOUNDS = 60;
+  private static final int NOISE_PER_SCAN = 40;
+
+  @Test
+  void testLowMemoryBuilderMatchesLegacyBuilder() {
+    final RawDataFile file = createSyntheticFile(new Random(42));
+
+    final FeatureList lowMemory = buildChromatograms(file, true);
+    final FeatureList legacy = buildChromatograms(file, false);
+
+    assertTrue(legacy.getNumberOfRows() > COMPOUNDS / 2);
+    assertEquals(legacy.getNumberOfRows(), lowMemory.getNumberOfRows());
+    final List<FeatureListRow> expectedRows = legacy.getRows();
+    final List<FeatureListRow> actualRows = lowMemory.getRows();
+    for (int i = 0; i < expectedRows.size(); i++) {
+      final IonTimeSeries<?> expected = expectedRows.get(i).getFeature(file).getFeatureData();
+      final IonTimeSeries<?> actual = actualRows.get(i).getFeature(file).getFeatureData();
+
+      final int n = expected.getNumberOfValues();
+      assertEquals(n, actual.getNumberOfValues());
+      assertEquals(expected.getSpectra(), actual.getSpectra());
+      assertArrayEquals(expected.getMzValues(new double[n]), actual.getMzValues(new double[n]));
+      assertArrayEquals(expected.getIntensityValues(new double[n]),
+          actual.getIntensityValues(new double[n]));
+    }
+  }
+
+  private static FeatureList buildChromatograms(RawDataFile file, boolean lowMemoryBuilder) {
+    final ParameterSet parameters = new ADAPChromatogramBuilderParameters().cloneParameterSet();
+    parameters.setParameter(ADAPChromatogramBuilderParameters.scanSelection, new ScanSelection(1));
+    parameters.setParameter(ADAPChromatogramBuilderParameters.minimumConsecutiveScans, 4);
+    parameters.setParameter(ADAPChromatogramBuilderParameters.mzTolerance,
+        new MZTolerance(0.002, 10));
+    parameters.setParameter(ADAPChromatogramBuilderParameters.minHighestPoint, 1E3);
+    parameters.setParameter(ADAPChromatogramBuilderParameters.minGroupIntensity, 300d);
+    parameters.setParameter(ADAPChromatogramBuilderParameters.suffix, "chromatograms");
+    parameters.setParameter(ADAPChromatogramBuilderParameters.lowMemoryBuilder, lowMemoryBuilder);
+
+    final MZmineProject project = new MZmineProjectImpl();
+    final ModularADAPChromatogramBuilderTask task = ModularADAPChromatogramBuilderTask.forChromatography(
+        project, file, parameters, null, Instant.now(), ModularADAPChromatogramBuilderModule.class);
+    task.run();
+    assertEquals(TaskStatus.FINISHED, task.getStatus());
+    return project.getCurrentFeatureLists().getFirst();
+  }
+
+  /**
+   * Gaussian peaks with m/z jitter, some of them closer than the m/z tolerance, plus random noise.
+   * Intensities are rounded to create ties in the intensity sorting.
+   */
+  private static RawDataFile createSyntheticFile(Random random) {
+    final RawDataFile file = new RawDataFileImpl("synthetic", null, null, Color.BLACK);
+
+    final double[] compoundMzs = new double[COMPOUNDS];
+    final int[] apexScans = new int[COMPOUNDS];
+    final double[] widths = new double[COMPOUNDS];
+    final double[] heights = new double[COMPOUNDS];
+    for (int c = 0; c < COMPOUNDS; c++) {
+      // every fifth compound is a close neighbor of the previous compound
+      compoundMzs[c] = c % 5 == 4 ? compoundMzs[c - 1] + 0.003 : 100 + random.nextDouble() * 900;
+      apexScans[c] = 10 + random.nextInt(SCANS - 20);
+      widths[c] = 2 + random.nextDouble() * 6;
+      heights[c] = Math.round(1E3 + random.nextDouble() * 1E5);
+    }
+
+    for (int s = 0; s < SCANS; s++) {
+      final DoubleArrayList mzs = new DoubleArrayList();
+      final DoubleArrayList intensities = new DoubleArrayList();
+      for (int c = 0; c < COMPOUNDS; c++) {
+        final double distance = (s - apexScans[c]) / widths[c];
+        final double intensity = Math.round(heights[c] * Math.exp(-0.5 * distance * distance));
+        if (intensity >= 50) {
+          mzs.add(compoundMzs[c] + (random.nextDouble() - 0.5) * 0.001);
+          intensities.add(intensity);
+        }
+      }
+      for (int i = 0; i < NOISE_PER_SCAN; i++) {
+        mzs.add(100 + random.nextDouble() * 900);
+        intensities.add(10 * (1 + random.nextInt(200)));
+      }
+
+      // mass lists are sorted by m/z
+      final Integer[] order = new Integer[mzs.size()];
+      Arrays.setAll(order, i -> i);
+      Arrays.sort(order, (a, b) -> Double.compare(mzs.getDouble(a), mzs.getDouble(b)));
+      final double[] sortedMzs = Arrays.stream(order).mapToDouble(mzs::getDouble).toArray();
+      final double[] sortedIntensities = Arrays.stream(order)
+          .mapToDouble(intensities::getDouble).toArray();
+
+      final SimpleScan scan = new SimpleScan(file, s, 1, 0.05f * s, null, sortedMzs,
+          sortedIntensities, MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "",
+          Range.closed(100d, 1000d));
+      scan.addMassList(new ScanPointerMassList(scan));
+      file.addScan(scan);
+    }
+    return file;
+  }
+}
@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.featdet_extract_mz_ranges;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+/**
+ * Compares the single pass of {@link IonSeriesExtractionEngine} with the former search of every
+ * window in every scan.
+ */
+class IonSeriesExtractionEngineTest {
+
+  // more than two blocks for parallel processing, retention times are i / 64
+  private static final int NUM_SCANS = 1300;
+
+  private static RawDataFileImpl file;
+
+  @BeforeAll
+  static void createFile() {
+    file = new RawDataFileImpl("test", null, null, Color.BLACK);
+    final Random random = new Random(42);
+    for (int i = 0; i < NUM_SCANS; i++) {
+      final int numDataPoints = 20 + random.nextInt(60);
+      final double[] mzs = new double[numDataPoints];
+      final double[] intensities = new double[numDataPoints];
+      double mz = 100;
+      for (int dp = 0; dp < numDataPoints; dp++) {
+        // some equal m/z values
+        mz += random.nextInt(10) == 0 ? 0 : random.nextDouble() * 2.5;
+        mzs[dp] = mz;
+        intensities[dp] = random.nextInt(4) == 0 ? 1E3 : random.nextDouble() * 1E5;
+      }
+      file.addScan(new SimpleScan(file, i + 1, 1, i / 64f, null, mzs, intensities,
+          MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "", Range.closed(100d, 300d)));
+    }
+  }
+
+  /**
+   * Overlapping and nested windows, unsorted by lower and upper m/z, with and without retention
+   * time bounds. Some windows start within a block of scans.
+   */
+  private static List<Window> createWindows() {
+    final List<Window> windows = new ArrayList<>();
+    windows.add(new Window(Range.closed(180d, 190d), null));
+    windows.add(new Window(Range.closed(110d, 111d), null));
+    windows.add(new Window(Range.closed(100d, 300d), Range.closed(3.5f, 9.2f)));
+    windows.add(new Window(Range.closed(120d, 125d), null));
+    windows.add(new Window(Range.closed(122d, 130d), Range.closed(0f, 2f)));
+    windows.add(new Window(Range.closed(124.5d, 124.6d), Range.atLeast(5.115f)));
+    windows.add(new Window(Range.closed(150d, 150.5d), Range.atMost(6.3f)));
+    windows.add(new Window(Range.closed(140d, 160d), Range.closed(8f, 8f)));
+    windows.add(new Window(Range.closed(200d, 200d), null));
+    windows.add(new Window(Range.closed(110.5d, 185d), Range.closed(9f, 11f)));
+    windows.add(new Window(Range.closed(250d, 260d), Range.closed(25f, 30f)));
+    windows.add(new Window(Range.closed(50d, 90d), null));
+    return windows;
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void testEngineMatchesPerScanExtraction(boolean parallel) {
+    final List<Scan> scans = List.copyOf(file.getScans());
+    final List<Window> windows = createWindows();
+
+    final IonSeriesExtractionEngine engine = new IonSeriesExtractionEngine(file, scans,
+        ScanDataType.RAW, null);
+    engine.setParallel(parallel);
+    final List<List<Extracted>> actual = new ArrayList<>();
+    for (Window window : windows) {
+      final List<Extracted> extracted = Collections.synchronizedList(new ArrayList<>());
+      actual.add(extracted);
+      engine.addWindow(window.mzRange(), window.rtRange(), (access, scanIndex, from, to) -> {
+        // every scan in the retention time range is offered
+        extracted.add(new Extracted(scanIndex, Double.NaN, Double.NaN));
+        for (int dp = from; dp < to; dp++) {
+          extracted.add(
+              new Extracted(scanIndex, access.getMzValue(dp), access.getIntensityValue(dp)));
+        }
+      });
+    }
+    engine.process();
+
+    assertEquals(NUM_SCANS, engine.getProcessedScans());
+    for (int w = 0; w < windows.size(); w++) {
+      final List<Extracted> extracted = new ArrayList<>(actual.get(w));
+      if (parallel) {
+        // scans are processed out of order, data points of one scan stay in order
+        extracted.sort(Comparator.comparingInt(Extracted::scanIndex));
+      }
+      assertEquals(extractPerScan(scans, windows.get(w)), extracted,
+          "Different data points in window " + windows.get(w));
+    }
+  }
+
+  @Test
+  void testNonEmptyWindows() {
+    final List<Scan> scans = List.copyOf(file.getScans());
+    // the synthetic data should cover all cases of the windows
+    assertTrue(extractPerScan(scans, createWindows().get(5)).stream()
+        .anyMatch(e -> !Double.isNaN(e.mz())));
+    assertTrue(extractPerScan(scans, createWindows().get(7)).stream()
+        .anyMatch(e -> !Double.isNaN(e.mz())));
+    assertTrue(extractPerScan(scans, createWindows().get(10)).isEmpty());
+  }
+
+  /**
+   * The former extraction: every window searches all data points of every scan
+   */
+  private static List<Extracted> extractPerScan(List<Scan> scans, Window window) {
+    final List<Extracted> extracted = new ArrayList<>();
+    for (int s = 0; s < scans.size(); s++) {
+      final Scan scan = scans.get(s);
+      if (window.rtRange() != null && !window.rtRange().contains(scan.getRetentionTime())) {
+        continue;
+      }
+      extracted.add(new Extracted(s, Double.NaN, Double.NaN));
+      for (int dp = 0; dp < scan.getNumberOfDataPoints(); dp++) {
+        if (window.mzRange().contains(scan.getMzValue(dp))) {
+          extracted.add(new Extracted(s, scan.getMzValue(dp), scan.getIntensityValue(dp)));
+        }
+      }
+    }
+    return extracted;
+  }
+
+  private record Window(Range<Double> mzRange, Range<Float> rtRange) {
+
+  }
+
+  /**
+   * A data point in a scan, NaN values mark the call for a scan
+   */
+  private record Extracted(int scanIndex, double mz, double intensity) {
+
+  }
+}
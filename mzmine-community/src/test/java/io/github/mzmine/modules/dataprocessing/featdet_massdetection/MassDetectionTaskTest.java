@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.featdet_massdetection;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.MassList;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.EfficientDataAccess;
+import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
+import io.github.mzmine.datamodel.data_access.ScanDataAccess;
+import io.github.mzmine.datamodel.impl.DDAMsMsInfoImpl;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.datamodel.msms.ActivationMethod;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.exactmass.ExactMassDetectorParameters;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.wavelet.WaveletMassDetectorParameters;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.selectors.ScanSelection;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import io.github.mzmine.util.MemoryMapStorage;
+import io.github.mzmine.util.scans.ScanUtils;
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import testutils.MZmineTestUtil;
+
+class MassDetectionTaskTest {
+
+  // several parallel chunks and more than one batch
+  private static final int SCANS = 1100;
+  private static final int PEAKS_PER_SCAN = 20;
+
+  @BeforeAll
+  static void init() {
+    MZmineTestUtil.startMzmineCore();
+  }
+
+  /**
+   * The task detects chunks of scans in parallel. The mass lists must be the same as when all scans
+   * are detected one after the other with a single data access.
+   */
+  @ParameterizedTest
+  @EnumSource(value = MassDetectors.class, names = {"EXACT", "WAVELET"})
+  void testParallelSameAsSequential(MassDetectors type) {
+    final RawDataFile file = createProfileFile(new Random(42));
+    final ParameterSet parameters = createParameters(type);
+    final MassDetector detector = MassDetectors.createMassDetector(
+        parameters.getParameter(MassDetectionParameters.massDetector).getValueWithParameters());
+
+    final List<Scan> sequentialScans = new ArrayList<>();
+    final List<double[][]> sequential = new ArrayList<>();
+    final ScanDataAccess data = EfficientDataAccess.of(file, ScanDataType.RAW,
+        ScanSelection.ALL_SCANS);
+    while (data.hasNextScan()) {
+      final Scan scan = data.nextScan();
+      final double[][] masses = detector.getMassValues(data);
+      if (scan.getMSLevel() > 1) {
+        ScanUtils.denormalizeIntensitiesMultiplyByInjectTime(masses[1], scan.getInjectionTime());
+      }
+      sequentialScans.add(scan);
+      sequential.add(masses);
+    }
+
+    final MassDetectionTask task = new MassDetectionTask(file, parameters,
+        MemoryMapStorage.create(), Instant.now());
+    task.run();
+    assertEquals(TaskStatus.FINISHED, task.getStatus());
+
+    final List<Scan> scans = file.getScans();
+    assertEquals(sequentialScans, scans);
+    int detected = 0;
+    for (int i = 0; i < scans.size(); i++) {
+      final MassList massList = scans.get(i).getMassList();
+      assertNotNull(massList, "mass list of scan " + i);
+      final int n = massList.getNumberOfDataPoints();
+      assertArrayEquals(sequential.get(i)[0], massList.getMzValues(new double[n]),
+          "mzs of scan " + i);
+      assertArrayEquals(sequential.get(i)[1], massList.getIntensityValues(new double[n]),
+          "intensities of scan " + i);
+      detected += n;
+    }
+    assertTrue(detected > SCANS * PEAKS_PER_SCAN / 2);
+  }
+
+  private static ParameterSet createParameters(MassDetectors type) {
+    final ParameterSet detectorParameters = type.getModuleParameters();
+    switch (type) {
+      case EXACT -> detectorParameters.setParameter(ExactMassDetectorParameters.noiseLevel, 500d);
+      case WAVELET -> {
+        detectorParameters.setParameter(WaveletMassDetectorParameters.noiseLevel, 500d);
+        detectorParameters.setParameter(WaveletMassDetectorParameters.scaleLevel, 3);
+        detectorParameters.setParameter(WaveletMassDetectorParameters.waveletWindow, 0.3);
+      }
+      default -> throw new IllegalArgumentException("No parameters for " + type);
+    }
+
+    final ParameterSet parameters = new MassDetectionParameters().cloneParameterSet();
+    parameters.setParameter(MassDetectionParameters.scanSelection, ScanSelection.ALL_SCANS);
+    parameters.setParameter(MassDetectionParameters.scanTypes, SelectedScanTypes.SCANS);
+    parameters.setParameter(MassDetectionParameters.denormalizeMSnScans, true);
+    parameters.getParameter(MassDetectionParameters.massDetector)
+        .setValue(type, detectorParameters);
+    return parameters;
+  }
+
+  /**
+   * Profile spectra of Gaussian peaks with a little noise. Every fourth scan is an MS2 scan with an
+   * injection time to also cover the denormalization.
+   */
+  private static RawDataFile createProfileFile(Random random) {
+    final RawDataFile file = new RawDataFileImpl("profile", null, null, Color.BLACK);
+    for (int i = 0; i < SCANS; i++) {
+      final DoubleArrayList mzs = new DoubleArrayList();
+      final DoubleArrayList intensities = new DoubleArrayList();
+      for (int p = 0; p < PEAKS_PER_SCAN; p++) {
+        final double center = 100 + p * 40 + random.nextDouble() * 30;
+        final double height = 1E3 + random.nextDouble() * 1E5;
+        final double sigma = 0.005 + random.nextDouble() * 0.01;
+        for (int j = -12; j <= 12; j++) {
+          final double mz = center + j * 0.004;
+          final double gauss = Math.exp(-0.5 * Math.pow((mz - center) / sigma, 2));
+          mzs.add(mz);
+          intensities.add(height * gauss + random.nextDouble() * 50);
+        }
+      }
+
+      final boolean isMs2 = i % 4 == 3;
+      final SimpleScan scan = new SimpleScan(file, i, isMs2 ? 2 : 1, 0.01f * i,
+          isMs2 ? new DDAMsMsInfoImpl(500, 1, 20f, null, null, 2, ActivationMethod.UNKNOWN,
+              Range.closed(499d, 501d)) : null, mzs.toDoubleArray(), intensities.toDoubleArray(),
+          MassSpectrumType.PROFILE, PolarityType.POSITIVE, "", Range.closed(100d, 1000d),
+          isMs2 ? 20f : null);
+      file.addScan(scan);
+    }
+    return file;
+  }
+}
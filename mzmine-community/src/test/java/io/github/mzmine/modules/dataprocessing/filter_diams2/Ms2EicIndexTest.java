@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.filter_diams2;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeMap;
+import com.google.common.collect.TreeRangeMap;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.featuredata.IonTimeSeries;
+import io.github.mzmine.datamodel.featuredata.impl.SimpleIonTimeSeries;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class Ms2EicIndexTest {
+
+  private static IonTimeSeries<?> eic() {
+    return new SimpleIonTimeSeries(null, new double[0], new double[0], List.of());
+  }
+
+  @Test
+  void testIndexOf() {
+    final IonTimeSeries<?> a = eic();
+    final IonTimeSeries<?> b = eic();
+    final IonTimeSeries<?> c = eic();
+    final IonTimeSeries<?> d = eic();
+    final IonTimeSeries<?> e = eic();
+    final IonTimeSeries<?> f = eic();
+
+    final RangeMap<Double, IonTimeSeries<?>> ranges = TreeRangeMap.create();
+    ranges.put(Range.closed(100d, 100.01), a);
+    ranges.put(Range.openClosed(100.01, 100.02), b);
+    ranges.put(Range.singleton(200d), c);
+    ranges.put(Range.open(200d, 200.5), d);
+    ranges.put(Range.closed(300d, 301d), e);
+    // splits the range of e
+    ranges.put(Range.closed(300.4, 300.6), f);
+
+    final Ms2EicIndex index = new Ms2EicIndex(ranges);
+
+    assertSame(a, index.eic(index.indexOf(100d)));
+    assertSame(a, index.eic(index.indexOf(100.01)));
+    assertSame(b, index.eic(index.indexOf(100.015)));
+    assertSame(b, index.eic(index.indexOf(100.02)));
+    assertSame(c, index.eic(index.indexOf(200d)));
+    assertSame(d, index.eic(index.indexOf(200.2)));
+    assertSame(e, index.eic(index.indexOf(300.2)));
+    assertSame(f, index.eic(index.indexOf(300.5)));
+    assertSame(e, index.eic(index.indexOf(300.8)));
+    assertEquals(index.indexOf(300.2), index.indexOf(300.8));
+
+    assertEquals(-1, index.indexOf(50d));
+    assertEquals(-1, index.indexOf(100.03));
+    assertEquals(-1, index.indexOf(200.5));
+    assertEquals(-1, index.indexOf(301.1));
+  }
+
+  @Test
+  void testEicValuesAreExtractedOnce() {
+    final List<Scan> scans = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      final Scan scan = Mockito.mock(Scan.class);
+      Mockito.when(scan.getRetentionTime()).thenReturn(1f + i);
+      scans.add(scan);
+    }
+    final IonTimeSeries<?> eic = new SimpleIonTimeSeries(null, new double[]{150, 150, 150},
+        new double[]{10, 30, 20}, scans);
+    final RangeMap<Double, IonTimeSeries<?>> ranges = TreeRangeMap.create();
+    ranges.put(Range.closed(149.99, 150.01), eic);
+    final Ms2EicIndex index = new Ms2EicIndex(ranges);
+
+    final int i = index.indexOf(150d);
+    assertArrayEquals(new double[]{1, 2, 3}, index.rts(i), 1e-6);
+    assertArrayEquals(new double[]{10, 30, 20}, index.intensities(i), 0);
+    assertSame(index.rts(i), index.rts(i));
+    assertSame(index.intensities(i), index.intensities(i));
+  }
+}
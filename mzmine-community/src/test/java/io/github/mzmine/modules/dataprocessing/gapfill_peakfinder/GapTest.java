@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.gapfill_peakfinder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.Range;
+import io.github.mzmine.datamodel.MassSpectrumType;
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.Scan;
+import io.github.mzmine.datamodel.data_access.EfficientDataAccess;
+import io.github.mzmine.datamodel.data_access.EfficientDataAccess.ScanDataType;
+import io.github.mzmine.datamodel.data_access.ScanDataAccess;
+import io.github.mzmine.datamodel.impl.SimpleScan;
+import io.github.mzmine.modules.dataprocessing.featdet_extract_mz_ranges.IonSeriesExtractionEngine;
+import io.github.mzmine.project.impl.RawDataFileImpl;
+import java.util.List;
+import java.util.Random;
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Gap filling with data points located by {@link IonSeriesExtractionEngine} picks the same base
+ * peaks as {@link Gap#offerNextScan(Scan)}.
+ */
+class GapTest {
+
+  private static RawDataFileImpl file;
+
+  /**
+   * Noise with two chromatographic peaks. The peak at m/z 250 is the base peak of the scans around
+   * its apex, the peak at m/z 180 has a neighbor with the same intensity.
+   */
+  @BeforeAll
+  static void createFile() {
+    file = new RawDataFileImpl("test", null, null, Color.BLACK);
+    final Random random = new Random(7);
+    for (int i = 0; i < 300; i++) {
+      final double[] mzs = new double[64];
+      final double[] intensities = new double[64];
+      for (int dp = 0; dp < mzs.length; dp++) {
+        mzs[dp] = 100 + dp * 3 + random.nextDouble();
+        intensities[dp] = random.nextDouble() * 5E3;
+      }
+      // m/z 180 and 250 replace the noise at index 26, 27 and 50
+      mzs[26] = 180.0005 + random.nextDouble() * 0.002;
+      intensities[26] = gauss(i, 100, 1E4) + 100;
+      mzs[27] = 180.003;
+      intensities[27] = i % 5 == 0 ? intensities[26] : 50;
+      mzs[50] = 250.0005 + random.nextDouble() * 0.002;
+      intensities[50] = gauss(i, 150, 1E6) + 100;
+      file.addScan(new SimpleScan(file, i + 1, 1, i / 10f, null, mzs, intensities,
+          MassSpectrumType.CENTROIDED, PolarityType.POSITIVE, "", Range.closed(100d, 300d)));
+    }
+  }
+
+  private static double gauss(int scan, int apex, double height) {
+    final double x = (scan - apex) / 8d;
+    return height * Math.exp(-x * x / 2);
+  }
+
+  private static List<Gap> createGaps() {
+    return List.of( //
+        new TestGap(file, Range.closed(249.99, 250.01), Range.closed(14f, 16f)),
+        new TestGap(file, Range.closed(179.99, 180.01), Range.closed(9f, 11f)),
+        // contains the base peak of all scans
+        new TestGap(file, Range.closed(100d, 300d), Range.closed(5f, 6f)),
+        new TestGap(file, Range.closed(249.99, 250.01), Range.closed(25f, 27f)),
+        new TestGap(file, Range.closed(320d, 330d), Range.closed(1f, 2f)));
+  }
+
+  @Test
+  void testEngineMatchesOfferedScans() {
+    final List<Scan> scans = List.copyOf(file.getScans());
+
+    // former gap filling: all scans are offered to all gaps
+    final List<Gap> expected = createGaps();
+    final ScanDataAccess access = EfficientDataAccess.of(file, ScanDataType.RAW, scans);
+    while (access.hasNextScan()) {
+      access.nextScan();
+      for (Gap gap : expected) {
+        gap.offerNextScan(access);
+      }
+    }
+
+    final List<Gap> actual = createGaps();
+    final IonSeriesExtractionEngine engine = new IonSeriesExtractionEngine(file, scans,
+        ScanDataType.RAW, null);
+    for (Gap gap : actual) {
+      engine.addWindow(gap.getMzRange(), gap.getRtRange(),
+          (scanAccess, _, from, to) -> gap.offerNextScan(scanAccess, from, to));
+    }
+    engine.process();
+
+    for (int i = 0; i < expected.size(); i++) {
+      final Gap expectedGap = expected.get(i);
+      final Gap actualGap = actual.get(i);
+      assertEquals(expectedGap.noMoreOffers(), actualGap.noMoreOffers());
+      assertEquals(toString(expectedGap.bestPeakDataPoints), toString(actualGap.bestPeakDataPoints),
+          "Different data points in gap " + i);
+    }
+
+    assertTrue(expected.getFirst().bestPeakDataPoints.size() > 10);
+    assertTrue(expected.get(1).bestPeakDataPoints.size() > 10);
+    assertFalse(expected.getLast().noMoreOffers());
+  }
+
+  private static String toString(List<GapDataPoint> dataPoints) {
+    if (dataPoints == null) {
+      return "null";
+    }
+    final StringBuilder b = new StringBuilder();
+    for (GapDataPoint dp : dataPoints) {
+      b.append(dp.getScan().getScanNumber()).append(' ').append(dp.getRT()).append(' ')
+          .append(dp.getMZ()).append(' ').append(dp.getIntensity()).append('\n');
+    }
+    return b.toString();
+  }
+
+  /**
+   * Keeps the best peak instead of adding a feature to a row
+   */
+  private static class TestGap extends Gap {
+
+    TestGap(RawDataFile file, Range<Double> mzRange, Range<Float> rtRange) {
+      super(null, file, mzRange, rtRange, 0.2);
+    }
+
+    @Override
+    protected boolean addFeatureToRow() {
+      return true;
+    }
+  }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.id_formulapredictionfeaturelist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.google.common.collect.Range;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.openscience.cdk.config.IsotopeFactory;
+import org.openscience.cdk.config.Isotopes;
+import org.openscience.cdk.formula.MolecularFormulaGenerator;
+import org.openscience.cdk.formula.MolecularFormulaRange;
+import org.openscience.cdk.interfaces.IChemObjectBuilder;
+import org.openscience.cdk.interfaces.IMolecularFormula;
+import org.openscience.cdk.silent.SilentChemObjectBuilder;
+import org.openscience.cdk.tools.manipulator.MolecularFormulaManipulator;
+
+class FormulaMassIndexTest {
+
+  private static final IChemObjectBuilder builder = SilentChemObjectBuilder.getInstance();
+  private static MolecularFormulaRange elements;
+
+  @BeforeAll
+  static void setUp() throws IOException {
+    final IsotopeFactory isotopes = Isotopes.getInstance();
+    elements = new MolecularFormulaRange();
+    elements.addIsotope(isotopes.getMajorIsotope("C"), 0, 40);
+    elements.addIsotope(isotopes.getMajorIsotope("H"), 0, 80);
+    elements.addIsotope(isotopes.getMajorIsotope("N"), 0, 6);
+    elements.addIsotope(isotopes.getMajorIsotope("O"), 0, 12);
+    elements.addIsotope(isotopes.getMajorIsotope("S"), 0, 2);
+  }
+
+  private static Set<String> generate(Range<Double> range) {
+    final MolecularFormulaGenerator generator = new MolecularFormulaGenerator(builder,
+        range.lowerEndpoint(), range.upperEndpoint(), elements);
+    final Set<String> formulas = new TreeSet<>();
+    IMolecularFormula formula;
+    while ((formula = generator.getNextFormula()) != null) {
+      formulas.add(MolecularFormulaManipulator.getString(formula));
+    }
+    return formulas;
+  }
+
+  private static Set<String> lookup(FormulaMassIndex index, Range<Double> range) {
+    final Set<String> formulas = new TreeSet<>();
+    final int to = index.toIndex(range.upperEndpoint());
+    for (int i = index.fromIndex(range.lowerEndpoint()); i < to; i++) {
+      formulas.add(MolecularFormulaManipulator.getString(index.getFormula(i, builder)));
+    }
+    return formulas;
+  }
+
+  private static List<Range<Double>> windows(double... masses) {
+    final List<Range<Double>> ranges = new ArrayList<>();
+    for (double mass : masses) {
+      ranges.add(Range.closed(mass - 0.005, mass + 0.005));
+    }
+    return ranges;
+  }
+
+  @Test
+  void testSameFormulasAsGenerator() {
+    final List<Range<Double>> ranges = windows(180.0634, 180.066, 255.0879, 342.1162, 500.25);
+    final FormulaMassIndex index = FormulaMassIndex.getOrCreate(elements, ranges, () -> false);
+    assertNotNull(index);
+
+    for (Range<Double> range : ranges) {
+      assertEquals(generate(range), lookup(index, range));
+    }
+  }
+
+  @Test
+  void testReuseAndExtend() {
+    final List<Range<Double>> ranges = windows(194.0790, 301.1410);
+    final FormulaMassIndex index = FormulaMassIndex.getOrCreate(elements, ranges, () -> false);
+    assertNotNull(index);
+    // covered ranges are reused
+    assertSame(index,
+        FormulaMassIndex.getOrCreate(elements, windows(194.0790), () -> false));
+
+    // partially overlapping ranges extend the index without duplicates
+    final List<Range<Double>> extended = windows(194.0810, 301.1410, 412.2);
+    final FormulaMassIndex extendedIndex = FormulaMassIndex.getOrCreate(elements, extended,
+        () -> false);
+    assertNotNull(extendedIndex);
+    final Range<Double> span = Range.closed(194.0790 - 0.005, 194.0810 + 0.005);
+    assertEquals(generate(span), lookup(extendedIndex, span));
+    assertEquals(generate(span).size(), extendedIndex.toIndex(span.upperEndpoint())
+        - extendedIndex.fromIndex(span.lowerEndpoint()));
+    for (Range<Double> range : extended) {
+      assertEquals(generate(range), lookup(extendedIndex, range));
+    }
+  }
+
+  @Test
+  void testMerge() {
+    final List<Range<Double>> merged = FormulaMassIndex.merge(
+        List.of(Range.closed(5d, 6d), Range.closed(1d, 2d), Range.closed(1.5d, 3d)));
+    assertEquals(List.of(Range.closed(1d, 3d), Range.closed(5d, 6d)), merged);
+  }
+}
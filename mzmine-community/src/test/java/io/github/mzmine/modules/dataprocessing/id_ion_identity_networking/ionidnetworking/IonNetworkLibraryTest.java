@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.id_ion_identity_networking.ionidnetworking;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+
+import io.github.mzmine.datamodel.PolarityType;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularFeature;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.features.correlation.R2RMap;
+import io.github.mzmine.datamodel.features.correlation.RowGroup;
+import io.github.mzmine.datamodel.features.correlation.RowGroupSimple;
+import io.github.mzmine.datamodel.features.correlation.RowsRelationship;
+import io.github.mzmine.datamodel.features.types.annotations.iin.IonIdentityListType;
+import io.github.mzmine.datamodel.features.types.numbers.IDType;
+import io.github.mzmine.datamodel.features.types.numbers.MZType;
+import io.github.mzmine.datamodel.identities.iontype.IonIdentity;
+import io.github.mzmine.datamodel.identities.iontype.IonModification;
+import io.github.mzmine.datamodel.identities.iontype.IonNetwork;
+import io.github.mzmine.datamodel.identities.iontype.IonType;
+import io.github.mzmine.modules.dataprocessing.id_ion_identity_networking.ionidnetworking.IonNetworkLibrary.CheckMode;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+/**
+ * Compares the m/z sorted search of
+ * {@link IonNetworkLibrary#findAdducts(FeatureList, RowGroup, CheckMode, double, AtomicInteger)}
+ * with the former comparison of all correlated row pairs.
+ */
+class IonNetworkLibraryTest {
+
+  private static final double M1 = 302.1147;
+  private static final double M2 = 451.2318;
+  private static final double MIN_HEIGHT = 1E3;
+
+  private static final IonType H = new IonType(IonModification.H);
+  private static final IonType NA = new IonType(IonModification.NA);
+  private static final IonType NH4 = new IonType(IonModification.NH4);
+  private static final IonType H2 = new IonType(IonModification.H2plus);
+  private static final IonType DIMER_H = new IonType(2, IonModification.H);
+  private static final IonType DIMER_NA = new IonType(2, IonModification.NA);
+  private static final IonType H_H2O = new IonType(1, IonModification.H, IonModification.H2O);
+
+  /**
+   * Synthetic rows with the m/z offsets and heights of their features in two raw files. A height of
+   * 0 means no feature. Offsets of 0.004 are outside the m/z tolerance.
+   */
+  private static final List<TestRow> ROWS = List.of( //
+      new TestRow(5, M1, DIMER_H, 0, -0.0015, 0.0005, 1E4, 500), //
+      new TestRow(12, 611.3, H, 0, 0, 0, 2E4, 0), //
+      new TestRow(1, M1, H, 1, 0.0004, -0.0006, 1E5, 5E4), //
+      new TestRow(9, M2, NA, 0, 0.0006, -0.0003, 3E4, 3E4), //
+      new TestRow(3, M1, NH4, 0, 0.0012, 0.004, 2E4, 1E4), //
+      new TestRow(13, M1, NA, 0, 0.0002, 0.0001, 800, 500), //
+      new TestRow(7, M1, DIMER_NA, 0, 0.0009, -0.004, 5E3, 5E3), //
+      new TestRow(2, M1, NA, 0, -0.0008, 0.0009, 8E4, 3E4), //
+      new TestRow(10, M2, H2, 0, -0.0002, 0.0003, 0, 2E4), //
+      new TestRow(4, M1, H2, 2, 0.0003, -0.0002, 3E4, 2E4), //
+      new TestRow(11, M1, H, 0, 0.0004, -0.0006, 4E4, 2E4), //
+      new TestRow(6, M1, H_H2O, 1, 0.0007, 0.0011, 6E4, 4E4), //
+      new TestRow(8, M2, H, 0, 0, 0.0005, 5E4, 5E4));
+
+  private static IonNetworkLibrary createLibrary() {
+    return new IonNetworkLibrary(new MZTolerance(0.002, 5), 2, PolarityType.POSITIVE, 2,
+        new IonModification[]{IonModification.H, IonModification.NA, IonModification.NH4,
+            IonModification.H2plus}, new IonModification[]{IonModification.H2O});
+  }
+
+  @ParameterizedTest
+  @EnumSource(CheckMode.class)
+  void testGroupSearchEqualsPairwiseComparison(CheckMode mode) {
+    final IonNetworkLibrary library = createLibrary();
+
+    final TestGroup expected = createGroup();
+    final long expectedAnnotations = findAdductsPairwise(library, expected.flist(),
+        expected.group(), mode, MIN_HEIGHT);
+
+    final TestGroup actual = createGroup();
+    final long annotations = library.findAdducts(actual.flist(), actual.group(), mode,
+        MIN_HEIGHT, new AtomicInteger());
+
+    assertTrue(expectedAnnotations > 0);
+    assertEquals(expectedAnnotations, annotations);
+    for (int i = 0; i < ROWS.size(); i++) {
+      assertEquals(describeIdentities(expected.group().get(i)),
+          describeIdentities(actual.group().get(i)),
+          "Different ion identities for row " + ROWS.get(i).id() + " in mode " + mode);
+    }
+
+    // multi charge ions and multimers are found in all modes
+    assertTrue(hasIonType(actual.group(), 4, H2));
+    assertTrue(hasIonType(actual.group(), 5, DIMER_H));
+  }
+
+  /**
+   * The former comparison of all correlated row pairs i < k in IonNetworkingTask
+   */
+  private static long findAdductsPairwise(IonNetworkLibrary library, FeatureList flist,
+      RowGroup g, CheckMode mode, double minHeight) {
+    long annotations = 0;
+    for (int i = 0; i < g.size() - 1; i++) {
+      for (int k = i + 1; k < g.size(); k++) {
+        if (g.isCorrelated(i, k)) {
+          List<IonIdentity[]> id = library.findAdducts(flist, g.get(i), g.get(k), mode,
+              minHeight);
+          if (!id.isEmpty()) {
+            annotations++;
+          }
+        }
+      }
+    }
+    return annotations;
+  }
+
+  /**
+   * All rows are correlated, except the M2 rows 8 and 9 and the M1 rows 1 and 6
+   */
+  private static TestGroup createGroup() {
+    final RawDataFile rawA = mock(RawDataFile.class);
+    final RawDataFile rawB = mock(RawDataFile.class);
+    final ModularFeatureList flist = new ModularFeatureList("A", null, rawA, rawB);
+    flist.addRowType(new IDType());
+    flist.addRowType(new MZType());
+    flist.addRowType(new IonIdentityListType());
+
+    final List<FeatureListRow> rows = new ArrayList<>();
+    for (TestRow r : ROWS) {
+      final double mz = r.ion().getMZ(r.mass());
+      ModularFeatureListRow row = spy(new ModularFeatureListRow(flist, r.id()));
+      doReturn(mz + (r.offsetA() + r.offsetB()) / 2).when(row).getAverageMZ();
+      doReturn(r.charge()).when(row).getRowCharge();
+      doReturn(createFeature(mz + r.offsetA(), r.heightA())).when(row).getFeature(rawA);
+      doReturn(createFeature(mz + r.offsetB(), r.heightB())).when(row).getFeature(rawB);
+      flist.addRow(row);
+      rows.add(row);
+    }
+
+    final RowsRelationship correlation = mock(RowsRelationship.class);
+    final R2RMap<RowsRelationship> map = new R2RMap<>();
+    for (int i = 0; i < rows.size() - 1; i++) {
+      for (int k = i + 1; k < rows.size(); k++) {
+        final int a = rows.get(i).getID();
+        final int b = rows.get(k).getID();
+        if (!isUncorrelated(a, b, 8, 9) && !isUncorrelated(a, b, 1, 6)) {
+          map.add(rows.get(i), rows.get(k), correlation);
+        }
+      }
+    }
+    final RowGroup group = new RowGroupSimple(0, map);
+    group.addAll(rows);
+    return new TestGroup(flist, group);
+  }
+
+  private static boolean isUncorrelated(int a, int b, int idA, int idB) {
+    return (a == idA && b == idB) || (a == idB && b == idA);
+  }
+
+  private static ModularFeature createFeature(double mz, double height) {
+    if (height <= 0) {
+      return null;
+    }
+    final ModularFeature feature = mock(ModularFeature.class);
+    when(feature.getMZ()).thenReturn(mz);
+    when(feature.getHeight()).thenReturn((float) height);
+    return feature;
+  }
+
+  /**
+   * @return the ion identities in their order with the IDs of partner rows and network rows
+   */
+  private static List<String> describeIdentities(FeatureListRow row) {
+    return row.getIonIdentities().stream()
+        .map(ion -> ion + " partners=" + sortedIds(ion.getPartnerRows()) + " network="
+                    + sortedIds(networkRows(ion.getNetwork()))).toList();
+  }
+
+  private static List<FeatureListRow> networkRows(IonNetwork net) {
+    return net == null ? List.of() : List.copyOf(net.keySet());
+  }
+
+  private static String sortedIds(Collection<FeatureListRow> rows) {
+    return rows.stream().map(FeatureListRow::getID).sorted(Comparator.naturalOrder())
+        .map(String::valueOf).collect(Collectors.joining(","));
+  }
+
+  private static boolean hasIonType(RowGroup group, int id, IonType ion) {
+    return group.stream().filter(row -> row.getID() == id).findFirst().orElseThrow()
+        .getIonIdentities().stream().anyMatch(identity -> identity.equalsAdduct(ion));
+  }
+
+  private record TestRow(int id, double mass, IonType ion, int charge, double offsetA,
+                         double offsetB, double heightA, double heightB) {
+
+  }
+
+  private record TestGroup(ModularFeatureList flist, RowGroup group) {
+
+  }
+}
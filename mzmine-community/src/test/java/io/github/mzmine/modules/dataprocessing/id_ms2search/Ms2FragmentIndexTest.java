@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.id_ms2search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.datamodel.impl.SimpleDataPoint;
+import it.unimi.dsi.fastutil.ints.Int2IntOpenHashMap;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class Ms2FragmentIndexTest {
+
+  private static DataPoint[] ions(double... mzs) {
+    final DataPoint[] ions = new DataPoint[mzs.length];
+    for (int i = 0; i < mzs.length; i++) {
+      ions[i] = new SimpleDataPoint(mzs[i], 100d);
+    }
+    return ions;
+  }
+
+  @Test
+  void testCountMatches() {
+    final Ms2FragmentIndex index = new Ms2FragmentIndex(
+        new DataPoint[][]{ions(100d, 200d, 300d), null, ions(100.0005, 100.0008, 250d),
+            ions(500d)});
+    assertEquals(7, index.getNumberOfIons());
+
+    // 10 ppm at 100 is 0.001
+    final Int2IntOpenHashMap counts = new Int2IntOpenHashMap();
+    index.countMatches(ions(100d, 300.01), 10, counts);
+    assertEquals(1, counts.get(0));
+    assertEquals(2, counts.get(2));
+    assertFalse(counts.containsKey(1));
+    assertFalse(counts.containsKey(3));
+  }
+
+  @Test
+  void testCountMatchesAllPairs() {
+    final Random random = new Random(42);
+    final DataPoint[][] rows = new DataPoint[50][];
+    for (int r = 0; r < rows.length; r++) {
+      final double[] mzs = random.doubles(random.nextInt(20), 100, 110).sorted().toArray();
+      rows[r] = ions(mzs);
+    }
+    final Ms2FragmentIndex index = new Ms2FragmentIndex(rows);
+    final double ppm = 20;
+
+    for (DataPoint[] query : rows) {
+      final Int2IntOpenHashMap counts = new Int2IntOpenHashMap();
+      index.countMatches(query, ppm, counts);
+      for (int r = 0; r < rows.length; r++) {
+        int expected = 0;
+        for (DataPoint a : query) {
+          final double tolerance = a.getMZ() * 1e-6 * ppm;
+          for (DataPoint b : rows[r]) {
+            if (Math.abs(a.getMZ() - b.getMZ()) < tolerance) {
+              expected++;
+            }
+          }
+        }
+        assertEquals(expected, counts.get(r));
+      }
+    }
+  }
+}
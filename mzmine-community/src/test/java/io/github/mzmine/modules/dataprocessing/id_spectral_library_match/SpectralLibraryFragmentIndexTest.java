@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.dataprocessing.id_spectral_library_match;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.datamodel.impl.SimpleDataPoint;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.scans.ScanAlignment;
+import io.github.mzmine.util.spectraldb.entry.SpectralDBEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class SpectralLibraryFragmentIndexTest {
+
+  private final Random random = new Random(42);
+
+  private double[] randomMzs(int n) {
+    final double[] mzs = new double[n];
+    for (int i = 0; i < n; i++) {
+      // coarse values to create many signals close to each other
+      mzs[i] = 50 + Math.round(random.nextDouble() * 2000) / 4d + random.nextGaussian() * 0.003;
+    }
+    return mzs;
+  }
+
+  private DataPoint[] toDataPoints(double[] mzs) {
+    return Arrays.stream(mzs).mapToObj(mz -> new SimpleDataPoint(mz, random.nextDouble() * 1000))
+        .toArray(DataPoint[]::new);
+  }
+
+  private static int countWithinTolerance(MZTolerance mzTol, SpectralDBEntry entry,
+      DataPoint[] query) {
+    int count = 0;
+    for (int i = 0; i < entry.getNumberOfDataPoints(); i++) {
+      for (DataPoint dp : query) {
+        if (mzTol.checkWithinTolerance(entry.getMzValue(i), dp.getMZ())) {
+          count++;
+          break;
+        }
+      }
+    }
+    return count;
+  }
+
+  @Test
+  void testCandidatesMatchBruteForce() {
+    final List<SpectralDBEntry> entries = new ArrayList<>();
+    for (int i = 0; i < 300; i++) {
+      final double[] mzs = randomMzs(5 + random.nextInt(40));
+      Arrays.sort(mzs);
+      final double[] intensities = new double[mzs.length];
+      Arrays.fill(intensities, 100);
+      entries.add(new SpectralDBEntry(null, mzs, intensities));
+    }
+    final SpectralLibraryFragmentIndex index = new SpectralLibraryFragmentIndex(entries);
+    assertTrue(index.isIndexOf(entries));
+
+    final List<MZTolerance> tolerances = List.of(new MZTolerance(0.005, 10),
+        new MZTolerance(0, 20), new MZTolerance(0.3, 0));
+    for (MZTolerance mzTol : tolerances) {
+      for (int q = 0; q < 20; q++) {
+        final DataPoint[] query = toDataPoints(randomMzs(10 + random.nextInt(60)));
+        final int minMatch = 1 + random.nextInt(6);
+        final int from = random.nextInt(100);
+        final int to = from + random.nextInt(200);
+
+        final BitSet candidates = index.findCandidates(query, mzTol, minMatch, from, to);
+        for (int e = from; e < to; e++) {
+          final SpectralDBEntry entry = entries.get(e);
+          final int count = countWithinTolerance(mzTol, entry, query);
+          assertEquals(count >= minMatch, candidates.get(e - from),
+              "entry %d with %d signals in tolerance %s".formatted(e, count, mzTol));
+
+          // the alignment can never match more signals
+          final List<DataPoint[]> aligned = ScanAlignment.align(mzTol, entry.getDataPoints(),
+              query.clone());
+          final long overlap = aligned.stream().filter(dp -> dp[0] != null && dp[1] != null)
+              .count();
+          assertTrue(overlap <= count);
+        }
+        assertEquals(-1, candidates.nextSetBit(to - from));
+      }
+    }
+  }
+
+  @Test
+  void testEmptyLibrary() {
+    final SpectralLibraryFragmentIndex index = new SpectralLibraryFragmentIndex(List.of());
+    assertEquals(0, index.getNumberOfSignals());
+    assertTrue(index.findCandidates(toDataPoints(randomMzs(10)), new MZTolerance(0.005, 10), 1, 0,
+        0).isEmpty());
+  }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.io.export_features_columnar;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import io.github.mzmine.datamodel.FeatureStatus;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularFeature;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.features.types.DetectionType;
+import io.github.mzmine.datamodel.features.types.RawFileType;
+import io.github.mzmine.datamodel.features.types.numbers.HeightType;
+import io.github.mzmine.datamodel.features.types.numbers.MZType;
+import io.github.mzmine.datamodel.features.types.numbers.RTType;
+import io.github.mzmine.modules.io.import_features_columnar.ColumnarFeatureTableReader;
+import io.github.mzmine.util.FeatureListRowSorter;
+import io.github.mzmine.util.MemoryMapStorage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+class ColumnarFeatureTableTest {
+
+  @TempDir
+  File tempDir;
+
+  private static RawDataFile mockRaw(String name) {
+    final RawDataFile raw = Mockito.mock(RawDataFile.class);
+    Mockito.when(raw.getName()).thenReturn(name);
+    Mockito.when(raw.getFileName()).thenReturn(name);
+    return raw;
+  }
+
+  private static ModularFeatureList createFeatureList(@Nullable MemoryMapStorage storage,
+      RawDataFile a, RawDataFile b) {
+    final Random random = new Random(42);
+    final ModularFeatureList flist = new ModularFeatureList("List", storage, a, b);
+    for (int i = 0; i < 300; i++) {
+      final ModularFeatureListRow row = new ModularFeatureListRow(flist, 300 - i);
+      for (RawDataFile raw : List.of(a, b)) {
+        // some missing features and values
+        if (raw == b && i % 3 == 0) {
+          continue;
+        }
+        final ModularFeature f = new ModularFeature(flist);
+        f.set(RawFileType.class, raw);
+        f.set(MZType.class, 100 + random.nextDouble() * 900);
+        f.set(RTType.class, random.nextFloat() * 20);
+        f.set(HeightType.class, i % 7 == 0 ? null : random.nextFloat() * 1e6f);
+        f.set(DetectionType.class, i % 2 == 0 ? FeatureStatus.DETECTED : FeatureStatus.ESTIMATED);
+        row.addFeature(raw, f);
+      }
+      flist.addRow(row);
+    }
+    return flist;
+  }
+
+  private void assertRoundTrip(@Nullable MemoryMapStorage storage) throws IOException {
+    final RawDataFile a = mockRaw("a.mzML");
+    final RawDataFile b = mockRaw("b.mzML");
+    final ModularFeatureList flist = createFeatureList(storage, a, b);
+    final List<FeatureListRow> rows = flist.getRows().stream()
+        .sorted(FeatureListRowSorter.DEFAULT_ID).toList();
+
+    final Path file = tempDir.toPath().resolve("table.mzct");
+    new ColumnarFeatureTableWriter(flist, rows).write(file, () -> false);
+    final Map<String, RawDataFile> raws = Map.of(a.getName(), a, b.getName(), b);
+    final ModularFeatureList imported = ColumnarFeatureTableReader.read(file, raws::get, null,
+        () -> false);
+
+    assertNotNull(imported);
+    assertEquals(rows.size(), imported.getNumberOfRows());
+    for (int i = 0; i < rows.size(); i++) {
+      final FeatureListRow expected = rows.get(i);
+      final FeatureListRow actual = imported.getRow(i);
+      assertEquals(expected.getID(), actual.getID());
+      assertEquals(expected.getAverageMZ(), actual.getAverageMZ());
+      assertEquals(expected.getAverageRT(), actual.getAverageRT());
+      for (RawDataFile raw : List.of(a, b)) {
+        final ModularFeature ef = (ModularFeature) expected.getFeature(raw);
+        final ModularFeature af = (ModularFeature) actual.getFeature(raw);
+        if (ef == null) {
+          assertNull(af);
+          continue;
+        }
+        assertNotNull(af);
+        assertEquals(raw, af.getRawDataFile());
+        assertEquals(ef.getMZ(), af.getMZ());
+        assertEquals(ef.getRT(), af.getRT());
+        assertEquals(ef.get(HeightType.class), af.get(HeightType.class));
+        assertEquals(ef.getFeatureStatus(), af.getFeatureStatus());
+      }
+    }
+  }
+
+  @Test
+  void testRoundTripInMemory() throws IOException {
+    assertRoundTrip(null);
+  }
+
+  @Test
+  void testRoundTripMemoryMapped() throws IOException {
+    assertRoundTrip(MemoryMapStorage.create());
+  }
+
+  @Test
+  void testMissingRawFile() throws IOException {
+    final RawDataFile a = mockRaw("a.mzML");
+    final RawDataFile b = mockRaw("b.mzML");
+    final ModularFeatureList flist = createFeatureList(null, a, b);
+    final Path file = tempDir.toPath().resolve("table.mzct");
+    new ColumnarFeatureTableWriter(flist, flist.getRows()).write(file, () -> false);
+
+    assertThrows(IOException.class,
+        () -> ColumnarFeatureTableReader.read(file, Map.of("a.mzML", a)::get, null, () -> false));
+  }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.io.export_features_csv;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import io.github.mzmine.datamodel.FeatureStatus;
+import io.github.mzmine.datamodel.RawDataFile;
+import io.github.mzmine.datamodel.features.FeatureListRow;
+import io.github.mzmine.datamodel.features.ModularFeature;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.features.types.DataTypes;
+import io.github.mzmine.datamodel.features.types.DetectionType;
+import io.github.mzmine.datamodel.features.types.RawFileType;
+import io.github.mzmine.datamodel.features.types.annotations.compounddb.ALogPType;
+import io.github.mzmine.datamodel.features.types.numbers.AreaType;
+import io.github.mzmine.datamodel.features.types.numbers.CCSRelativeErrorType;
+import io.github.mzmine.datamodel.features.types.numbers.MZType;
+import io.github.mzmine.datamodel.features.types.numbers.RTType;
+import io.github.mzmine.datamodel.features.types.numbers.scores.SiriusCsiScoreType;
+import io.github.mzmine.modules.io.export_features_gnps.fbmn.FeatureListRowsFilter;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mockito;
+
+class CSVExportModularTaskTest {
+
+  @TempDir
+  File tempDir;
+
+  @Test
+  void testChunkedExportKeepsRowOrderAndFormatting() throws IOException {
+    final Random random = new Random(42);
+    final RawDataFile raw = Mockito.mock(RawDataFile.class);
+    Mockito.when(raw.getName()).thenReturn("sample");
+    final ModularFeatureList flist = new ModularFeatureList("List", null, raw);
+
+    // more rows than one chunk and added in random order, export sorts by id
+    final int numRows = 2500;
+    final List<Integer> ids = new ArrayList<>();
+    for (int i = 1; i <= numRows; i++) {
+      ids.add(i);
+    }
+    Collections.shuffle(ids, random);
+    final double[] mzs = new double[numRows + 1];
+    for (int id : ids) {
+      final ModularFeature f = new ModularFeature(flist);
+      f.set(RawFileType.class, raw);
+      f.set(MZType.class, mzs[id] = 100 + random.nextDouble() * 900);
+      f.set(RTType.class, random.nextFloat() * 20);
+      f.set(DetectionType.class, FeatureStatus.DETECTED);
+      flist.addRow(new ModularFeatureListRow(flist, id, f));
+    }
+
+    final File file = new File(tempDir, "export.csv");
+    final CSVExportModularTask task = new CSVExportModularTask(new ModularFeatureList[]{flist},
+        file, ",", ";", FeatureListRowsFilter.ALL, true, Instant.now());
+    task.run();
+    assertEquals(TaskStatus.FINISHED, task.getStatus());
+    assertEquals(numRows, task.getProcessedItems());
+
+    final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+    assertEquals(numRows + 1, lines.size());
+    final List<String> header = Arrays.asList(lines.getFirst().split(","));
+    final int idCol = header.indexOf("id");
+    final int mzCol = header.indexOf("mz");
+    final int rawMzCol = header.indexOf("datafile:sample:mz");
+
+    // values are formatted on many threads and must equal the single threaded formatting
+    final MZType mzType = DataTypes.get(MZType.class);
+    for (int id = 1; id <= numRows; id++) {
+      final String[] values = lines.get(id).split(",", -1);
+      assertEquals(header.size(), values.length);
+      assertEquals(String.valueOf(id), values[idCol]);
+
+      final FeatureListRow row = flist.findRowByID(id);
+      assertEquals(mzType.getFormattedExportString(row.getAverageMZ()), values[mzCol]);
+      assertEquals(mzType.getFormattedExportString(mzs[id]), values[rawMzCol]);
+    }
+  }
+
+  /**
+   * The parallel export must write exactly the same bytes as a sequential export. The reference
+   * runs in a pool with a single worker, so the parallel row stream formats one row after another
+   * like the exporter before the chunked formatting. Types with their own static formats are
+   * included, as they are used by many threads at once.
+   */
+  @Test
+  void testParallelExportEqualsSequentialExport()
+      throws IOException, ExecutionException, InterruptedException {
+    final Random random = new Random(7);
+    final RawDataFile raw = Mockito.mock(RawDataFile.class);
+    Mockito.when(raw.getName()).thenReturn("sample");
+    final ModularFeatureList flist = new ModularFeatureList("List", null, raw);
+
+    for (int id = 1; id <= 5000; id++) {
+      final ModularFeature f = new ModularFeature(flist);
+      f.set(RawFileType.class, raw);
+      f.set(MZType.class, 100 + random.nextDouble() * 900);
+      f.set(RTType.class, random.nextFloat() * 20);
+      f.set(AreaType.class, random.nextFloat() * 1E7f);
+      f.set(DetectionType.class, FeatureStatus.DETECTED);
+      final ModularFeatureListRow row = new ModularFeatureListRow(flist, id, f);
+      row.set(ALogPType.class, random.nextFloat() * 10 - 5);
+      row.set(CCSRelativeErrorType.class, random.nextFloat() / 100);
+      // leave some values empty
+      if (id % 3 != 0) {
+        row.set(SiriusCsiScoreType.class, -random.nextFloat() * 200);
+      }
+      flist.addRow(row);
+    }
+
+    final File parallelFile = new File(tempDir, "parallel.csv");
+    final CSVExportModularTask parallel = new CSVExportModularTask(
+        new ModularFeatureList[]{flist}, parallelFile, ",", ";", FeatureListRowsFilter.ALL, true,
+        Instant.now());
+    parallel.run();
+    assertEquals(TaskStatus.FINISHED, parallel.getStatus());
+
+    final File sequentialFile = new File(tempDir, "sequential.csv");
+    final CSVExportModularTask sequential = new CSVExportModularTask(
+        new ModularFeatureList[]{flist}, sequentialFile, ",", ";", FeatureListRowsFilter.ALL, true,
+        Instant.now());
+    final ForkJoinPool singleThread = new ForkJoinPool(1);
+    try {
+      singleThread.submit(sequential::run).get();
+    } finally {
+      singleThread.shutdown();
+    }
+    assertEquals(TaskStatus.FINISHED, sequential.getStatus());
+
+    assertArrayEquals(Files.readAllBytes(sequentialFile.toPath()),
+        Files.readAllBytes(parallelFile.toPath()));
+  }
+}
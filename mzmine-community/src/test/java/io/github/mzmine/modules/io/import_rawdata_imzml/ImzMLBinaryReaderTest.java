@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.io.import_rawdata_imzml;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.alanmrace.jimzmlparser.imzml.ImzML;
+import com.alanmrace.jimzmlparser.mzml.BinaryDataArrayList;
+import com.alanmrace.jimzmlparser.mzml.SpectrumList;
+import com.alanmrace.jimzmlparser.parser.ImzMLHandler;
+import io.github.mzmine.modules.io.import_rawdata_imzml.ImzMLBinaryReader.ArrayRef;
+import java.io.File;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ImzMLBinaryReaderTest {
+
+  /**
+   * All arrays decoded concurrently from the memory mapped .ibd file equal the arrays read
+   * sequentially through the imzML library
+   */
+  @ParameterizedTest
+  @ValueSource(strings = {"rawdatafiles/additional/Example_Continuous.imzML",
+      "rawdatafiles/additional/Example_Processed.imzML"})
+  void testParallelDecodingEqualsLibrary(String resource) throws Exception {
+    final File file = getResourceFile(resource);
+    final ImzML imzml = ImzMLHandler.parseimzML(file.getAbsolutePath());
+    final SpectrumList spectra = imzml.getRun().getSpectrumList();
+    assertTrue(spectra.size() > 1);
+
+    final List<ArrayRef> refs = new ArrayList<>();
+    final List<double[]> expected = new ArrayList<>();
+    for (int i = 0; i < spectra.size(); i++) {
+      final BinaryDataArrayList dataList = spectra.get(i).getBinaryDataArrayList();
+      refs.add(ImzMLBinaryReader.createRef(dataList.getmzArray()));
+      refs.add(ImzMLBinaryReader.createRef(dataList.getIntensityArray()));
+      expected.add(dataList.getmzArray().getDataAsDouble());
+      expected.add(dataList.getIntensityArray().getDataAsDouble());
+    }
+
+    final File ibdFile = ImzMLImportTask.getIbdFile(file);
+    assertTrue(ibdFile.exists());
+    final double[][] actual = new double[refs.size()][];
+    try (ImzMLBinaryReader reader = ImzMLBinaryReader.open(ibdFile)) {
+      IntStream.range(0, refs.size()).parallel().forEach(i -> {
+        final ArrayRef ref = refs.get(i);
+        assertNotNull(ref, "Array " + i + " was not located in the .ibd file");
+        actual[i] = reader.readDoubles(ref);
+      });
+    }
+
+    for (int i = 0; i < refs.size(); i++) {
+      assertArrayEquals(expected.get(i), actual[i], "Different values in array " + i);
+    }
+  }
+
+  @Test
+  void testIbdFileReplacesOnlyTheExtension() {
+    final File folder = new File("imzML", "data.imzML");
+    assertEquals(new File(folder, "sample_imzML.ibd"),
+        ImzMLImportTask.getIbdFile(new File(folder, "sample_imzML.imzML")));
+    assertEquals(new File(folder, "imzML.ibd"),
+        ImzMLImportTask.getIbdFile(new File(folder, "imzML.imzML")));
+  }
+
+  private static File getResourceFile(String resource) throws URISyntaxException {
+    return new File(ImzMLBinaryReaderTest.class.getClassLoader().getResource(resource).toURI());
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.io.import_rawdata_mzml;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.msdk.MSDKException;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.MassDetectors;
+import io.github.mzmine.modules.dataprocessing.featdet_massdetection.factor_of_lowest.FactorOfLowestMassDetectorParameters;
+import io.github.mzmine.modules.io.import_rawdata_all.AdvancedSpectraImportParameters;
+import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.MsProcessor;
+import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.MsProcessorList;
+import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.ScanImportProcessorConfig;
+import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.processors.MassDetectorMsProcessor;
+import io.github.mzmine.modules.io.import_rawdata_all.spectral_processor.processors.SortByMzMsProcessor;
+import io.github.mzmine.modules.io.import_rawdata_mzml.msdk.data.BuildingMzMLMsScan;
+import io.github.mzmine.modules.io.import_rawdata_mzml.msdk.data.MzMLRawDataFile;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.selectors.ScanSelection;
+import java.io.File;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+
+class MSDKmzMLImportTaskTest {
+
+  private static final String PROFILE_FILE = "rawdatafiles/additional/gc_orbi_profile_21scans.mzML";
+
+  @Test
+  void testParallelDecodingKeepsScansAndOrder() throws Exception {
+    final ScanImportProcessorConfig config = createMassDetectionConfig();
+    final List<BuildingMzMLMsScan> sequential = parse(config, Runnable::run);
+
+    final ExecutorService decoder = Executors.newFixedThreadPool(4);
+    try {
+      // repeat to give the decoder threads a chance to finish out of order
+      for (int i = 0; i < 5; i++) {
+        assertSameScans(sequential, parse(config, decoder));
+      }
+    } finally {
+      decoder.shutdownNow();
+    }
+    // default shared decoder
+    assertSameScans(sequential, parse(config, null));
+  }
+
+  private static void assertSameScans(final List<BuildingMzMLMsScan> expected,
+      final List<BuildingMzMLMsScan> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      final BuildingMzMLMsScan a = expected.get(i);
+      final BuildingMzMLMsScan b = actual.get(i);
+      assertEquals(a.getId(), b.getId());
+      assertEquals(a.getScanNumber(), b.getScanNumber());
+      assertEquals(a.getMSLevel(), b.getMSLevel());
+      assertEquals(a.getRetentionTime(), b.getRetentionTime());
+      assertEquals(a.getSpectrumType(), b.getSpectrumType());
+
+      final int n = a.getNumberOfDataPoints();
+      assertEquals(n, b.getNumberOfDataPoints());
+      assertArrayEquals(a.getMzValues(new double[n]), b.getMzValues(new double[n]));
+      assertArrayEquals(a.getIntensityValues(new double[n]), b.getIntensityValues(new double[n]));
+    }
+  }
+
+  private static List<BuildingMzMLMsScan> parse(final ScanImportProcessorConfig config,
+      final @Nullable Executor decoder) throws MSDKException {
+    final File file = new File(
+        MSDKmzMLImportTaskTest.class.getClassLoader().getResource(PROFILE_FILE).getFile());
+    final MSDKmzMLImportTask task = new MSDKmzMLImportTask(null, file, config,
+        MSDKmzMLImportModule.class, new MSDKmzMLImportParameters(), Instant.now(), null);
+    final MzMLRawDataFile parsed = task.parseMzMl(decoder);
+    assertNotNull(parsed);
+    final List<BuildingMzMLMsScan> scans = parsed.getMsScans();
+    assertTrue(scans.size() > 1);
+    return scans;
+  }
+
+  /**
+   * Profile data needs real processing work per spectrum, so mass detection is applied on import.
+   */
+  private static @NotNull ScanImportProcessorConfig createMassDetectionConfig() {
+    final ParameterSet advanced = new AdvancedSpectraImportParameters().cloneParameterSet();
+    advanced.setParameter(AdvancedSpectraImportParameters.msMassDetection, true);
+    final ParameterSet mdParam = MassDetectors.FACTOR_OF_LOWEST.getModuleParameters()
+        .cloneParameterSet();
+    mdParam.setParameter(FactorOfLowestMassDetectorParameters.noiseFactor, 2d);
+    advanced.getParameter(AdvancedSpectraImportParameters.msMassDetection).getEmbeddedParameter()
+        .setValue(MassDetectors.FACTOR_OF_LOWEST, mdParam);
+
+    final List<MsProcessor> processors = List.of(new SortByMzMsProcessor(),
+        new MassDetectorMsProcessor(advanced));
+    return new ScanImportProcessorConfig(ScanSelection.ALL_SCANS, new MsProcessorList(processors));
+  }
+}
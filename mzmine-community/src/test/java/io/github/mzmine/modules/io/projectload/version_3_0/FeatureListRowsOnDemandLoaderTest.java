@@ -0,0 +1,135 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.io.projectload.version_3_0;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureList;
+import io.github.mzmine.datamodel.features.ModularFeatureListRow;
+import io.github.mzmine.datamodel.features.columnar_data.ColumnarModularDataModelSchema;
+import io.github.mzmine.gui.preferences.MZminePreferences;
+import io.github.mzmine.main.ConfigService;
+import io.github.mzmine.modules.io.projectload.ProjectLoaderParameters;
+import io.github.mzmine.modules.io.projectload.ProjectOpeningTask;
+import io.github.mzmine.modules.io.projectsave.FeatureListSaveTask;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.project.ProjectService;
+import java.io.File;
+import java.io.StringWriter;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import testutils.MZmineTestUtil;
+
+@TestInstance(Lifecycle.PER_CLASS)
+@DisabledOnOs(OS.MAC)
+class FeatureListRowsOnDemandLoaderTest {
+
+  @BeforeAll
+  void init() {
+    MZmineTestUtil.startMzmineCore();
+    ConfigService.getPreferences().setParameter(MZminePreferences.loadFeatureListsOnDemand, true);
+  }
+
+  @AfterAll
+  void tearDown() {
+    ConfigService.getPreferences().setParameter(MZminePreferences.loadFeatureListsOnDemand, false);
+    MZmineTestUtil.cleanProject();
+  }
+
+  /**
+   * Serializes the rows like the project saving without changing the modification stamp
+   */
+  private static String serializeRows(ModularFeatureList flist) {
+    return ColumnarModularDataModelSchema.withUntrackedReads(() -> {
+      final StringWriter out = new StringWriter();
+      try {
+        final XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+        writer.writeStartElement("rows");
+        for (ModularFeatureListRow row : flist.modularStream().toList()) {
+          FeatureListSaveTask.writeRow(writer, flist, row);
+        }
+        writer.writeEndElement();
+        writer.flush();
+      } catch (XMLStreamException e) {
+        throw new IllegalStateException(e);
+      }
+      return out.toString();
+    });
+  }
+
+  @Test
+  void loadingAfterUnloadingGivesSameRows() {
+    final ParameterSet param = new ProjectLoaderParameters().cloneParameterSet();
+    param.setParameter(ProjectLoaderParameters.projectFile, new File(
+        ProjectLoaderParameters.class.getClassLoader().getResource("rawdatafiles/dom_test.mzmine")
+            .getFile()));
+    new ProjectOpeningTask(param, Instant.now()).run();
+
+    final List<FeatureList> flists = ProjectService.getProject().getCurrentFeatureLists();
+    final Map<ModularFeatureList, String> loadedRows = new HashMap<>();
+    for (FeatureList flist : flists) {
+      final ModularFeatureList modular = (ModularFeatureList) flist;
+      assertFalse(modular.isRowsLoaded(), modular.getName());
+      loadedRows.put(modular, serializeRows(modular));
+      assertTrue(modular.isRowsLoaded(), modular.getName());
+    }
+
+    // rows that were accessed since the last attempt are kept
+    FeatureListRowsOnDemandLoader.unloadFeatureLists();
+    flists.forEach(flist -> assertTrue(((ModularFeatureList) flist).isRowsLoaded()));
+    FeatureListRowsOnDemandLoader.unloadFeatureLists();
+
+    int unloaded = 0;
+    for (var entry : loadedRows.entrySet()) {
+      final ModularFeatureList flist = entry.getKey();
+      if (flist.isRowsLoaded()) {
+        // feature lists with row relationships or changes after loading are kept
+        continue;
+      }
+      unloaded++;
+      assertEquals(entry.getValue(), serializeRows(flist), flist.getName());
+      assertTrue(flist.isRowsLoaded());
+    }
+    assertTrue(unloaded > 0);
+
+    ProjectService.getProjectManager().clearProject();
+  }
+}
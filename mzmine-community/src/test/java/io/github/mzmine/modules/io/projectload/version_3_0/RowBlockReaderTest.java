@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.modules.io.projectload.version_3_0;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.modules.io.projectload.version_3_0.FeatureListRowsOnDemandLoader.RowBlock;
+import io.github.mzmine.modules.io.projectload.version_3_0.FeatureListRowsOnDemandLoader.RowBlockReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.XMLEvent;
+import org.junit.jupiter.api.Test;
+
+class RowBlockReaderTest {
+
+  private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>"
+      + "<featurelist name=\"&lt;row list\" rows=\"3\">";
+  private static final String FOOTER = "</featurelist>";
+
+  private static String row(int id, int padding) {
+    // escaped start tags in text must not split the rows
+    return "<row id=\"" + id + "\"><comment>&lt;row " + "x".repeat(padding)
+        + "</comment></row>";
+  }
+
+  private static List<RowBlock> readBlocks(String xml) throws IOException {
+    final RowBlockReader reader = new RowBlockReader(
+        new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)));
+    final List<RowBlock> blocks = new ArrayList<>();
+    RowBlock block;
+    while ((block = reader.next()) != null) {
+      blocks.add(block);
+    }
+    assertNull(reader.next());
+    assertEquals(blocks.stream().mapToInt(RowBlock::numRows).sum(), reader.getNumberOfRows());
+    return blocks;
+  }
+
+  /**
+   * Parses a block like the loader
+   *
+   * @return the ids of the rows in the block
+   */
+  private static List<Integer> parseIds(RowBlock block) throws XMLStreamException {
+    final InputStream is = new SequenceInputStream(
+        new ByteArrayInputStream("<rows>".getBytes(StandardCharsets.UTF_8)),
+        new ByteArrayInputStream(block.data(), 0, block.length()));
+    final XMLStreamReader reader = XMLInputFactory.newInstance()
+        .createXMLStreamReader(is, StandardCharsets.UTF_8.name());
+    final List<Integer> ids = new ArrayList<>();
+    while (ids.size() < block.numRows() && reader.hasNext()) {
+      if (reader.next() == XMLEvent.START_ELEMENT && "row".equals(reader.getLocalName())) {
+        ids.add(Integer.parseInt(reader.getAttributeValue(null, "id")));
+      }
+    }
+    return ids;
+  }
+
+  private static void assertBlocks(List<RowBlock> blocks, int numRows)
+      throws XMLStreamException {
+    int nextId = 0;
+    for (RowBlock block : blocks) {
+      assertEquals(nextId, block.firstRow());
+      assertTrue(block.numRows() <= FeatureListRowsOnDemandLoader.ROWS_PER_BLOCK);
+      assertTrue(new String(block.data(), 0, block.length(), StandardCharsets.UTF_8).startsWith(
+          "<row "));
+      final List<Integer> ids = parseIds(block);
+      assertEquals(block.numRows(), ids.size());
+      for (int id : ids) {
+        assertEquals(nextId++, id);
+      }
+    }
+    assertEquals(numRows, nextId);
+  }
+
+  @Test
+  void testBlockBoundaries() throws Exception {
+    final int numRows = 2 * FeatureListRowsOnDemandLoader.ROWS_PER_BLOCK + 50;
+    final StringBuilder xml = new StringBuilder(HEADER);
+    for (int i = 0; i < numRows; i++) {
+      // rows of different length, so start tags also span the read buffer
+      xml.append(row(i, (i * 37) % 700));
+    }
+    xml.append(FOOTER);
+
+    final List<RowBlock> blocks = readBlocks(xml.toString());
+    assertEquals(3, blocks.size());
+    assertEquals(FeatureListRowsOnDemandLoader.ROWS_PER_BLOCK, blocks.get(0).numRows());
+    assertEquals(FeatureListRowsOnDemandLoader.ROWS_PER_BLOCK, blocks.get(1).numRows());
+    assertEquals(50, blocks.get(2).numRows());
+    assertBlocks(blocks, numRows);
+  }
+
+  @Test
+  void testStartTagAcrossReadBuffer() throws Exception {
+    // the read buffer holds 1 << 16 bytes, split every part of the start tag of the second row
+    for (int split = 1; split < 5; split++) {
+      final String first = row(0, 0);
+      final int padding = (1 << 16) - split - HEADER.length() - first.length();
+      final String xml = HEADER + row(0, padding) + row(1, 10) + row(2, 10) + FOOTER;
+      assertEquals((1 << 16) - split, xml.indexOf("<row id=\"1\""));
+
+      final List<RowBlock> blocks = readBlocks(xml);
+      assertEquals(1, blocks.size());
+      assertEquals(3, blocks.getFirst().numRows());
+      assertBlocks(blocks, 3);
+    }
+  }
+
+  @Test
+  void testNoRows() throws Exception {
+    assertTrue(readBlocks(HEADER + FOOTER).isEmpty());
+    assertTrue(readBlocks("").isEmpty());
+  }
+
+  @Test
+  void testExactlyOneBlock() throws Exception {
+    final StringBuilder xml = new StringBuilder(HEADER);
+    for (int i = 0; i < FeatureListRowsOnDemandLoader.ROWS_PER_BLOCK; i++) {
+      xml.append(row(i, 5));
+    }
+    xml.append(FOOTER);
+    final List<RowBlock> blocks = readBlocks(xml.toString());
+    assertEquals(1, blocks.size());
+    assertBlocks(blocks, FeatureListRowsOnDemandLoader.ROWS_PER_BLOCK);
+  }
+}
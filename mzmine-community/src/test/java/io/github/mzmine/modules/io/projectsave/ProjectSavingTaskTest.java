@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.modules.io.projectsave;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import io.github.mzmine.datamodel.MZmineProject;
+import io.github.mzmine.datamodel.features.FeatureList;
+import io.github.mzmine.datamodel.features.compoundannotations.SimpleCompoundDBAnnotation;
+import io.github.mzmine.modules.io.projectload.ProjectLoaderParameters;
+import io.github.mzmine.modules.io.projectload.ProjectOpeningTask;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.project.ProjectService;
+import io.github.mzmine.taskcontrol.TaskStatus;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipFile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+import testutils.MZmineTestUtil;
+
+@TestInstance(Lifecycle.PER_CLASS)
+@DisabledOnOs(OS.MAC)
+class ProjectSavingTaskTest {
+
+  @TempDir
+  File tempDir;
+
+  @BeforeAll
+  void init() {
+    MZmineTestUtil.startMzmineCore();
+  }
+
+  @AfterAll
+  void tearDown() {
+    MZmineTestUtil.cleanProject();
+  }
+
+  private static void openProject(File file) {
+    final ParameterSet param = new ProjectLoaderParameters().cloneParameterSet();
+    param.setParameter(ProjectLoaderParameters.projectFile, file);
+    new ProjectOpeningTask(param, Instant.now()).run();
+  }
+
+  private static ProjectSavingTask saveProject(MZmineProject project, File file) {
+    final ParameterSet param = new ProjectSaveAsParameters().cloneParameterSet();
+    param.setParameter(ProjectSaveAsParameters.projectFile, file);
+    param.setParameter(ProjectSaveAsParameters.option, ProjectSaveOption.REFERENCING);
+    final ProjectSavingTask task = new ProjectSavingTask(project, param, Instant.now());
+    task.run();
+    assertEquals(TaskStatus.FINISHED, task.getStatus(), task.getErrorMessage());
+    return task;
+  }
+
+  private static long compressedSize(File project, String entry) throws IOException {
+    try (ZipFile zip = new ZipFile(project)) {
+      return zip.getEntry(entry).getCompressedSize();
+    }
+  }
+
+  @Test
+  void testIncrementalSave() throws IOException {
+    openProject(new File(ProjectLoaderParameters.class.getClassLoader()
+        .getResource("rawdatafiles/dom_test.mzmine").getFile()));
+    final MZmineProject project = ProjectService.getProject();
+    final List<FeatureList> flists = project.getCurrentFeatureLists();
+    final int numLists = flists.size();
+    final File file = new File(tempDir, "incremental.mzmine");
+
+    // first save serializes all feature lists
+    assertEquals(0, saveProject(project, file).getReusedFeatureLists());
+
+    // nothing changed, all entries are copied without recompression
+    final FeatureList unchanged = flists.getFirst();
+    final String unchangedEntry = FeatureListSaveTask.getDataFileName(unchanged.getName());
+    final long unchangedSize = compressedSize(file, unchangedEntry);
+    assertEquals(numLists, saveProject(project, file).getReusedFeatureLists());
+    assertEquals(unchangedSize, compressedSize(file, unchangedEntry));
+
+    // changed rows and a renamed feature list are serialized again
+    final FeatureList modified = flists.getLast();
+    modified.getRow(0).setComment("changed after the first save");
+    assertEquals(numLists - 1, saveProject(project, file).getReusedFeatureLists());
+    final FeatureList renamed = flists.get(numLists / 2);
+    renamed.setName(renamed.getName() + " renamed");
+    assertEquals(numLists - 2, saveProject(project, file).getReusedFeatureLists());
+
+    // values that may be changed in place without setting them again are saved again after reading
+    final FeatureList inPlace = flists.getFirst();
+    inPlace.getRow(0).setCompoundAnnotations(new ArrayList<>());
+    assertEquals(numLists - 1, saveProject(project, file).getReusedFeatureLists());
+    inPlace.getRow(0).getCompoundAnnotations().add(new SimpleCompoundDBAnnotation("C6H12O6"));
+    assertEquals(numLists - 1, saveProject(project, file).getReusedFeatureLists());
+    assertEquals(numLists, saveProject(project, file).getReusedFeatureLists());
+    final String inPlaceName = inPlace.getName();
+    final int inPlaceRowId = inPlace.getRow(0).getID();
+
+    final Map<String, Integer> rowsPerList = new HashMap<>();
+    flists.forEach(flist -> rowsPerList.put(flist.getName(), flist.getNumberOfRows()));
+    final String modifiedName = modified.getName();
+    final int modifiedRowId = modified.getRow(0).getID();
+
+    // the incrementally saved project contains all feature lists and the change
+    ProjectService.getProjectManager().clearProject();
+    openProject(file);
+    final MZmineProject loaded = ProjectService.getProject();
+    assertEquals(numLists, loaded.getCurrentFeatureLists().size());
+    rowsPerList.forEach((name, rows) -> {
+      final FeatureList flist = loaded.getFeatureList(name);
+      assertNotNull(flist, name);
+      assertEquals(rows, flist.getNumberOfRows(), name);
+    });
+    assertEquals("changed after the first save",
+        loaded.getFeatureList(modifiedName).findRowByID(modifiedRowId).getComment());
+    assertEquals(1, loaded.getFeatureList(inPlaceName).findRowByID(inPlaceRowId)
+        .getCompoundAnnotations().size());
+
+    ProjectService.getProjectManager().clearProject();
+    ProjectService.getProject().clearSpectralLibrary();
+  }
+}
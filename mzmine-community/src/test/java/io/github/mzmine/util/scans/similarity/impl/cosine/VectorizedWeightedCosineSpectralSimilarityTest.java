@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.scans.similarity.impl.cosine;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import io.github.mzmine.datamodel.DataPoint;
+import io.github.mzmine.datamodel.impl.SimpleDataPoint;
+import io.github.mzmine.modules.dataprocessing.group_spectral_networking.modified_cosine.ModifiedCosineSpectralNetworkingTask;
+import io.github.mzmine.parameters.ParameterSet;
+import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.scans.ScanAlignment;
+import io.github.mzmine.util.scans.similarity.HandleUnmatchedSignalOptions;
+import io.github.mzmine.util.scans.similarity.SpectralSimilarity;
+import io.github.mzmine.util.scans.similarity.Weights;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class VectorizedWeightedCosineSpectralSimilarityTest {
+
+  /**
+   * The vectorized dot products sum in a different order (and with fused multiply adds if the
+   * vector kernel is used) than the scalar implementation, so scores are not bit identical. The
+   * relative rounding error of a sum of n products is below n * 2^-53, far below this tolerance for
+   * spectra of a few hundred signals.
+   */
+  private static final double SCORE_TOLERANCE = 1e-9;
+
+  private final Random random = new Random(7);
+
+  /**
+   * Random spectrum with many equal intensities. Some signals are shifted copies of the base m/z
+   * values to create matches.
+   */
+  private DataPoint[] createSpectrum(int n, DataPoint[] base) {
+    final DataPoint[] dps = new DataPoint[n];
+    for (int i = 0; i < n; i++) {
+      final double mz = base != null && random.nextBoolean() ? base[random.nextInt(
+          base.length)].getMZ() + random.nextGaussian() * 0.003 : 50 + random.nextDouble() * 500;
+      final double intensity = 1 + random.nextInt(200) * 10d;
+      dps[i] = new SimpleDataPoint(mz, intensity);
+    }
+    return dps;
+  }
+
+  @Test
+  void testSameAsWeightedCosine() {
+    final MZTolerance mzTol = new MZTolerance(0.005, 10);
+    final ParameterSet parameters = new WeightedCosineSpectralSimilarityParameters();
+    parameters.setParameter(WeightedCosineSpectralSimilarityParameters.minCosine, 0.2);
+
+    for (Weights weights : Weights.VALUES) {
+      for (HandleUnmatchedSignalOptions handleUnmatched : HandleUnmatchedSignalOptions.values()) {
+        parameters.setParameter(WeightedCosineSpectralSimilarityParameters.weight, weights);
+        parameters.setParameter(WeightedCosineSpectralSimilarityParameters.handleUnmatched,
+            handleUnmatched);
+        final var expectedFunction = new WeightedCosineSpectralSimilarity(parameters);
+        final var function = new VectorizedWeightedCosineSpectralSimilarity(parameters);
+
+        for (int i = 0; i < 200; i++) {
+          final DataPoint[] library = createSpectrum(1 + random.nextInt(60), null);
+          final DataPoint[] query = createSpectrum(1 + random.nextInt(60), library);
+          final int minMatch = random.nextInt(4);
+
+          final SpectralSimilarity expected = expectedFunction.getSimilarity(mzTol, minMatch,
+              library.clone(), query.clone());
+          final SpectralSimilarity actual = function.getSimilarity(mzTol, minMatch, library,
+              query);
+          final SpectralSimilarity prepared = function.getSimilarity(mzTol, minMatch,
+              function.prepare(library), function.prepare(query));
+          if (expected == null) {
+            assertNull(actual);
+            assertNull(prepared);
+            continue;
+          }
+          assertNotNull(actual);
+          assertNotNull(prepared);
+          assertEquals(expected.getScore(), actual.getScore(), SCORE_TOLERANCE);
+          assertEquals(expected.getOverlap(), actual.getOverlap());
+          assertEquals(expected.getExplainedLibraryIntensity(),
+              actual.getExplainedLibraryIntensity(), SCORE_TOLERANCE);
+          assertEquals(expected.getScore(), prepared.getScore(), SCORE_TOLERANCE);
+          assertEquals(expected.getOverlap(), prepared.getOverlap());
+          assertEquals(expected.getExplainedLibraryIntensity(),
+              prepared.getExplainedLibraryIntensity(), SCORE_TOLERANCE);
+        }
+      }
+    }
+  }
+
+  /**
+   * Same aligned data points including the unmatched signals and their order
+   */
+  @Test
+  void testSameAlignedDataPoints() {
+    final MZTolerance mzTol = new MZTolerance(0.005, 10);
+    for (HandleUnmatchedSignalOptions handleUnmatched : HandleUnmatchedSignalOptions.values()) {
+      final var function = new VectorizedWeightedCosineSpectralSimilarity(Weights.SQRT, 0,
+          handleUnmatched);
+      for (int i = 0; i < 100; i++) {
+        final DataPoint[] library = createSpectrum(1 + random.nextInt(60), null);
+        final DataPoint[] query = createSpectrum(1 + random.nextInt(60), library);
+
+        final List<DataPoint[]> expected = handleUnmatched.handleUnmatched(
+            ScanAlignment.align(mzTol, library.clone(), query.clone()));
+        final List<DataPoint[]> actual = function.alignDataPoints(mzTol, library, query);
+        assertEquals(expected.size(), actual.size());
+        for (int j = 0; j < expected.size(); j++) {
+          assertSame(expected.get(j)[0], actual.get(j)[0]);
+          assertSame(expected.get(j)[1], actual.get(j)[1]);
+        }
+      }
+    }
+  }
+
+  @Test
+  void testSameAsModifiedCosine() {
+    final MZTolerance mzTol = new MZTolerance(0.005, 10);
+    for (int i = 0; i < 500; i++) {
+      final DataPoint[] a = createSpectrum(1 + random.nextInt(60), null);
+      final double precursorA = 300 + random.nextDouble() * 200;
+      // no precursors for some pairs
+      final double precursorB = random.nextInt(10) == 0 ? -1
+          : precursorA + random.nextInt(3) * 14.01565 - 15.9949;
+      // direct and shifted copies of signals in a
+      final DataPoint[] b = createSpectrum(1 + random.nextInt(60), a);
+      for (int j = 0; precursorB > 0 && j < b.length; j += 3) {
+        b[j] = new SimpleDataPoint(a[random.nextInt(a.length)].getMZ() - precursorA + precursorB,
+            b[j].getIntensity());
+      }
+      final int minMatch = random.nextInt(4);
+
+      final DataPoint[] sortedA = a.clone();
+      final DataPoint[] sortedB = b.clone();
+      Arrays.sort(sortedA, ScanAlignment.sorter);
+      Arrays.sort(sortedB, ScanAlignment.sorter);
+      final var expected = ModifiedCosineSpectralNetworkingTask.createMS2SimModificationAware(
+          mzTol, Weights.SQRT, sortedA, sortedB, minMatch,
+          ModifiedCosineSpectralNetworkingTask.SIZE_OVERLAP, precursorA, precursorB);
+      final var actual = VectorizedWeightedCosineSpectralSimilarity.getModifiedCosine(mzTol,
+          minMatch, VectorizedWeightedCosineSpectralSimilarity.prepare(a, Weights.SQRT),
+          VectorizedWeightedCosineSpectralSimilarity.prepare(b, Weights.SQRT), precursorA,
+          precursorB);
+      if (expected == null) {
+        assertNull(actual);
+        continue;
+      }
+      assertNotNull(actual);
+      assertEquals(expected.cosine(), actual.cosine(), SCORE_TOLERANCE);
+      assertEquals(expected.overlap(), actual.overlap());
+      assertEquals(expected.sizeA(), actual.sizeA());
+      assertEquals(expected.sizeB(), actual.sizeB());
+      assertEquals(expected.explainedIntensityA(), actual.explainedIntensityA(), SCORE_TOLERANCE);
+      assertEquals(expected.explainedIntensityB(), actual.explainedIntensityB(), SCORE_TOLERANCE);
+    }
+  }
+
+  @Test
+  void testMatchesMostIntenseSignalFirst() {
+    final MZTolerance mzTol = new MZTolerance(0.01, 0);
+    final var function = new VectorizedWeightedCosineSpectralSimilarity(Weights.NONE, 0,
+        HandleUnmatchedSignalOptions.KEEP_ALL_AND_MATCH_TO_ZERO);
+    final DataPoint[] library = {new SimpleDataPoint(100, 10), new SimpleDataPoint(100.008, 100)};
+    final DataPoint[] query = {new SimpleDataPoint(100.004, 50), new SimpleDataPoint(100.015, 5)};
+
+    // the more intense library signal takes the more intense query signal although the first
+    // library signal in m/z order is closer, the remaining library signal stays unmatched
+    final SpectralSimilarity similarity = function.getSimilarity(mzTol, 1, library, query);
+    assertNotNull(similarity);
+    assertEquals(1, similarity.getOverlap());
+    final double expected = (100 * 50) / (Math.sqrt(100 * 100 + 10 * 10) * Math.sqrt(
+        50 * 50 + 5 * 5));
+    assertEquals(expected, similarity.getScore(), 1e-12);
+  }
+
+  /**
+   * Same dot products with the vector kernel (tests run with -PvectorApi) and the scalar fallback
+   */
+  @Test
+  void testDotProductsMatchScalar() {
+    for (int length : new int[]{0, 1, 3, 8, 17, 100, 1001}) {
+      final double[] x = random.doubles(length + 5).toArray();
+      final double[] y = random.doubles(length + 5).toArray();
+      final double expected = DotProducts.scalarDot(x, y, length);
+      assertEquals(expected, DotProducts.dot(x, y, length), 1e-9 * (1 + expected));
+      assertEquals(DotProducts.scalarDot(x, x, length), DotProducts.squaredNorm(x, length),
+          1e-9 * (1 + expected));
+    }
+  }
+}
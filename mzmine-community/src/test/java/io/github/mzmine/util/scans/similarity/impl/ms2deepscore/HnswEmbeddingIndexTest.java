@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package io.github.mzmine.util.scans.similarity.impl.ms2deepscore;
+
+import static io.github.mzmine.modules.dataprocessing.group_spectral_networking.dreams.DreaMSNetworkingTask.toKNNMatrix;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.github.mzmine.util.scans.similarity.impl.ms2deepscore.HnswEmbeddingIndex.Neighbor;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class HnswEmbeddingIndexTest {
+
+  /**
+   * Normalized embeddings around a number of cluster centers
+   */
+  private static float[][] createEmbeddings(int n, int dimensions, int clusters, long seed) {
+    final Random random = new Random(seed);
+    final float[][] centers = new float[clusters][dimensions];
+    for (float[] center : centers) {
+      for (int i = 0; i < dimensions; i++) {
+        center[i] = (float) random.nextGaussian();
+      }
+    }
+    final float[][] embeddings = new float[n][dimensions];
+    for (float[] embedding : embeddings) {
+      final float[] center = centers[random.nextInt(clusters)];
+      double norm = 0;
+      for (int i = 0; i < dimensions; i++) {
+        embedding[i] = center[i] + (float) (random.nextGaussian() * 0.7);
+        norm += embedding[i] * embedding[i];
+      }
+      for (int i = 0; i < dimensions; i++) {
+        embedding[i] = (float) (embedding[i] / Math.sqrt(norm));
+      }
+    }
+    return embeddings;
+  }
+
+  @Test
+  void testExactNeighborsMatchKNNMatrix() {
+    final float[][] embeddings = createEmbeddings(80, 16, 5, 1);
+    final HnswEmbeddingIndex index = new HnswEmbeddingIndex(embeddings);
+    assertFalse(index.isApproximate());
+
+    final int n = embeddings.length;
+    final float[][] matrix = new float[n][n];
+    for (int i = 0; i < n; i++) {
+      for (int j = 0; j < n; j++) {
+        matrix[i][j] = HnswEmbeddingIndex.similarity(embeddings[i], embeddings[j]);
+      }
+    }
+    final float[][] knnMatrix = toKNNMatrix(matrix, 3, 0.8);
+
+    final float[][] fromIndex = new float[n][n];
+    for (int i = 0; i < n; i++) {
+      fromIndex[i][i] = matrix[i][i];
+      for (Neighbor neighbor : index.searchNeighbors(i, 3, 0.8)) {
+        fromIndex[i][neighbor.index()] = neighbor.similarity();
+        fromIndex[neighbor.index()][i] = neighbor.similarity();
+      }
+    }
+    assertArrayEquals(knnMatrix, fromIndex);
+  }
+
+  @Test
+  void testApproximateSearch() {
+    final float[][] embeddings = createEmbeddings(3000, 32, 150, 2);
+    final HnswEmbeddingIndex index = new HnswEmbeddingIndex(embeddings,
+        HnswEmbeddingIndex.DEFAULT_M, HnswEmbeddingIndex.DEFAULT_EF_CONSTRUCTION, 42, true);
+    assertTrue(index.isApproximate());
+
+    final double recall = index.estimateRecall(10, HnswEmbeddingIndex.DEFAULT_EF_SEARCH, 200, 3);
+    assertTrue(recall >= 0.95, "recall@10 was " + recall);
+
+    // results are sorted and exclude the query
+    final Neighbor[] neighbors = index.searchNeighbors(7, 5, 0.9);
+    assertTrue(neighbors.length >= 5);
+    for (int i = 0; i < neighbors.length; i++) {
+      assertTrue(neighbors[i].index() != 7);
+      assertTrue(i < 5 || neighbors[i].similarity() > 0.9);
+      if (i > 0) {
+        assertTrue(neighbors[i - 1].similarity() >= neighbors[i].similarity());
+      }
+    }
+
+    // the batched construction is reproducible
+    final HnswEmbeddingIndex other = new HnswEmbeddingIndex(embeddings,
+        HnswEmbeddingIndex.DEFAULT_M, HnswEmbeddingIndex.DEFAULT_EF_CONSTRUCTION, 42, true);
+    for (int i = 0; i < 20; i++) {
+      assertArrayEquals(index.search(embeddings[i], 10), other.search(embeddings[i], 10));
+    }
+    assertEquals(index.searchExact(embeddings[3], 1)[0].index(), 3);
+  }
+
+  @Test
+  void testEqualSimilaritiesAreOrderedByIndex() {
+    // every embedding is contained three times
+    final float[][] distinct = createEmbeddings(400, 16, 20, 4);
+    final float[][] embeddings = new float[distinct.length * 3][];
+    for (int i = 0; i < embeddings.length; i++) {
+      embeddings[i] = distinct[i % distinct.length];
+    }
+    final HnswEmbeddingIndex index = new HnswEmbeddingIndex(embeddings,
+        HnswEmbeddingIndex.DEFAULT_M, HnswEmbeddingIndex.DEFAULT_EF_CONSTRUCTION, 42, true);
+    assertTrue(index.isApproximate());
+
+    for (int query = 0; query < embeddings.length; query++) {
+      final int i = query;
+      final int first = i % distinct.length;
+      final int[] copies = {first, first + distinct.length, first + 2 * distinct.length};
+      final Neighbor[] neighbors = index.search(embeddings[i], 3);
+      assertArrayEquals(index.searchExact(embeddings[i], 3), neighbors);
+      assertArrayEquals(copies, Arrays.stream(neighbors).mapToInt(Neighbor::index).toArray());
+
+      final int[] others = Arrays.stream(copies).filter(copy -> copy != i).toArray();
+      assertArrayEquals(others,
+          Arrays.stream(index.searchNeighbors(i, 2, 2)).mapToInt(Neighbor::index).toArray());
+    }
+  }
+
+  @Test
+  void testThresholdSearchKeepsDenseClusters() {
+    // one dense cluster with more similar embeddings than any fixed candidate list size
+    final int n = 6000;
+    final float[][] embeddings = createEmbeddings(n, 8, 1, 5);
+    final HnswEmbeddingIndex index = new HnswEmbeddingIndex(embeddings,
+        HnswEmbeddingIndex.DEFAULT_M, HnswEmbeddingIndex.DEFAULT_EF_CONSTRUCTION, 42, true);
+    assertTrue(index.isApproximate());
+
+    for (double minSimilarity : new double[]{-2, 0.5}) {
+      final long expected = Arrays.stream(index.searchExact(embeddings[0], n))
+          .filter(nb -> nb.index() != 0 && nb.similarity() > minSimilarity).count();
+      assertTrue(expected > 2048);
+      final Neighbor[] neighbors = index.searchNeighbors(0, 5, minSimilarity);
+      assertEquals(expected, neighbors.length);
+      for (Neighbor neighbor : neighbors) {
+        assertTrue(neighbor.similarity() > minSimilarity);
+      }
+    }
+    // more neighbors are always retained
+    assertEquals(n - 1, index.searchNeighbors(0, n, -2).length);
+  }
+
+}
@@ -25,11 +25,25 @@
 
 package util;
 
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeMap;
+import com.google.common.collect.TreeRangeMap;
 import io.github.mzmine.datamodel.impl.masslist.SimpleMassList;
 import io.github.mzmine.parameters.parametertypes.tolerances.MZTolerance;
+import io.github.mzmine.util.DataPointSorter;
+import io.github.mzmine.util.SortingDirection;
+import io.github.mzmine.util.SortingProperty;
+import io.github.mzmine.util.scans.IndexedDataPoint;
 import io.github.mzmine.util.scans.SpectraMerging;
 import io.github.mzmine.util.scans.SpectraMerging.IntensityMergingType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
@@ -107,4 +121,186 @@ public class SpectraMergingTest {
     Assertions.assertEquals(25d, mzsIntensities[1][2]);
   }
 
+  @Test
+  void testMerge_OnePeakPerSpectrum() {
+
+    final SimpleMassList ml1 = new SimpleMassList(null, new double[]{100.000, 100.004},
+        new double[]{50, 20});
+    final SimpleMassList ml2 = new SimpleMassList(null, new double[]{100.002},
+        new double[]{30});
+    final double[][] mzsIntensities = SpectraMerging.calculatedMergedMzsAndIntensities(
+        List.of(ml1, ml2), new MZTolerance(0.01, 10), IntensityMergingType.SUMMED,
+        SpectraMerging.DEFAULT_CENTER_FUNCTION, null, null, null);
+
+    // the less intense peak of the first spectrum is not merged into the same peak
+    Assertions.assertEquals(1, mzsIntensities[0].length);
+    Assertions.assertEquals((100.000 * 50 + 100.002 * 30) / 80, mzsIntensities[0][0], 1E-9);
+    Assertions.assertEquals(80d, mzsIntensities[1][0]);
+  }
+
+  @Test
+  void testMerge_NoiseLevelsAndMinPeaks() {
+
+    final SimpleMassList ml1 = new SimpleMassList(null, new double[]{100, 200},
+        new double[]{50, 5});
+    final SimpleMassList ml2 = new SimpleMassList(null, new double[]{100, 300},
+        new double[]{30, 40});
+    double[][] mzsIntensities = SpectraMerging.calculatedMergedMzsAndIntensities(
+        List.of(ml1, ml2), new MZTolerance(0.01, 10), IntensityMergingType.SUMMED,
+        SpectraMerging.DEFAULT_CENTER_FUNCTION, 10d, null, 2);
+
+    Assertions.assertEquals(1, mzsIntensities[0].length);
+    Assertions.assertEquals(100d, mzsIntensities[0][0], 1E-9);
+    Assertions.assertEquals(80d, mzsIntensities[1][0]);
+
+    mzsIntensities = SpectraMerging.calculatedMergedMzsAndIntensities(List.of(ml1, ml2),
+        new MZTolerance(0.01, 10), IntensityMergingType.SUMMED,
+        SpectraMerging.DEFAULT_CENTER_FUNCTION, 10d, 100d, null);
+    Assertions.assertEquals(0, mzsIntensities[0].length);
+    Assertions.assertEquals(0, mzsIntensities[1].length);
+  }
+
+  @Test
+  void testMerge_SameAsRangeMapMerging() {
+    final Random random = new Random(42);
+    final IntensityMergingType[] types = IntensityMergingType.values();
+    for (int i = 0; i < 2000; i++) {
+      final MZTolerance tolerance = switch (random.nextInt(4)) {
+        case 0 -> new MZTolerance(0, 0);
+        case 1 -> new MZTolerance(random.nextDouble() * 0.02, 0);
+        case 2 -> new MZTolerance(0, random.nextDouble() * 30);
+        default -> new MZTolerance(random.nextDouble() * 0.02, random.nextDouble() * 30);
+      };
+      final List<SimpleMassList> spectra = randomSpectra(random, tolerance);
+      final IntensityMergingType type = types[random.nextInt(types.length)];
+      final Double inputNoiseLevel = random.nextInt(3) == 0 ? 10d : null;
+      final Double outputNoiseLevel = random.nextInt(3) == 0 ? 50d : null;
+      final Integer minNumPeaks = random.nextInt(3) == 0 ? 1 + random.nextInt(3) : null;
+
+      final double[][] expected = mergeWithRangeMap(spectra, tolerance, type, inputNoiseLevel,
+          outputNoiseLevel, minNumPeaks);
+      final double[][] mzsIntensities = SpectraMerging.calculatedMergedMzsAndIntensities(spectra,
+          tolerance, type, SpectraMerging.DEFAULT_CENTER_FUNCTION, inputNoiseLevel,
+          outputNoiseLevel, minNumPeaks);
+
+      Assertions.assertArrayEquals(expected[0], mzsIntensities[0], "mzs of case " + i);
+      Assertions.assertArrayEquals(expected[1], mzsIntensities[1], "intensities of case " + i);
+    }
+  }
+
+  /**
+   * Spectra with signals around shared masses, spread by about the tolerance. Rounded values
+   * create equal m/z values, signals on range bounds and equal intensities.
+   */
+  private static List<SimpleMassList> randomSpectra(Random random, MZTolerance tolerance) {
+    final double[] masses = new double[1 + random.nextInt(60)];
+    for (int i = 0; i < masses.length; i++) {
+      masses[i] = 50 + random.nextDouble() * 1450;
+    }
+
+    final List<SimpleMassList> spectra = new ArrayList<>();
+    final int numSpectra = 1 + random.nextInt(8);
+    for (int s = 0; s < numSpectra; s++) {
+      final int numPoints = random.nextInt(120);
+      final double[] mzs = new double[numPoints];
+      final double[] intensities = new double[numPoints];
+      for (int i = 0; i < numPoints; i++) {
+        final double mass = masses[random.nextInt(masses.length)];
+        final double spread = 2 * Math.max(tolerance.getMzToleranceForMass(mass), 0.001);
+        mzs[i] = Math.round((mass + (random.nextDouble() * 2 - 1) * spread) * 1000) / 1000d;
+        intensities[i] = 1 + random.nextInt(100);
+      }
+      Arrays.sort(mzs);
+      spectra.add(new SimpleMassList(null, mzs, intensities));
+    }
+    return spectra;
+  }
+
+  /**
+   * The previous merging on data point objects and a Guava range map as reference
+   */
+  private static double[][] mergeWithRangeMap(List<SimpleMassList> source, MZTolerance tolerance,
+      IntensityMergingType intensityMergingType, Double inputNoiseLevel, Double outputNoiseLevel,
+      Integer minNumPeaks) {
+    final List<IndexedDataPoint> dataPoints = new ArrayList<>();
+    final int numDp = source.stream().mapToInt(SimpleMassList::getNumberOfDataPoints).max()
+        .getAsInt();
+    final double[] rawMzs = new double[numDp];
+    final double[] rawIntensities = new double[numDp];
+
+    int index = 0;
+    for (SimpleMassList spectrum : source) {
+      spectrum.getMzValues(rawMzs);
+      spectrum.getIntensityValues(rawIntensities);
+
+      for (int i = 0; i < spectrum.getNumberOfDataPoints(); i++) {
+        if (inputNoiseLevel == null || rawIntensities[i] > inputNoiseLevel) {
+          dataPoints.add(new IndexedDataPoint(rawMzs[i], rawIntensities[i], index));
+        }
+      }
+      index++;
+    }
+
+    dataPoints.sort(new DataPointSorter(SortingProperty.Intensity, SortingDirection.Descending));
+
+    final RangeMap<Double, SortedSet<IndexedDataPoint>> dataPointRanges = TreeRangeMap.create();
+    for (IndexedDataPoint dp : dataPoints) {
+      SortedSet<IndexedDataPoint> dplist = dataPointRanges.get(dp.getMZ());
+      boolean containsIndex = false;
+
+      if (dplist == null) {
+        dplist = new TreeSet<>(Comparator.comparingInt(IndexedDataPoint::getIndex));
+        Range<Double> range = SpectraMerging.createNewNonOverlappingRange(dataPointRanges,
+            tolerance.getToleranceRange(dp.getMZ()));
+        dataPointRanges.put(range, dplist);
+      } else {
+        if (dp.getIndex() > dplist.first().getIndex() && dp.getIndex() < dplist.last().getIndex()) {
+          for (IndexedDataPoint indexedDataPoint : dplist) {
+            if (dp.getIndex() == indexedDataPoint.getIndex()) {
+              containsIndex = true;
+              break;
+            }
+            if (dp.getIndex() > indexedDataPoint.getIndex()) {
+              break;
+            }
+          }
+        }
+        if (containsIndex) {
+          dplist = new TreeSet<>(Comparator.comparingInt(IndexedDataPoint::getIndex));
+          Range<Double> range = SpectraMerging.createNewNonOverlappingRange(dataPointRanges,
+              tolerance.getToleranceRange(dp.getMZ()));
+          dataPointRanges.put(range, dplist);
+        }
+      }
+      dplist.add(dp);
+    }
+
+    final List<Double> newMzs = new ArrayList<>();
+    final List<Double> newIntensities = new ArrayList<>();
+    for (Entry<Range<Double>, SortedSet<IndexedDataPoint>> entry : dataPointRanges.asMapOfRanges()
+        .entrySet()) {
+      if (minNumPeaks != null && entry.getValue().size() < minNumPeaks) {
+        continue;
+      }
+
+      double[] mzs = entry.getValue().stream().mapToDouble(IndexedDataPoint::getMZ).toArray();
+      double[] intensities = entry.getValue().stream().mapToDouble(IndexedDataPoint::getIntensity)
+          .toArray();
+
+      double newMz = SpectraMerging.DEFAULT_CENTER_FUNCTION.calcCenter(mzs, intensities);
+      double newIntensity = switch (intensityMergingType) {
+        case SUMMED -> Arrays.stream(intensities).sum();
+        case MAXIMUM -> Arrays.stream(intensities).max().orElse(0d);
+        case AVERAGE -> Arrays.stream(intensities).average().orElse(0d);
+      };
+
+      if (outputNoiseLevel == null || newIntensity > outputNoiseLevel) {
+        newMzs.add(newMz);
+        newIntensities.add(newIntensity);
+      }
+    }
+
+    return new double[][]{newMzs.stream().mapToDouble(Double::doubleValue).toArray(),
+        newIntensities.stream().mapToDouble(Double::doubleValue).toArray()};
+  }
 }
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2004-2025 The mzmine Development Team
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package io.github.mzmine.util.scans.similarity.impl.cosine;
+
+import io.github.mzmine.util.scans.similarity.impl.cosine.DotProducts.DotProduct;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Dot product on the incubating vector API. Only loaded by {@link DotProducts} if the vector module
+ * is present at runtime.
+ */
+final class VectorDotProduct implements DotProduct {
+
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  @Override
+  public double dot(double[] x, double[] y, int length) {
+    final int upperBound = SPECIES.loopBound(length);
+    var sum = DoubleVector.zero(SPECIES);
+    int i = 0;
+    for (; i < upperBound; i += SPECIES.length()) {
+      final var vx = DoubleVector.fromArray(SPECIES, x, i);
+      final var vy = DoubleVector.fromArray(SPECIES, y, i);
+      sum = vx.fma(vy, sum);
+    }
+    double result = sum.reduceLanes(VectorOperators.ADD);
+    // tail
+    for (; i < length; i++) {
+      result += x[i] * y[i];
+    }
+    return result;
+  }
+}